@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.api.definitions;
+
+/**
+ * Bounds of an AQL query execution, a value of 0 means no bound
+ */
+public class QueryLimits {
+
+    private int timeout; //seconds
+    private int maxRows;
+    private long maxResultBytes;
+
+    public QueryLimits() {
+    }
+
+    public QueryLimits(int timeout, int maxRows, long maxResultBytes) {
+        this.timeout = timeout;
+        this.maxRows = maxRows;
+        this.maxResultBytes = maxResultBytes;
+    }
+
+    public static QueryLimits unlimited() {
+        return new QueryLimits();
+    }
+
+    /**
+     * @return the maximum duration of the execution in seconds, from the start of the SQL statement until the last
+     * row is fetched and transformed
+     */
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return the maximum number of rows of the result
+     */
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public void setMaxRows(int maxRows) {
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * @return the maximum size of the result, estimated from the textual size of the fetched values
+     */
+    public long getMaxResultBytes() {
+        return maxResultBytes;
+    }
+
+    public void setMaxResultBytes(long maxResultBytes) {
+        this.maxResultBytes = maxResultBytes;
+    }
+
+    public boolean isUnlimited() {
+        return timeout <= 0 && maxRows <= 0 && maxResultBytes <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "timeout:" + timeout + "s, max rows:" + maxRows + ", max result bytes:" + maxResultBytes;
+    }
+}
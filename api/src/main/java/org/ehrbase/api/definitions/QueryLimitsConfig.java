@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.api.definitions;
+
+/**
+ * Limits applied to the AQL queries, per endpoint and per stored query
+ */
+public interface QueryLimitsConfig {
+
+    /**
+     * @return the limits of the ad-hoc queries
+     */
+    QueryLimits getAdhoc();
+
+    /**
+     * @param qualifiedName the qualified name of a stored query, f.e. org.openehr::compositions
+     * @return the limits configured for this stored query, the limits of the stored queries otherwise
+     */
+    QueryLimits getStoredQuery(String qualifiedName);
+}
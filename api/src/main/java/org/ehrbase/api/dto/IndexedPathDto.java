@@ -0,0 +1,69 @@
+package org.ehrbase.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.ZonedDateTime;
+
+/**
+ * AQL path registered for a template, predicates on this path are resolved from values extracted at write time
+ */
+public class IndexedPathDto {
+    private Integer id;
+    private String templateId;
+    private String path;
+    private String valueType;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
+    private ZonedDateTime created;
+    private Integer extractedValues;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getTemplateId() {
+        return templateId;
+    }
+
+    public void setTemplateId(String templateId) {
+        this.templateId = templateId;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getValueType() {
+        return valueType;
+    }
+
+    public void setValueType(String valueType) {
+        this.valueType = valueType;
+    }
+
+    public ZonedDateTime getCreated() {
+        return created;
+    }
+
+    public void setCreated(ZonedDateTime created) {
+        this.created = created;
+    }
+
+    /**
+     * @return the number of values extracted from the existing entries when the path has been registered, null otherwise
+     */
+    public Integer getExtractedValues() {
+        return extractedValues;
+    }
+
+    public void setExtractedValues(Integer extractedValues) {
+        this.extractedValues = extractedValues;
+    }
+}
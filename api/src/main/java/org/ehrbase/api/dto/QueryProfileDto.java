@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.api.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per stage timing of an AQL query, returned when profiling is requested
+ */
+public class QueryProfileDto {
+
+    public static class StageDto {
+        private String name;
+        private double durationMs;
+        private Integer rows;
+
+        public StageDto() {
+        }
+
+        public StageDto(String name, double durationMs, Integer rows) {
+            this.name = name;
+            this.durationMs = durationMs;
+            this.rows = rows;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public double getDurationMs() {
+            return durationMs;
+        }
+
+        public void setDurationMs(double durationMs) {
+            this.durationMs = durationMs;
+        }
+
+        public Integer getRows() {
+            return rows;
+        }
+
+        public void setRows(Integer rows) {
+            this.rows = rows;
+        }
+    }
+
+    private List<StageDto> stages = new ArrayList<>();
+    private double totalMs;
+    private List<String> plan;
+
+    public List<StageDto> getStages() {
+        return stages;
+    }
+
+    public void setStages(List<StageDto> stages) {
+        this.stages = stages;
+    }
+
+    public double getTotalMs() {
+        return totalMs;
+    }
+
+    public void setTotalMs(double totalMs) {
+        this.totalMs = totalMs;
+    }
+
+    /**
+     * @return the lines of the PostgreSQL EXPLAIN (ANALYZE, BUFFERS) output for the generated SQL
+     */
+    public List<String> getPlan() {
+        return plan;
+    }
+
+    public void setPlan(List<String> plan) {
+        this.plan = plan;
+    }
+}
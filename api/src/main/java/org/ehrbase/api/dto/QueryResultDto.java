@@ -29,6 +29,7 @@ public class QueryResultDto {
     private List<List<String>> explain;
     private BiMap<String, String> variables;
     private List<Map<String, Object>> resultSet;
+    private QueryProfileDto profile;
 
     public List<Map<String, Object>> getResultSet() {
         return resultSet;
@@ -61,4 +62,12 @@ public class QueryResultDto {
     public void setVariables(BiMap<String, String> variables) {
         this.variables = variables;
     }
+
+    public QueryProfileDto getProfile() {
+        return profile;
+    }
+
+    public void setProfile(QueryProfileDto profile) {
+        this.profile = profile;
+    }
 }
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.api.exception;
+
+/**
+ * Thrown when an AQL query exceeds its statement timeout, its maximum number of rows or its maximum result size.
+ * The execution is aborted, shall invoke status 422 "Unprocessable Entity".
+ */
+public class QueryLimitExceededException extends UnprocessableEntityException {
+
+    public QueryLimitExceededException(String message) {
+        super(message);
+    }
+}
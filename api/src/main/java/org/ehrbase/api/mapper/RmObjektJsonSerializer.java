@@ -41,7 +41,8 @@ public class RmObjektJsonSerializer extends JsonSerializer<RMObject> {
             }
             gen.writeRawValue(new CanonicalXML().marshalInline(value, qName));
         } else {
-            gen.writeRawValue(new CanonicalJson().marshal(value));
+            //indent only if the response itself is pretty printed
+            gen.writeRawValue(new CanonicalJson().marshal(value, gen.getPrettyPrinter() != null));
         }
     }
 }
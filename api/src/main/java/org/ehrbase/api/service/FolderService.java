@@ -49,13 +49,45 @@ public interface FolderService extends BaseService {
      * table the target folder will be fetched from folder_history.
      *
      * @param folderId - UUID of the folder to fetch
-     * @param version - Target version to fetch
+     * @param version - Target version to fetch, null or below 1 for the latest version
      * @return Data transfer object to return to client
      */
     Optional<FolderDto> retrieve(UUID folderId, Integer version);
 
+    /**
+     * Returns the folder at the given path of a versioned folder. The path
+     * consists of the slash separated names of the sub folders to follow
+     * starting at the folder with the given id. If there is no folder at the
+     * path an empty Optional will be returned, if the folder itself or the
+     * version does not exist an ObjectNotFoundException is thrown.
+     *
+     * @param folderId - UUID of the root folder the path starts at
+     * @param version - Target version to fetch, null or below 1 for the latest version
+     * @param path - Path to the target sub folder, null or empty for the root
+     * @return Data transfer object to return to client
+     */
+    Optional<FolderDto> retrieve(UUID folderId, Integer version, String path);
+
     Optional<FolderDto> retrieveLatest(UUID ehrId);
 
+    /**
+     * Returns the folder at the given path of the latest version of the
+     * directory of an EHR.
+     *
+     * @param ehrId - Id of the EHR the directory belongs to
+     * @param path - Path to the target sub folder, null or empty for the root
+     * @return Data transfer object to return to client
+     */
+    Optional<FolderDto> retrieveLatest(UUID ehrId, String path);
+
+    /**
+     * Returns the id of the root folder of the directory of an EHR.
+     *
+     * @param ehrId - Id of the EHR
+     * @return UUID of the directory root folder or empty if the EHR has no directory
+     */
+    Optional<UUID> retrieveDirectoryId(UUID ehrId);
+
     /**
      * Returns a versioned folder object which has been or is current at the
      * given timestamp. Therefore the folder table must be queried if there is
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.api.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receives the result of a streamed AQL query while it is fetched: the columns once, then each row in result order,
+ * then the end of the result. A failure of the query is thrown by the query service, end() is not called then.
+ */
+public interface QueryResultHandler {
+
+    /**
+     * @param columns the columns of the SELECT clause, each one with its "name" and "path"
+     */
+    void columns(List<Map<String, String>> columns);
+
+    /**
+     * @param values the values of a row, in the order of the columns; JSON values are structured strings
+     */
+    void row(List<Object> values);
+
+    void end();
+}
@@ -19,6 +19,7 @@
 package org.ehrbase.api.service;
 
 import org.ehrbase.api.definitions.QueryMode;
+import org.ehrbase.api.dto.IndexedPathDto;
 import org.ehrbase.api.dto.QueryDefinitionResultDto;
 import org.ehrbase.api.dto.QueryResultDto;
 
@@ -38,6 +39,35 @@ public interface QueryService extends BaseService {
 
     QueryResultDto query(String queryString, Map<String, Object> parameters, QueryMode queryMode, boolean explain);
 
+    /**
+     * AQL query with its stages timed, the timings are published as metrics tagged with the query name
+     * @param queryString the AQL query
+     * @param parameters the query parameters, may be null
+     * @param queryName the qualified name of a stored query, null for an ad-hoc query
+     * @param profile true to return the stage timings and the PostgreSQL plan (EXPLAIN ANALYZE) with the result
+     * @return the result
+     */
+    QueryResultDto queryAql(String queryString, Map<String, Object> parameters, String queryName, boolean profile);
+
+    /**
+     * stored AQL query, its result may be served from the stored query cache when enabled (unless profiled)
+     * @param queryString the AQL query as executed, f.e. with the fetch and offset of the request
+     * @param parameters the query parameters, may be null
+     * @param queryName the qualified name of the stored query
+     * @param queryVersion the version of the stored query
+     * @param profile true to return the stage timings and the PostgreSQL plan (EXPLAIN ANALYZE) with the result
+     * @return the result
+     */
+    QueryResultDto queryAql(String queryString, Map<String, Object> parameters, String queryName, String queryVersion, boolean profile);
+
+    /**
+     * ad-hoc AQL query whose rows are handed over while they are fetched, the result is never held in memory
+     * @param queryString the AQL query
+     * @param parameters the query parameters, may be null
+     * @param resultHandler receives the columns, the rows and the end of the result
+     */
+    void queryAql(String queryString, Map<String, Object> parameters, QueryResultHandler resultHandler);
+
     //=== DEFINITION: manage stored queries
     List<QueryDefinitionResultDto> retrieveStoredQueries(String fullyQualifiedName);
 
@@ -49,4 +79,25 @@ public interface QueryService extends BaseService {
     QueryDefinitionResultDto updateStoredQuery(String qualifiedName, String version, String queryString);
 
     QueryDefinitionResultDto deleteStoredQuery(String qualifiedName, String version);
+
+    //=== ADMIN: manage indexed AQL paths
+
+    /**
+     * list the registered paths
+     * @param templateId the template of the paths, all templates if null
+     * @return the registered paths
+     */
+    List<IndexedPathDto> retrieveIndexedPaths(String templateId);
+
+    /**
+     * register an AQL path of a template, the values found at this path are extracted from the existing and future
+     * entries of the template, WHERE predicates comparing this path with a literal are then resolved from these values
+     * @param templateId the template
+     * @param path the AQL path from the composition root, without name/value predicates
+     * @param valueType NUMERIC or TEXT
+     * @return the registered path
+     */
+    IndexedPathDto createIndexedPath(String templateId, String path, String valueType);
+
+    IndexedPathDto deleteIndexedPath(String templateId, String path);
 }
@@ -0,0 +1,49 @@
+package org.ehrbase.application.config;
+
+import org.ehrbase.api.definitions.QueryLimits;
+import org.ehrbase.api.definitions.QueryLimitsConfig;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "server.aql.limits")
+public class QueryLimitsConfigImp implements QueryLimitsConfig {
+
+    private QueryLimits adhoc = QueryLimits.unlimited();
+    private QueryLimits stored = QueryLimits.unlimited();
+    //per qualified name, overrides the limits of the stored queries
+    private Map<String, QueryLimits> storedQueries = new HashMap<>();
+
+    @Override
+    public QueryLimits getAdhoc() {
+        return adhoc;
+    }
+
+    public void setAdhoc(QueryLimits adhoc) {
+        this.adhoc = adhoc;
+    }
+
+    public QueryLimits getStored() {
+        return stored;
+    }
+
+    public void setStored(QueryLimits stored) {
+        this.stored = stored;
+    }
+
+    public Map<String, QueryLimits> getStoredQueries() {
+        return storedQueries;
+    }
+
+    public void setStoredQueries(Map<String, QueryLimits> storedQueries) {
+        this.storedQueries = storedQueries;
+    }
+
+    @Override
+    public QueryLimits getStoredQuery(String qualifiedName) {
+        return storedQueries.getOrDefault(qualifiedName, stored);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehrbase.application.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.ehrbase.dao.access.support.StatementStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the SQL statements, rows and time spent in the database per HTTP request, see {@link StatementStatistics}.
+ * <p>
+ * The statistics are published as metrics tagged by the handling controller method (i.e. the service operation it
+ * invokes). A warning is logged when a request runs more statements than server.sql-statistics.statement-budget or
+ * repeats a statement more than server.sql-statistics.repeated-statement-threshold times (N+1 statements).
+ * <p>
+ * With server.sql-statistics.debug-headers, the statistics are added to the response headers as well. The response
+ * is then buffered until the request is handled, this mode is meant for debugging only.
+ */
+@Component
+public class StatementStatisticsFilter extends OncePerRequestFilter {
+
+    static final String STATEMENTS_METRIC = "ehrbase.sql.request.statements";
+    static final String ROWS_METRIC = "ehrbase.sql.request.rows";
+    static final String TIME_METRIC = "ehrbase.sql.request.time";
+    static final String BUDGET_EXCEEDED_METRIC = "ehrbase.sql.request.budget.exceeded";
+
+    static final String STATEMENTS_HEADER = "X-Sql-Statements";
+    static final String ROWS_HEADER = "X-Sql-Rows";
+    static final String TIME_HEADER = "X-Sql-Time-Ms";
+
+    private static final String UNMAPPED_OPERATION = "unmapped";
+
+    private static final Logger log = LoggerFactory.getLogger(StatementStatisticsFilter.class);
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${server.sql-statistics.enabled:true}")
+    private boolean enabled;
+    @Value("${server.sql-statistics.statement-budget:0}")
+    private int statementBudget; //0 means no budget
+    @Value("${server.sql-statistics.repeated-statement-threshold:0}")
+    private int repeatedStatementThreshold; //0 means no threshold
+    @Value("${server.sql-statistics.debug-headers:false}")
+    private boolean debugHeaders;
+
+    public StatementStatisticsFilter(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        StatementStatistics statistics = StatementStatistics.start();
+        ContentCachingResponseWrapper bufferedResponse = debugHeaders ? new ContentCachingResponseWrapper(response) : null;
+
+        try {
+            filterChain.doFilter(request, bufferedResponse != null ? bufferedResponse : response);
+        } finally {
+            statistics.stop();
+
+            if (bufferedResponse != null) {
+                bufferedResponse.setHeader(STATEMENTS_HEADER, String.valueOf(statistics.getStatements()));
+                bufferedResponse.setHeader(ROWS_HEADER, String.valueOf(statistics.getRows()));
+                bufferedResponse.setHeader(TIME_HEADER, String.valueOf(TimeUnit.NANOSECONDS.toMillis(statistics.getNanos())));
+                bufferedResponse.copyBodyToResponse();
+            }
+
+            report(request, statistics);
+        }
+    }
+
+    private void report(HttpServletRequest request, StatementStatistics statistics) {
+        String operation = operation(request);
+        Tags tags = Tags.of("operation", operation, "method", request.getMethod());
+
+        DistributionSummary.builder(STATEMENTS_METRIC).tags(tags).register(meterRegistry).record(statistics.getStatements());
+        DistributionSummary.builder(ROWS_METRIC).tags(tags).register(meterRegistry).record(statistics.getRows());
+        meterRegistry.timer(TIME_METRIC, tags).record(statistics.getNanos(), TimeUnit.NANOSECONDS);
+
+        if (statementBudget > 0 && statistics.getStatements() > statementBudget) {
+            meterRegistry.counter(BUDGET_EXCEEDED_METRIC, tags).increment();
+            log.warn("{} {} ({}) ran {} statements, budget is {}", request.getMethod(), request.getRequestURI(), operation, statistics.getStatements(), statementBudget);
+        }
+
+        Map.Entry<String, Integer> mostRepeated = statistics.mostRepeated();
+        if (repeatedStatementThreshold > 0 && mostRepeated != null && mostRepeated.getValue() > repeatedStatementThreshold)
+            log.warn("{} {} ({}) ran the same statement {} times (N+1 statements?):{}", request.getMethod(), request.getRequestURI(), operation, mostRepeated.getValue(), mostRepeated.getKey());
+    }
+
+    private static String operation(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod handlerMethod = (HandlerMethod) handler;
+            return handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+        }
+        return UNMAPPED_OPERATION;
+    }
+}
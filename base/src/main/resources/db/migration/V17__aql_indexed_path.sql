@@ -0,0 +1,118 @@
+-- AQL paths registered for a template with their values extracted from ehr.entry
+-- predicates on a registered path are evaluated against ehr.entry_path_value (btree) instead of the entry jsonb
+
+CREATE TABLE ehr.aql_indexed_path
+(
+  id              SERIAL PRIMARY KEY,
+  template_id     TEXT NOT NULL,
+  path            TEXT NOT NULL, -- AQL path from the composition root, f.e. /content[openEHR-EHR-OBSERVATION.blood_pressure.v1]/data[at0001]/events[at0006]/data[at0003]/items[at0004]/value/magnitude
+  json_path       TEXT[] NOT NULL, -- matching keys in ehr.entry.entry below the composition root key, '#' stands for any array element
+  value_type      TEXT NOT NULL CHECK (value_type IN ('NUMERIC', 'TEXT')),
+  sys_transaction TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT aql_indexed_path_uq UNIQUE (template_id, path)
+);
+
+CREATE TABLE ehr.entry_path_value
+(
+  entry_id      UUID    NOT NULL REFERENCES ehr.entry (id) ON DELETE CASCADE,
+  path_id       INTEGER NOT NULL REFERENCES ehr.aql_indexed_path (id) ON DELETE CASCADE,
+  numeric_value NUMERIC,
+  text_value    TEXT
+);
+
+-- the values of a registered path are extracted by the entry trigger and by the backfill run at registration, a value
+-- extracted by both is stored once. A path has a single value type, the other value column is always null (NULLs would
+-- not conflict in a plain UNIQUE)
+CREATE UNIQUE INDEX entry_path_value_uq ON ehr.entry_path_value (entry_id, path_id, COALESCE(numeric_value, 'NaN'::NUMERIC), COALESCE(text_value, ''));
+CREATE INDEX entry_path_value_numeric_idx ON ehr.entry_path_value (path_id, numeric_value);
+CREATE INDEX entry_path_value_text_idx ON ehr.entry_path_value (path_id, text_value);
+
+-- values found at a key path, '#' expands all the elements of an array
+CREATE OR REPLACE FUNCTION ehr.json_path_values(JSONB, TEXT[])
+  RETURNS SETOF JSONB AS
+$$
+DECLARE
+  json_node ALIAS FOR $1;
+  key_path ALIAS FOR $2;
+BEGIN
+  IF (json_node IS NULL OR jsonb_typeof(json_node) = 'null')
+  THEN
+    RETURN;
+  END IF;
+
+  IF (key_path IS NULL OR array_length(key_path, 1) IS NULL)
+  THEN
+    RETURN NEXT json_node;
+  ELSIF (key_path[1] = '#')
+  THEN
+    IF (jsonb_typeof(json_node) = 'array')
+    THEN
+      RETURN QUERY SELECT path_value
+                   FROM jsonb_array_elements(json_node) AS element,
+                        ehr.json_path_values(element, key_path[2:array_length(key_path, 1)]) AS path_value;
+    END IF;
+  ELSIF (key_path[1] ~ '^[0-9]+$' AND jsonb_typeof(json_node) = 'array')
+  THEN
+    RETURN QUERY SELECT ehr.json_path_values(json_node -> key_path[1]::INTEGER, key_path[2:array_length(key_path, 1)]);
+  ELSIF (jsonb_typeof(json_node) = 'object')
+  THEN
+    RETURN QUERY SELECT ehr.json_path_values(json_node -> key_path[1], key_path[2:array_length(key_path, 1)]);
+  END IF;
+END
+$$
+  LANGUAGE plpgsql IMMUTABLE;
+
+-- extract the values of the registered paths of an entry, all paths of the template if path_id is null
+CREATE OR REPLACE FUNCTION ehr.insert_entry_path_values(UUID, TEXT, JSONB, INTEGER)
+  RETURNS INTEGER AS
+$$
+DECLARE
+  entry_uuid ALIAS FOR $1;
+  entry_template_id ALIAS FOR $2;
+  entry_content ALIAS FOR $3;
+  indexed_path_id ALIAS FOR $4;
+  inserted INTEGER;
+BEGIN
+  INSERT INTO ehr.entry_path_value (entry_id, path_id, numeric_value, text_value)
+  SELECT entry_uuid,
+         indexed_path.id,
+         CASE
+           WHEN indexed_path.value_type = 'NUMERIC' AND jsonb_typeof(path_value) = 'number' THEN (path_value #>> '{}')::NUMERIC
+           END,
+         CASE WHEN indexed_path.value_type = 'TEXT' THEN path_value #>> '{}' END
+  FROM ehr.aql_indexed_path AS indexed_path,
+       ehr.json_path_values(
+           (SELECT root.value FROM jsonb_each(entry_content) AS root WHERE root.key LIKE '/composition%' LIMIT 1),
+           indexed_path.json_path) AS path_value
+  WHERE indexed_path.template_id = entry_template_id
+    AND (indexed_path_id IS NULL OR indexed_path.id = indexed_path_id)
+    AND jsonb_typeof(path_value) IN ('number', 'string', 'boolean')
+  ON CONFLICT DO NOTHING;
+
+  GET DIAGNOSTICS inserted = ROW_COUNT;
+  RETURN inserted;
+END
+$$
+  LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION ehr.index_entry_path_values()
+  RETURNS TRIGGER AS
+$$
+BEGIN
+  IF (TG_OP = 'UPDATE')
+  THEN
+    DELETE FROM ehr.entry_path_value WHERE entry_id = NEW.id;
+  END IF;
+
+  IF (NEW.template_id IS NOT NULL AND EXISTS(SELECT 1 FROM ehr.aql_indexed_path WHERE template_id = NEW.template_id))
+  THEN
+    PERFORM ehr.insert_entry_path_values(NEW.id, NEW.template_id, NEW.entry, NULL);
+  END IF;
+
+  RETURN NEW;
+END
+$$
+  LANGUAGE plpgsql;
+
+CREATE TRIGGER entry_path_value_trigger AFTER INSERT OR UPDATE OF entry, template_id ON ehr.entry
+  FOR EACH ROW EXECUTE PROCEDURE ehr.index_entry_path_values();
@@ -138,6 +138,15 @@ public abstract class BaseController {
         return createErrorResponse(e.getMessage(), HttpStatus.CONFLICT);
     }
 
+    /**
+     * Handler for project-custom exception.
+     * @return ResponseEntity<Map<String, String>> as UNPROCESSABLE_ENTITY - 422
+     */
+    @ExceptionHandler(QueryLimitExceededException.class)
+    public ResponseEntity<Map<String, String>> restErrorHandler(QueryLimitExceededException e) {
+        return createErrorResponse(e.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
     // TODO: Maybe remove this redundant handler since fallback will cover the same functionality
     /**
      * Handler for less specific internal error
@@ -23,11 +23,13 @@ import org.ehrbase.api.definitions.CompositionFormat;
 import org.ehrbase.api.exception.*;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.util.UriUtils;
@@ -203,9 +205,32 @@ public abstract class BaseController {
         Map<String, String> error = new HashMap<>();
         error.put("error", message);
         error.put("status", status.getReasonPhrase());
+
+        //an error of a request accepting only a binary form (f.e. columnar query results) is still answered in JSON
+        if (!acceptsErrorBody()) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            return new ResponseEntity<>(error, headers, status);
+        }
         return new ResponseEntity<>(error, status);
     }
 
+    //true if the Accept header of the current request allows an error body in JSON or XML, or is absent
+    private static boolean acceptsErrorBody() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (!(requestAttributes instanceof ServletRequestAttributes))
+            return true;
+        String accept = ((ServletRequestAttributes) requestAttributes).getRequest().getHeader(HttpHeaders.ACCEPT);
+        if (StringUtils.isBlank(accept))
+            return true;
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                    .anyMatch(mediaType -> mediaType.isCompatibleWith(MediaType.APPLICATION_JSON) || mediaType.isCompatibleWith(MediaType.APPLICATION_XML));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
     /**
      * Extracts the UUID base from a versioned UID. Or, if
      *
@@ -202,6 +202,7 @@ public class OpenehrDirectoryController extends BaseController {
 
         // Tries to create an UUID from versionUid and throws an IllegalArgumentException for 400 error
         UUID versionUUID = extractVersionedObjectUidFromVersionUid(versionUid);
+        int requestedVersion = extractVersionFromVersionUid(versionUid);
 
         // Get response data format for deserialization; defaults to JSON
         MediaType responseContentType = extractMediaType(accept);
@@ -214,9 +215,13 @@ public class OpenehrDirectoryController extends BaseController {
             );
         }
 
-        // Get the folder entry from database
-        Optional<FolderDto> foundFolder = folderService.retrieve(versionUUID, 1);
+        // Get the folder entry from database, a given path will be resolved at the database. An unknown directory or
+        // version results in a 404, a known directory without folder at the path in an empty result
+        Optional<FolderDto> foundFolder = folderService.retrieve(versionUUID, requestedVersion, path);
         if (!foundFolder.isPresent()) {
+            if (path != null) {
+                return ResponseEntity.noContent().build();
+            }
             throw new ObjectNotFoundException("folder",
                     "The FOLDER with id " +
                             versionUUID.toString() +
@@ -225,11 +230,11 @@ public class OpenehrDirectoryController extends BaseController {
 
         FolderDto folderDto = foundFolder.get();
 
-        // Get system and version information
+        // Get system and version information of the directory
         String systemId = folderService.getServerConfig().getNodename();
-        Integer version = folderService.getLastVersionNumber(UUID.fromString(foundFolder.get().getUid().toString()));
+        Integer version = requestedVersion > 0 ? requestedVersion : folderService.getLastVersionNumber(versionUUID);
 
-        String versionedUid = foundFolder.get().getUid().toString() + "::" + systemId + "::" + version.toString();
+        String versionedUid = versionUUID.toString() + "::" + systemId + "::" + version.toString();
 
         // Create response data
         HttpHeaders headers = new HttpHeaders();
@@ -278,8 +283,20 @@ public class OpenehrDirectoryController extends BaseController {
         // UUID ehrId = getEhrUuid(ehrIdString);
         // TODO: Implement get folder by version at time functionality
         // Get the folder entry from database
-        Optional<FolderDto> foundFolder = folderService.retrieveLatest(ehrId);
+        Optional<UUID> directoryId = folderService.retrieveDirectoryId(ehrId);
+        if (!directoryId.isPresent()) {
+            throw new ObjectNotFoundException("folder",
+                    "The FOLDER for ehrId " +
+                            ehrId.toString() +
+                            " does not exist.");
+        }
+
+        // A given path will be resolved at the database
+        Optional<FolderDto> foundFolder = folderService.retrieve(directoryId.get(), null, path);
         if (!foundFolder.isPresent()) {
+            if (path != null) {
+                return ResponseEntity.noContent().build();
+            }
             throw new ObjectNotFoundException("folder",
                     "The FOLDER for ehrId " +
                             ehrId.toString() +
@@ -288,11 +305,11 @@ public class OpenehrDirectoryController extends BaseController {
 
         FolderDto folderDto = foundFolder.get();
 
-        // Get system and version information
+        // Get system and version information of the directory
         String systemId = folderService.getServerConfig().getNodename();
-        Integer version = folderService.getLastVersionNumber(UUID.fromString(foundFolder.get().getUid().toString()));
+        Integer version = folderService.getLastVersionNumber(directoryId.get());
 
-        String versionedUid = foundFolder.get().getUid().toString() + "::" + systemId + "::" + version.toString();
+        String versionedUid = directoryId.get().toString() + "::" + systemId + "::" + version.toString();
 
         // Create response data
         MediaType responseContentType = extractMediaType(accept);
@@ -0,0 +1,86 @@
+package org.ehrbase.rest.openehr.controller;
+
+import org.ehrbase.api.dto.IndexedPathDto;
+import org.ehrbase.api.service.QueryService;
+import org.ehrbase.rest.openehr.response.ErrorBodyPayload;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import io.swagger.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Registration of the AQL paths of a template whose WHERE predicates are resolved from values extracted at write time.
+ * Not part of the openEHR REST API.
+ */
+@Api(tags = "Indexed AQL Path")
+@RestController
+@RequestMapping(path = "/rest/openehr/v1/definition/template/adl1.4/{template_id}/indexed_path", produces = MediaType.APPLICATION_JSON_VALUE)
+public class OpenehrIndexedPathController extends BaseController {
+
+    final static Logger log = LoggerFactory.getLogger(OpenehrIndexedPathController.class);
+    private QueryService queryService;
+
+    @Autowired
+    public OpenehrIndexedPathController(QueryService queryService) {
+        this.queryService = Objects.requireNonNull(queryService);
+    }
+
+    @RequestMapping(method = RequestMethod.GET)
+    @ApiOperation(value = "List the indexed AQL paths of a template", response = IndexedPathDto.class, responseContainer = "List")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Success.")})
+    public ResponseEntity<List<IndexedPathDto>> getIndexedPaths(@ApiParam(value = "template id, example: IDCR - Vital Signs Encounter.v1", required = true) @PathVariable(value = "template_id") String templateId) {
+
+        log.debug("getIndexedPaths invoked with the following input: " + templateId);
+
+        return ResponseEntity.ok(queryService.retrieveIndexedPaths(templateId));
+    }
+
+    @RequestMapping(method = RequestMethod.PUT)
+    @ApiOperation(value = "Register an AQL path of a template and extract its values from the existing compositions, registering it again is idempotent", response = IndexedPathDto.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Success, the path is registered (again if its value type has changed)."),
+            @ApiResponse(code = 400, message = "Invalid input, e.g. a missing path or an unsupported value type."),
+            @ApiResponse(code = 404, message = "The specified template doesn't exist.")})
+    public ResponseEntity<IndexedPathDto> putIndexedPath(@ApiParam(value = "template id, example: IDCR - Vital Signs Encounter.v1", required = true) @PathVariable(value = "template_id") String templateId,
+                                                         @ApiParam(value = "The path to register, example: {\"path\": \"/content[openEHR-EHR-OBSERVATION.blood_pressure.v1]/data[at0001]/events[at0006]/data[at0003]/items[at0004]/value/magnitude\", \"value_type\": \"NUMERIC\"}", required = true) @RequestBody String payload
+    ) {
+
+        log.debug("putIndexedPath invoked with the following input: " + templateId + ", payload:" + payload);
+
+        Gson gson = new GsonBuilder().create();
+
+        Map<String, Object> mapped = gson.fromJson(payload, Map.class);
+        String path = (String) mapped.get("path");
+        String valueType = (String) mapped.get("value_type");
+
+        if (path == null || path.isEmpty())
+            return new ResponseEntity(new ErrorBodyPayload("Invalid path", "no path provided in payload").toString(), HttpStatus.BAD_REQUEST);
+
+        return ResponseEntity.ok(queryService.createIndexedPath(templateId, path, valueType));
+    }
+
+    @RequestMapping(method = RequestMethod.DELETE)
+    @ApiOperation(value = "Remove an indexed AQL path of a template", response = IndexedPathDto.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Success."),
+            @ApiResponse(code = 404, message = "The path is not registered for this template.")})
+    public ResponseEntity<IndexedPathDto> deleteIndexedPath(@ApiParam(value = "template id, example: IDCR - Vital Signs Encounter.v1", required = true) @PathVariable(value = "template_id") String templateId,
+                                                            @ApiParam(value = "the registered path", required = true) @RequestParam(value = "path") String path
+    ) {
+
+        log.debug("deleteIndexedPath invoked with the following input: " + templateId + ", path:" + path);
+
+        return ResponseEntity.ok(queryService.deleteIndexedPath(templateId, path));
+    }
+}
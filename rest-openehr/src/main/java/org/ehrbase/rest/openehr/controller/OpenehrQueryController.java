@@ -18,9 +18,9 @@
 
 package org.ehrbase.rest.openehr.controller;
 
-import org.ehrbase.api.definitions.QueryMode;
 import org.ehrbase.api.dto.QueryDefinitionResultDto;
 import org.ehrbase.api.service.QueryService;
+import org.ehrbase.rest.openehr.response.ColumnarQueryResultWriter;
 import org.ehrbase.rest.openehr.response.ErrorBodyPayload;
 import org.ehrbase.rest.openehr.response.QueryDefinitionResponseData;
 import org.ehrbase.rest.openehr.response.QueryResponseData;
@@ -31,11 +31,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -49,13 +53,15 @@ public class OpenehrQueryController extends BaseController {
     private QueryService queryService;
 
     private final String QUERY_PARAMETERS = "query_parameters";
+    private static final String PROFILE = "profile";
+    private static final String PROFILE_DESC = "return the timing of the query stages and the PostgreSQL plan (the query is executed twice), default false";
 
     @Autowired
     public OpenehrQueryController(QueryService queryService) {
         this.queryService = Objects.requireNonNull(queryService);
     }
 
-    @GetMapping("/aql{?q, offset, fetch, query_parameter}")
+    @GetMapping(value = "/aql{?q, offset, fetch, profile, query_parameter}", produces = {MediaType.APPLICATION_JSON_VALUE, ColumnarQueryResultWriter.MEDIA_TYPE_VALUE})
     @ApiOperation(value = "Execute ad-hoc (non-stored) AQL query", response = QueryResponseData.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Success.",
@@ -64,12 +70,15 @@ public class OpenehrQueryController extends BaseController {
                             @ResponseHeader(name = ETAG, description = RESP_ETAG_DESC, response = String.class)
                     }),
             @ApiResponse(code = 400, message = "Invalid input, e.g. a request with missing required field q or invalid query syntax."),
+            @ApiResponse(code = 422, message = "The query exceeds its statement timeout, maximum number of rows or maximum result size."),
             @ApiResponse(code = 204, message = "The query didn't give any result.")})
     public ResponseEntity<QueryResponseData> getAdhocQuery(@ApiParam(value = REQ_ACCEPT) @RequestHeader(value = ACCEPT, required = false) String accept,
                                                            @ApiParam(value = "AQL query to be executed", required = true) @RequestParam(value = "q") String query,
                                                            @ApiParam(value = "row number in result-set to start result-set from (0-based), default 0") @RequestParam(value = "offset", required = false) Integer offset,
                                                            @ApiParam(value = "number of rows to fetch, default depends on the implementation") @RequestParam(value = "fetch", required = false) Integer fetch,
-                                                           @ApiParam(value = "query parameters (can appear multiple times)") @RequestParam Map<String, Object> queryParameters) {
+                                                           @ApiParam(value = PROFILE_DESC) @RequestParam(value = PROFILE, required = false, defaultValue = "false") boolean profile,
+                                                           @ApiParam(value = "query parameters (can appear multiple times)") @RequestParam Map<String, Object> queryParameters,
+                                                           HttpServletResponse response) throws IOException {
 
         //deal with offset and fetch
         if (fetch != null)
@@ -79,14 +88,14 @@ public class OpenehrQueryController extends BaseController {
             query = withOffset(query, offset);
 
         if (query != null) {
-            QueryResponseData queryResponseData;
-
-            if (queryParameters != null && !queryParameters.isEmpty())
-                queryResponseData = new QueryResponseData(queryService.query(query, queryParameters, QueryMode.AQL, false));
-            else
-                queryResponseData = new QueryResponseData(queryService.query(query, QueryMode.AQL, false));
+            queryParameters.remove(PROFILE);
+            if (!profile && acceptsColumnar(accept)) {
+                streamColumnar(query, queryParameters, response);
+                return null;
+            }
+            QueryResponseData queryResponseData = new QueryResponseData(queryService.queryAql(query, queryParameters, null, profile));
 
-            if (queryResponseData.getRows().size() > 0)
+            if (queryResponseData.getRows().size() > 0 || profile)
                 return ResponseEntity.ok(queryResponseData);
             else
                 return ResponseEntity.noContent().build();
@@ -94,7 +103,7 @@ public class OpenehrQueryController extends BaseController {
             return missingRequestResponseEntity();
     }
 
-    @PostMapping("/aql")
+    @PostMapping(value = "/aql", produces = {MediaType.APPLICATION_JSON_VALUE, ColumnarQueryResultWriter.MEDIA_TYPE_VALUE})
     @ApiOperation(value = "Execute ad-hoc (non-stored) AQL query", response = QueryResponseData.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Success.",
@@ -103,11 +112,14 @@ public class OpenehrQueryController extends BaseController {
                             @ResponseHeader(name = ETAG, description = RESP_ETAG_DESC, response = String.class)
                     }),
             @ApiResponse(code = 400, message = "Invalid input, e.g. a request with missing required field q or invalid query syntax."),
+            @ApiResponse(code = 422, message = "The query exceeds its statement timeout, maximum number of rows or maximum result size."),
             @ApiResponse(code = 204, message = "The query didn't give any result.")})
 
     public ResponseEntity<QueryResponseData> postAdhocQuery(@ApiParam(value = REQ_ACCEPT) @RequestHeader(value = ACCEPT, required = false) String accept,
                                                             @ApiParam(value = REQ_CONTENT_TYPE_BODY, required = true) @RequestHeader(value = CONTENT_TYPE) String contentType,
-                                                            @ApiParam(value = "AQL query to be executed", required = true) @RequestBody String query) {
+                                                            @ApiParam(value = PROFILE_DESC) @RequestParam(value = PROFILE, required = false, defaultValue = "false") boolean profile,
+                                                            @ApiParam(value = "AQL query to be executed", required = true) @RequestBody String query,
+                                                            HttpServletResponse response) throws IOException {
 
         log.debug("Got following input: " + query);
 
@@ -124,11 +136,13 @@ public class OpenehrQueryController extends BaseController {
         if (aql != null) {
             aql = withOffsetLimit(aql, mapped);
 
+            if (!profile && acceptsColumnar(accept)) {
+                streamColumnar(aql, parameters, response);
+                return null;
+            }
+
             //get the query and pass it to the service
-            if (parameters != null && !parameters.isEmpty())
-                queryResponseData = new QueryResponseData(queryService.query(aql, parameters, QueryMode.AQL, false));
-            else
-                queryResponseData = new QueryResponseData(queryService.query(aql, QueryMode.AQL, false));
+            queryResponseData = new QueryResponseData(queryService.queryAql(aql, parameters, null, profile));
         } else
             return missingRequestResponseEntity();
 
@@ -142,6 +156,42 @@ public class OpenehrQueryController extends BaseController {
 
     }
 
+    /**
+     * true if the most preferred type of the Accept header that this controller produces is the columnar form
+     */
+    private static boolean acceptsColumnar(String accept) {
+        if (accept == null)
+            return false;
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON))
+                return false;
+            if (mediaType.includes(ColumnarQueryResultWriter.MEDIA_TYPE))
+                return true;
+        }
+        return false;
+    }
+
+    //the rows are written to the response while they are fetched, an error raised before the response is committed
+    //is still answered with its status and a JSON body
+    private void streamColumnar(String query, Map<String, Object> parameters, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(ColumnarQueryResultWriter.MEDIA_TYPE_VALUE);
+        try {
+            queryService.queryAql(query, parameters, new ColumnarQueryResultWriter(response.getOutputStream()));
+        } catch (RuntimeException e) {
+            if (!response.isCommitted())
+                response.reset();
+            throw e;
+        }
+    }
+
     private String withFetch(String query, String value) {
         return withFetch(query, double2int(value));
     }
@@ -194,7 +244,7 @@ public class OpenehrQueryController extends BaseController {
             query = withOffset(query, offset);
         }
 
-        QueryResponseData queryResponseData = invoke(query, queryParameter);
+        QueryResponseData queryResponseData = invoke(query, queryParameter, queryDefinitionResultDto.getQualifiedName(), queryDefinitionResultDto.getVersion());
 
         if (queryResponseData == null) {
             return ResponseEntity.noContent().build();
@@ -214,6 +264,7 @@ public class OpenehrQueryController extends BaseController {
                             @ResponseHeader(name = ETAG, description = RESP_ETAG_DESC, response = String.class)
                     }),
             @ApiResponse(code = 400, message = "Invalid input, e.g. a request with missing required field q or invalid query syntax."),
+            @ApiResponse(code = 422, message = "The query exceeds its statement timeout, maximum number of rows or maximum result size."),
             @ApiResponse(code = 412, message = "Precondition failed, ID given as If-None-Match header already exists.")})
     public ResponseEntity<QueryResponseData> postStoredQuery(@ApiParam(value = REQ_ACCEPT) @RequestHeader(value = ACCEPT, required = false) String accept,
                                                              @ApiParam(value = REQ_CONTENT_TYPE_BODY, required = true) @RequestHeader(value = CONTENT_TYPE) String contentType,
@@ -244,7 +295,7 @@ public class OpenehrQueryController extends BaseController {
                 query = withOffsetLimit(query, mapped);
 
             }
-            QueryResponseData queryResponseData = invoke(query, queryParameter);
+            QueryResponseData queryResponseData = invoke(query, queryParameter, queryDefinitionResultDto.getQualifiedName(), queryDefinitionResultDto.getVersion());
 
             if (queryResponseData == null) {
                 return badRequestResponseEntity(qualifiedQueryName, version);
@@ -267,17 +318,15 @@ public class OpenehrQueryController extends BaseController {
         return new ResponseEntity(errorBody, HttpStatus.BAD_REQUEST);
     }
 
-    QueryResponseData invoke(String query, Map<String, Object> queryParameter) {
-        QueryResponseData queryResponseData;
+    QueryResponseData invoke(String query, Map<String, Object> queryParameter, String queryName, String queryVersion) {
+        Map<String, Object> parameters = null;
 
         if (queryParameter != null && !queryParameter.isEmpty()) {
-            Map<String, Object> parameters = new HashMap<>();
+            parameters = new HashMap<>();
             parameters.putAll(queryParameter);
-            queryResponseData = new QueryResponseData(queryService.query(query, parameters, QueryMode.AQL, false));
-        } else
-            queryResponseData = new QueryResponseData(queryService.query(query, QueryMode.AQL, false));
+        }
 
-        return queryResponseData;
+        return new QueryResponseData(queryService.queryAql(query, parameters, queryName, queryVersion, false));
     }
 
     String withOffsetLimit(String query, Map<String, Object> mapped) {
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.rest.openehr.response;
+
+import org.ehrbase.api.definitions.StructuredString;
+import org.ehrbase.api.service.QueryResultHandler;
+import org.springframework.http.MediaType;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes an AQL result set in a compact columnar binary form, for clients pulling large result sets of scalar values.
+ * <p>
+ * The rows are written while the query result is fetched, only the current batch is held in memory.
+ * All numbers are big endian.
+ * <pre>
+ * stream  := magic version columns batch* end
+ * magic   := "EHRC"
+ * version := byte (1)
+ * columns := int count, (string name, string path)*
+ * batch   := int rowCount (&gt; 0), column[columns.count]
+ * column  := byte type, null bitmap (ceil(rowCount / 8) bytes, bit set if the cell is null, LSB first), values
+ * values  := one value per non null cell: INT64 (long), FLOAT64 (double), BOOL (byte 0|1), UTF8 (string)
+ * string  := int byteLength, UTF-8 bytes
+ * end     := int 0
+ * </pre>
+ * The type of a column is chosen per batch: INT64 if all its non null cells are 64 bits integers, FLOAT64 if they are
+ * doubles (or integers exactly representable as doubles mixed with doubles), BOOL if they are booleans and UTF8
+ * otherwise. Decimals (f.e. PostgreSQL numeric values such as sums, averages or magnitudes) are never converted to
+ * doubles: they are written as UTF8 plain strings, as is any column mixing them with other numbers, the values are
+ * therefore exact as in the JSON result. JSON cells are written as UTF8 JSON text.
+ * <p>
+ * Once the first batches have been sent, a failure of the query can no longer be reported with an error status: the
+ * stream is then cut before its end marker, a stream without end marker is incomplete.
+ */
+public class ColumnarQueryResultWriter implements QueryResultHandler {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.ehrbase.aql-columnar";
+    public static final MediaType MEDIA_TYPE = MediaType.valueOf(MEDIA_TYPE_VALUE);
+
+    public static final byte[] MAGIC = {'E', 'H', 'R', 'C'};
+    public static final byte VERSION = 1;
+
+    public static final byte TYPE_INT64 = 1;
+    public static final byte TYPE_FLOAT64 = 2;
+    public static final byte TYPE_BOOL = 3;
+    public static final byte TYPE_UTF8 = 4;
+
+    static final int DEFAULT_BATCH_SIZE = 4096;
+
+    //2^53, all the integers up to it are exactly represented as doubles
+    private static final long MAX_EXACT_DOUBLE_INTEGER = 1L << 53;
+
+    private final DataOutputStream out;
+    private final int batchSize;
+    private final List<List<Object>> batch;
+    private int columnCount;
+
+    /**
+     * @param outputStream the stream receiving the encoded result, it is flushed but not closed
+     */
+    public ColumnarQueryResultWriter(OutputStream outputStream) {
+        this(outputStream, DEFAULT_BATCH_SIZE);
+    }
+
+    public ColumnarQueryResultWriter(OutputStream outputStream, int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("batch size must be positive, found:" + batchSize);
+        this.out = new DataOutputStream(outputStream);
+        this.batchSize = batchSize;
+        this.batch = new ArrayList<>(Math.min(batchSize, DEFAULT_BATCH_SIZE));
+    }
+
+    @Override
+    public void columns(List<Map<String, String>> columns) {
+        try {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+
+            columnCount = columns.size();
+            out.writeInt(columnCount);
+            for (Map<String, String> column : columns) {
+                writeString(out, column.get("name"));
+                writeString(out, column.get("path"));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void row(List<Object> values) {
+        batch.add(values);
+        if (batch.size() == batchSize)
+            flushBatch();
+    }
+
+    @Override
+    public void end() {
+        if (!batch.isEmpty())
+            flushBatch();
+        try {
+            out.writeInt(0);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flushBatch() {
+        try {
+            writeBatch(out, batch, columnCount);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        batch.clear();
+    }
+
+    private static void writeBatch(DataOutputStream out, List<List<Object>> batch, int columnCount) throws IOException {
+        out.writeInt(batch.size());
+
+        byte[] nulls = new byte[(batch.size() + 7) / 8];
+        for (int column = 0; column < columnCount; column++) {
+            byte type = columnType(batch, column);
+            out.writeByte(type);
+
+            Arrays.fill(nulls, (byte) 0);
+            for (int row = 0; row < batch.size(); row++) {
+                if (cell(batch.get(row), column) == null)
+                    nulls[row >> 3] |= (byte) (1 << (row & 7));
+            }
+            out.write(nulls);
+
+            for (List<Object> values : batch) {
+                Object value = cell(values, column);
+                if (value != null)
+                    writeValue(out, type, value);
+            }
+        }
+    }
+
+    private static Object cell(List<Object> values, int column) {
+        return column < values.size() ? values.get(column) : null;
+    }
+
+    private static byte columnType(List<List<Object>> batch, int column) {
+        byte type = 0;
+        //all the integers of the column can be written as doubles without loss
+        boolean exactAsDouble = true;
+        for (List<Object> values : batch) {
+            Object value = cell(values, column);
+            if (value == null)
+                continue;
+
+            byte valueType;
+            if (isIntegral(value)) {
+                valueType = TYPE_INT64;
+                long longValue = ((Number) value).longValue();
+                exactAsDouble &= longValue >= -MAX_EXACT_DOUBLE_INTEGER && longValue <= MAX_EXACT_DOUBLE_INTEGER;
+            } else if (value instanceof Double || value instanceof Float)
+                valueType = TYPE_FLOAT64;
+            else if (value instanceof Boolean)
+                valueType = TYPE_BOOL;
+            else
+                //BigDecimal, BigInteger of 64 bits or more...
+                return TYPE_UTF8;
+
+            if (type == 0 || type == valueType)
+                type = valueType;
+            else if ((type == TYPE_INT64 && valueType == TYPE_FLOAT64) || (type == TYPE_FLOAT64 && valueType == TYPE_INT64))
+                type = TYPE_FLOAT64;
+            else
+                return TYPE_UTF8;
+        }
+        if (type == TYPE_FLOAT64 && !exactAsDouble)
+            return TYPE_UTF8;
+        //a column without values is written as (null) strings
+        return type == 0 ? TYPE_UTF8 : type;
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte
+                || (value instanceof BigInteger && ((BigInteger) value).bitLength() < 64);
+    }
+
+    private static void writeValue(DataOutputStream out, byte type, Object value) throws IOException {
+        switch (type) {
+            case TYPE_INT64:
+                out.writeLong(((Number) value).longValue());
+                break;
+            case TYPE_FLOAT64:
+                out.writeDouble(((Number) value).doubleValue());
+                break;
+            case TYPE_BOOL:
+                out.writeByte((Boolean) value ? 1 : 0);
+                break;
+            default:
+                writeString(out, text(value));
+        }
+    }
+
+    private static String text(Object value) {
+        if (value instanceof StructuredString)
+            return ((StructuredString) value).getValue();
+        if (value instanceof BigDecimal)
+            return ((BigDecimal) value).toPlainString();
+        return value.toString();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
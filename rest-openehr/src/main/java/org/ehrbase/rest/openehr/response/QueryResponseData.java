@@ -19,6 +19,7 @@
 package org.ehrbase.rest.openehr.response;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import org.ehrbase.api.dto.QueryProfileDto;
 import org.ehrbase.api.dto.QueryResultDto;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
@@ -45,11 +46,16 @@ public class QueryResponseData {
     //the actual resultset
     @JsonProperty(value = "rows")
     private List<List<Object>> rows;
+    //stage timings and plan, only when profiling has been requested
+    @JsonProperty(value = "profile")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private QueryProfileDto profile;
 
     @SuppressWarnings("unchecked")
     public QueryResponseData(QueryResultDto queryResultDto) {
         this.query = queryResultDto.getExecutedAQL();
         this.name = null;
+        this.profile = queryResultDto.getProfile();
 
         this.columns = new ArrayList<>();
         this.rows = new ArrayList<>();
@@ -124,4 +130,12 @@ public class QueryResponseData {
     public void setName(String name) {
         this.name = name;
     }
+
+    public QueryProfileDto getProfile() {
+        return profile;
+    }
+
+    public void setProfile(QueryProfileDto profile) {
+        this.profile = profile;
+    }
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.rest.openehr.response;
+
+import org.ehrbase.api.definitions.StructuredString;
+import org.ehrbase.api.definitions.StructuredStringFormat;
+import org.ehrbase.api.service.QueryResultHandler;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ColumnarQueryResultWriterTest {
+
+    private void writeResult(QueryResultHandler resultHandler) {
+        List<Map<String, String>> columns = new ArrayList<>();
+        columns.add(column("magnitude", "o/data[at0001]/events[at0002]/data[at0003]/items[at0004]/value/magnitude"));
+        columns.add(column("code", "o/data[at0001]/events[at0002]/data[at0003]/items[at0005]/value/defining_code/code_string"));
+        columns.add(column("data", "o/data[at0001]"));
+        resultHandler.columns(columns);
+
+        for (int i = 0; i < 5; i++) {
+            resultHandler.row(Arrays.asList(
+                    i == 2 ? null : i,
+                    "at00" + i,
+                    new StructuredString("{\"i\":" + i + "}", StructuredStringFormat.JSON)));
+        }
+        resultHandler.end();
+    }
+
+    private Map<String, String> column(String name, String path) {
+        Map<String, String> column = new HashMap<>();
+        column.put("name", name);
+        column.put("path", path);
+        return column;
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    @Test
+    public void testWriteBatches() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writeResult(new ColumnarQueryResultWriter(outputStream, 3));
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(outputStream.toByteArray()));
+        byte[] magic = new byte[4];
+        in.readFully(magic);
+        assertThat(magic).isEqualTo(ColumnarQueryResultWriter.MAGIC);
+        assertThat(in.readByte()).isEqualTo(ColumnarQueryResultWriter.VERSION);
+
+        assertThat(in.readInt()).isEqualTo(3);
+        assertThat(readString(in)).isEqualTo("magnitude");
+        assertThat(readString(in)).startsWith("o/data[at0001]/events");
+        readString(in);
+        readString(in);
+        readString(in);
+        readString(in);
+
+        List<Object> magnitudes = new ArrayList<>();
+        List<Object> data = new ArrayList<>();
+        int rowCount;
+        int batches = 0;
+        while ((rowCount = in.readInt()) > 0) {
+            batches++;
+
+            //magnitude
+            assertThat(in.readByte()).isEqualTo(ColumnarQueryResultWriter.TYPE_INT64);
+            byte nulls = in.readByte();
+            for (int row = 0; row < rowCount; row++) {
+                magnitudes.add((nulls & (1 << row)) != 0 ? null : in.readLong());
+            }
+
+            //code
+            assertThat(in.readByte()).isEqualTo(ColumnarQueryResultWriter.TYPE_UTF8);
+            assertThat(in.readByte()).isEqualTo((byte) 0);
+            for (int row = 0; row < rowCount; row++) {
+                readString(in);
+            }
+
+            //data
+            assertThat(in.readByte()).isEqualTo(ColumnarQueryResultWriter.TYPE_UTF8);
+            assertThat(in.readByte()).isEqualTo((byte) 0);
+            for (int row = 0; row < rowCount; row++) {
+                data.add(readString(in));
+            }
+        }
+
+        assertThat(batches).isEqualTo(2);
+        assertThat(magnitudes).containsExactly(0L, 1L, null, 3L, 4L);
+        assertThat(data.get(4)).isEqualTo("{\"i\":4}");
+        assertThat(in.available()).isZero();
+    }
+
+    @Test
+    public void testWriteFullBatchBeforeEnd() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ColumnarQueryResultWriter resultWriter = new ColumnarQueryResultWriter(outputStream, 2);
+
+        resultWriter.columns(Arrays.asList(column("code", "/code")));
+        int headerSize = outputStream.size();
+        resultWriter.row(Arrays.asList("a"));
+        assertThat(outputStream.size()).isEqualTo(headerSize);
+        resultWriter.row(Arrays.asList("b"));
+        assertThat(outputStream.size()).isGreaterThan(headerSize);
+    }
+
+    @Test
+    public void testWriteExactNumbers() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ColumnarQueryResultWriter resultWriter = new ColumnarQueryResultWriter(outputStream);
+
+        resultWriter.columns(Arrays.asList(column("sum", "/sum"), column("id", "/id"), column("mixed", "/mixed"), column("ratio", "/ratio")));
+        //none of these values is a double
+        resultWriter.row(Arrays.asList(new BigDecimal("0.1000000000000000055511151231257827"), new BigInteger("18446744073709551617"), 9007199254740993L, 0.5d));
+        resultWriter.row(Arrays.asList(new BigDecimal("12345678901234567890.5"), 1L, 0.25d, 1L));
+        resultWriter.end();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(outputStream.toByteArray()));
+        in.skipBytes(ColumnarQueryResultWriter.MAGIC.length + 1);
+        int columns = in.readInt();
+        for (int i = 0; i < columns * 2; i++)
+            readString(in);
+        assertThat(in.readInt()).isEqualTo(2);
+
+        //decimals
+        assertThat(in.readByte()).isEqualTo(ColumnarQueryResultWriter.TYPE_UTF8);
+        assertThat(in.readByte()).isEqualTo((byte) 0);
+        assertThat(readString(in)).isEqualTo("0.1000000000000000055511151231257827");
+        assertThat(readString(in)).isEqualTo("12345678901234567890.5");
+
+        //integer beyond 64 bits
+        assertThat(in.readByte()).isEqualTo(ColumnarQueryResultWriter.TYPE_UTF8);
+        assertThat(in.readByte()).isEqualTo((byte) 0);
+        assertThat(readString(in)).isEqualTo("18446744073709551617");
+        assertThat(readString(in)).isEqualTo("1");
+
+        //long beyond 2^53 mixed with a double
+        assertThat(in.readByte()).isEqualTo(ColumnarQueryResultWriter.TYPE_UTF8);
+        assertThat(in.readByte()).isEqualTo((byte) 0);
+        assertThat(readString(in)).isEqualTo("9007199254740993");
+        assertThat(readString(in)).isEqualTo("0.25");
+
+        //small long mixed with a double
+        assertThat(in.readByte()).isEqualTo(ColumnarQueryResultWriter.TYPE_FLOAT64);
+        assertThat(in.readByte()).isEqualTo((byte) 0);
+        assertThat(in.readDouble()).isEqualTo(0.5d);
+        assertThat(in.readDouble()).isEqualTo(1d);
+
+        assertThat(in.readInt()).isZero();
+    }
+}
@@ -70,10 +70,21 @@ public class ItemStack {
 
     private Map<String, String> ltreeMap = new TreeMap<>();
 
+    private LtreeLabelDictionary labelDictionary = LtreeLabelDictionary.forTemplate(null);
+
     public Map<String, String> getLtreeMap() {
         return ltreeMap;
     }
 
+    /**
+     * use a shared (template scoped) dictionary to resolve containment labels
+     *
+     * @param labelDictionary the dictionary
+     */
+    public void setLabelDictionary(LtreeLabelDictionary labelDictionary) {
+        this.labelDictionary = labelDictionary;
+    }
+
     //replace all dots by underscore and keep only the archetype name part
     public static String normalizeLabel(String path) {
         String label = path.substring(path.indexOf("[") + 1);
@@ -83,7 +94,7 @@ public class ItemStack {
 
         //replace all dots by underscores since it is used as delimiter in a dotted labels expression for ltree
         //only A-Za-z0-9_ are allowed to express a label
-        label = label.replaceAll("\\.", "_").replaceAll("-", "_");
+        label = label.replace('.', '_').replace('-', '_');
         if (label.endsWith("]"))
             label = label.substring(0, label.indexOf("]"));
         return label;
@@ -110,6 +121,8 @@ public class ItemStack {
     public void pushStacks(String path, String name) {
         //specify name/value for path in the format /something[openEHR-EHR-blablah...] for disambiguation
         log.debug("-- PUSH PATH:" + path + "::" + name);
+        //the label does not depend on the name, resolve it from the path without name predicate
+        String archetypePath = path;
         if (path.contains(archetypePrefix) || path.contains(CompositionSerializer.TAG_ACTIVITIES) || path.contains(CompositionSerializer.TAG_ITEMS) || path.contains(CompositionSerializer.TAG_EVENTS)) {
             //add name in path
 //            if (!name.contains("'"))
@@ -120,19 +133,17 @@ public class ItemStack {
         }
         pushStack(pathStack, path);
         if (name != null)
-            pushStack(namedStack, name.toLowerCase().replaceAll(" ", "_"));
+            pushStack(namedStack, name.toLowerCase().replace(' ', '_'));
         if (isArchetypeSlot(path)) {
 
-            String label = normalizeLabel(path);
+            String label = labelDictionary.label(archetypePath);
             //get the previous label if any
             String previousLabel = null;
 
             if (!containmentStack.isEmpty()) {
                 previousLabel = containmentStack.lastElement().getLabel();
             }
-            if (previousLabel != null) {
-                label = previousLabel + "." + label;
-            }
+            label = labelDictionary.qualify(previousLabel, label);
             ContainmentStruct containmentStruct = new ContainmentStruct(label, pathStackDump());
             containmentStack.push(containmentStruct);
         }
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.ehr.encode;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interned containment (ltree) labels of a template.
+ * <p>
+ * Containment labels only depend on the archetype ids of a template, compositions of the same template hence produce
+ * the same labels over and over. The dictionary normalizes an archetype path and joins a label to its parent once,
+ * then hands out the same String instances to the serializer and the containment writer.
+ */
+public class LtreeLabelDictionary {
+
+    private static final Map<String, LtreeLabelDictionary> TEMPLATES = new ConcurrentHashMap<>();
+    //labels of the objects serialized without template id
+    private static final LtreeLabelDictionary UNSCOPED = new LtreeLabelDictionary();
+
+    //archetype path (without name predicate) -> normalized label
+    private final Map<String, String> labels = new ConcurrentHashMap<>();
+    //parent label -> label -> dotted label
+    private final Map<String, Map<String, String>> qualifiedLabels = new ConcurrentHashMap<>();
+
+    /**
+     * get the shared dictionary of a template
+     *
+     * @param templateId the template id, if null the dictionary shared by the objects without template is returned
+     * @return the dictionary
+     */
+    public static LtreeLabelDictionary forTemplate(String templateId) {
+        if (templateId == null)
+            return UNSCOPED;
+        return TEMPLATES.computeIfAbsent(templateId, id -> new LtreeLabelDictionary());
+    }
+
+    /**
+     * drop the dictionary of a template, when the template is registered or removed
+     *
+     * @param templateId the template id
+     */
+    public static void evict(String templateId) {
+        TEMPLATES.remove(templateId);
+    }
+
+    /**
+     * @param archetypePath a path such as /content[openEHR-EHR-SECTION.adhoc.v1]
+     * @return the normalized label of the archetype, e.g. openEHR_EHR_SECTION_adhoc_v1
+     */
+    public String label(String archetypePath) {
+        return labels.computeIfAbsent(archetypePath, ItemStack::normalizeLabel);
+    }
+
+    /**
+     * @param parent the parent label or null at the root
+     * @param label  the label to append
+     * @return the dotted label parent.label
+     */
+    public String qualify(String parent, String label) {
+        if (parent == null)
+            return label;
+        return qualifiedLabels
+                .computeIfAbsent(parent, p -> new ConcurrentHashMap<>())
+                .computeIfAbsent(label, l -> parent + "." + l);
+    }
+}
@@ -26,6 +26,8 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.DatabindContext;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
 import com.fasterxml.jackson.databind.jsontype.impl.ClassNameIdResolver;
 import com.fasterxml.jackson.databind.type.TypeFactory;
@@ -53,31 +55,58 @@ import java.util.Map;
 
 public class CanonicalJson implements RMDataFormat {
 
+    /**
+     * Mapper configured once for the canonical format. It must not be reconfigured after creation: readers and
+     * writers share its serializer and deserializer caches.
+     */
+    private static final ObjectMapper CANONICAL_MAPPER = createCanonicalMapper();
+    private static final ObjectWriter CANONICAL_WRITER = CANONICAL_MAPPER.writer();
+    private static final ObjectWriter INDENTED_WRITER = CANONICAL_WRITER.withDefaultPrettyPrinter();
+    private static final ObjectReader CANONICAL_READER = CANONICAL_MAPPER.reader();
+    private static final ObjectReader MAP_READER = CANONICAL_READER.forType(Map.class);
+
+    private static ObjectMapper createCanonicalMapper() {
+        ObjectMapper om = JacksonUtil.createObjectMapper();
+
+        // Configuration to ignore methods that are not part of the RM
+        om.addMixIn(ArchetypeID.class, ObjectIdMixIn.class);
+        om.addMixIn(Locatable.class, LocatableMixIn.class);
+        om.addMixIn(Pathable.class, PathableMixIn.class);
+        om.addMixIn(UIDBasedId.class, UIDBasedIdMixIn.class);
+
+        // Global configuration to not include empty lists in the JSON
+        om.setSerializationInclusion(Include.NON_EMPTY);
+
+        // Avoid _type for final classes / concrete attributes with known type
+        TypeResolverBuilder typeResolverBuilder = new CJArchieTypeResolverBuilder()
+                .init(JsonTypeInfo.Id.NAME, new CJOpenEHRTypeNaming())
+                .typeProperty("_type")
+                .typeIdVisibility(true)
+                .inclusion(JsonTypeInfo.As.PROPERTY);
+        om.setDefaultTyping(typeResolverBuilder);
+
+        return om;
+    }
+
+    /**
+     * Marshal into a compact (not indented) canonical JSON
+     */
     @Override
     public String marshal(RMObject rmObject) {
+        return marshal(rmObject, false);
+    }
+
+    /**
+     * Marshal into canonical JSON
+     * @param rmObject the object to marshal
+     * @param indent true to indent the output (e.g. for a client requesting a pretty printed response)
+     * @return the JSON string
+     */
+    public String marshal(RMObject rmObject, boolean indent) {
         StringWriter stringWriter = new StringWriter();
 
         try {
-            // Configuration to ignore methods that are not part of the RM
-            ObjectMapper om = JacksonUtil.getObjectMapper();
-
-            om.addMixInAnnotations(ArchetypeID.class, ObjectIdMixIn.class);
-            om.addMixInAnnotations(Locatable.class, LocatableMixIn.class);
-            om.addMixInAnnotations(Pathable.class, PathableMixIn.class);
-            om.addMixInAnnotations(UIDBasedId.class, UIDBasedIdMixIn.class);
-
-            // Global configuration to not include empty lists in the JSON
-            om.setSerializationInclusion(Include.NON_EMPTY);
-
-            // Avoid _type for final classes / concrete attributes with known type
-            TypeResolverBuilder typeResolverBuilder = new CJArchieTypeResolverBuilder()
-                    .init(JsonTypeInfo.Id.NAME, new CJOpenEHRTypeNaming())
-                    .typeProperty("_type")
-                    .typeIdVisibility(true)
-                    .inclusion(JsonTypeInfo.As.PROPERTY);
-            om.setDefaultTyping(typeResolverBuilder);
-
-            om.writeValue(stringWriter, rmObject);
+            (indent ? INDENTED_WRITER : CANONICAL_WRITER).writeValue(stringWriter, rmObject);
         } catch (IOException e) {
             throw new MarshalException(e.getMessage(), e);
         }
@@ -88,7 +117,7 @@ public class CanonicalJson implements RMDataFormat {
     @Override
     public <T extends RMObject> T unmarshal(String value, Class<T> clazz) {
         try {
-            return JacksonUtil.getObjectMapper().readValue(value, clazz);
+            return CANONICAL_READER.forType(clazz).readValue(value);
         } catch (IOException e) {
             throw new UnmarshalException(e.getMessage(), e);
         }
@@ -104,7 +133,7 @@ public class CanonicalJson implements RMDataFormat {
      */
     public Map<String, Object> unmarshalToMap(String value) {
         try {
-            return JacksonUtil.getObjectMapper().readValue(value, Map.class);
+            return MAP_READER.readValue(value);
         } catch (IOException e) {
             throw new UnmarshalException(e.getMessage(), e);
         }
@@ -217,7 +246,7 @@ public class CanonicalJson implements RMDataFormat {
     }
 
     // Test, inner class copied from com.nedap.archie.json.OpenEHRTypeNaming
-    public class CJOpenEHRTypeNaming extends ClassNameIdResolver {
+    public static class CJOpenEHRTypeNaming extends ClassNameIdResolver {
 
         private ModelInfoLookup rmInfoLookup = ArchieRMInfoLookup.getInstance();
         private ModelInfoLookup aomInfoLookup = ArchieAOMInfoLookup.getInstance();
@@ -21,37 +21,92 @@ package org.ehrbase.serialisation;
 import com.nedap.archie.rm.RMObject;
 import com.nedap.archie.xml.JAXBUtil;
 import org.ehrbase.ehr.encode.wrappers.SnakeCase;
-import org.apache.commons.io.IOUtils;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
-import org.xml.sax.*;
-import org.xml.sax.helpers.AttributesImpl;
-import org.xml.sax.helpers.XMLFilterImpl;
 
 import javax.xml.XMLConstants;
 import javax.xml.bind.*;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.namespace.QName;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
-import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.io.StringWriter;
-
-import static java.nio.charset.StandardCharsets.UTF_8;
+import java.io.Writer;
 
 public class CanonicalXML implements RMDataFormat {
 
     // should be http://schemas.openehr.org/v1 but this does not work with archie.
     private static final String NAMESPACE = "";
 
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXMLInputFactory();
+
+    private static final TransformerFactory TRANSFORMER_FACTORY = createTransformerFactory();
+
+    // marshallers, unmarshallers and transformers are not thread safe but can be reused, keep one per thread
+    private static final ThreadLocal<Marshaller> MARSHALLER = new ThreadLocal<>();
+    private static final ThreadLocal<Unmarshaller> UNMARSHALLER = new ThreadLocal<>();
+    private static final ThreadLocal<Transformer> INLINE_TRANSFORMER = new ThreadLocal<>();
+
+    private static XMLInputFactory createXMLInputFactory() {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newFactory();
+        // disable external entities
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
+        return xmlInputFactory;
+    }
+
+    private static TransformerFactory createTransformerFactory() {
+        TransformerFactory transformerFactory = TransformerFactory.newInstance();
+        transformerFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        transformerFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
+        return transformerFactory;
+    }
+
+    private static Marshaller marshaller() throws JAXBException {
+        Marshaller marshaller = MARSHALLER.get();
+        if (marshaller == null) {
+            marshaller = JAXBUtil.getArchieJAXBContext().createMarshaller();
+            MARSHALLER.set(marshaller);
+        }
+        return marshaller;
+    }
+
+    private static Unmarshaller unmarshaller() throws JAXBException {
+        Unmarshaller unmarshaller = UNMARSHALLER.get();
+        if (unmarshaller == null) {
+            unmarshaller = JAXBUtil.getArchieJAXBContext().createUnmarshaller();
+            UNMARSHALLER.set(unmarshaller);
+        }
+        return unmarshaller;
+    }
+
+    private static Transformer inlineTransformer() throws TransformerConfigurationException {
+        Transformer transformer = INLINE_TRANSFORMER.get();
+        if (transformer == null) {
+            synchronized (TRANSFORMER_FACTORY) {
+                transformer = TRANSFORMER_FACTORY.newTransformer();
+            }
+            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+            INLINE_TRANSFORMER.set(transformer);
+        }
+        return transformer;
+    }
+
     @Override
     public String marshal(RMObject rmObject) {
 
@@ -61,22 +116,33 @@ public class CanonicalXML implements RMDataFormat {
     public String marshal(RMObject rmObject, Boolean withHeader) {
 
         StringWriter stringWriter = new StringWriter();
+        marshal(rmObject, withHeader, stringWriter);
+        return stringWriter.toString();
+    }
+
+    /**
+     * marshal an RM object directly to a writer, e.g. the writer of a response
+     *
+     * @param rmObject   the object to marshal
+     * @param withHeader whether the XML declaration is written
+     * @param writer     the writer receiving the XML
+     */
+    public void marshal(RMObject rmObject, Boolean withHeader, Writer writer) {
+
         try {
-            Marshaller marshaller = JAXBUtil.getArchieJAXBContext().createMarshaller();
+            Marshaller marshaller = marshaller();
             marshaller.setProperty("jaxb.fragment", !withHeader);
             if (rmObject.getClass().getAnnotation(XmlRootElement.class) == null) {
                 QName qName = new QName(null, new SnakeCase(rmObject.getClass().getSimpleName()).camelToSnake());
                 JAXBElement<RMObject> root = new JAXBElement<>(qName, RMObject.class, rmObject);
-                marshaller.marshal(root, stringWriter);
+                marshaller.marshal(root, writer);
             } else {
 
-                marshaller.marshal(rmObject, stringWriter);
+                marshaller.marshal(rmObject, writer);
             }
         } catch (JAXBException e) {
             throw new MarshalException(e.getMessage(), e);
         }
-
-        return stringWriter.toString();
     }
 
 
@@ -86,16 +152,13 @@ public class CanonicalXML implements RMDataFormat {
         try {
             JAXBElement<RMObject> root = new JAXBElement<>(qName, RMObject.class, rmObject);
 
-            Marshaller marshaller = JAXBUtil.getArchieJAXBContext().createMarshaller();
+            Marshaller marshaller = marshaller();
+            marshaller.setProperty("jaxb.fragment", Boolean.FALSE);
 
             DOMResult res = new DOMResult();
             marshaller.marshal(root, res);
-            TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            transformerFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
-            transformerFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
 
-            Transformer transformer = transformerFactory.newTransformer();
-            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+            Transformer transformer = inlineTransformer();
             Node rootNode = res.getNode().getFirstChild();
             NodeList childNodes = rootNode.getChildNodes();
 
@@ -112,55 +175,106 @@ public class CanonicalXML implements RMDataFormat {
 
     @Override
     public <T extends RMObject> T unmarshal(String value, Class<T> clazz) {
+        return unmarshal(new StringReader(value), clazz);
+    }
+
+    /**
+     * unmarshal an RM object read from a reader, e.g. the reader of a request
+     *
+     * @param reader the XML source
+     * @param clazz  the expected RM class
+     * @return the RM object
+     */
+    public <T extends RMObject> T unmarshal(Reader reader, Class<T> clazz) {
         T composition;
+        XMLStreamReader xmlStreamReader = null;
         try {
-            Unmarshaller unmarshaller = JAXBUtil.getArchieJAXBContext().createUnmarshaller();
-            // Set the parent XMLReader on the XMLFilter
-            SAXParserFactory spf = SAXParserFactory.newInstance();
-            // disable external entities
-            spf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, Boolean.TRUE);
-            spf.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-            spf.setNamespaceAware(true);
-            spf.setValidating(false);
-            SAXParser sp = spf.newSAXParser();
-            XMLReader xr = sp.getXMLReader();
-            XMLFilter filter = new NamespaceFilter();
-            filter.setParent(xr);
-
-            UnmarshallerHandler unmarshallerHandler = unmarshaller.getUnmarshallerHandler();
-            filter.setContentHandler(unmarshallerHandler);
-            filter.parse(new InputSource(IOUtils.toInputStream(value, UTF_8)));
-            composition = (T) unmarshallerHandler.getResult();
-        } catch (JAXBException | ParserConfigurationException | SAXException | IOException e) {
+            xmlStreamReader = new NamespaceFilter(XML_INPUT_FACTORY.createXMLStreamReader(reader));
+            composition = (T) unmarshaller().unmarshal(xmlStreamReader);
+        } catch (JAXBException | XMLStreamException e) {
             throw new UnmarshalException(e.getMessage(), e);
+        } finally {
+            if (xmlStreamReader != null) {
+                try {
+                    xmlStreamReader.close();
+                } catch (XMLStreamException e) {
+                    //nothing left to release
+                }
+            }
         }
         return composition;
     }
 
-    private class NamespaceFilter extends XMLFilterImpl {
+    /**
+     * Maps all elements to the no namespace as expected by archie, and removes the default namespace
+     * declarations (e.g. http://schemas.openehr.org/v1). DOCTYPE declarations are rejected.
+     */
+    private static class NamespaceFilter extends StreamReaderDelegate {
+
+        NamespaceFilter(XMLStreamReader reader) {
+            super(reader);
+        }
+
+        @Override
+        public int next() throws XMLStreamException {
+            int event = super.next();
+            if (event == XMLStreamConstants.DTD)
+                throw new XMLStreamException("DOCTYPE is disallowed", getLocation());
+            return event;
+        }
 
         @Override
-        public void endElement(String uri, String localName, String qName)
-                throws SAXException {
-            super.endElement(NAMESPACE, localName, qName);
+        public String getNamespaceURI() {
+            if (isStartElement() || isEndElement())
+                return NAMESPACE;
+            return super.getNamespaceURI();
         }
 
         @Override
-        public void startElement(String uri, String localName, String qName,
-                                 Attributes atts) throws SAXException {
+        public String getNamespaceURI(String prefix) {
+            if (prefix == null || prefix.isEmpty())
+                return NAMESPACE;
+            return super.getNamespaceURI(prefix);
+        }
 
-            AttributesImpl attributesImpl = new AttributesImpl(atts);
+        @Override
+        public QName getName() {
+            return new QName(NAMESPACE, getLocalName());
+        }
 
+        @Override
+        public int getNamespaceCount() {
+            int count = 0;
+            for (int i = 0; i < super.getNamespaceCount(); i++) {
+                if (!isDefaultNamespace(i))
+                    count++;
+            }
+            return count;
+        }
 
-            super.startElement(NAMESPACE, localName, qName, attributesImpl);
+        @Override
+        public String getNamespacePrefix(int index) {
+            return super.getNamespacePrefix(declaration(index));
         }
 
         @Override
-        public void startPrefixMapping(String prefix, String uri) throws SAXException {
-            //remove default namespace http://schemas.openehr.org/v1
-            if (!prefix.equals("")) {
-                super.startPrefixMapping(prefix, uri);
+        public String getNamespaceURI(int index) {
+            return super.getNamespaceURI(declaration(index));
+        }
+
+        private boolean isDefaultNamespace(int index) {
+            String prefix = super.getNamespacePrefix(index);
+            return prefix == null || prefix.isEmpty();
+        }
+
+        //index of the declaration in the underlying reader, skipping the default namespace declarations
+        private int declaration(int index) {
+            int found = -1;
+            for (int i = 0; i < super.getNamespaceCount(); i++) {
+                if (!isDefaultNamespace(i) && ++found == index)
+                    return i;
             }
+            throw new IndexOutOfBoundsException("namespace declaration:" + index);
         }
     }
 }
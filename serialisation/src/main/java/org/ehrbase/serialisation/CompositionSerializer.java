@@ -23,7 +23,6 @@
 package org.ehrbase.serialisation;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.nedap.archie.rm.RMObject;
 import com.nedap.archie.rm.archetyped.Locatable;
 import com.nedap.archie.rm.composition.*;
@@ -37,17 +36,17 @@ import com.nedap.archie.rm.datavalues.quantity.datetime.DvDateTime;
 import com.nedap.archie.rm.generic.Participation;
 import com.nedap.archie.rm.generic.PartyIdentified;
 import com.nedap.archie.rm.integration.GenericEntry;
-import org.apache.commons.collections.MapUtils;
-import org.apache.commons.collections.PredicateUtils;
 import org.apache.commons.collections.map.MultiValueMap;
 import org.apache.commons.collections.map.PredicatedMap;
 
 import org.ehrbase.ehr.encode.EncodeUtilArchie;
 import org.ehrbase.ehr.encode.ItemStack;
+import org.ehrbase.ehr.encode.LtreeLabelDictionary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * Sequential Event Processor for Composition.<p>
@@ -60,6 +59,9 @@ public class CompositionSerializer {
 
     private static final String INITIAL_DUMMY_PREFIX = "$*>";
 
+    //compact (non indented) encoder for the DB JSON, thread safe
+    private static final Gson DB_ENCODER = EncodeUtilArchie.getGsonBuilderInstance().create();
+
     public enum WalkerOutputMode {
         PATH,
         NAMED,
@@ -130,26 +132,66 @@ public class CompositionSerializer {
 
 
     protected CompositionSerializer() {
+        this(PathMap::new);
+    }
+
+    /**
+     * @param pathMapFactory the maps of the DB representation, f.e. the predicate decorated maps of the previous
+     *                       encoder to compare the encodings
+     */
+    CompositionSerializer(Supplier<Map<String, Object>> pathMapFactory) {
         this.allElements = false;
         this.tag_mode = WalkerOutputMode.PATH;
+        this.pathMapFactory = pathMapFactory;
 //		initTags();
     }
 
+    private final Supplier<Map<String, Object>> pathMapFactory;
+
     protected ItemStack itemStack = new ItemStack();
 
 //	private void initTags() throws IllegalAccessException {
 //		TagSetter.setTagDefinition(this, TagSetter.DefinitionSet.PG_JSONB);
 //	}
 
+    /**
+     * A sorted map rejecting any key already put into it, including keys which have been removed since (whichever
+     * way they have been removed).
+     * <p>
+     * This is the behaviour of a TreeMap decorated with a unique key predicate: the keys ever put are kept in a set,
+     * only the decorator is saved.
+     */
+    static final class PathMap extends TreeMap<String, Object> {
+
+        private final Set<String> keys = new HashSet<>();
+
+        @Override
+        public Object put(String key, Object value) {
+            if (!keys.add(key))
+                throw new IllegalArgumentException("Cannot add key - Predicate rejected it");
+            return super.put(key, value);
+        }
+
+        //TreeMap.putAll copies a sorted map into an empty one without calling put
+        @Override
+        public void putAll(Map<? extends String, ?> map) {
+            for (Map.Entry<? extends String, ?> entry : map.entrySet())
+                put(entry.getKey(), entry.getValue());
+        }
+    }
+
     /**
      * to remain consistent regarding datastructure, we use a map which prevents duplicated keys... and throw
      * an exception if one is detected...
      *
      * @return
      */
-    @SuppressWarnings("unchecked")
     private Map<String, Object> newPathMap() {
-        return MapUtils.predicatedMap(new TreeMap<String, Object>(), PredicateUtils.uniquePredicate(), null);
+        return pathMapFactory.get();
+    }
+
+    private static boolean isPathMap(Map<String, Object> map) {
+        return map instanceof PathMap || map instanceof PredicatedMap;
     }
 
     @SuppressWarnings("unchecked")
@@ -207,7 +249,7 @@ public class CompositionSerializer {
         try {
             map.put(key, addStructure);
             //add explicit name
-            if (node instanceof Locatable && map instanceof PredicatedMap && !map.containsKey(TAG_NAME)) {
+            if (node instanceof Locatable && isPathMap(map) && !map.containsKey(TAG_NAME)) {
                 nameAsValueList(map, mapName(((Locatable) node).getName()));
             }
 
@@ -423,6 +465,9 @@ public class CompositionSerializer {
         if (composition == null  /* CHC 170426: no content is legit... || composition.getContent() == null || composition.getContent().isEmpty() */)
             return null;
 
+        if (composition.getArchetypeDetails() != null && composition.getArchetypeDetails().getTemplateId() != null)
+            itemStack.setLabelDictionary(LtreeLabelDictionary.forTemplate(composition.getArchetypeDetails().getTemplateId().getValue()));
+
 //		pushPathStack(TAG_COMPOSITION+"["+composition.getArchetypeNodeId()+"]");
         Map<String, Object> ltree = newMultiMap();
 
@@ -1158,9 +1203,7 @@ public class CompositionSerializer {
         else
             throw new MarshalException(String.format("Class %s not supported ", rmObject.getClass()), null);
 
-        GsonBuilder builder = EncodeUtilArchie.getGsonBuilderInstance();
-        Gson gson = builder.setPrettyPrinting().create();
-        return gson.toJson(stringObjectMap);
+        return DB_ENCODER.toJson(stringObjectMap);
     }
 
 
@@ -41,33 +41,40 @@ import java.io.IOException;
  */
 public class JacksonUtil {
 
-    //threadsafe, can be cached
-    private volatile static ObjectMapper objectMapper;
+    //threadsafe, can be cached: fully configured before publication and never reconfigured
+    private static class ObjectMapperHolder {
+        private static final ObjectMapper OBJECT_MAPPER = createObjectMapper();
+    }
 
     /**
      * Get an object mapper that works with Archie RM and AOM objects. It will be cached in a static variable for
-     * performance reasons
+     * performance reasons. The returned mapper is shared: do not change its configuration, use
+     * {@link #createObjectMapper()} to obtain a mapper to customize.
      *
      * @return
      */
     public static ObjectMapper getObjectMapper() {
-        if (objectMapper == null) {
-            objectMapper = new ObjectMapper();
-            configureObjectMapper(objectMapper);
+        return ObjectMapperHolder.OBJECT_MAPPER;
+    }
 
-        }
+    /**
+     * Create a new object mapper that works with Archie RM and AOM objects.
+     *
+     * @return
+     */
+    public static ObjectMapper createObjectMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        configureObjectMapper(objectMapper);
         return objectMapper;
     }
 
     /**
      * Configure an existing object mapper to work with Archie RM and AOM Objects.
-     * Indentation is enabled. Feel free to disable again in your own code.
+     * The output is compact (not indented), use a writer with a pretty printer if indentation is required.
      *
      * @param objectMapper
      */
     public static void configureObjectMapper(ObjectMapper objectMapper) {
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-        objectMapper.enable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
         objectMapper.disable(SerializationFeature.WRITE_NULL_MAP_VALUES);
         objectMapper.enableDefaultTyping(ObjectMapper.DefaultTyping.NON_FINAL);
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
@@ -18,6 +18,7 @@
 
 package org.ehrbase.serialisation;
 
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.nedap.archie.rm.RMObject;
 import com.nedap.archie.rm.composition.Composition;
 import org.ehrbase.ehr.encode.rawjson.LightRawJsonEncoder;
@@ -27,6 +28,9 @@ import java.util.Map;
 
 public class RawJson implements RMDataFormat {
 
+    //built once from the shared mapper, the reader configuration is immutable
+    private static final ObjectReader RAW_READER = JacksonUtil.getObjectMapper().reader();
+
     private Map<String, String> ltreeMap;
 
     @Override
@@ -51,7 +55,7 @@ public class RawJson implements RMDataFormat {
             converted = new LightRawJsonEncoder(value).encodeContentAsString(null);
         }
         try {
-            return JacksonUtil.getObjectMapper().readValue(converted, clazz);
+            return RAW_READER.forType(clazz).readValue(converted);
         } catch (IOException e) {
             throw new IllegalArgumentException(e.getMessage(), e);
         }
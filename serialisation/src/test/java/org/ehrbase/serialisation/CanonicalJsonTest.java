@@ -52,6 +52,9 @@ import org.openehr.bmm.core.BmmPackage;
 import org.openehr.bmm.persistence.validation.BmmDefinitions;
 
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.Locale;
 import java.util.HashMap;
 import org.openehr.referencemodels.BuiltinReferenceModels;
@@ -68,6 +71,30 @@ import org.openehr.bmm.core.BmmType;
 
 public class CanonicalJsonTest {
 
+    @Test
+    public void marshalConcurrently() throws Exception {
+        String value = IOUtils.toString(CompositionTestDataCanonicalJson.LABORATORY_REPORT.getStream(), UTF_8);
+
+        CanonicalJson cut = new CanonicalJson();
+        String expected = cut.marshal(cut.unmarshal(value, Composition.class));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(executorService.submit(() -> {
+                    CanonicalJson canonicalJson = new CanonicalJson();
+                    return canonicalJson.marshal(canonicalJson.unmarshal(value, Composition.class));
+                }));
+            }
+            for (Future<String> result : results) {
+                assertThat(result.get()).isEqualTo(expected);
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
     @Test
     public void marshal_lab() throws IOException {
         String value = IOUtils.toString(CompositionTestDataCanonicalJson.LABORATORY_REPORT.getStream(), UTF_8);
@@ -28,9 +28,17 @@ import org.junit.Test;
 
 import javax.xml.namespace.QName;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class CanonicalXMLTest {
 
@@ -83,6 +91,47 @@ public class CanonicalXMLTest {
 
     }
 
+    @Test
+    public void unmarshalRejectsDoctype() {
+        String value = "<?xml version=\"1.0\"?><!DOCTYPE composition [<!ENTITY xxe SYSTEM \"file:///etc/passwd\">]>" +
+                "<composition xmlns=\"http://schemas.openehr.org/v1\"><name><value>&xxe;</value></name></composition>";
+        CanonicalXML cut = new CanonicalXML();
+
+        assertThatThrownBy(() -> cut.unmarshal(value, Composition.class)).isInstanceOf(UnmarshalException.class);
+    }
+
+    @Test
+    public void marshalConcurrently() throws Exception {
+        String value = IOUtils.toString(CompositionTestDataCanonicalXML.ALL_TYPES.getStream(), UTF_8);
+        CanonicalXML cut = new CanonicalXML();
+        String expected = cut.marshal(cut.unmarshal(value, Composition.class));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(executorService.submit(() -> cut.marshal(cut.unmarshal(new StringReader(value), Composition.class))));
+            }
+            for (Future<String> result : results) {
+                assertThat(result.get()).isEqualTo(expected);
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void marshalToWriter() throws IOException {
+        String value = IOUtils.toString(CompositionTestDataCanonicalXML.ALL_TYPES.getStream(), UTF_8);
+        CanonicalXML cut = new CanonicalXML();
+        Composition composition = cut.unmarshal(value, Composition.class);
+
+        StringWriter writer = new StringWriter();
+        cut.marshal(composition, false, writer);
+
+        assertThat(writer.toString()).isEqualTo(cut.marshal(composition, false));
+    }
+
     @Test
     public void marshalInline() {
         Folder folder = new Folder();
@@ -18,19 +18,32 @@
 
 package org.ehrbase.serialisation;
 
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
 import org.ehrbase.test_data.composition.CompositionTestDataCanonicalJson;
 import org.ehrbase.test_data.composition.CompositionTestDataCanonicalXML;
 import com.nedap.archie.rm.composition.Composition;
+import org.ehrbase.ehr.encode.ItemStack;
+import org.ehrbase.ehr.encode.LtreeLabelDictionary;
 import org.ehrbase.ehr.encode.rawjson.LightRawJsonEncoder;
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.collections.PredicateUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.Assert.*;
 
 public class DBEncodeTest {
@@ -85,6 +98,114 @@ public class DBEncodeTest {
         }
     }
 
+    @Test
+    public void testCompactDBEncode() throws Exception {
+        Composition composition = new CanonicalXML().unmarshal(IOUtils.toString(CompositionTestDataCanonicalXML.DIADEM.getStream(), UTF_8), Composition.class);
+
+        String db_encoded = new CompositionSerializer().dbEncode(composition);
+
+        //no indentation whitespace is stored
+        assertThat(db_encoded).doesNotContain("\n");
+
+        String indented = new GsonBuilder().setPrettyPrinting().create().toJson(JsonParser.parseString(db_encoded));
+        assertThat(db_encoded.length()).isLessThan(indented.length());
+        assertThat(JsonParser.parseString(db_encoded)).isEqualTo(JsonParser.parseString(indented));
+    }
+
+    @Test
+    public void testSharedLtreeLabels() throws Exception {
+        Composition composition = new CanonicalXML().unmarshal(IOUtils.toString(CompositionTestDataCanonicalXML.RIPPLE_CONFORMANCE_FULL.getStream(), UTF_8), Composition.class);
+
+        CompositionSerializer first = new CompositionSerializer();
+        first.dbEncode(composition);
+        CompositionSerializer second = new CompositionSerializer();
+        second.dbEncode(composition);
+
+        assertFalse(first.getLtreeMap().isEmpty());
+        assertEquals(first.getLtreeMap(), second.getLtreeMap());
+
+        //labels of the same template are the same instances
+        Iterator<String> labels = second.getLtreeMap().keySet().iterator();
+        for (String label : first.getLtreeMap().keySet()) {
+            assertSame(label, labels.next());
+            for (String part : label.split("\\."))
+                assertTrue(label, part.matches("[A-Za-z0-9_]+"));
+        }
+
+        LtreeLabelDictionary dictionary = LtreeLabelDictionary.forTemplate(composition.getArchetypeDetails().getTemplateId().getValue());
+        assertEquals(ItemStack.normalizeLabel("/content[openEHR-EHR-SECTION.adhoc.v1]"), dictionary.label("/content[openEHR-EHR-SECTION.adhoc.v1]"));
+        assertSame(dictionary.qualify("a", "b"), dictionary.qualify("a", "b"));
+
+        //a registered (or removed) template starts over with a new dictionary
+        LtreeLabelDictionary.evict(composition.getArchetypeDetails().getTemplateId().getValue());
+        assertNotSame(dictionary, LtreeLabelDictionary.forTemplate(composition.getArchetypeDetails().getTemplateId().getValue()));
+        assertSame(LtreeLabelDictionary.forTemplate(null), LtreeLabelDictionary.forTemplate(null));
+    }
+
+    /**
+     * the encoding with the path maps is the same as with the predicate decorated maps of the previous encoder, on all
+     * the test data compositions
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPathMapsMatchPredicatedMaps() throws Exception {
+        List<Composition> compositions = new ArrayList<>();
+        for (CompositionTestDataCanonicalXML testData : CompositionTestDataCanonicalXML.values()) {
+            try {
+                compositions.add(new CanonicalXML().unmarshal(IOUtils.toString(testData.getStream(), UTF_8), Composition.class));
+            } catch (Exception e) {
+                //not a valid composition, nothing to encode
+            }
+        }
+        for (CompositionTestDataCanonicalJson testData : CompositionTestDataCanonicalJson.values()) {
+            try {
+                compositions.add(new CanonicalJson().unmarshal(IOUtils.toString(testData.getStream(), UTF_8), Composition.class));
+            } catch (Exception e) {
+                //not a valid composition, nothing to encode
+            }
+        }
+        assertThat(compositions).hasSizeGreaterThan(10);
+
+        for (Composition composition : compositions) {
+            String name = composition.getName().getValue();
+
+            CompositionSerializer encoder = new CompositionSerializer();
+            CompositionSerializer baselineEncoder = new CompositionSerializer(
+                    () -> MapUtils.predicatedMap(new TreeMap<String, Object>(), PredicateUtils.uniquePredicate(), null));
+
+            String baselineEncoded;
+            try {
+                baselineEncoded = baselineEncoder.dbEncode(composition);
+            } catch (Exception e) {
+                assertThatThrownBy(() -> encoder.dbEncode(composition)).as(name).isInstanceOf(e.getClass());
+                continue;
+            }
+            assertEquals(name, baselineEncoded, encoder.dbEncode(composition));
+            assertEquals(name, baselineEncoder.getLtreeMap(), encoder.getLtreeMap());
+        }
+    }
+
+    @Test
+    public void testPathMapRejectsKeysEverPut() {
+        CompositionSerializer.PathMap pathMap = new CompositionSerializer.PathMap();
+        pathMap.put("/items[at0001]", "a");
+        pathMap.put("/items[at0002]", "b");
+        assertThatThrownBy(() -> pathMap.put("/items[at0001]", "c")).isInstanceOf(IllegalArgumentException.class);
+
+        //removed through a view
+        Iterator<Map.Entry<String, Object>> iterator = pathMap.entrySet().iterator();
+        iterator.next();
+        iterator.remove();
+        assertThatThrownBy(() -> pathMap.put("/items[at0001]", "c")).isInstanceOf(IllegalArgumentException.class);
+        pathMap.keySet().remove("/items[at0002]");
+        assertThatThrownBy(() -> pathMap.put("/items[at0002]", "c")).isInstanceOf(IllegalArgumentException.class);
+
+        //a sorted map copied into an empty one
+        CompositionSerializer.PathMap copy = new CompositionSerializer.PathMap();
+        copy.putAll(new TreeMap<>(Collections.singletonMap("/items[at0003]", "d")));
+        assertThatThrownBy(() -> copy.putAll(new TreeMap<>(Collections.singletonMap("/items[at0003]", "e")))).isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     public void testDBDecodeFullComposition() throws Exception {
 
@@ -33,6 +33,8 @@ public class Contains {
 
     private String containClause;
 
+    private String containExpression;
+
     //this is the list of nested sets from the CONTAINS expressions
     private List<ContainmentSet> nestedSets;
 
@@ -54,6 +56,7 @@ public class Contains {
         //bind the nested sets to SQL (it should be an configuration btw)
         ContainBinder containBinder = new ContainBinder(nestedSets);
         this.containClause = containBinder.bind();
+        this.containExpression = containBinder.getContainExpression();
 
         useSimpleCompositionContainment = containBinder.isUseSimpleCompositionContainment();
         return this;
@@ -69,6 +72,13 @@ public class Contains {
         return containClause;
     }
 
+    /**
+     * @return the ltree expression of the contain clause if it consists of a single label match, null otherwise
+     */
+    public String getContainExpression() {
+        return containExpression;
+    }
+
     public boolean isUseSimpleCompositionContainment() {
         return useSimpleCompositionContainment;
     }
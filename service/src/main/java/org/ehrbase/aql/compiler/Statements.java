@@ -18,6 +18,8 @@
 
 package org.ehrbase.aql.compiler;
 
+import org.ehrbase.aql.compiler.tsclient.StubTerminologyServerImpl;
+import org.ehrbase.aql.compiler.tsclient.TerminologyServer;
 import org.ehrbase.aql.containment.IdentifierMapper;
 import org.ehrbase.aql.definition.FromEhrDefinition;
 import org.ehrbase.aql.definition.I_VariableDefinition;
@@ -37,13 +39,22 @@ public class Statements {
     private TopAttributes topAttributes;
     private List<OrderAttribute> orderAttributes;
     private IdentifierMapper identifierMapper;
+    private TerminologyServer<String, String> terminologyServer;
 
     private Integer limitAttribute;
     private Integer offsetAttribute;
 
     public Statements(ParseTree parseTree, IdentifierMapper identifierMapper) {
+        this(parseTree, identifierMapper, new StubTerminologyServerImpl());
+    }
+
+    /**
+     * @param terminologyServer the terminology server expanding the value sets of MATCHES {INVOKE(...)}
+     */
+    public Statements(ParseTree parseTree, IdentifierMapper identifierMapper, TerminologyServer<String, String> terminologyServer) {
         this.parseTree = parseTree;
         this.identifierMapper = identifierMapper;
+        this.terminologyServer = terminologyServer;
     }
 
     public Statements process() {
@@ -66,7 +77,7 @@ public class Statements {
     }
 
     private List visitWhere() {
-        WhereVisitor whereVisitor = new WhereVisitor();
+        WhereVisitor<String, String> whereVisitor = new WhereVisitor<>(terminologyServer);
         whereVisitor.visit(parseTree);
         return whereVisitor.getWhereExpression();
     }
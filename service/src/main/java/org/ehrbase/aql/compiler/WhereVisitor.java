@@ -21,7 +21,7 @@
 
 package org.ehrbase.aql.compiler;
 
-import org.ehrbase.aql.compiler.tsclient.FhirTerminologyServerImpl;
+import org.ehrbase.aql.compiler.tsclient.StubTerminologyServerImpl;
 import org.ehrbase.aql.compiler.tsclient.TerminologyServer;
 import org.ehrbase.aql.definition.VariableDefinition;
 import org.ehrbase.aql.parser.AqlBaseVisitor;
@@ -30,7 +30,10 @@ import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.TerminalNodeImpl;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Interpret an AQL WHERE clause and set the result into a list of WHERE parts
@@ -46,10 +49,22 @@ public class WhereVisitor<T, ID> extends AqlBaseVisitor<List<Object>> {
     public static final String CLOSING_PAR = ")";
     public static final String COMMA = ",";
     
-    private TerminologyServer<T, ID> tsserver = (TerminologyServer<T, ID>) new FhirTerminologyServerImpl();
+    private final TerminologyServer<T, ID> tsserver;
 
     private List<Object> whereExpression = new ArrayList<>();
 
+    @SuppressWarnings("unchecked")
+    public WhereVisitor() {
+        this((TerminologyServer<T, ID>) new StubTerminologyServerImpl());
+    }
+
+    /**
+     * @param tsserver the terminology server expanding the value sets of MATCHES {INVOKE(...)}
+     */
+    public WhereVisitor(TerminologyServer<T, ID> tsserver) {
+        this.tsserver = tsserver;
+    }
+
 //    @Override
 //    public List visit(ParseTree tree){
 //        return null;
@@ -106,13 +121,9 @@ public class WhereVisitor<T, ID> extends AqlBaseVisitor<List<Object>> {
                     operand.add(operandContext.DATE().getText());
                 else if (operandContext.FLOAT() != null)
                 	operand.add(operandContext.FLOAT().getText());
-                else if (operandContext.invokeOperand() != null) {
-                	for(Object obj: visitInvokeOperand(operandContext.invokeOperand())) {
-                		operand.add(obj);
-                		operand.add(",");
-                	}
-                	operand.remove(operand.size()-1);
-                }else if (operandContext.PARAMETER() != null)
+                else if (operandContext.invokeOperand() != null)
+                    operand.addAll(visitInvokeOperand(operandContext.invokeOperand()));
+                else if (operandContext.PARAMETER() != null)
                     operand.add("** unsupported operand: PARAMETER **");
                 else
                     operand.add("** unsupported operand: " + operandContext.getText());
@@ -128,23 +139,26 @@ public class WhereVisitor<T, ID> extends AqlBaseVisitor<List<Object>> {
     
 	
 	  @Override public List<Object> visitInvokeOperand(AqlParser.InvokeOperandContext ctx) {
-	  System.out.println("inside invoke operand");
-	  
-	  //if(((AqlParser.InvokeOperandContext)ctx).INVOKE())
-	  
-	  
 	  return visitChildren(ctx);
-	  
 	  }
-	 
-		@Override public List<Object> visitInvokeExpr(AqlParser.InvokeExprContext ctx) { 
-			List<Object> invokeExpr = new ArrayList<>();
-			assert(((AqlParser.InvokeExprContext)ctx).INVOKE().getText().equals("INVOKE"));			
-			assert(((AqlParser.InvokeExprContext)ctx).OPEN_PAR().getText().equals("("));
-			assert(((AqlParser.InvokeExprContext)ctx).CLOSE_PAR().getText().equals(")"));  
-			invokeExpr.addAll((List<T>)tsserver.expand((ID)((AqlParser.InvokeExprContext)ctx).URIVALUE().getText()));
-			return invokeExpr; 
-		}
+
+	/**
+	 * expand the value set, its concepts are returned as a single item: the quoted distinct codes separated by commas
+	 * (NULL if the expansion is empty). A large expansion is then appended at once to the IN list instead of code by
+	 * code.
+	 */
+	@SuppressWarnings("unchecked")
+	@Override public List<Object> visitInvokeExpr(AqlParser.InvokeExprContext ctx) {
+		assert(ctx.INVOKE().getText().equals("INVOKE"));
+		assert(ctx.OPEN_PAR().getText().equals("("));
+		assert(ctx.CLOSE_PAR().getText().equals(")"));
+		List<T> concepts = tsserver.expand((ID) ctx.URIVALUE().getText());
+
+		String codes = new LinkedHashSet<>(concepts).stream()
+				.map(concept -> "'" + concept.toString().replace("'", "''") + "'")
+				.collect(Collectors.joining(COMMA));
+		return Collections.singletonList(codes.isEmpty() ? "NULL" : codes);
+	}
 
     @Override
     public List<Object> visitIdentifiedEquality(AqlParser.IdentifiedEqualityContext context) {
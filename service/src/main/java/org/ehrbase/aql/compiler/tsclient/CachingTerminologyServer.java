@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehrbase.aql.compiler.tsclient;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Terminology server keeping the expansions of another terminology server.
+ * <p>
+ * Value sets are expanded while the AQL queries are compiled, an expansion is kept for a time to live and the least
+ * recently used expansions are evicted once the maximum number of expansions is reached. Concurrent expansions of the
+ * same value set are coalesced: a single request is sent to the terminology server and its result (or failure) is
+ * shared. Failed expansions are not kept.
+ * <p>
+ * The other operations are delegated as is.
+ *
+ * @param <T>  concept type
+ * @param <ID> id type
+ */
+public class CachingTerminologyServer<T, ID> implements TerminologyServer<T, ID> {
+
+    private static class CachedExpansion<T> {
+        private final List<T> concepts;
+        private final long expiresAt;
+
+        CachedExpansion(List<T> concepts, long expiresAt) {
+            this.concepts = concepts;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final TerminologyServer<T, ID> terminologyServer;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    //access ordered: the eldest entry is the least recently used
+    private final LinkedHashMap<ID, CachedExpansion<T>> expansions = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<ID, CompletableFuture<List<T>>> pendingExpansions = new ConcurrentHashMap<>();
+
+    /**
+     * @param terminologyServer the terminology server expanding the value sets
+     * @param ttl               the time an expansion is kept
+     * @param maxEntries        the maximum number of expansions kept
+     */
+    public CachingTerminologyServer(TerminologyServer<T, ID> terminologyServer, Duration ttl, int maxEntries) {
+        if (ttl == null || ttl.isNegative() || maxEntries < 0)
+            throw new IllegalArgumentException("Invalid terminology server cache configuration, ttl:" + ttl + ", max entries:" + maxEntries);
+
+        this.terminologyServer = terminologyServer;
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public List<T> expand(ID valueSetId) {
+        List<T> concepts = getCached(valueSetId);
+        if (concepts != null)
+            return concepts;
+
+        CompletableFuture<List<T>> expansion = new CompletableFuture<>();
+        CompletableFuture<List<T>> pendingExpansion = pendingExpansions.putIfAbsent(valueSetId, expansion);
+        if (pendingExpansion != null)
+            return await(pendingExpansion);
+
+        try {
+            //the value set may have been expanded since the cache has been looked up
+            concepts = getCached(valueSetId);
+            if (concepts == null) {
+                concepts = Collections.unmodifiableList(terminologyServer.expand(valueSetId));
+                putCached(valueSetId, concepts);
+            }
+            expansion.complete(concepts);
+            return concepts;
+        } catch (RuntimeException e) {
+            expansion.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingExpansions.remove(valueSetId, expansion);
+        }
+    }
+
+    @Override
+    public T lookUp(ID conceptId) {
+        return terminologyServer.lookUp(conceptId);
+    }
+
+    @Override
+    public Boolean validate(T concept, ID valueSetId) {
+        return terminologyServer.validate(concept, valueSetId);
+    }
+
+    @Override
+    public SubsumptionResult subsumes(T conceptA, T conceptB) {
+        return terminologyServer.subsumes(conceptA, conceptB);
+    }
+
+    public synchronized int size() {
+        return expansions.size();
+    }
+
+    private synchronized List<T> getCached(ID valueSetId) {
+        CachedExpansion<T> cachedExpansion = expansions.get(valueSetId);
+        if (cachedExpansion == null)
+            return null;
+
+        if (System.nanoTime() - cachedExpansion.expiresAt >= 0) {
+            expansions.remove(valueSetId);
+            return null;
+        }
+        return cachedExpansion.concepts;
+    }
+
+    private synchronized void putCached(ID valueSetId, List<T> concepts) {
+        if (maxEntries == 0 || ttlNanos == 0)
+            return;
+
+        if (!expansions.containsKey(valueSetId)) {
+            Iterator<ID> eldest = expansions.keySet().iterator();
+            while (expansions.size() >= maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+
+        expansions.put(valueSetId, new CachedExpansion<>(concepts, System.nanoTime() + ttlNanos));
+    }
+
+    private static <T> List<T> await(CompletableFuture<List<T>> pendingExpansion) {
+        try {
+            return pendingExpansion.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+}
@@ -17,26 +17,158 @@
  */
 package org.ehrbase.aql.compiler.tsclient;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.ehrbase.api.exception.BadGatewayException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+
 /***
+ * Client of a FHIR terminology server. The value set id is the URL of a ValueSet $expand operation, f.e.
+ * https://terminology.example.org/fhir/ValueSet/23/$expand?filter=abdo, the codes of the expansion are returned.
+ * <p>
+ * The URL is taken from the query, it must be located below one of the configured URLs: same scheme, host and port,
+ * and a path within the configured path (whole segments). URLs with user info are rejected, the server does not issue
+ * a request to any other location.
+ *
  *@Created by Luis Marco-Ruiz on Feb 12, 2020
  */
 public class FhirTerminologyServerImpl  implements TerminologyServer<String, String>{
 
+	private final List<URI> allowedUrls;
+	private final Duration timeout;
+	private final HttpClient httpClient;
+
+	/**
+	 * @param allowedUrls the base URLs of the value sets which may be expanded
+	 * @param timeout     the connection and request timeout
+	 * @throws IllegalArgumentException if an allowed URL is not an absolute http(s) URL without user info
+	 */
+	public FhirTerminologyServerImpl(List<String> allowedUrls, Duration timeout) {
+		this.allowedUrls = new ArrayList<>();
+		for (String allowedUrl : allowedUrls) {
+			URI uri = parse(allowedUrl.trim());
+			if (uri == null)
+				throw new IllegalArgumentException("Invalid terminology server url:" + allowedUrl);
+			this.allowedUrls.add(uri);
+		}
+		this.timeout = timeout;
+		this.httpClient = HttpClient.newBuilder()
+				.connectTimeout(timeout)
+				.followRedirects(HttpClient.Redirect.NEVER)
+				.build();
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the URL is not one of the configured terminology server
+	 * @throws BadGatewayException      if the terminology server can't be reached or does not return an expansion
+	 */
 	@Override
-	public List expand(String valueSetId) {
-		List<String> result = new ArrayList();
-		result.add("48377-6");
-		result.add("27478-7");
-		result.add("52539-9");
-		return result;
+	public List<String> expand(String valueSetId) {
+		URI valueSetUri = valueSetId == null ? null : parse(valueSetId);
+		if (valueSetUri == null || allowedUrls.stream().noneMatch(allowedUrl -> isLocatedBelow(valueSetUri, allowedUrl)))
+			throw new IllegalArgumentException("Value set is not located on a configured terminology server:" + valueSetId);
+
+		HttpResponse<String> response;
+		try {
+			HttpRequest request = HttpRequest.newBuilder(valueSetUri)
+					.timeout(timeout)
+					.header("Accept", "application/fhir+json")
+					.GET()
+					.build();
+			response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+		} catch (IOException e) {
+			throw new BadGatewayException("Could not expand value set:" + valueSetId + ", reason:" + e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BadGatewayException("Interrupted while expanding value set:" + valueSetId);
+		}
+
+		if (response.statusCode() != 200)
+			throw new BadGatewayException("Could not expand value set:" + valueSetId + ", terminology server status:" + response.statusCode());
+
+		try {
+			JsonObject expansion = JsonParser.parseString(response.body()).getAsJsonObject().getAsJsonObject("expansion");
+			if (expansion == null)
+				throw new BadGatewayException("No expansion returned for value set:" + valueSetId);
+
+			List<String> codes = new ArrayList<>();
+			collectCodes(expansion.getAsJsonArray("contains"), codes);
+			return codes;
+		} catch (JsonParseException | IllegalStateException | ClassCastException e) {
+			throw new BadGatewayException("Invalid expansion returned for value set:" + valueSetId + ", reason:" + e.getMessage());
+		}
+	}
+
+	/**
+	 * @return the normalized URI (without dot segments), null if not an absolute http(s) URL with a host and without
+	 * user info
+	 */
+	private static URI parse(String url) {
+		URI uri;
+		try {
+			uri = new URI(url).normalize();
+		} catch (URISyntaxException e) {
+			return null;
+		}
+
+		if (uri.getScheme() == null || uri.getHost() == null || uri.getRawUserInfo() != null)
+			return null;
+		if (!"http".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(uri.getScheme()))
+			return null;
+		if (uri.getRawPath() != null && uri.getRawPath().startsWith("/.."))
+			return null;
+		return uri;
+	}
+
+	private static boolean isLocatedBelow(URI uri, URI allowedUrl) {
+		if (!uri.getScheme().equalsIgnoreCase(allowedUrl.getScheme())
+				|| !uri.getHost().toLowerCase(Locale.ROOT).equals(allowedUrl.getHost().toLowerCase(Locale.ROOT))
+				|| port(uri) != port(allowedUrl))
+			return false;
+
+		String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+		String allowedPath = allowedUrl.getRawPath() == null ? "" : allowedUrl.getRawPath();
+		if (allowedPath.endsWith("/"))
+			allowedPath = allowedPath.substring(0, allowedPath.length() - 1);
+
+		return path.equals(allowedPath) || path.startsWith(allowedPath + "/");
+	}
+
+	private static int port(URI uri) {
+		if (uri.getPort() != -1)
+			return uri.getPort();
+		return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+	}
+
+	//the concepts of an expansion may be nested
+	private static void collectCodes(JsonArray contains, List<String> codes) {
+		if (contains == null)
+			return;
+
+		for (JsonElement element : contains) {
+			JsonObject concept = element.getAsJsonObject();
+			if (concept.has("code"))
+				codes.add(concept.get("code").getAsString());
+			collectCodes(concept.getAsJsonArray("contains"), codes);
+		}
 	}
 
 	@Override
 	public Boolean validate(String concept, String valueSetId) {
-		// TODO Auto-generated method stub
-		return null;
+		return expand(valueSetId).contains(concept);
 	}
 
 	@Override
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH, Hannover Medical School, and Luis Marco-Ruiz (Hannover Medical School).
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehrbase.aql.compiler.tsclient;
+
+import java.util.Arrays;
+import java.util.List;
+
+/***
+ * Terminology server returning a fixed expansion for any value set, used when no terminology server is configured
+ * (server.aql.terminology-server.type: stub)
+ *
+ *@Created by Luis Marco-Ruiz on Feb 12, 2020
+ */
+public class StubTerminologyServerImpl implements TerminologyServer<String, String> {
+
+	@Override
+	public List<String> expand(String valueSetId) {
+		return Arrays.asList("48377-6", "27478-7", "52539-9");
+	}
+
+	@Override
+	public Boolean validate(String concept, String valueSetId) {
+		return expand(valueSetId).contains(concept);
+	}
+
+	@Override
+	public SubsumptionResult subsumes(String conceptA, String conceptB) {
+		// TODO Auto-generated method stub
+		return null;
+	}
+
+	@Override
+	public String lookUp(String conceptId) {
+		// TODO Auto-generated method stub
+		return null;
+	}
+
+}
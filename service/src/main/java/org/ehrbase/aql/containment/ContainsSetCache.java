@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.aql.containment;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the templates involved in a CONTAINS clause and of the containment paths resolved for a template.
+ * <p>
+ * Before building the SQL of an AQL query, the templates matching its CONTAINS clause are discovered together with a
+ * sample composition per template (used to resolve the containment paths). This discovery is cached per contain
+ * clause, so that a query repeated with other parameters (e.g. another ehr_id) is executed in a single round trip.
+ * <p>
+ * The cache is invalidated when:
+ * <ul>
+ * <li>a template is (re)loaded: all clauses and the paths of this template</li>
+ * <li>an entry is written for a template not yet part of a clause result, and which could match the clause (the
+ * templates resolved from the containment index or, for a clause resolved from CONTAINMENT, any template)</li>
+ * <li>a sample composition is deleted</li>
+ * </ul>
+ * A write invalidates the clauses when it is done and once again when its transaction is committed, samples fetched
+ * in between from the previous state are therefore discarded as well.
+ */
+public class ContainsSetCache {
+
+    /**
+     * a template matching a contain clause with a sample composition and the root key of its entries
+     */
+    public static class TemplateSample {
+        private final String templateId;
+        private final UUID compositionId;
+        private final String entryRoot;
+
+        public TemplateSample(String templateId, UUID compositionId, String entryRoot) {
+            this.templateId = templateId;
+            this.compositionId = compositionId;
+            this.entryRoot = entryRoot;
+        }
+
+        public String getTemplateId() {
+            return templateId;
+        }
+
+        public UUID getCompositionId() {
+            return compositionId;
+        }
+
+        public String getEntryRoot() {
+            return entryRoot;
+        }
+    }
+
+    private static class CachedSamples {
+        private final List<TemplateSample> samples;
+        private final Set<String> candidates; //null if any template is a candidate
+
+        CachedSamples(List<TemplateSample> samples, Set<String> candidates) {
+            this.samples = samples;
+            this.candidates = candidates;
+        }
+
+        boolean isStaleFor(String templateId) {
+            return (candidates == null || candidates.contains(templateId))
+                    && samples.stream().noneMatch(sample -> templateId.equals(sample.getTemplateId()));
+        }
+
+        boolean isSampled(UUID compositionId) {
+            return samples.stream().anyMatch(sample -> compositionId.equals(sample.getCompositionId()));
+        }
+    }
+
+    //ad-hoc queries may produce an unbounded number of clauses
+    static final int MAX_CLAUSES = 1000;
+
+    private final Map<String, CachedSamples> samplesByClause = new ConcurrentHashMap<>();
+    private final Map<String, String> pathsByTemplate = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param containClause the SQL contain clause
+     * @return the cached templates matching the clause, null if not cached
+     */
+    public List<TemplateSample> getSamples(String containClause) {
+        CachedSamples cachedSamples = samplesByClause.get(containClause);
+        return cachedSamples == null ? null : cachedSamples.samples;
+    }
+
+    /**
+     * @param containClause the SQL contain clause
+     * @return the templates which may match the clause, null if any template may or if the clause is not cached
+     */
+    public Set<String> getCandidates(String containClause) {
+        CachedSamples cachedSamples = samplesByClause.get(containClause);
+        return cachedSamples == null ? null : cachedSamples.candidates;
+    }
+
+    /**
+     * @return the current generation, to be passed to {@link #putSamples} once the samples are fetched
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * cache the templates matching a clause, unless the cache has been invalidated since they have been fetched
+     *
+     * @param containClause the SQL contain clause
+     * @param samples       the templates matching the clause
+     * @param candidates    the templates which may match the clause, null if any template may
+     * @param generation    the generation at the time the samples have been fetched
+     */
+    public void putSamples(String containClause, List<TemplateSample> samples, Set<String> candidates, long generation) {
+        if (generation != this.generation.get())
+            return;
+
+        if (samplesByClause.size() >= MAX_CLAUSES)
+            samplesByClause.clear();
+
+        samplesByClause.put(containClause, new CachedSamples(Collections.unmodifiableList(samples), candidates));
+    }
+
+    public String getPath(String templateId, String lquery) {
+        return pathsByTemplate.get(pathKey(templateId, lquery));
+    }
+
+    public void putPath(String templateId, String lquery, String path) {
+        pathsByTemplate.put(pathKey(templateId, lquery), path);
+    }
+
+    public void templateChanged(String templateId) {
+        generation.incrementAndGet();
+        samplesByClause.clear();
+        pathsByTemplate.keySet().removeIf(key -> key.startsWith(pathKey(templateId, "")));
+    }
+
+    /**
+     * evict the clauses which may now match a template, now and once the current transaction (if any) is committed
+     *
+     * @param templateId the template of the written entry, null if unknown
+     */
+    public void entryWritten(String templateId) {
+        evictStale(templateId);
+        afterCommit(() -> evictStale(templateId));
+    }
+
+    /**
+     * evict the clauses sampled from a composition, now and once the current transaction (if any) is committed
+     *
+     * @param compositionId the deleted composition
+     */
+    public void compositionDeleted(UUID compositionId) {
+        evictSampled(compositionId);
+        afterCommit(() -> evictSampled(compositionId));
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        samplesByClause.clear();
+        pathsByTemplate.clear();
+    }
+
+    void evictStale(String templateId) {
+        //discard the samples being fetched, they may have been read before this entry
+        generation.incrementAndGet();
+        if (templateId != null)
+            samplesByClause.values().removeIf(cachedSamples -> cachedSamples.isStaleFor(templateId));
+    }
+
+    void evictSampled(UUID compositionId) {
+        generation.incrementAndGet();
+        if (compositionId != null)
+            samplesByClause.values().removeIf(cachedSamples -> cachedSamples.isSampled(compositionId));
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    //same convention as PathResolver
+    private static String pathKey(String templateId, String lquery) {
+        return Objects.requireNonNull(templateId) + "::" + lquery;
+    }
+}
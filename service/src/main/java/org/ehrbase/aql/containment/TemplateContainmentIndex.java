@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.aql.containment;
+
+import org.ehrbase.aql.sql.binding.ContainBinder;
+import org.ehrbase.ehr.knowledge.I_KnowledgeCache;
+import org.ehrbase.ehr.knowledge.TemplateMetaData;
+import org.openehr.schemas.v1.CARCHETYPEROOT;
+import org.openehr.schemas.v1.CATTRIBUTE;
+import org.openehr.schemas.v1.CCOMPLEXOBJECT;
+import org.openehr.schemas.v1.COBJECT;
+import org.openehr.schemas.v1.OPERATIONALTEMPLATE;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Template to archetype containment index.
+ * <p>
+ * For each known operational template, holds the containment labels an instance of this template can produce in
+ * the CONTAINMENT table (e.g. openEHR_EHR_COMPOSITION_report_v1.openEHR_EHR_SECTION_adhoc_v1). A CONTAINS clause
+ * made of a single ltree expression can then be resolved to the set of templates involved without scanning the
+ * containments of every stored composition.
+ * <p>
+ * Only the lquery subset produced by {@link ContainBinder} for plain archetype chains is supported (labels and
+ * '*' wildcards separated by dots), other expressions must be resolved against the CONTAINMENT table.
+ */
+public class TemplateContainmentIndex {
+
+    private static final String WILDCARD = "*";
+    private static final Pattern RESOLVABLE_EXPRESSION = Pattern.compile("[A-Za-z0-9_*]+(\\.[A-Za-z0-9_*]+)*");
+
+    private final I_KnowledgeCache knowledgeCache;
+    private final Map<String, Set<String>> labelsByTemplate = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+
+    public TemplateContainmentIndex(I_KnowledgeCache knowledgeCache) {
+        this.knowledgeCache = knowledgeCache;
+    }
+
+    /**
+     * check whether an ltree expression can be resolved with the index
+     *
+     * @param expression an lquery expression as built by ContainBinder
+     * @return true if the expression only consists of labels and '*' wildcards
+     */
+    public static boolean isResolvable(String expression) {
+        if (expression == null || !RESOLVABLE_EXPRESSION.matcher(expression).matches())
+            return false;
+
+        for (String token : expression.split("\\.")) {
+            if (token.contains(WILDCARD) && !token.equals(WILDCARD))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * resolve the templates having at least one containment label matching the expression
+     *
+     * @param expression a resolvable lquery expression
+     * @return the matching template ids
+     * @throws IllegalArgumentException if the expression is not supported by the index
+     */
+    public Set<String> resolve(String expression) {
+        return new TreeSet<>(resolveLabels(expression).keySet());
+    }
+
+    /**
+     * resolve the templates having at least one containment label matching the expression, with such a label
+     *
+     * @param expression a resolvable lquery expression
+     * @return the matching template ids, each one with the first of its labels (in label order) matching the expression
+     * @throws IllegalArgumentException if the expression is not supported by the index
+     */
+    public Map<String, String> resolveLabels(String expression) {
+        if (!isResolvable(expression))
+            throw new IllegalArgumentException("Containment expression cannot be resolved from templates:" + expression);
+
+        load();
+
+        String[] query = expression.split("\\.");
+        Map<String, String> templateLabels = new TreeMap<>();
+        for (Map.Entry<String, Set<String>> entry : labelsByTemplate.entrySet()) {
+            for (String label : new TreeSet<>(entry.getValue())) {
+                if (matches(query, 0, label.split("\\."), 0)) {
+                    templateLabels.put(entry.getKey(), label);
+                    break;
+                }
+            }
+        }
+        return templateLabels;
+    }
+
+    /**
+     * add or replace the containment labels of a template
+     *
+     * @param operationaltemplate the template
+     */
+    public void register(OPERATIONALTEMPLATE operationaltemplate) {
+        labelsByTemplate.put(operationaltemplate.getTemplateId().getValue(), labelsOf(operationaltemplate));
+    }
+
+    /**
+     * @param templateId a template id
+     * @return the containment labels of the template, empty if the template is not indexed
+     */
+    public Set<String> labels(String templateId) {
+        load();
+        return labelsByTemplate.getOrDefault(templateId, Collections.emptySet());
+    }
+
+    private void load() {
+        if (loaded)
+            return;
+
+        synchronized (this) {
+            if (loaded)
+                return;
+            try {
+                for (TemplateMetaData templateMetaData : knowledgeCache.listAllOperationalTemplates()) {
+                    if (templateMetaData.getErrorList().isEmpty() && templateMetaData.getOperationaltemplate() != null)
+                        labelsByTemplate.putIfAbsent(templateMetaData.getOperationaltemplate().getTemplateId().getValue(), labelsOf(templateMetaData.getOperationaltemplate()));
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not list operational templates:" + e.getMessage(), e);
+            }
+            loaded = true;
+        }
+    }
+
+    /**
+     * get the containment labels of a template, the labels are built the same way as the ones stored for a
+     * composition: the dot separated chain of the enclosing archetype ids, with '-' and '.' replaced by '_'
+     *
+     * @param operationaltemplate the template
+     * @return the labels
+     */
+    public static Set<String> labelsOf(OPERATIONALTEMPLATE operationaltemplate) {
+        Set<String> labels = new HashSet<>();
+        if (operationaltemplate.getDefinition() != null)
+            collect(operationaltemplate.getDefinition(), null, labels);
+        return Collections.unmodifiableSet(labels);
+    }
+
+    private static void collect(CCOMPLEXOBJECT ccomplexobject, String parentLabel, Set<String> labels) {
+        String label = parentLabel;
+
+        if (ccomplexobject instanceof CARCHETYPEROOT && !((CARCHETYPEROOT) ccomplexobject).getArchetypeId().getValue().isEmpty()) {
+            String archetypeLabel = ContainBinder.labelize(((CARCHETYPEROOT) ccomplexobject).getArchetypeId().getValue());
+            label = parentLabel == null ? archetypeLabel : parentLabel + "." + archetypeLabel;
+            labels.add(label);
+        }
+
+        for (CATTRIBUTE cattribute : ccomplexobject.getAttributesArray()) {
+            for (COBJECT cobject : cattribute.getChildrenArray()) {
+                if (cobject instanceof CCOMPLEXOBJECT)
+                    collect((CCOMPLEXOBJECT) cobject, label, labels);
+            }
+        }
+    }
+
+    /**
+     * match a label path against an lquery made of labels and '*' (any number of labels, including none)
+     */
+    static boolean matches(String[] query, int queryIndex, String[] label, int labelIndex) {
+        if (queryIndex == query.length)
+            return labelIndex == label.length;
+
+        if (query[queryIndex].equals(WILDCARD)) {
+            for (int skipped = labelIndex; skipped <= label.length; skipped++) {
+                if (matches(query, queryIndex + 1, label, skipped))
+                    return true;
+            }
+            return false;
+        }
+
+        return labelIndex < label.length
+                && query[queryIndex].equals(label[labelIndex])
+                && matches(query, queryIndex + 1, label, labelIndex + 1);
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.aql.sql;
+
+import org.jooq.Field;
+import org.jooq.Record;
+
+import java.util.Map;
+
+/**
+ * Receives the records of a streamed AQL query, in fetch order, while the cursor is still open.
+ */
+public interface AqlRecordHandler {
+
+    /**
+     * called once, before the first record
+     *
+     * @param variables the SELECT variables (alias to path), as in {@link AqlResult#getVariables()}
+     * @param fields    the fields of the fetched records
+     */
+    void start(Map<String, String> variables, Field<?>[] fields);
+
+    /**
+     * @param record a fetched record, its jsonb columns already transformed into raw json
+     */
+    void record(Record record);
+}
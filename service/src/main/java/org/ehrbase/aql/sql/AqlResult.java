@@ -38,12 +38,16 @@ import java.util.Set;
 public class AqlResult {
     private final Result<Record> records;
     private final List<List<String>> explain;
+    private final QueryProfile profile;
     //bijective map to allow reverse lookup
     private BiMap<String, String> variables;
+    //the templates the records are computed from, null if they may depend on any template
+    private Set<String> templateIds;
 
-    AqlResult(Result<Record> records, List<List<String>> explain) {
+    AqlResult(Result<Record> records, List<List<String>> explain, QueryProfile profile) {
         this.records = records;
         this.explain = explain;
+        this.profile = profile;
     }
 
     public Result<Record> getRecords() {
@@ -54,6 +58,10 @@ public class AqlResult {
         return explain;
     }
 
+    public QueryProfile getProfile() {
+        return profile;
+    }
+
     public Map<String, String> getVariables() {
         return variables;
     }
@@ -61,4 +69,16 @@ public class AqlResult {
     public void setVariables(Map<String, String> variables) {
         this.variables = HashBiMap.create(variables);
     }
+
+    /**
+     * @return the templates matching the contain clause, or which could match it, null if the records may depend on
+     * any template
+     */
+    public Set<String> getTemplateIds() {
+        return templateIds;
+    }
+
+    void setTemplateIds(Set<String> templateIds) {
+        this.templateIds = templateIds;
+    }
 }
@@ -22,6 +22,7 @@
 package org.ehrbase.aql.sql;
 
 import org.ehrbase.aql.containment.Containment;
+import org.ehrbase.aql.containment.ContainsSetCache;
 import org.ehrbase.aql.containment.IdentifierMapper;
 import org.ehrbase.aql.sql.binding.ContainBinder;
 import org.ehrbase.aql.sql.queryImpl.CompositionAttributeQuery;
@@ -63,12 +64,20 @@ public class PathResolver {
 
     private final IdentifierMapper mapper;
     private Map<String, String> resolveMap = new HashMap<>();
+    private ContainsSetCache containsSetCache;
 
     public PathResolver(DSLContext context, IdentifierMapper mapper) {
         this.context = context;
         this.mapper = mapper;
     }
 
+    /**
+     * @param containsSetCache cache of the paths resolved in previous queries, null if not used
+     */
+    public void setContainsSetCache(ContainsSetCache containsSetCache) {
+        this.containsSetCache = containsSetCache;
+    }
+
     static String buildLquery(Containment containment) {
         int depth = 0;
         StringBuilder lquery = new StringBuilder();
@@ -131,6 +140,12 @@ public class PathResolver {
                 if (lquery.equals("COMPOSITION%")) //composition root, path is not used
                     continue;
 
+                if (!resolveMap.containsKey(resolveMapKey(templateId, lquery)) && containsSetCache != null) {
+                    String cachedPath = containsSetCache.getPath(templateId, lquery);
+                    if (cachedPath != null)
+                        resolveMap.put(resolveMapKey(templateId, lquery), cachedPath);
+                }
+
                 if (!resolveMap.containsKey(resolveMapKey(templateId, lquery))) {
 
                     //query the DB to get the path
@@ -150,6 +165,8 @@ public class PathResolver {
                     }
 
                     resolveMap.put(resolveMapKey((String) records.getValue(0, ENTRY.TEMPLATE_ID.getName()), lquery), records.getValue(0, CONTAINMENT.PATH));
+                    if (containsSetCache != null)
+                        containsSetCache.putPath((String) records.getValue(0, ENTRY.TEMPLATE_ID.getName()), lquery, records.getValue(0, CONTAINMENT.PATH));
 
                     if (records.isEmpty()) {
                         logger.debug("No path found for identifier (query return no records):" + identifier);
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.aql.sql;
+
+import org.ehrbase.api.definitions.QueryLimits;
+import org.ehrbase.api.exception.QueryLimitExceededException;
+import org.jooq.Record;
+import org.jooq.ResultQuery;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enforce the limits of an AQL query while its result is fetched.
+ * <p>
+ * The timeout is passed to the JDBC statement (the server side statement is then canceled) and is checked again for
+ * each fetched row, since the rows are fetched by batches with a cursor. The maximum number of rows is passed to the
+ * JDBC statement as well, with one additional row to detect the overflow. The size of the result is estimated from
+ * the textual size of the fetched values, before these are transformed or formatted.
+ * <p>
+ * When a limit is exceeded the fetch is aborted (the cursor is closed) with a {@link QueryLimitExceededException}.
+ */
+public class QueryLimitGuard {
+
+    //PostgreSQL: canceling statement due to statement timeout (or user request)
+    static final String QUERY_CANCELED_STATE = "57014";
+
+    private final QueryLimits limits;
+    private final long startNanos = System.nanoTime();
+    private int rows;
+    private long resultBytes;
+
+    public QueryLimitGuard(QueryLimits limits) {
+        this.limits = limits == null ? QueryLimits.unlimited() : limits;
+    }
+
+    public static QueryLimitGuard unlimited() {
+        return new QueryLimitGuard(QueryLimits.unlimited());
+    }
+
+    public QueryLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * set the statement timeout and the maximum number of rows of a query
+     */
+    public <R extends Record> ResultQuery<R> bound(ResultQuery<R> query) {
+        ResultQuery<R> boundQuery = withTimeout(query);
+        if (limits.getMaxRows() > 0)
+            boundQuery = boundQuery.maxRows(limits.getMaxRows() + 1);
+        return boundQuery;
+    }
+
+    /**
+     * set the remaining time as statement timeout of a query
+     */
+    public <R extends Record> ResultQuery<R> withTimeout(ResultQuery<R> query) {
+        if (limits.getTimeout() > 0)
+            return query.queryTimeout(remainingSeconds());
+        return query;
+    }
+
+    /**
+     * account for a fetched record
+     *
+     * @throws QueryLimitExceededException if a limit is exceeded
+     */
+    public void add(Record record) {
+        rows++;
+        if (limits.getMaxRows() > 0 && rows > limits.getMaxRows())
+            throw new QueryLimitExceededException("Query result exceeds the maximum number of rows:" + limits.getMaxRows());
+
+        if (limits.getMaxResultBytes() > 0) {
+            resultBytes += estimatedSize(record);
+            if (resultBytes > limits.getMaxResultBytes())
+                throw new QueryLimitExceededException("Query result exceeds the maximum size of " + limits.getMaxResultBytes() + " bytes");
+        }
+
+        checkTimeout();
+    }
+
+    /**
+     * @throws QueryLimitExceededException if the timeout has elapsed
+     */
+    public void checkTimeout() {
+        if (limits.getTimeout() > 0 && System.nanoTime() - startNanos > TimeUnit.SECONDS.toNanos(limits.getTimeout()))
+            throw timeoutExceeded();
+    }
+
+    /**
+     * @param e an exception thrown by the execution of a bounded query
+     * @return a {@link QueryLimitExceededException} if the statement has been canceled by its timeout, the exception
+     * otherwise
+     */
+    public RuntimeException translate(RuntimeException e) {
+        if (limits.getTimeout() > 0 && isStatementCanceled(e))
+            return timeoutExceeded();
+        return e;
+    }
+
+    static boolean isStatementCanceled(Throwable throwable) {
+        //the cause chain is bounded, in case of a cycle
+        Throwable cause = throwable;
+        for (int depth = 0; cause != null && depth < 16; depth++, cause = cause.getCause()) {
+            if (cause instanceof SQLTimeoutException)
+                return true;
+            if (cause instanceof SQLException && QUERY_CANCELED_STATE.equals(((SQLException) cause).getSQLState()))
+                return true;
+        }
+        return false;
+    }
+
+    private QueryLimitExceededException timeoutExceeded() {
+        return new QueryLimitExceededException("Query exceeds the statement timeout of " + limits.getTimeout() + "s");
+    }
+
+    //at least one second, 0 would disable the JDBC timeout
+    private int remainingSeconds() {
+        long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos);
+        return (int) Math.max(1, limits.getTimeout() - elapsed);
+    }
+
+    private static long estimatedSize(Record record) {
+        long size = 0;
+        for (int i = 0; i < record.size(); i++) {
+            Object value = record.get(i);
+            if (value != null)
+                size += value.toString().length();
+        }
+        return size;
+    }
+}
@@ -22,13 +22,20 @@
 
 package org.ehrbase.aql.sql;
 
+import org.apache.commons.lang3.StringUtils;
+import org.ehrbase.api.definitions.QueryLimits;
 import org.ehrbase.aql.compiler.Contains;
 import org.ehrbase.aql.compiler.Statements;
 import org.ehrbase.aql.compiler.TopAttributes;
+import org.ehrbase.aql.containment.ContainsSetCache;
+import org.ehrbase.aql.containment.ContainsSetCache.TemplateSample;
+import org.ehrbase.aql.containment.TemplateContainmentIndex;
 import org.ehrbase.aql.definition.Variables;
 import org.ehrbase.aql.sql.binding.*;
 import org.ehrbase.aql.sql.postprocessing.RawJsonTransform;
 import org.ehrbase.aql.sql.queryImpl.ContainsSet;
+import org.ehrbase.aql.sql.queryImpl.EhrScope;
+import org.ehrbase.aql.sql.queryImpl.IndexedPaths;
 import org.ehrbase.aql.sql.queryImpl.TemplateMetaData;
 import org.ehrbase.ehr.knowledge.I_KnowledgeCache;
 import org.ehrbase.service.IntrospectService;
@@ -37,6 +44,7 @@ import org.jooq.conf.Settings;
 import org.jooq.impl.DSL;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 import static org.ehrbase.jooq.pg.Tables.CONTAINMENT;
 import static org.ehrbase.jooq.pg.Tables.ENTRY;
@@ -91,6 +99,11 @@ public class QueryProcessor extends TemplateMetaData {
     private Statements statements;
     private final String serverNodeId;
     private final Boolean usePgExtensions;
+    private IndexedPaths indexedPaths;
+    private QueryProfile profile = new QueryProfile(false);
+    private QueryLimits limits = QueryLimits.unlimited();
+    //the templates the result is computed from, null if it may depend on any template
+    private Set<String> resultTemplateIds;
 
     public QueryProcessor(DSLContext context, I_KnowledgeCache knowledgeCache, IntrospectService introspectCache, Contains contains, Statements statements, String serverNodeId, boolean usePgExtensions) {
         super(introspectCache);
@@ -103,49 +116,113 @@ public class QueryProcessor extends TemplateMetaData {
     }
 
 
+    /**
+     * @param profile the profile recording the stages of this query
+     */
+    public QueryProcessor setProfile(QueryProfile profile) {
+        this.profile = profile;
+        return this;
+    }
+
+    /**
+     * @param limits the bounds of the execution, enforced while the result is fetched
+     */
+    public QueryProcessor setLimits(QueryLimits limits) {
+        this.limits = limits;
+        return this;
+    }
+
     public AqlResult execute() {
         AqlSelectQuery aqlSelectQuery = buildAqlSelectQuery();
 
-        Result<Record> result = fetchResultSet(aqlSelectQuery.getSelectQuery(), null);
+        Result<Record> result;
+        QueryLimitGuard guard = new QueryLimitGuard(limits);
 
-        //if any jsonb data field transform them into raw json
+        //if any jsonb data field transform them into raw json, while the records are fetched
         if (aqlSelectQuery.isOutputWithJson() && knowledgeCache != null) {
-            RawJsonTransform.toRawJson(result, aqlSelectQuery.getQuerySteps(), knowledgeCache);
+            result = RawJsonTransform.fetchRawJson(context, aqlSelectQuery.getSelectQuery(), aqlSelectQuery.getQuerySteps(), profile, guard);
 //            result = RawJsonTransform.deleteNamedColumn(result, I_RawJsonTransform.TEMPLATE_ID);
+        } else {
+            long start = System.nanoTime();
+            result = fetchResultSet(aqlSelectQuery.getSelectQuery(), guard);
+            profile.record(QueryProfile.EXECUTE, start, result.size());
         }
 
         List<List<String>> explainList = buildExplain(aqlSelectQuery.getSelectQuery());
 
-        return new AqlResult(result, explainList);
+        if (profile.isAnalyze())
+            profile.setPlan(explainAnalyze(aqlSelectQuery.getSelectQuery(), guard));
+
+        AqlResult aqlResult = new AqlResult(result, explainList, profile);
+        aqlResult.setTemplateIds(resultTemplateIds);
+        return aqlResult;
+    }
+
+    /**
+     * execute the query and hand over its records while they are fetched, the result is not materialized
+     *
+     * @param fieldsHandler receives the fields of the result, before any record
+     * @param recordHandler receives the records in fetch order, their jsonb columns transformed into raw json
+     */
+    public void stream(Consumer<Field<?>[]> fieldsHandler, Consumer<Record> recordHandler) {
+        AqlSelectQuery aqlSelectQuery = buildAqlSelectQuery();
+        QueryLimitGuard guard = new QueryLimitGuard(limits);
+        boolean toRawJson = aqlSelectQuery.isOutputWithJson() && knowledgeCache != null;
+
+        long start = System.nanoTime();
+        int count = 0;
+        try (Cursor<Record> cursor = guard.bound(aqlSelectQuery.getSelectQuery().fetchSize(RawJsonTransform.FETCH_SIZE)).fetchLazy()) {
+            fieldsHandler.accept(cursor.fields());
+            for (Record record : cursor) {
+                guard.add(record);
+                if (toRawJson)
+                    RawJsonTransform.toRawJson(record, aqlSelectQuery.getQuerySteps());
+                recordHandler.accept(record);
+                count++;
+            }
+        } catch (RuntimeException e) {
+            throw guard.translate(e);
+        }
+        profile.record(QueryProfile.EXECUTE, start, count);
     }
 
     AqlSelectQuery buildAqlSelectQuery() {
 
         // fetch all potential containment's  according  to the contains clause
-        ContainsSet containsSet = new ContainsSet(contains.getContainClause(), context);
-        Result<?> containmentRecords = containsSet.getInSet();
+        long start = System.nanoTime();
+        List<TemplateSample> templateSamples = fetchTemplateSamples();
+        profile.record(QueryProfile.CONTAINS, start, templateSamples.size());
 
+        start = System.nanoTime();
 
         Map<String, QuerySteps> cacheQuery = new HashMap<>();
 
         statements = new OrderByField(statements).merge();
 
         //Do to the way the query is build it is not possible to build sql if the AQL contains only compositions which have no instances in the DB. Thus we must manual handle this case.
-        if (containmentRecords.isEmpty()) {
+        if (templateSamples.isEmpty()) {
             SelectQuery<Record> falseSelectQuery = context.selectQuery();
             falseSelectQuery.addConditions(DSL.falseCondition());
+            profile.record(QueryProfile.COMPILE, start, 0);
             return new AqlSelectQuery(falseSelectQuery, null, false);
         }
 
 
 
         // build a query for each containment
-        containmentRecords.forEach(containmentRecord ->
-                cacheQuery.computeIfAbsent((String) containmentRecord.getValue(ENTRY.TEMPLATE_ID.getName()), templateId
-                        -> buildQuerySteps((UUID) containmentRecord.getValue(CONTAINMENT.COMP_ID.getName()), templateId, containmentRecord.getValue(ContainsSet.ENTRY_ROOT, String.class))
+        templateSamples.forEach(templateSample ->
+                cacheQuery.computeIfAbsent(templateSample.getTemplateId(), templateId
+                        -> buildQuerySteps(templateSample.getCompositionId(), templateId, templateSample.getEntryRoot())
                 )
         );
 
+        //a query scoped to an EHR starts from the compositions of this EHR
+        Condition ehrScopeCondition = new EhrScope(contains.getIdentifierMapper(), statements.getWhereClause()).entryCondition();
+
+        //aggregates are computed per template, then combined
+        boolean pushAggregate = SuperQuery.isAggregatePushable(statements.getVariables());
+        SuperQuery aggregateQuery = new SuperQuery(context, statements.getVariables());
+
         //assemble the query from the cache
         SelectQuery unionSetQuery = context.selectQuery();
         boolean first = true;
@@ -154,17 +231,24 @@ public class QueryProcessor extends TemplateMetaData {
             SelectQuery select = queryStep.getSelectQuery();
             if (!queryStep.getTemplateId().equals("*")) {
                 select.addConditions(ENTRY.TEMPLATE_ID.eq(queryStep.getTemplateId()));
+                //NB. not applied to the '*' branch, it must return the EHRs without composition (outer joins)
+                if (ehrScopeCondition != null)
+                    select.addConditions(ehrScopeCondition);
             }
             Condition condition = queryStep.getWhereCondition();
             if (condition != null)
                 select.addConditions(Operator.AND, condition);
             select.addFrom(ENTRY);
             select = new JoinBinder(select, false).addJoinClause(queryStep.getCompositionAttributeQuery());
+            if (pushAggregate)
+                select = aggregateQuery.selectPartialAggregate(select);
 
             if (first) {
                 unionSetQuery = select;
                 first = false;
-            } else
+            } else if (pushAggregate)
+                unionSetQuery.unionAll(select); //NB. equal partial aggregates must not be merged
+            else
                 unionSetQuery.union(select);
 
         }
@@ -172,7 +256,12 @@ public class QueryProcessor extends TemplateMetaData {
 
         // Add function or Distinct
         //TODO: inject ORDER BY into the superQuery
-        if (new Variables(statements.getVariables()).hasDefinedDistinct() || new Variables(statements.getVariables()).hasDefinedFunction()) {
+        if (pushAggregate) {
+            unionSetQuery = aggregateQuery.selectCombinedAggregate(unionSetQuery);
+            if (statements.getOrderAttributes() != null && !statements.getOrderAttributes().isEmpty())
+                unionSetQuery = aggregateQuery.setOrderBy(statements.getOrderAttributes(), unionSetQuery);
+        }
+        else if (new Variables(statements.getVariables()).hasDefinedDistinct() || new Variables(statements.getVariables()).hasDefinedFunction()) {
             SuperQuery superQuery = new SuperQuery(context, statements.getVariables(), unionSetQuery);
             unionSetQuery = superQuery.select();
             if (statements.getOrderAttributes() != null && !statements.getOrderAttributes().isEmpty()){
@@ -191,11 +280,77 @@ public class QueryProcessor extends TemplateMetaData {
 
         unionSetQuery = limitBinding.bind();
 
+        //rows: number of per template queries in the union
+        profile.record(QueryProfile.COMPILE, start, cacheQuery.size());
+
         return new AqlSelectQuery(unionSetQuery, cacheQuery.values(), cacheQuery.values().stream().anyMatch(QuerySteps::isContainsJson));
     }
 
+    /**
+     * get the templates involved in the contains clause with a sample composition each. The result is cached per
+     * contain clause, on a miss it is resolved from the template containment index for a clause consisting of a single
+     * archetype chain, otherwise the containments of the stored compositions are queried.
+     */
+    private List<TemplateSample> fetchTemplateSamples() {
+        String containClause = contains.getContainClause();
+        ContainsSet containsSet = new ContainsSet(containClause, context);
+
+        if (knowledgeCache == null || StringUtils.isBlank(containClause))
+            return templateSamples(containsSet.getInSet());
+
+        ContainsSetCache containsSetCache = knowledgeCache.getContainsSetCache();
+        List<TemplateSample> templateSamples = containsSetCache.getSamples(containClause);
+        if (templateSamples != null) {
+            resultTemplateIds = resultTemplateIds(templateSamples, containsSetCache.getCandidates(containClause));
+            return templateSamples;
+        }
+
+        long generation = containsSetCache.generation();
+        String containExpression = contains.getContainExpression();
+        Set<String> candidates = null;
+
+        if (TemplateContainmentIndex.isResolvable(containExpression)) {
+            Map<String, String> templateLabels = knowledgeCache.getContainmentIndex().resolveLabels(containExpression);
+            candidates = new HashSet<>(templateLabels.keySet());
+            templateSamples = templateSamples(containsSet.getInSet(templateLabels));
+        } else
+            templateSamples = templateSamples(containsSet.getInSet());
+
+        containsSetCache.putSamples(containClause, templateSamples, candidates, generation);
+        resultTemplateIds = resultTemplateIds(templateSamples, candidates);
+        return templateSamples;
+    }
+
+    //the matching templates and the ones which could match once they have compositions, null if any template could
+    private static Set<String> resultTemplateIds(List<TemplateSample> templateSamples, Set<String> candidates) {
+        if (candidates == null)
+            return null;
+
+        Set<String> templateIds = new HashSet<>(candidates);
+        for (TemplateSample templateSample : templateSamples) {
+            if ("*".equals(templateSample.getTemplateId()))
+                return null;
+            templateIds.add(templateSample.getTemplateId());
+        }
+        return templateIds;
+    }
+
+    private static List<TemplateSample> templateSamples(Result<?> containmentRecords) {
+        List<TemplateSample> templateSamples = new ArrayList<>();
+        for (Record containmentRecord : containmentRecords) {
+            templateSamples.add(new TemplateSample(
+                    (String) containmentRecord.getValue(ENTRY.TEMPLATE_ID.getName()),
+                    (UUID) containmentRecord.getValue(CONTAINMENT.COMP_ID.getName()),
+                    containmentRecord.getValue(ContainsSet.ENTRY_ROOT, String.class)));
+        }
+        return templateSamples;
+    }
+
     private QuerySteps buildQuerySteps(UUID compId, String templateId, String entryRoot) {
-        SelectBinder selectBinder = new SelectBinder(context, introspectCache, contains, statements, serverNodeId, entryRoot).setUsePgExtensions(usePgExtensions);
+        SelectBinder selectBinder = new SelectBinder(context, introspectCache, contains, statements, serverNodeId, entryRoot)
+                .setUsePgExtensions(usePgExtensions)
+                .setIndexedPaths(indexedPaths())
+                .setContainsSetCache(knowledgeCache == null ? null : knowledgeCache.getContainsSetCache());
 
         SelectQuery<?> select = selectBinder.bind(templateId, compId);
         return new QuerySteps(select,
@@ -206,14 +361,39 @@ public class QueryProcessor extends TemplateMetaData {
     }
 
 
-    private Result<Record> fetchResultSet(Select<?> select, Result<Record> result) {
-        Result<Record> intermediary = (Result<Record>) select.fetch();
-        if (result != null) {
-            result.addAll(intermediary);
-        } else if (intermediary != null) {
-            result = intermediary;
+    //registered paths are only looked up for queries with a WHERE clause, and not when the SQL is built without
+    //a knowledge cache (as done to check the generated SQL offline)
+    private IndexedPaths indexedPaths() {
+        if (indexedPaths == null) {
+            if (statements.getWhereClause() == null || statements.getWhereClause().isEmpty() || knowledgeCache == null)
+                indexedPaths = IndexedPaths.empty();
+            else
+                indexedPaths = knowledgeCache.getIndexedPathsCache().get(context);
+        }
+        return indexedPaths;
+    }
+
+    //the records are fetched with a cursor, so that the fetch is aborted as soon as a limit is exceeded
+    private Result<Record> fetchResultSet(Select<Record> select, QueryLimitGuard guard) {
+        try (Cursor<Record> cursor = guard.bound(select.fetchSize(RawJsonTransform.FETCH_SIZE)).fetchLazy()) {
+            Result<Record> result = context.newResult(cursor.fields());
+            for (Record record : cursor) {
+                guard.add(record);
+                result.add(record);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            throw guard.translate(e);
+        }
+    }
+
+    //NB. EXPLAIN ANALYZE executes the query again, within the remaining time
+    private List<String> explainAnalyze(Select<?> select, QueryLimitGuard guard) {
+        try {
+            return guard.withTimeout(context.resultQuery("EXPLAIN (ANALYZE, BUFFERS) {0}", select)).fetch().getValues(0, String.class);
+        } catch (RuntimeException e) {
+            throw guard.translate(e);
         }
-        return result;
     }
 
     private List<List<String>> buildExplain(Select<?> select) {
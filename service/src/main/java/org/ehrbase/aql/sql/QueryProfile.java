@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.aql.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Wall time and row count of the stages of an AQL query execution.
+ * <p>
+ * Stages are always recorded (the cost is a couple of System.nanoTime() calls), the PostgreSQL plan is only
+ * fetched when the profile is analyzed since it runs the query a second time.
+ */
+public class QueryProfile {
+
+    public static final String PARSE = "parse";
+    public static final String CONTAINS = "contains";
+    public static final String COMPILE = "compile";
+    public static final String EXECUTE = "execute";
+    public static final String TRANSFORM = "transform";
+    public static final String FORMAT = "format";
+
+    public static class Stage {
+        private final String name;
+        private final long nanos;
+        private final Integer rows;
+
+        Stage(String name, long nanos, Integer rows) {
+            this.name = name;
+            this.nanos = nanos;
+            this.rows = rows;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return the number of rows produced by the stage, null if not relevant
+         */
+        public Integer getRows() {
+            return rows;
+        }
+    }
+
+    private final boolean analyze;
+    private final List<Stage> stages = new ArrayList<>();
+    private List<String> plan = Collections.emptyList();
+
+    /**
+     * @param analyze true to fetch the EXPLAIN (ANALYZE, BUFFERS) plan of the generated SQL
+     */
+    public QueryProfile(boolean analyze) {
+        this.analyze = analyze;
+    }
+
+    public boolean isAnalyze() {
+        return analyze;
+    }
+
+    /**
+     * record a stage started at startNanos (as given by System.nanoTime()) and ending now
+     */
+    public void record(String stage, long startNanos, Integer rows) {
+        stages.add(new Stage(stage, System.nanoTime() - startNanos, rows));
+    }
+
+    public List<Stage> getStages() {
+        return stages;
+    }
+
+    public long getTotalNanos() {
+        return stages.stream().mapToLong(Stage::getNanos).sum();
+    }
+
+    public List<String> getPlan() {
+        return plan;
+    }
+
+    void setPlan(List<String> plan) {
+        this.plan = plan;
+    }
+}
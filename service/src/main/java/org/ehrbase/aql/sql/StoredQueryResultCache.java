@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.aql.sql;
+
+import org.ehrbase.api.dto.QueryResultDto;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the results of the stored queries, keyed by qualified name, version, query text and parameter values.
+ * <p>
+ * A result is kept with the templates it has been computed from (the templates matching the contain clause of the
+ * query, as well as the templates which could match it). It is evicted when:
+ * <ul>
+ * <li>an entry of one of these templates is written or a composition of one of these templates is deleted. A
+ * result which may depend on any template (f.e. a contain clause not resolved from the containment index) is
+ * evicted by any write</li>
+ * <li>a template is (re)loaded</li>
+ * <li>its time to live has elapsed, or the cache is full and it is the least recently used result</li>
+ * </ul>
+ * A write invalidates the results when it is done and once again when its transaction is committed, a result computed
+ * in between from the previous state is therefore discarded as well.
+ * <p>
+ * NB. only the writes of compositions are tracked, results depending on other EHR data (f.e. EHR_STATUS) are only
+ * bounded by the time to live.
+ */
+public class StoredQueryResultCache {
+
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    /**
+     * identifies a stored query execution
+     */
+    public static class Key {
+        private final String qualifiedName;
+        private final String version;
+        private final String queryText;
+        private final Map<String, Object> parameters;
+
+        /**
+         * @param qualifiedName the qualified name of the stored query
+         * @param version       the version of the stored query
+         * @param queryText     the executed query, f.e. with the fetch and offset of the request
+         * @param parameters    the parameter values, may be null
+         */
+        public Key(String qualifiedName, String version, String queryText, Map<String, Object> parameters) {
+            this.qualifiedName = qualifiedName;
+            this.version = version;
+            this.queryText = queryText;
+            this.parameters = parameters == null ? Collections.emptyMap() : new LinkedHashMap<>(parameters);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Objects.equals(qualifiedName, key.qualifiedName) &&
+                    Objects.equals(version, key.version) &&
+                    Objects.equals(queryText, key.queryText) &&
+                    parameters.equals(key.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(qualifiedName, version, queryText, parameters);
+        }
+    }
+
+    private static class CachedResult {
+        private final QueryResultDto result;
+        private final Set<String> templateIds; //null if the result may depend on any template
+        private final long expiresAt;
+
+        CachedResult(QueryResultDto result, Set<String> templateIds, long expiresAt) {
+            this.result = result;
+            this.templateIds = templateIds;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean dependsOn(String templateId) {
+            return templateIds == null || templateId == null || templateIds.contains(templateId);
+        }
+    }
+
+    //access ordered: the eldest entry is the least recently used
+    private final LinkedHashMap<Key, CachedResult> results = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong generation = new AtomicLong();
+    private volatile long ttlNanos = DEFAULT_TTL.toNanos();
+    private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    /**
+     * @param ttl        the time a result is kept
+     * @param maxEntries the maximum number of results kept
+     */
+    public void configure(Duration ttl, int maxEntries) {
+        if (ttl == null || ttl.isNegative() || maxEntries < 0)
+            throw new IllegalArgumentException("Invalid stored query cache configuration, ttl:" + ttl + ", max entries:" + maxEntries);
+
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        clear();
+    }
+
+    /**
+     * @return the cached result, null if not cached or expired
+     */
+    public synchronized QueryResultDto get(Key key) {
+        CachedResult cachedResult = results.get(key);
+        if (cachedResult == null)
+            return null;
+
+        if (System.nanoTime() - cachedResult.expiresAt >= 0) {
+            results.remove(key);
+            return null;
+        }
+        return cachedResult.result;
+    }
+
+    /**
+     * @return the current generation, to be passed to {@link #put} once the result is computed
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * cache a result, unless the cache has been invalidated since the result has been computed
+     *
+     * @param key         the stored query execution
+     * @param result      the result
+     * @param templateIds the templates the result has been computed from, null if it may depend on any template
+     * @param generation  the generation at the time the result has started to be computed
+     */
+    public synchronized void put(Key key, QueryResultDto result, Set<String> templateIds, long generation) {
+        if (generation != this.generation.get() || maxEntries == 0 || ttlNanos == 0)
+            return;
+
+        if (results.size() >= maxEntries && !results.containsKey(key)) {
+            evictExpired();
+            Iterator<Key> eldest = results.keySet().iterator();
+            while (results.size() >= maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+
+        results.put(key, new CachedResult(result, templateIds == null ? null : new HashSet<>(templateIds), System.nanoTime() + ttlNanos));
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    /**
+     * evict the results depending on a template, now and once the current transaction (if any) is committed
+     *
+     * @param templateId the written template, null if unknown
+     */
+    public void templateWritten(String templateId) {
+        invalidate(templateId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    invalidate(templateId);
+                }
+            });
+        }
+    }
+
+    public synchronized void clear() {
+        generation.incrementAndGet();
+        results.clear();
+    }
+
+    synchronized void invalidate(String templateId) {
+        generation.incrementAndGet();
+        results.values().removeIf(cachedResult -> cachedResult.dependsOn(templateId));
+    }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        results.values().removeIf(cachedResult -> now - cachedResult.expiresAt >= 0);
+    }
+}
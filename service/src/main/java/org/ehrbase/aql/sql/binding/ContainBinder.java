@@ -59,6 +59,8 @@ public class ContainBinder {
 
     private boolean useSimpleCompositionContainment = false; //true if check only if ehr contains any composition
 
+    private String containExpression; //the ltree expression if the contain clause consists of a single label match
+
 
     public ContainBinder(List<ContainmentSet> containmentSets) {
         this.nestedSets = containmentSets;
@@ -94,10 +96,25 @@ public class ContainBinder {
 
         //assemble an SQL statement
         String query = inlineSqlQuery(predicates);
+        containExpression = singleMatchExpression(predicates);
 
         return query;
     }
 
+    //the inlined query is the subselect of the first atomic predicate unless a set operation is involved
+    private static String singleMatchExpression(List<Predicates> predicatesList) {
+        String expression = null;
+        for (Predicates predicates : predicatesList) {
+            if (predicates == null)
+                continue;
+            if (!predicates.getIntersectPredicates().isEmpty() || !predicates.getUnionPredicates().isEmpty() || !predicates.getExceptPredicates().isEmpty())
+                return null;
+            if (expression == null && !predicates.getAtomicPredicates().isEmpty())
+                expression = predicates.getAtomicPredicates().get(0).getExpression();
+        }
+        return expression;
+    }
+
     public SelectQuery bind(DSLContext context) {
 
         List<Predicates> predicates = new ArrayList<>();
@@ -313,4 +330,11 @@ public class ContainBinder {
     public boolean isUseSimpleCompositionContainment() {
         return useSimpleCompositionContainment;
     }
+
+    /**
+     * @return the ltree expression matched by the bound contain clause, null if the clause is not a single label match
+     */
+    public String getContainExpression() {
+        return containExpression;
+    }
 }
@@ -26,6 +26,7 @@ import com.nedap.archie.rminfo.ArchieRMInfoLookup;
 import org.apache.commons.lang3.StringUtils;
 import org.ehrbase.aql.compiler.Contains;
 import org.ehrbase.aql.compiler.Statements;
+import org.ehrbase.aql.containment.ContainsSetCache;
 import org.ehrbase.aql.containment.IdentifierMapper;
 import org.ehrbase.aql.definition.I_VariableDefinition;
 import org.ehrbase.aql.definition.VariableDefinition;
@@ -151,4 +152,14 @@ public class SelectBinder extends TemplateMetaData implements I_SelectBinder {
         return this;
     }
 
+    public SelectBinder setIndexedPaths(IndexedPaths indexedPaths) {
+        whereBinder.setIndexedPaths(indexedPaths);
+        return this;
+    }
+
+    public SelectBinder setContainsSetCache(ContainsSetCache containsSetCache) {
+        pathResolver.setContainsSetCache(containsSetCache);
+        return this;
+    }
+
 }
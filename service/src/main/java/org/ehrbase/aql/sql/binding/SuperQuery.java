@@ -31,8 +31,11 @@ import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.SelectQuery;
 import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -41,6 +44,11 @@ import java.util.List;
  */
 public class SuperQuery {
 
+    //aggregate functions which can be computed per template and combined
+    private static final List<String> PUSHABLE_FUNCTIONS = Arrays.asList("count", "min", "max", "sum", "avg");
+    private static final String PARTIAL_SUM = "#sum";
+    private static final String PARTIAL_COUNT = "#count";
+
     private VariableDefinitions variableDefinitions;
     private SelectQuery query;
     private DSLContext context;
@@ -51,6 +59,13 @@ public class SuperQuery {
         this.query = query;
     }
 
+    /**
+     * super query built from the per template queries, see {@link #selectPartialAggregate}
+     */
+    public SuperQuery(DSLContext context, VariableDefinitions variableDefinitions) {
+        this(context, variableDefinitions, null);
+    }
+
     @SuppressWarnings( "deprecation" )
     private List<Field> selectFields() {
 
@@ -135,6 +150,198 @@ public class SuperQuery {
         return expression.toString();
     }
 
+    /**
+     * check whether the aggregate functions of the query can be pushed down into the per template queries: no
+     * DISTINCT nor extension, and only COUNT, MIN, MAX, SUM or AVG functions of a single aliased variable
+     *
+     * @return true if the query can be built with {@link #selectPartialAggregate} and {@link #selectCombinedAggregate}
+     */
+    public static boolean isAggregatePushable(VariableDefinitions variableDefinitions) {
+        Variables variables = new Variables(variableDefinitions);
+        if (!variables.hasDefinedFunction() || variables.hasDefinedDistinct())
+            return false;
+
+        Iterator<I_VariableDefinition> iterator = variableDefinitions.iterator();
+        while (iterator.hasNext()) {
+            I_VariableDefinition variableDefinition = iterator.next();
+            if (variableDefinition.isExtension())
+                return false;
+            if (variableDefinition.isFunction() && argumentColumn(variableDefinition) == null)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * aggregate a per template query, grouped by the other selected columns
+     * <p>
+     * COUNT, MIN and MAX are computed as is, SUM and AVG are computed on the numeric value of their argument (AVG as a
+     * partial sum and count). The partial aggregates of the templates are combined by {@link #selectCombinedAggregate}.
+     *
+     * @param templateQuery the select of a template, with the argument columns of the functions
+     */
+    @SuppressWarnings({"deprecation", "unchecked"})
+    public SelectQuery selectPartialAggregate(SelectQuery templateQuery) {
+        SelectQuery selectQuery = context.selectQuery();
+        List<Field> groupFields = groupFields();
+
+        Iterator<I_VariableDefinition> iterator = variableDefinitions.iterator();
+        while (iterator.hasNext()) {
+            I_VariableDefinition variableDefinition = iterator.next();
+            if (!variableDefinition.isFunction())
+                continue;
+
+            String alias = variableDefinition.getAlias();
+            Field argument = DSL.fieldByName(argumentColumn(variableDefinition));
+            Field<BigDecimal> numericArgument = argument.cast(SQLDataType.NUMERIC);
+
+            switch (functionName(variableDefinition)) {
+                case "count":
+                    selectQuery.addSelect(DSL.count(argument).as(alias));
+                    break;
+                case "min":
+                    selectQuery.addSelect(DSL.min(argument).as(alias));
+                    break;
+                case "max":
+                    selectQuery.addSelect(DSL.max(argument).as(alias));
+                    break;
+                case "sum":
+                    selectQuery.addSelect(DSL.sum(numericArgument).as(alias));
+                    break;
+                case "avg":
+                    selectQuery.addSelect(DSL.sum(numericArgument).as(alias + PARTIAL_SUM));
+                    selectQuery.addSelect(DSL.count(numericArgument).as(alias + PARTIAL_COUNT));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Function cannot be pushed down:" + variableDefinition.getIdentifier());
+            }
+        }
+
+        selectQuery.addSelect(groupFields);
+        selectQuery.addFrom(templateQuery.asTable("template_query"));
+        if (!groupFields.isEmpty())
+            selectQuery.addGroupBy(groupFields);
+
+        return selectQuery;
+    }
+
+    /**
+     * combine the partial aggregates of the templates
+     *
+     * @param partialQuery the union (all) of the {@link #selectPartialAggregate} of each template
+     */
+    @SuppressWarnings({"deprecation", "unchecked"})
+    public SelectQuery selectCombinedAggregate(SelectQuery partialQuery) {
+        SelectQuery selectQuery = context.selectQuery();
+        List<Field> groupFields = groupFields();
+        List<String> groupColumns = groupColumns();
+
+        Iterator<I_VariableDefinition> iterator = variableDefinitions.iterator();
+        while (iterator.hasNext()) {
+            I_VariableDefinition variableDefinition = iterator.next();
+            String alias = variableDefinition.getAlias();
+
+            if (!variableDefinition.isFunction()) {
+                //keep the order of the selected columns
+                String column = columnName(variableDefinition);
+                if (groupColumns.contains(column))
+                    selectQuery.addSelect(DSL.fieldByName(column));
+                continue;
+            }
+
+            Field partial = DSL.fieldByName(alias);
+
+            switch (functionName(variableDefinition)) {
+                case "count":
+                    selectQuery.addSelect(DSL.sum(partial).cast(SQLDataType.BIGINT).as(alias));
+                    break;
+                case "min":
+                    selectQuery.addSelect(DSL.min(partial).as(alias));
+                    break;
+                case "max":
+                    selectQuery.addSelect(DSL.max(partial).as(alias));
+                    break;
+                case "sum":
+                    selectQuery.addSelect(DSL.sum(partial).as(alias));
+                    break;
+                case "avg":
+                    Field<BigDecimal> sum = DSL.sum(DSL.fieldByName(BigDecimal.class, alias + PARTIAL_SUM));
+                    Field<BigDecimal> count = DSL.sum(DSL.fieldByName(Long.class, alias + PARTIAL_COUNT));
+                    selectQuery.addSelect(sum.div(DSL.nullif(count, BigDecimal.ZERO)).as(alias));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Function cannot be pushed down:" + variableDefinition.getIdentifier());
+            }
+        }
+
+        selectQuery.addFrom(partialQuery.asTable("partial_aggregate"));
+        if (!groupFields.isEmpty())
+            selectQuery.addGroupBy(groupFields);
+
+        return selectQuery;
+    }
+
+    //the column of the single variable argument of a pushable function, null if not pushable
+    private static String argumentColumn(I_VariableDefinition functionDefinition) {
+        if (!PUSHABLE_FUNCTIONS.contains(functionName(functionDefinition)) || functionDefinition.getAlias() == null)
+            return null;
+
+        String argument = null;
+        for (FuncParameter parameter : functionDefinition.getFuncParameters()) {
+            if (parameter.isOperand())
+                return null;
+            if (parameter.isVariable()) {
+                if (argument != null || parameter.getValue() == null)
+                    return null;
+                argument = parameter.getValue();
+            } else if (!parameter.getValue().equals("(") && !parameter.getValue().equals(")") && !parameter.getValue().equals(functionDefinition.getIdentifier()))
+                return null; //f.e. a DISTINCT qualifier
+        }
+        return argument;
+    }
+
+    private static String functionName(I_VariableDefinition functionDefinition) {
+        return functionDefinition.getIdentifier() == null ? "" : functionDefinition.getIdentifier().toLowerCase();
+    }
+
+    private static String columnName(I_VariableDefinition variableDefinition) {
+        if (variableDefinition.getAlias() == null || variableDefinition.getAlias().isEmpty())
+            return new DefaultColumnId().value(variableDefinition);
+        return variableDefinition.getAlias();
+    }
+
+    //the selected columns which are not the argument of a function
+    private List<String> groupColumns() {
+        List<String> arguments = new ArrayList<>();
+        Iterator<I_VariableDefinition> iterator = variableDefinitions.iterator();
+        while (iterator.hasNext()) {
+            I_VariableDefinition variableDefinition = iterator.next();
+            if (variableDefinition.isFunction())
+                arguments.add(argumentColumn(variableDefinition));
+        }
+
+        List<String> columns = new ArrayList<>();
+        iterator = variableDefinitions.iterator();
+        while (iterator.hasNext()) {
+            I_VariableDefinition variableDefinition = iterator.next();
+            if (variableDefinition.isFunction() || variableDefinition.isExtension())
+                continue;
+            String column = columnName(variableDefinition);
+            if (!arguments.contains(column) && !columns.contains(column))
+                columns.add(column);
+        }
+        return columns;
+    }
+
+    @SuppressWarnings("deprecation")
+    private List<Field> groupFields() {
+        List<Field> fields = new ArrayList<>();
+        for (String column : groupColumns()) {
+            fields.add(DSL.fieldByName(column));
+        }
+        return fields;
+    }
+
     @SuppressWarnings("unchecked")
     public SelectQuery selectOrderBy(List<OrderAttribute> orderAttributes) {
 
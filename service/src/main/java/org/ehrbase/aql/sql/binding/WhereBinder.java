@@ -26,6 +26,7 @@ import org.ehrbase.aql.definition.I_VariableDefinition;
 import org.ehrbase.aql.definition.VariableDefinition;
 import org.ehrbase.aql.sql.queryImpl.CompositionAttributeQuery;
 import org.ehrbase.aql.sql.queryImpl.I_QueryImpl;
+import org.ehrbase.aql.sql.queryImpl.IndexedPaths;
 import org.ehrbase.aql.sql.queryImpl.JsonbEntryQuery;
 import org.ehrbase.aql.sql.queryImpl.VariablePath;
 import org.ehrbase.aql.sql.queryImpl.value_field.ISODateTime;
@@ -59,6 +60,8 @@ public class WhereBinder {
 
     private boolean usePgExtensions = true;
 
+    private IndexedPaths indexedPaths = IndexedPaths.empty();
+
     public WhereBinder(JsonbEntryQuery jsonbEntryQuery, CompositionAttributeQuery compositionAttributeQuery, List whereClause, IdentifierMapper mapper) {
         this.jsonbEntryQuery = jsonbEntryQuery;
         this.compositionAttributeQuery = compositionAttributeQuery;
@@ -244,6 +247,14 @@ public class WhereBinder {
                     condition = wrapInCondition(condition, taggedBuffer, operators);
                     taggedBuffer = new TaggedStringBuilder();
                 }
+                //a comparison on a registered path is resolved from the extracted values
+                Condition indexedPathCondition = indexedPathCondition(templateId, cursor);
+                if (indexedPathCondition != null) {
+                    taggedBuffer.append(indexedPathCondition.toString());
+                    taggedBuffer.setTagField(I_TaggedStringBuilder.TagField.SQLQUERY);
+                    cursor += 2; //skip the operator and the operand
+                    continue;
+                }
                 //look ahead and check if followed by a sql operator
                 TaggedStringBuilder taggedStringBuilder = null;
                 if (isFollowedBySQLSetOperator(cursor))
@@ -293,6 +304,35 @@ public class WhereBinder {
     }
 
 
+    //look ahead for a comparison with a literal on a registered path
+    private Condition indexedPathCondition(String templateId, int cursor) {
+        if (!indexedPaths.hasTemplate(templateId) || cursor + 2 >= whereClause.size())
+            return null;
+
+        I_VariableDefinition variableDefinition = (I_VariableDefinition) whereClause.get(cursor);
+        Object comparisonOperator = whereClause.get(cursor + 1);
+        Object operand = whereClause.get(cursor + 2);
+
+        if (!(comparisonOperator instanceof String) || !IndexedPaths.isSupported((String) comparisonOperator))
+            return null;
+        if (operand instanceof I_VariableDefinition || operand instanceof List)
+            return null;
+
+        String className = mapper.getClassName(variableDefinition.getIdentifier());
+        if (className == null || className.equals("EHR") || variableDefinition.getPath() == null)
+            return null;
+        if (className.equals("COMPOSITION") && !variableDefinition.getPath().startsWith("content"))
+            return null;
+        if (new VariablePath(variableDefinition.getPath()).hasPredicate())
+            return null;
+
+        List<String> keyPath = jsonbEntryQuery.whereKeyPath(variableDefinition);
+        if (keyPath == null)
+            return null;
+
+        return indexedPaths.condition(templateId, keyPath, (String) comparisonOperator, operand);
+    }
+
     //look ahead for a SQL operator
     private boolean isFollowedBySQLSetOperator(int cursor) {
         if (cursor < whereClause.size() - 1) {
@@ -352,6 +392,11 @@ public class WhereBinder {
         isWholeComposition = true;
     }
 
+    public WhereBinder setIndexedPaths(IndexedPaths indexedPaths) {
+        this.indexedPaths = indexedPaths;
+        return this;
+    }
+
     public WhereBinder setUsePgExtensions(boolean usePgExtensions) {
         this.usePgExtensions = usePgExtensions;
         return this;
@@ -22,68 +22,189 @@
 package org.ehrbase.aql.sql.postprocessing;
 
 import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import org.ehrbase.aql.sql.QueryLimitGuard;
+import org.ehrbase.aql.sql.QueryProfile;
 import org.ehrbase.aql.sql.QuerySteps;
 import org.ehrbase.aql.sql.binding.JsonbBlockDef;
 import org.ehrbase.ehr.knowledge.I_KnowledgeCache;
 import org.ehrbase.ehr.encode.rawjson.LightRawJsonEncoder;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.Record;
 import org.jooq.Result;
+import org.jooq.Select;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * Transform the jsonb columns of an AQL result into raw (canonical) json.
+ * <p>
+ * The transformation is done by a bounded pool of workers, the records are handed over by chunks while they are still
+ * being fetched. The records are transformed in place so the order of the result is preserved. When the workers
+ * are all busy and the queue is full, the fetching thread transforms the chunk itself, which throttles the fetch.
+ * <p>
  * Created by christian on 2/21/2017.
  */
 public class RawJsonTransform implements I_RawJsonTransform {
 
+    static final int CHUNK_SIZE = 64;
+    public static final int FETCH_SIZE = 1000;
+
+    private static final ExecutorService TRANSFORM_POOL = newTransformPool();
+
     private final DSLContext context;
 
     public RawJsonTransform(DSLContext context) {
         this.context = context;
     }
 
-    @SuppressWarnings("unchecked")
+    private static ExecutorService newTransformPool() {
+        int workers = Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(workers * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "aql-raw-json-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * transform the jsonb columns of a fetched result
+     */
     public static void toRawJson(Result<Record> result, Collection<QuerySteps> querySteps, I_KnowledgeCache knowledgeCache) {
+        Set<JsonbBlockDef> notJsonColumns = ConcurrentHashMap.newKeySet();
+        List<Future<?>> chunks = new ArrayList<>();
 
-        for (QuerySteps queryStep : querySteps) {
-            if (queryStep.jsonColumnsSize() > 0) {
-                result.forEach(record -> {
-                    List<JsonbBlockDef> deleteList = new ArrayList<>();
-                    for (JsonbBlockDef jsonbBlockDef : queryStep.getJsonColumns()) {
-
-                        String jsonbOrigin = record.getValue(jsonbBlockDef.getField()).toString();
-
-                        if (jsonbOrigin == null)
-                            continue;
-                        //apply the transformation
-                        try {
-                            JsonElement jsonElement = new LightRawJsonEncoder(jsonbOrigin).encodeContentAsJson(jsonbBlockDef.getJsonPathRoot());
-                            //debugging
-                            if (jsonbOrigin.contains("@class"))
-                                System.out.print("Hum...");
-                            record.setValue(jsonbBlockDef.getField(), jsonElement);
-                        } catch (Exception e) {
-                            //assumes this is not a json element
-                            record.setValue(jsonbBlockDef.getField(), jsonbOrigin);
-                            deleteList.add(jsonbBlockDef);
-                        }
-                    }
-                    for (JsonbBlockDef deleteBlock : deleteList) {
-                        queryStep.getJsonColumns().remove(deleteBlock);
-                    }
-                });
+        for (int from = 0; from < result.size(); from += CHUNK_SIZE) {
+            chunks.add(submit(new ArrayList<>(result.subList(from, Math.min(from + CHUNK_SIZE, result.size()))), querySteps, notJsonColumns));
+        }
+
+        await(chunks);
+        removeColumns(querySteps, notJsonColumns);
+    }
+
+    /**
+     * fetch the records of a query and transform their jsonb columns as they are fetched
+     *
+     * @param profile records the fetch (execute) and the transformation remaining after the last fetched row
+     * @param guard   bounds the fetch, the pending transformations are canceled when a limit is exceeded
+     */
+    public static Result<Record> fetchRawJson(DSLContext context, Select<Record> select, Collection<QuerySteps> querySteps, QueryProfile profile, QueryLimitGuard guard) {
+        long start = System.nanoTime();
+        Set<JsonbBlockDef> notJsonColumns = ConcurrentHashMap.newKeySet();
+        List<Future<?>> chunks = new ArrayList<>();
+        Result<Record> result;
+
+        try (Cursor<Record> cursor = guard.bound(select.fetchSize(FETCH_SIZE)).fetchLazy()) {
+            result = context.newResult(cursor.fields());
+            List<Record> chunk = new ArrayList<>(CHUNK_SIZE);
+
+            for (Record record : cursor) {
+                guard.add(record);
+                result.add(record);
+                chunk.add(record);
+                if (chunk.size() == CHUNK_SIZE) {
+                    chunks.add(submit(chunk, querySteps, notJsonColumns));
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
             }
+            if (!chunk.isEmpty())
+                chunks.add(submit(chunk, querySteps, notJsonColumns));
+        } catch (RuntimeException e) {
+            chunks.forEach(future -> future.cancel(false));
+            throw guard.translate(e);
         }
+        profile.record(QueryProfile.EXECUTE, start, result.size());
+
+        start = System.nanoTime();
+        await(chunks);
+        removeColumns(querySteps, notJsonColumns);
+        profile.record(QueryProfile.TRANSFORM, start, result.size());
+
+        return result;
     }
 
+    private static Future<?> submit(List<Record> chunk, Collection<QuerySteps> querySteps, Set<JsonbBlockDef> notJsonColumns) {
+        return TRANSFORM_POOL.submit(() -> chunk.forEach(record -> toRawJson(record, querySteps, notJsonColumns)));
+    }
 
+    private static void await(List<Future<?>> chunks) {
+        try {
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            chunks.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while transforming the query result", e);
+        } catch (ExecutionException e) {
+            chunks.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException("Could not transform the query result", e.getCause());
+        }
+    }
+
+    /**
+     * transform the jsonb columns of a single record, for the records handed over one by one while they are fetched
+     */
+    public static void toRawJson(Record record, Collection<QuerySteps> querySteps) {
+        Set<JsonbBlockDef> notJsonColumns = new HashSet<>();
+        toRawJson(record, querySteps, notJsonColumns);
+        removeColumns(querySteps, notJsonColumns);
+    }
+
+    //transform a single record, can be called concurrently for distinct records
+    private static void toRawJson(Record record, Collection<QuerySteps> querySteps, Set<JsonbBlockDef> notJsonColumns) {
+        for (QuerySteps queryStep : querySteps) {
+            for (JsonbBlockDef jsonbBlockDef : queryStep.getJsonColumns()) {
+
+                Object value = record.getValue(jsonbBlockDef.getField());
+
+                if (value == null)
+                    continue;
+
+                String jsonbOrigin = value.toString();
+                //apply the transformation
+                try {
+                    JsonElement jsonElement = new LightRawJsonEncoder(jsonbOrigin).encodeContentAsJson(jsonbBlockDef.getJsonPathRoot());
+                    record.setValue(jsonbBlockDef.getField(), jsonElement);
+                } catch (Exception e) {
+                    //assumes this is not a json element
+                    record.setValue(jsonbBlockDef.getField(), jsonbOrigin);
+                    notJsonColumns.add(jsonbBlockDef);
+                }
+            }
+        }
+    }
 
+    private static void removeColumns(Collection<QuerySteps> querySteps, Set<JsonbBlockDef> notJsonColumns) {
+        if (notJsonColumns.isEmpty())
+            return;
+        for (QuerySteps queryStep : querySteps) {
+            queryStep.getJsonColumns().removeAll(notJsonColumns);
+        }
+    }
 
     private static int columnIndex(List<Field> fields, String columnName) {
         for (int i = 0; i < fields.size(); i++) {
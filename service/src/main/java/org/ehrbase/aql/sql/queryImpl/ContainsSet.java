@@ -25,6 +25,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.jooq.*;
 import org.jooq.impl.DSL;
 
+import java.util.Map;
 import java.util.UUID;
 
 import static org.ehrbase.jooq.pg.Tables.CONTAINMENT;
@@ -50,11 +51,10 @@ public class ContainsSet {
         Field<?> distinctOnTemplate = DSL.field("DISTINCT ON({0}) {0}", ENTRY.TEMPLATE_ID.getDataType(), ENTRY.TEMPLATE_ID).as(ENTRY.TEMPLATE_ID);
         //(select root_json_key from jsonb_object_keys("ehr"."entry"."entry") root_json_key where root_json_key like '/composition%') as
 //        Query jsonbRootKeySelect = DSL.query("select root_json_key from jsonb_object_keys(" + ENTRY.ENTRY_ + ") root_json_key where root_json_key like '/composition%')");
-        Field<?> entryKey = DSL.field("(select root_json_key from jsonb_object_keys(" + ENTRY.ENTRY_ + ") root_json_key where root_json_key like '/composition%')").as(ENTRY_ROOT);
 //        Field<?> entryKey = DSL.field("jsonb_object_keys("+ENTRY.ENTRY_+")").as(ENTRY_ROOT); //calculated field
 
         this.select = context
-                .select(distinctOnTemplate, CONTAINMENT.COMP_ID, CONTAINMENT.LABEL, entryKey)
+                .select(distinctOnTemplate, CONTAINMENT.COMP_ID, CONTAINMENT.LABEL, entryRoot())
                 .from(CONTAINMENT)
                 .join(ENTRY)
                 .on(CONTAINMENT.COMP_ID.eq(ENTRY.COMPOSITION_ID))
@@ -72,6 +72,40 @@ public class ContainsSet {
         }
     }
 
+    /**
+     * get the containment records for templates already known to satisfy the contain clause (e.g. resolved from
+     * the template containment index). CONTAINMENT is not queried, the entry root of each template is read from
+     * one of its entries, with a single statement probing the entries of each template once.
+     *
+     * @param templateLabels the templates matching the contain clause, each one with its matching containment label
+     * @return a record per template having at least one stored entry
+     */
+    public Result<?> getInSet(Map<String, String> templateLabels) {
+        Result<Record4<String, UUID, Object, Object>> result = context.newResult(ENTRY.TEMPLATE_ID, CONTAINMENT.COMP_ID, CONTAINMENT.LABEL, DSL.field(ENTRY_ROOT));
+        if (templateLabels.isEmpty())
+            return result;
+
+        Table<?> templates = DSL.unnest(templateLabels.keySet().toArray(new String[0])).as("templates", ENTRY.TEMPLATE_ID.getName());
+        Field<String> templateId = DSL.field(DSL.name("templates", ENTRY.TEMPLATE_ID.getName()), String.class);
+        Table<?> sample = DSL.lateral(context
+                .select(ENTRY.COMPOSITION_ID, entryRoot())
+                .from(ENTRY)
+                .where(ENTRY.TEMPLATE_ID.eq(templateId).and(DSL.field(ENTRY.ENTRY_ + "::text").ne("{}")))
+                .limit(1))
+                .as("sample");
+
+        for (Record entryRecord : context.select(templateId, sample.field(ENTRY.COMPOSITION_ID), sample.field(ENTRY_ROOT)).from(templates).crossJoin(sample).fetch()) {
+            String sampleTemplateId = entryRecord.get(0, String.class);
+            result.add(context.newRecord(ENTRY.TEMPLATE_ID, CONTAINMENT.COMP_ID, CONTAINMENT.LABEL, DSL.field(ENTRY_ROOT))
+                    .values(sampleTemplateId, entryRecord.get(1, UUID.class), templateLabels.get(sampleTemplateId), entryRecord.get(2)));
+        }
+        return result;
+    }
+
+    private static Field<?> entryRoot() {
+        return DSL.field("(select root_json_key from jsonb_object_keys(" + ENTRY.ENTRY_ + ") root_json_key where root_json_key like '/composition%')").as(ENTRY_ROOT);
+    }
+
     public Select<?> getSelect() {
         //could not find the way to clone an existing select
         return context
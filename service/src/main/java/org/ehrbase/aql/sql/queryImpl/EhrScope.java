@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.aql.sql.queryImpl;
+
+import org.ehrbase.aql.containment.IdentifierMapper;
+import org.ehrbase.aql.definition.I_VariableDefinition;
+import org.jooq.Condition;
+import org.jooq.impl.DSL;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.ehrbase.jooq.pg.Tables.COMPOSITION;
+import static org.ehrbase.jooq.pg.Tables.ENTRY;
+
+/**
+ * Detect an AQL query scoped to a single EHR, f.e.
+ * <pre><code>
+ *     select ... from EHR e[ehr_id/value='7d44b88c-4199-4bad-97dc-d78268e01398'] contains COMPOSITION c ...
+ * </code></pre>
+ * The EHR predicate is only enforced through the join with the EHR table, the entries of the whole template are
+ * scanned before being filtered. When the query is scoped, the entries are restricted upfront to the compositions
+ * of this EHR, which are found using the composition_ehr_idx index.
+ * <p>
+ * A query is scoped if its WHERE clause (the FROM predicate is appended to it) compares ehr_id/value of the EHR
+ * identifier to a UUID literal and contains no OR, XOR or NOT, so that this comparison applies to every row.
+ */
+public class EhrScope {
+
+    private static final String EHR_ID_VALUE = "ehr_id/value";
+
+    private final IdentifierMapper identifierMapper;
+    private final List<?> whereClause;
+
+    public EhrScope(IdentifierMapper identifierMapper, List<?> whereClause) {
+        this.identifierMapper = identifierMapper;
+        this.whereClause = whereClause;
+    }
+
+    /**
+     * @return the id of the EHR the query is scoped to, null if not scoped
+     */
+    public UUID ehrId() {
+        if (whereClause == null)
+            return null;
+
+        for (Object item : whereClause) {
+            if (item instanceof String && ((String) item).matches("(?i)or|xor|not"))
+                return null;
+        }
+
+        UUID ehrId = null;
+        for (int cursor = 0; cursor + 2 < whereClause.size(); cursor++) {
+            if (!isEhrIdValue(whereClause.get(cursor)) || !"=".equals(whereClause.get(cursor + 1)))
+                continue;
+
+            UUID literal = uuidLiteral(whereClause.get(cursor + 2));
+            if (literal == null)
+                return null;
+            if (ehrId != null && !ehrId.equals(literal)) //contradicting predicates, leave it to the SQL
+                return null;
+            ehrId = literal;
+        }
+        return ehrId;
+    }
+
+    /**
+     * @return the condition restricting the entries to the compositions of the EHR, null if the query is not scoped
+     */
+    public Condition entryCondition() {
+        UUID ehrId = ehrId();
+        if (ehrId == null)
+            return null;
+
+        return ENTRY.COMPOSITION_ID.in(DSL.select(COMPOSITION.ID).from(COMPOSITION).where(COMPOSITION.EHR_ID.eq(ehrId)));
+    }
+
+    private boolean isEhrIdValue(Object item) {
+        if (!(item instanceof I_VariableDefinition))
+            return false;
+
+        I_VariableDefinition variableDefinition = (I_VariableDefinition) item;
+        if (!EHR_ID_VALUE.equals(variableDefinition.getPath()) || variableDefinition.getIdentifier() == null)
+            return false;
+
+        try {
+            return "EHR".equals(identifierMapper.getClassName(variableDefinition.getIdentifier()));
+        } catch (IllegalArgumentException e) { //undefined identifier
+            return false;
+        }
+    }
+
+    private static UUID uuidLiteral(Object item) {
+        if (!(item instanceof String))
+            return null;
+
+        String literal = ((String) item).trim();
+        if (literal.length() < 2 || "'\"".indexOf(literal.charAt(0)) < 0 || literal.charAt(0) != literal.charAt(literal.length() - 1))
+            return null;
+
+        try {
+            return UUID.fromString(literal.substring(1, literal.length() - 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.aql.sql.queryImpl;
+
+import org.ehrbase.jooq.pg.tables.records.AqlIndexedPathRecord;
+import org.jooq.Comparator;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.ehrbase.jooq.pg.Tables.AQL_INDEXED_PATH;
+import static org.ehrbase.jooq.pg.Tables.ENTRY;
+import static org.ehrbase.jooq.pg.Tables.ENTRY_PATH_VALUE;
+
+/**
+ * AQL paths registered for a template, their values are extracted from the entries into ENTRY_PATH_VALUE.
+ * <p>
+ * A WHERE predicate comparing a registered path with a literal is rewritten as a lookup of the matching entries
+ * in ENTRY_PATH_VALUE, which is indexed on (path_id, value), instead of a jsquery or jsonb path expression
+ * evaluated on each entry.
+ */
+public class IndexedPaths {
+
+    public enum ValueType {NUMERIC, TEXT}
+
+    private static final Map<String, Comparator> COMPARATORS = new HashMap<>();
+
+    static {
+        COMPARATORS.put("=", Comparator.EQUALS);
+        COMPARATORS.put(">", Comparator.GREATER);
+        COMPARATORS.put(">=", Comparator.GREATER_OR_EQUAL);
+        COMPARATORS.put("<", Comparator.LESS);
+        COMPARATORS.put("<=", Comparator.LESS_OR_EQUAL);
+    }
+
+    //template id -> key path -> record
+    private final Map<String, Map<List<String>, AqlIndexedPathRecord>> indexedPaths = new HashMap<>();
+
+    public IndexedPaths(List<AqlIndexedPathRecord> records) {
+        for (AqlIndexedPathRecord indexedPathRecord : records) {
+            indexedPaths
+                    .computeIfAbsent(indexedPathRecord.getTemplateId(), templateId -> new HashMap<>())
+                    .put(Arrays.asList(indexedPathRecord.getJsonPath()), indexedPathRecord);
+        }
+    }
+
+    public static IndexedPaths load(DSLContext context) {
+        return new IndexedPaths(context.selectFrom(AQL_INDEXED_PATH).fetch());
+    }
+
+    public static IndexedPaths empty() {
+        return new IndexedPaths(Collections.emptyList());
+    }
+
+    public boolean isEmpty() {
+        return indexedPaths.isEmpty();
+    }
+
+    public boolean hasTemplate(String templateId) {
+        return indexedPaths.containsKey(templateId);
+    }
+
+    /**
+     * @param comparisonOperator an AQL comparison operator
+     * @return true if a predicate with this operator can be resolved from the extracted values
+     */
+    public static boolean isSupported(String comparisonOperator) {
+        return COMPARATORS.containsKey(comparisonOperator);
+    }
+
+    /**
+     * build the condition selecting the entries having a value matching the predicate at a registered path
+     *
+     * @param templateId         the template of the entries
+     * @param keyPath            the keys of the path in the entry json, as computed for a WHERE variable
+     * @param comparisonOperator the AQL comparison operator
+     * @param operand            the literal operand as found in the WHERE clause
+     * @return the condition or null if the path is not registered or the operand does not match the value type
+     */
+    public Condition condition(String templateId, List<String> keyPath, String comparisonOperator, Object operand) {
+        AqlIndexedPathRecord indexedPathRecord = indexedPaths.getOrDefault(templateId, Collections.emptyMap()).get(keyPath);
+
+        if (indexedPathRecord == null || !isSupported(comparisonOperator) || operand == null)
+            return null;
+
+        Comparator comparator = COMPARATORS.get(comparisonOperator);
+        Condition valueCondition;
+
+        switch (ValueType.valueOf(indexedPathRecord.getValueType())) {
+            case NUMERIC:
+                BigDecimal number = numericOperand(operand);
+                if (number == null)
+                    return null;
+                valueCondition = ENTRY_PATH_VALUE.NUMERIC_VALUE.compare(comparator, DSL.inline(number));
+                break;
+            case TEXT:
+                String text = textOperand(operand);
+                if (text == null)
+                    return null;
+                valueCondition = ENTRY_PATH_VALUE.TEXT_VALUE.compare(comparator, DSL.inline(text));
+                break;
+            default:
+                return null;
+        }
+
+        return ENTRY.ID.in(DSL.select(ENTRY_PATH_VALUE.ENTRY_ID)
+                .from(ENTRY_PATH_VALUE)
+                .where(ENTRY_PATH_VALUE.PATH_ID.eq(DSL.inline(indexedPathRecord.getId())).and(valueCondition)));
+    }
+
+    private static BigDecimal numericOperand(Object operand) {
+        if (operand instanceof Number)
+            return new BigDecimal(operand.toString());
+        try {
+            return new BigDecimal(((String) operand).trim());
+        } catch (NumberFormatException | ClassCastException e) {
+            return null;
+        }
+    }
+
+    private static String textOperand(Object operand) {
+        if (!(operand instanceof String))
+            return null;
+        String literal = ((String) operand).trim();
+        if (literal.length() < 2 || literal.charAt(0) != '\'' || literal.charAt(literal.length() - 1) != '\'')
+            return null;
+        return literal.substring(1, literal.length() - 1).replace("''", "'");
+    }
+}
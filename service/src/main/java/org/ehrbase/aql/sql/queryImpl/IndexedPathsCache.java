@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.aql.sql.queryImpl;
+
+import org.jooq.DSLContext;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The registered AQL paths, loaded once for all the queries and loaded again after a path is registered or removed.
+ */
+public class IndexedPathsCache {
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile IndexedPaths indexedPaths;
+
+    /**
+     * @param context the context loading the paths on a miss
+     * @return the registered paths
+     */
+    public IndexedPaths get(DSLContext context) {
+        IndexedPaths cached = indexedPaths;
+        if (cached != null)
+            return cached;
+
+        long loadGeneration = generation.get();
+        IndexedPaths loaded = IndexedPaths.load(context);
+        synchronized (this) {
+            //the paths may have changed while they were loaded
+            if (loadGeneration == generation.get())
+                indexedPaths = loaded;
+        }
+        return loaded;
+    }
+
+    /**
+     * drop the cached paths now and once the current transaction (if any) is completed, so that paths loaded from
+     * this transaction are not kept if it is rolled back
+     */
+    public void pathsWritten() {
+        invalidate();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate();
+                }
+            });
+        }
+    }
+
+    synchronized void invalidate() {
+        generation.incrementAndGet();
+        indexedPaths = null;
+    }
+}
@@ -410,9 +410,7 @@ public class JsonbEntryQuery extends ObjectQuery implements I_QueryImpl {
         }
 
         itemPathArray.add(entry_root.replaceAll("'", "''"));
-        if (path != null && !path.startsWith(TAG_COMPOSITION))
-            itemPathArray.addAll(jqueryPath(PATH_PART.IDENTIFIER_PATH_PART, path, "#"));
-        itemPathArray.addAll(jqueryPath(PATH_PART.VARIABLE_PATH_PART, variableDefinition.getPath(), "#"));
+        itemPathArray.addAll(entryKeyPath(path, variableDefinition));
 
         StringBuffer jsqueryPath = new StringBuffer();
 
@@ -434,6 +432,40 @@ public class JsonbEntryQuery extends ObjectQuery implements I_QueryImpl {
         return fieldPathItem;
     }
 
+    /**
+     * get the keys of a WHERE variable in the entry json below the composition root, '#' stands for any array element
+     *
+     * @param variableDefinition the variable
+     * @return the keys or null if the variable path cannot be resolved for the current template
+     */
+    public List<String> whereKeyPath(I_VariableDefinition variableDefinition) {
+        String path = pathResolver.pathOf(variableDefinition.getIdentifier());
+        if (path == null || variableDefinition.getPath() == null)
+            return null;
+
+        return entryKeyPath(path, variableDefinition);
+    }
+
+    private List<String> entryKeyPath(String path, I_VariableDefinition variableDefinition) {
+        List<String> keyPath = new ArrayList<>();
+        if (path != null && !path.startsWith(TAG_COMPOSITION))
+            keyPath.addAll(jqueryPath(PATH_PART.IDENTIFIER_PATH_PART, path, "#"));
+        keyPath.addAll(jqueryPath(PATH_PART.VARIABLE_PATH_PART, variableDefinition.getPath(), "#"));
+        return keyPath;
+    }
+
+    /**
+     * get the keys of an AQL path (from the composition root, without name/value predicates) in the entry json
+     * below the composition root, as used for a WHERE variable
+     *
+     * @param aqlPath the path, f.e. /content[openEHR-EHR-OBSERVATION.blood_pressure.v1]/data[at0001]/events[at0006]/data[at0003]/items[at0004]/value/magnitude
+     * @return the keys, '#' stands for any array element
+     */
+    public static List<String> entryKeyPath(String aqlPath) {
+        String variablePath = aqlPath.startsWith("/") ? aqlPath.substring(1) : aqlPath;
+        return new JsonbEntryQuery(null, null, null, null).jqueryPath(PATH_PART.VARIABLE_PATH_PART, variablePath, "#");
+    }
+
     private void resolveArrayIndex(List<String> itemPathArray) {
 
         for (int i = 0; i < itemPathArray.size(); i++) {
@@ -23,13 +23,16 @@ import org.ehrbase.aql.sql.queryImpl.attribute.GenericJsonPath;
 import org.ehrbase.aql.sql.queryImpl.attribute.I_RMObjectAttribute;
 import org.ehrbase.aql.sql.queryImpl.attribute.JoinSetup;
 
+import org.ehrbase.jooq.pg.tables.records.CompositionRecord;
 import org.jooq.Field;
+import org.jooq.Table;
 import org.jooq.TableField;
 import org.jooq.impl.DSL;
 
 import java.util.Optional;
 
 import static org.ehrbase.jooq.pg.Tables.COMPOSITION;
+import static org.ehrbase.jooq.pg.Tables.ENTRY;
 
 public class FullCompositionJson extends CompositionAttribute {
 
@@ -45,14 +48,14 @@ public class FullCompositionJson extends CompositionAttribute {
         fieldContext.setJsonDatablock(true);
         fieldContext.setRmType("COMPOSITION");
 
-        //query the json representation of EVENT_CONTEXT and cast the result as TEXT
+        //query the json representation of the composition and cast the result as TEXT
         Field jsonFullComposition;
 
         if (jsonPath.isPresent()) {
-            jsonFullComposition = DSL.field("ehr.js_composition("+DSL.field(I_JoinBinder.compositionRecordTable.getName()+"."+tableField.getName())+",'"+fieldContext.getServerNodeId()+"')::json #>>"+jsonPath.get());
+            jsonFullComposition = DSL.field("{0} #>> " + jsonPath.get(), canonicalComposition());
         }
         else
-            jsonFullComposition = DSL.field("ehr.js_composition("+DSL.field(I_JoinBinder.compositionRecordTable.getName()+"."+tableField.getName())+",'"+fieldContext.getServerNodeId()+"')::text");
+            jsonFullComposition = DSL.field("{0}::text", canonicalComposition());
 
         if (fieldContext.isWithAlias())
             return aliased(DSL.field(jsonFullComposition));
@@ -60,6 +63,41 @@ public class FullCompositionJson extends CompositionAttribute {
             return DSL.field(jsonFullComposition).as(fieldContext.getIdentifier());
     }
 
+    /**
+     * The canonical json of the composition, built from the ENTRY and COMPOSITION rows already joined in the query.
+     * <p>
+     * This is the projection of ehr.js_composition() without its per row query joining COMPOSITION and ENTRY again
+     * and expanding the entry twice: only the lookups of the territory, the category concept and the event context
+     * remain correlated to the row. As for the function, the result is null if the entry has no content.
+     */
+    private Field<?> canonicalComposition() {
+        Table<CompositionRecord> composition = I_JoinBinder.compositionRecordTable;
+
+        return DSL.field("(SELECT jsonb_strip_nulls(jsonb_build_object(" +
+                        "'_type', 'COMPOSITION', " +
+                        "'name', ehr.js_dv_text(ehr.composition_name({0})), " +
+                        "'archetype_details', ehr.js_archetype_details({1}, {2}), " +
+                        "'archetype_node_id', {1}, " +
+                        "'uid', ehr.js_object_version_id(ehr.composition_uid({3}, {4})), " +
+                        "'language', ehr.js_code_phrase({5}, 'ISO_639-1'), " +
+                        "'territory', ehr.js_code_phrase((SELECT territory.twoletter FROM ehr.territory WHERE territory.code = {6}), 'ISO_3166-1'), " +
+                        "'composer', ehr.js_party({7}), " +
+                        "'category', ehr.js_dv_coded_text(concept.description, ehr.js_code_phrase(concept.conceptid :: TEXT, 'openehr')), " +
+                        "'context', ehr.js_context((SELECT event_context.id FROM ehr.event_context WHERE event_context.composition_id = {3} LIMIT 1)), " +
+                        "'content', entry_content.value)) " +
+                        "FROM jsonb_each({0}) AS entry_content LEFT JOIN ehr.concept ON concept.id = {8} " +
+                        "WHERE entry_content.value::text LIKE '{\"/content%' LIMIT 1)",
+                ENTRY.ENTRY_,
+                ENTRY.ARCHETYPE_ID,
+                ENTRY.TEMPLATE_ID,
+                composition.field(tableField.getName()),
+                DSL.inline(fieldContext.getServerNodeId()),
+                composition.field(COMPOSITION.LANGUAGE),
+                composition.field(COMPOSITION.TERRITORY),
+                composition.field(COMPOSITION.COMPOSER),
+                ENTRY.CATEGORY);
+    }
+
     @Override
     public I_RMObjectAttribute forTableField(TableField tableField) {
         this.tableField = tableField;
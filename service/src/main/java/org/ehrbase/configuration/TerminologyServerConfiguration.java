@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehrbase.configuration;
+
+import org.ehrbase.aql.compiler.tsclient.CachingTerminologyServer;
+import org.ehrbase.aql.compiler.tsclient.FhirTerminologyServerImpl;
+import org.ehrbase.aql.compiler.tsclient.StubTerminologyServerImpl;
+import org.ehrbase.aql.compiler.tsclient.TerminologyServer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Terminology server expanding the value sets of AQL MATCHES {INVOKE(...)}, selected by
+ * server.aql.terminology-server.type:
+ * <ul>
+ * <li>stub (default): a fixed expansion</li>
+ * <li>fhir: a FHIR terminology server, only the value set URLs located below one of the allowed URLs are expanded</li>
+ * </ul>
+ * The expansions are cached in both cases.
+ */
+@Configuration
+public class TerminologyServerConfiguration {
+
+    @Value("${server.aql.terminology-server.type:stub}")
+    private String type;
+    @Value("${server.aql.terminology-server.allowed-urls:}")
+    private String[] allowedUrls;
+    @Value("${server.aql.terminology-server.timeout:10}")
+    private long timeout; //seconds
+    @Value("${server.aql.terminology-server.cache.ttl:3600}")
+    private long cacheTtl; //seconds
+    @Value("${server.aql.terminology-server.cache.max-entries:100}")
+    private int cacheMaxEntries;
+
+    @Bean
+    public TerminologyServer<String, String> terminologyServer() {
+        TerminologyServer<String, String> terminologyServer;
+
+        switch (type) {
+            case "fhir":
+                terminologyServer = new FhirTerminologyServerImpl(Arrays.asList(allowedUrls), Duration.ofSeconds(timeout));
+                break;
+            case "stub":
+                terminologyServer = new StubTerminologyServerImpl();
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported terminology server type:" + type + ", expected fhir or stub");
+        }
+
+        return new CachingTerminologyServer<>(terminologyServer, Duration.ofSeconds(cacheTtl), cacheMaxEntries);
+    }
+}
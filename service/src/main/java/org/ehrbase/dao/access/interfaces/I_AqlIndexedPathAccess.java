@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehrbase.dao.access.interfaces;
+
+import java.sql.Timestamp;
+
+/**
+ * Access to an AQL path registered for a template (table ehr.aql_indexed_path)
+ */
+public interface I_AqlIndexedPathAccess {
+
+    /**
+     * store the path and extract its values from the existing entries of the template. Registering a path again is
+     * idempotent: the registered path is kept as is, or its values are extracted again if the value type has changed
+     * @param transactionTime the registration time
+     * @return the number of extracted values
+     */
+    Integer commit(Timestamp transactionTime);
+
+    Integer commit();
+
+    /**
+     * delete the path, its extracted values are deleted as well
+     * @return the number of deleted paths
+     */
+    Integer delete();
+
+    Integer getId();
+
+    String getTemplateId();
+
+    String getPath();
+
+    String getValueType();
+
+    Timestamp getCreationDate();
+}
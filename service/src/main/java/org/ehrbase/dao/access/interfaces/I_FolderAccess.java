@@ -67,6 +67,14 @@ public interface I_FolderAccess extends I_SimpleCRUD {
      */
     List<ObjectRef> getItems();
 
+    /**
+     * Writes the given {@link  com.nedap.archie.rm.directory.Folder} as new version of the hierarchy represented by this {@link  I_FolderAccess}. Only the folders and items that differ from the loaded hierarchy are persisted.
+     * @param transactionTime of the update that will be stored in the DB.
+     * @param update {@link  com.nedap.archie.rm.directory.Folder} containing the new state of the hierarchy.
+     * @return true if the hierarchy has been written.
+     */
+    Boolean update(Timestamp transactionTime, Folder update);
+
     /**
      * Builds the {@link I_FolderAccess} for persisting the {@link  com.nedap.archie.rm.directory.Folder} provided as param.
      * @param domainAccess providing the information about the DB connection.
@@ -90,6 +98,17 @@ public interface I_FolderAccess extends I_SimpleCRUD {
         return FolderAccess.retrieveInstanceForExistingFolder(domainAccess, folderId);
     }
 
+    /**
+     * Retrieve instance of {@link I_FolderAccess} for the sub folder at the given path, resolving the path inside the DB.
+     * @param domainAccess providing the information about the DB connection.
+     * @param folderId {@link java.util.UUID} of the root {@link  com.nedap.archie.rm.directory.Folder} the path starts at.
+     * @param path slash separated names of the sub folders to follow.
+     * @return the {@link I_FolderAccess} for the folder at the path or null if no folder exists at the path.
+     */
+    static I_FolderAccess retrieveInstanceByPath(I_DomainAccess domainAccess, UUID folderId, String path){
+        return FolderAccess.retrieveInstanceByPath(domainAccess, folderId, path);
+    }
+
     static I_FolderAccess retrieveInstanceForExistingFolder(I_DomainAccess domainAccess, UUID folderId, Timestamp timestamp){
         return FolderHistoryAccess.retrieveInstanceForExistingFolder(domainAccess, folderId, timestamp);
     }
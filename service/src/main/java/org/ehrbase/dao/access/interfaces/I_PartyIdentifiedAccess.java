@@ -153,6 +153,22 @@ public interface I_PartyIdentifiedAccess extends I_SimpleCRUD {
         return PartyIdentifiedAccess.getOrCreateParty(domainAccess, partyIdentified);
     }
 
+    /**
+     * create a party with an external reference, without looking up an existing one
+     *
+     * @param domainAccess
+     * @param name         the party name (optional)
+     * @param code         the external ref value
+     * @param scheme       the external ref  scheme
+     * @param namespace    the external ref namespace
+     * @param type         the external ref type
+     * @return
+     */
+    static UUID createPartyByExternalRef(I_DomainAccess domainAccess, String name, String code, String scheme, String namespace, String type) {
+        PartyIdentified partyIdentified = new PartyIdentified(new PartyRef(new GenericId(code, scheme), namespace, type), name, null);
+        return PartyIdentifiedAccess.createParty(domainAccess, partyIdentified);
+    }
+
     /**
      * retrieve or create a party with a PartyIdentified (external ref)
      *
@@ -183,7 +199,7 @@ public interface I_PartyIdentifiedAccess extends I_SimpleCRUD {
      * @return
      */
     static UUID findIdentifiedParty(I_DomainAccess domainAccess, List<DvIdentifier> identifierList) {
-        return PartyIdentifiedAccess.findIdentifiedParty(domainAccess.getContext(), identifierList);
+        return PartyIdentifiedAccess.findIdentifiedParty(domainAccess, identifierList);
     }
 
     /**
@@ -194,7 +210,7 @@ public interface I_PartyIdentifiedAccess extends I_SimpleCRUD {
      * @return
      */
     static UUID findReferencedParty(I_DomainAccess domainAccess, PartyRef partyRef) {
-        return PartyIdentifiedAccess.findReferencedParty(domainAccess.getContext(), partyRef);
+        return PartyIdentifiedAccess.findReferencedParty(domainAccess, partyRef);
     }
 
     /**
@@ -209,7 +225,7 @@ public interface I_PartyIdentifiedAccess extends I_SimpleCRUD {
      */
     static UUID findReferencedParty(I_DomainAccess domainAccess, String value, String scheme, String namespace, String type) {
         PartyRef partyRef = new PartyRef(new GenericId(value, scheme), namespace, type);
-        return PartyIdentifiedAccess.findReferencedParty(domainAccess.getContext(), partyRef);
+        return PartyIdentifiedAccess.findReferencedParty(domainAccess, partyRef);
     }
 
     /**
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehrbase.dao.access.jooq;
+
+import org.ehrbase.aql.sql.queryImpl.IndexedPaths;
+import org.ehrbase.aql.sql.queryImpl.JsonbEntryQuery;
+import org.ehrbase.dao.access.interfaces.I_AqlIndexedPathAccess;
+import org.ehrbase.dao.access.interfaces.I_DomainAccess;
+import org.ehrbase.dao.access.support.DataAccess;
+import org.ehrbase.jooq.pg.tables.records.AqlIndexedPathRecord;
+import org.jooq.Field;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.ehrbase.jooq.pg.Tables.AQL_INDEXED_PATH;
+import static org.ehrbase.jooq.pg.Tables.ENTRY;
+import static org.ehrbase.jooq.pg.Tables.ENTRY_PATH_VALUE;
+
+/**
+ * Persistence of the AQL paths registered for a template. The values found at a registered path are extracted into
+ * ehr.entry_path_value, by a trigger on ehr.entry for new entries and at registration for the existing ones.
+ */
+public class AqlIndexedPathAccess extends DataAccess implements I_AqlIndexedPathAccess {
+
+    final static Logger log = LoggerFactory.getLogger(AqlIndexedPathAccess.class);
+    private AqlIndexedPathRecord indexedPathRecord;
+
+    public AqlIndexedPathAccess(I_DomainAccess domainAccess, AqlIndexedPathRecord indexedPathRecord) {
+        super(domainAccess);
+        this.indexedPathRecord = indexedPathRecord;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the path or the value type is not supported
+     */
+    public AqlIndexedPathAccess(I_DomainAccess domainAccess, String templateId, String path, String valueType) {
+        super(domainAccess);
+
+        if (path == null || !path.startsWith("/") || path.contains("name/value"))
+            throw new IllegalArgumentException("Path must be an AQL path from the composition root without name/value predicate:" + path);
+        if (valueType == null || Arrays.stream(IndexedPaths.ValueType.values()).noneMatch(type -> type.name().equals(valueType)))
+            throw new IllegalArgumentException("Unsupported value type:" + valueType + ", expected one of " + Arrays.toString(IndexedPaths.ValueType.values()));
+
+        List<String> keyPath;
+        try {
+            keyPath = JsonbEntryQuery.entryKeyPath(path);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Could not resolve path:" + path + ", reason:" + e.getMessage());
+        }
+
+        indexedPathRecord = domainAccess.getContext().newRecord(AQL_INDEXED_PATH);
+        indexedPathRecord.setTemplateId(templateId);
+        indexedPathRecord.setPath(path);
+        indexedPathRecord.setJsonPath(keyPath.toArray(new String[0]));
+        indexedPathRecord.setValueType(valueType);
+    }
+
+    /**
+     * @param templateId the template of the paths, all paths if null
+     */
+    public static List<AqlIndexedPathAccess> retrieveList(I_DomainAccess domainAccess, String templateId) {
+        List<AqlIndexedPathRecord> records;
+
+        if (templateId == null)
+            records = domainAccess.getContext().selectFrom(AQL_INDEXED_PATH).orderBy(AQL_INDEXED_PATH.ID).fetch();
+        else
+            records = domainAccess.getContext().selectFrom(AQL_INDEXED_PATH).where(AQL_INDEXED_PATH.TEMPLATE_ID.eq(templateId)).orderBy(AQL_INDEXED_PATH.ID).fetch();
+
+        List<AqlIndexedPathAccess> indexedPathAccesses = new ArrayList<>();
+        for (AqlIndexedPathRecord record : records) {
+            indexedPathAccesses.add(new AqlIndexedPathAccess(domainAccess, record));
+        }
+        return indexedPathAccesses;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the path is not registered for this template
+     */
+    public static AqlIndexedPathAccess retrieve(I_DomainAccess domainAccess, String templateId, String path) {
+        AqlIndexedPathRecord record = domainAccess.getContext()
+                .selectFrom(AQL_INDEXED_PATH)
+                .where(AQL_INDEXED_PATH.TEMPLATE_ID.eq(templateId).and(AQL_INDEXED_PATH.PATH.eq(path)))
+                .fetchOne();
+
+        if (record == null)
+            throw new IllegalArgumentException("Path is not registered for template " + templateId + ":" + path);
+
+        return new AqlIndexedPathAccess(domainAccess, record);
+    }
+
+    @Override
+    public Integer commit(Timestamp transactionTime) {
+        AqlIndexedPathRecord registered = getContext()
+                .selectFrom(AQL_INDEXED_PATH)
+                .where(AQL_INDEXED_PATH.TEMPLATE_ID.eq(indexedPathRecord.getTemplateId()).and(AQL_INDEXED_PATH.PATH.eq(indexedPathRecord.getPath())))
+                .fetchOne();
+
+        if (registered != null && registered.getValueType().equals(indexedPathRecord.getValueType())) {
+            indexedPathRecord = registered;
+            return 0;
+        }
+
+        //a concurrent registration of the same path is updated instead of failing on aql_indexed_path_uq
+        indexedPathRecord = getContext()
+                .insertInto(AQL_INDEXED_PATH)
+                .set(AQL_INDEXED_PATH.TEMPLATE_ID, indexedPathRecord.getTemplateId())
+                .set(AQL_INDEXED_PATH.PATH, indexedPathRecord.getPath())
+                .set(AQL_INDEXED_PATH.JSON_PATH, indexedPathRecord.getJsonPath())
+                .set(AQL_INDEXED_PATH.VALUE_TYPE, indexedPathRecord.getValueType())
+                .set(AQL_INDEXED_PATH.SYS_TRANSACTION, transactionTime)
+                .onConflict(AQL_INDEXED_PATH.TEMPLATE_ID, AQL_INDEXED_PATH.PATH)
+                .doUpdate()
+                .set(AQL_INDEXED_PATH.JSON_PATH, indexedPathRecord.getJsonPath())
+                .set(AQL_INDEXED_PATH.VALUE_TYPE, indexedPathRecord.getValueType())
+                .set(AQL_INDEXED_PATH.SYS_TRANSACTION, transactionTime)
+                .returning()
+                .fetchOne();
+
+        //the values extracted for the previous value type
+        if (registered != null)
+            getContext().deleteFrom(ENTRY_PATH_VALUE).where(ENTRY_PATH_VALUE.PATH_ID.eq(indexedPathRecord.getId())).execute();
+
+        //extract the values from the entries already stored, new entries are handled by the entry trigger; a value
+        //already extracted by the trigger is skipped (ON CONFLICT DO NOTHING on entry_path_value_uq)
+        Field<Integer> extract = DSL.field("ehr.insert_entry_path_values({0}, {1}, {2}, {3})", Integer.class,
+                ENTRY.ID, ENTRY.TEMPLATE_ID, ENTRY.ENTRY_, DSL.val(indexedPathRecord.getId()));
+
+        Integer extracted = getContext()
+                .select(DSL.sum(extract))
+                .from(ENTRY)
+                .where(ENTRY.TEMPLATE_ID.eq(indexedPathRecord.getTemplateId()))
+                .fetchOne(0, Integer.class);
+        if (extracted == null) //no entry for this template yet
+            extracted = 0;
+
+        log.info("Registered path {} for template {}, {} value(s) extracted", indexedPathRecord.getPath(), indexedPathRecord.getTemplateId(), extracted);
+        return extracted;
+    }
+
+    @Override
+    public Integer commit() {
+        return commit(Timestamp.from(Instant.now()));
+    }
+
+    @Override
+    public Integer delete() {
+        return indexedPathRecord.delete();
+    }
+
+    @Override
+    public Integer getId() {
+        return indexedPathRecord.getId();
+    }
+
+    @Override
+    public String getTemplateId() {
+        return indexedPathRecord.getTemplateId();
+    }
+
+    @Override
+    public String getPath() {
+        return indexedPathRecord.getPath();
+    }
+
+    @Override
+    public String getValueType() {
+        return indexedPathRecord.getValueType();
+    }
+
+    @Override
+    public Timestamp getCreationDate() {
+        return indexedPathRecord.getSysTransaction();
+    }
+
+    @Override
+    public DataAccess getDataAccess() {
+        return this;
+    }
+}
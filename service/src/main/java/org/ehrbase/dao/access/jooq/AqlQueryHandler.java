@@ -21,13 +21,18 @@
 
 package org.ehrbase.dao.access.jooq;
 
+import org.ehrbase.api.definitions.QueryLimits;
 import org.ehrbase.aql.compiler.AqlExpression;
 import org.ehrbase.aql.compiler.AqlExpressionWithParameters;
 import org.ehrbase.aql.compiler.Contains;
 import org.ehrbase.aql.compiler.Statements;
+import org.ehrbase.aql.compiler.tsclient.StubTerminologyServerImpl;
+import org.ehrbase.aql.compiler.tsclient.TerminologyServer;
 import org.ehrbase.aql.definition.I_VariableDefinition;
+import org.ehrbase.aql.sql.AqlRecordHandler;
 import org.ehrbase.aql.sql.AqlResult;
 import org.ehrbase.aql.sql.QueryProcessor;
+import org.ehrbase.aql.sql.QueryProfile;
 import org.ehrbase.dao.access.interfaces.I_DomainAccess;
 import org.ehrbase.dao.access.support.DataAccess;
 
@@ -41,6 +46,9 @@ import java.util.Map;
 public class AqlQueryHandler extends DataAccess {
 
     private boolean usePgExtensions;
+    private QueryProfile profile = new QueryProfile(false);
+    private QueryLimits limits = QueryLimits.unlimited();
+    private TerminologyServer<String, String> terminologyServer = new StubTerminologyServerImpl();
 
     public AqlQueryHandler(I_DomainAccess domainAccess, boolean usePgExtensions) {
         super(domainAccess);
@@ -49,27 +57,85 @@ public class AqlQueryHandler extends DataAccess {
     }
 
 
+    /**
+     * @param profile the profile recording the stages of the processed query
+     */
+    public AqlQueryHandler setProfile(QueryProfile profile) {
+        this.profile = profile;
+        return this;
+    }
+
+    /**
+     * @param limits the bounds of the execution of the processed query
+     */
+    public AqlQueryHandler setLimits(QueryLimits limits) {
+        this.limits = limits;
+        return this;
+    }
+
+    /**
+     * @param terminologyServer the terminology server expanding the value sets of MATCHES {INVOKE(...)}
+     */
+    public AqlQueryHandler setTerminologyServer(TerminologyServer<String, String> terminologyServer) {
+        this.terminologyServer = terminologyServer;
+        return this;
+    }
+
     public AqlResult process(String query) {
+        long start = System.nanoTime();
         AqlExpression aqlExpression = new AqlExpression().parse(query);
-        return execute(aqlExpression);
+        return execute(aqlExpression, start);
     }
 
     public AqlResult process(String query, Map<String, Object> parameters) {
+        long start = System.nanoTime();
         AqlExpression aqlExpression = new AqlExpressionWithParameters().parse(query, parameters);
-        return execute(aqlExpression);
+        return execute(aqlExpression, start);
     }
 
-    @SuppressWarnings("unchecked")
-    private AqlResult execute(AqlExpression aqlExpression){
+    /**
+     * execute a query and hand over its records while they are fetched
+     *
+     * @param parameters    the query parameters, may be null
+     * @param recordHandler receives the variables and fields of the result, then its records
+     */
+    public void stream(String query, Map<String, Object> parameters, AqlRecordHandler recordHandler) {
+        long start = System.nanoTime();
+        AqlExpression aqlExpression;
+        if (parameters != null && !parameters.isEmpty())
+            aqlExpression = new AqlExpressionWithParameters().parse(query, parameters);
+        else
+            aqlExpression = new AqlExpression().parse(query);
+
         Contains contains = new Contains(aqlExpression.getParseTree()).process();
-        Statements statements = new Statements(aqlExpression.getParseTree(), contains.getIdentifierMapper()).process() ;
+        Statements statements = new Statements(aqlExpression.getParseTree(), contains.getIdentifierMapper(), terminologyServer).process() ;
+        profile.record(QueryProfile.PARSE, start, null);
 
-        QueryProcessor queryProcessor = new QueryProcessor(getContext(), this.getKnowledgeManager(), this.getIntrospectService(), contains, statements, getDataAccess().getServerConfig().getNodename(), usePgExtensions);
+        Map<String, String> variables = variables(statements);
+        queryProcessor(contains, statements).stream(fields -> recordHandler.start(variables, fields), recordHandler::record);
+    }
 
-        AqlResult aqlResult =  queryProcessor.execute();
+    @SuppressWarnings("unchecked")
+    private AqlResult execute(AqlExpression aqlExpression, long parseStart){
+        Contains contains = new Contains(aqlExpression.getParseTree()).process();
+        Statements statements = new Statements(aqlExpression.getParseTree(), contains.getIdentifierMapper(), terminologyServer).process() ;
+        profile.record(QueryProfile.PARSE, parseStart, null);
+
+        AqlResult aqlResult =  queryProcessor(contains, statements).execute();
 
         //add the variable from statements
-        Map<String, String> variables =  new LinkedHashMap<>();;
+        aqlResult.setVariables(variables(statements));
+        return aqlResult;
+    }
+
+    private QueryProcessor queryProcessor(Contains contains, Statements statements) {
+        return new QueryProcessor(getContext(), this.getKnowledgeManager(), this.getIntrospectService(), contains, statements, getDataAccess().getServerConfig().getNodename(), usePgExtensions)
+                .setProfile(profile)
+                .setLimits(limits);
+    }
+
+    private static Map<String, String> variables(Statements statements) {
+        Map<String, String> variables =  new LinkedHashMap<>();
         Iterator<I_VariableDefinition> iterator = statements.getVariables().iterator();
         int serial = 0;
         while (iterator.hasNext()) {
@@ -77,8 +143,7 @@ public class AqlQueryHandler extends DataAccess {
             if (!variableDefinition.isHidden())
                 variables.put(variableDefinition.getAlias()==null ? "NULL_"+serial++ : variableDefinition.getAlias(), "/"+variableDefinition.getPath());
         }
-        aqlResult.setVariables(variables);
-        return aqlResult;
+        return variables;
     }
 
     @Override
@@ -766,6 +766,20 @@ public class CompositionAccess extends DataAccess implements I_CompositionAccess
         return update(timestamp);
     }
 
+    //the deleted composition may be the sample used to resolve the paths of its template, and is part of the stored
+    //query results depending on its template (any template if its content is not loaded)
+    private void invalidateContainsSetCache() {
+        if (getKnowledgeManager() != null && getKnowledgeManager().getContainsSetCache() != null)
+            getKnowledgeManager().getContainsSetCache().compositionDeleted(getId());
+
+        if (getKnowledgeManager() != null && getKnowledgeManager().getStoredQueryResultCache() != null) {
+            if (content.isEmpty())
+                getKnowledgeManager().getStoredQueryResultCache().templateWritten(null);
+            for (I_EntryAccess entryAccess : content)
+                getKnowledgeManager().getStoredQueryResultCache().templateWritten(entryAccess.getTemplateId());
+        }
+    }
+
     @Override
     public Integer delete() {
 
@@ -777,6 +791,7 @@ public class CompositionAccess extends DataAccess implements I_CompositionAccess
     public Integer delete(UUID committerId, UUID systemId, String description) {
         // .delete() moves the old version to _history table.
         int delRows = compositionRecord.delete();
+        invalidateContainsSetCache();
 
         // create new deletion audit
         I_AuditDetailsAccess delAudit = I_AuditDetailsAccess.getInstance(this, systemId, committerId, I_ConceptAccess.ContributionChangeType.DELETED, description);
@@ -796,6 +811,7 @@ public class CompositionAccess extends DataAccess implements I_CompositionAccess
     public Integer deleteWithCustomContribution(UUID committerId, UUID systemId, String description) {
         // .delete() moves the old version to _history table.
         int delRows = compositionRecord.delete();
+        invalidateContainsSetCache();
 
         // create new deletion audit
         I_AuditDetailsAccess delAudit = I_AuditDetailsAccess.getInstance(this, systemId, committerId, I_ConceptAccess.ContributionChangeType.DELETED, description);
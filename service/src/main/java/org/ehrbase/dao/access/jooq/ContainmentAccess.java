@@ -27,11 +27,14 @@ import org.apache.logging.log4j.Logger;
 import org.ehrbase.api.exception.InternalServerException;
 import org.ehrbase.dao.access.interfaces.I_ContainmentAccess;
 import org.ehrbase.dao.access.support.DataAccess;
-import org.ehrbase.ehr.encode.ItemStack;
+import org.ehrbase.ehr.encode.LtreeLabelDictionary;
+import org.jooq.Query;
 import org.jooq.impl.DSL;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -50,17 +53,27 @@ public class ContainmentAccess extends DataAccess implements I_ContainmentAccess
     private Map<String, String> ltree;
 
     public ContainmentAccess(DataAccess dataAccess, UUID entryId, String archetypeId, Map<String, String> ltreeMap, boolean debug) {
+        this(dataAccess, entryId, null, archetypeId, ltreeMap, debug);
+    }
+
+    /**
+     * @param templateId the template of the composition, labels are then taken from the template's label dictionary
+     *                   shared with the serializer
+     */
+    public ContainmentAccess(DataAccess dataAccess, UUID entryId, String templateId, String archetypeId, Map<String, String> ltreeMap, boolean debug) {
         super(dataAccess.getContext(), null, null, dataAccess.getServerConfig());
-        ltree = new HashMap<>();
+        ltree = new HashMap<>(ltreeMap.size() * 4 / 3 + 2);
         this.entryId = entryId;
 
+        LtreeLabelDictionary labelDictionary = LtreeLabelDictionary.forTemplate(templateId);
+
         //initial label and path
-        String rootArchetype = ItemStack.normalizeLabel(archetypeId);
+        String rootArchetype = labelDictionary.label(archetypeId);
         ltree.put(rootArchetype, "/composition[" + archetypeId + "]");
 
-        for (Map.Entry entry : ltreeMap.entrySet()) {
-            String label = rootArchetype + "." + entry.getKey().toString();
-            String path = entry.getValue().toString();
+        for (Map.Entry<String, String> entry : ltreeMap.entrySet()) {
+            String label = labelDictionary.qualify(rootArchetype, entry.getKey());
+            String path = entry.getValue();
             ltree.put(label, path);
             if (debug)
                 log.debug("LABEL:" + label + "|PATH:" + path);
@@ -132,12 +145,13 @@ public class ContainmentAccess extends DataAccess implements I_ContainmentAccess
             getContext().delete(CONTAINMENT).where(CONTAINMENT.COMP_ID.eq(compositionId)).execute();
         }
 
-        //insert the new containment for this composition
-        for (Map.Entry entry : ltree.entrySet()) {
-            getContext().insertInto(CONTAINMENT, CONTAINMENT.COMP_ID, CONTAINMENT.LABEL, CONTAINMENT.PATH)
-                    .values(DSL.val(compositionId), DSL.field(DSL.val(entry.getKey().toString()) + "::ltree"), DSL.val(entry.getValue().toString()))
-                    .execute();
+        //insert the new containment for this composition, in a single batch
+        List<Query> inserts = new ArrayList<>(ltree.size());
+        for (Map.Entry<String, String> entry : ltree.entrySet()) {
+            inserts.add(getContext().insertInto(CONTAINMENT, CONTAINMENT.COMP_ID, CONTAINMENT.LABEL, CONTAINMENT.PATH)
+                    .values(DSL.val(compositionId), DSL.field(DSL.val(entry.getKey()) + "::ltree"), DSL.val(entry.getValue())));
         }
+        getContext().batch(inserts).execute();
     }
 
     /**
@@ -290,7 +290,7 @@ public class EntryAccess extends DataAccess implements I_EntryAccess {
 
         RawJson rawJson = new RawJson();
         record.setEntry(JSONB.valueOf(rawJson.marshal(composition)));
-        containmentAccess = new ContainmentAccess(getDataAccess(), record.getId(), record.getArchetypeId(), rawJson.getLtreeMap(), true);
+        containmentAccess = new ContainmentAccess(getDataAccess(), record.getId(), record.getTemplateId(), record.getArchetypeId(), rawJson.getLtreeMap(), true);
     }
 
     /**
@@ -365,10 +365,21 @@ public class EntryAccess extends DataAccess implements I_EntryAccess {
             containmentAccess.update();
         }
 
+        invalidateContainsSetCache();
+
         return result.getValue(ENTRY.ID);
         //return entryRecord.getId(); // TODO: part of WIP refactoring from above
     }
 
+    //the new content may match contain clauses the template was not yet part of, and changes the stored query
+    //results depending on the template
+    private void invalidateContainsSetCache() {
+        if (getKnowledgeManager() != null && getKnowledgeManager().getContainsSetCache() != null)
+            getKnowledgeManager().getContainsSetCache().entryWritten(getTemplateId());
+        if (getKnowledgeManager() != null && getKnowledgeManager().getStoredQueryResultCache() != null)
+            getKnowledgeManager().getStoredQueryResultCache().templateWritten(getTemplateId());
+    }
+
     /**
      * @throws InternalServerException because inherited interface function isn't implemented in this class
      * @deprecated
@@ -416,6 +427,8 @@ public class EntryAccess extends DataAccess implements I_EntryAccess {
             containmentAccess.update();
         }
 
+        invalidateContainsSetCache();
+
         return updateQuery.execute() > 0;
     }
 
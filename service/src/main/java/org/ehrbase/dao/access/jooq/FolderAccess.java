@@ -203,6 +203,298 @@ public class FolderAccess extends DataAccess implements I_FolderAccess, Comparab
         return result || anySubfolderModified;
     }
 
+    /**
+     * Applies the given folder as new version of this folder hierarchy. Instead of deleting and re-inserting the
+     * complete tree, the hierarchy loaded into this instance is compared with the update and only new, modified and
+     * removed folders are written. Unchanged folders keep their rows (and contribution) untouched, all resulting
+     * statements are sent to the database in batches.
+     * <p>
+     * A folder is written if its attributes, its items or its set of sub folders changed, the root folder is always
+     * written since it carries the new version. The hierarchy rows below a written folder are all written with the
+     * new contribution as well: a version is read back by following, from each folder version, the hierarchy rows of
+     * the same contribution (see {@link FolderHistoryAccess#retrieveInstanceForExistingFolder}).
+     *
+     * @param transactionTime - Time of the update transaction
+     * @param update          - Folder containing the new state of the hierarchy
+     * @return true if at least one row has been written
+     */
+    @Override
+    public Boolean update(final Timestamp transactionTime, final Folder update) {
+
+        UUID oldContribution = this.folderRecord.getInContribution();
+
+        UUID ehrId = this.contributionAccess.getEhrId();
+        // save the EHR id from old contribution since it will be the same as this is an update operation
+        if (ehrId == null) {
+            ehrId = getContext().select(CONTRIBUTION.EHR_ID)
+                    .from(CONTRIBUTION)
+                    .where(CONTRIBUTION.ID.eq(oldContribution))
+                    .fetchOne()
+                    .value1();
+        }
+        this.contributionAccess.setEhrId(ehrId);
+        this.contributionAccess.commit(transactionTime, null, null, ContributionDataType.folder, ContributionDef.ContributionState.COMPLETE, I_ConceptAccess.ContributionChangeType.MODIFICATION, null);
+        UUID newContribution = this.contributionAccess.getId();
+
+        FolderChangeSet changes = new FolderChangeSet(newContribution, transactionTime);
+
+        // The root folder is always written since it carries the new version of the directory
+        this.applyFolderAttributes(update);
+        this.applyItems(update);
+        this.mergeSubfolders(update, changes);
+        changes.writtenFolders.add(this);
+
+        return changes.execute(getContext()) > 0;
+    }
+
+    /**
+     * Compares the sub folders of the given update with the sub folders currently held by this instance. Sub folders
+     * are matched by their uid, unmatched stored folders are removed with their whole sub tree and unmatched incoming
+     * folders are inserted as new hierarchy.
+     *
+     * @param update  - Incoming folder state for this level of the hierarchy
+     * @param changes - Collector for the statements to execute
+     * @return true if sub folders have been added or removed
+     */
+    private boolean mergeSubfolders(final Folder update, final FolderChangeSet changes) {
+
+        Map<UUID, I_FolderAccess> remaining = new TreeMap<>(this.getSubfoldersList());
+        Map<UUID, I_FolderAccess> merged = new TreeMap<>();
+        boolean subfoldersChanged = false;
+
+        if (update.getFolders() != null) {
+            for (Folder child : update.getFolders()) {
+
+                UUID childId = FolderUtils.parseFolderUid(child);
+                FolderAccess existing = childId != null ? (FolderAccess) remaining.remove(childId) : null;
+
+                if (existing == null) {
+                    // New sub folder: insert the complete sub tree with fresh ids
+                    FolderAccess created = this.buildInsertedHierarchy(child, changes);
+                    merged.put(created.getFolderId(), created);
+                    subfoldersChanged = true;
+                    continue;
+                }
+
+                boolean modified = existing.applyFolderAttributes(child);
+                modified = existing.applyItems(child) || modified;
+                modified = existing.mergeSubfolders(child, changes) || modified;
+                if (modified) {
+                    changes.writtenFolders.add(existing);
+                }
+                merged.put(existing.getFolderId(), existing);
+            }
+        }
+
+        // Everything not matched by the update has been removed from the hierarchy
+        for (I_FolderAccess removed : remaining.values()) {
+            changes.removedHierarchies.add(new UUID[]{this.getFolderId(), removed.getFolderId()});
+            ((FolderAccess) removed).collectSubtreeIds(changes.removedFolders);
+            subfoldersChanged = true;
+        }
+
+        this.subfoldersList = merged;
+        return subfoldersChanged;
+    }
+
+    /**
+     * Sets the name, archetype node id and details of the update on this instance if they differ from the stored
+     * values.
+     *
+     * @param update - Incoming folder state
+     * @return true if any attribute has been changed
+     */
+    private boolean applyFolderAttributes(final Folder update) {
+
+        boolean modified = false;
+        if (update.getNameAsString() != null && !update.getNameAsString().equals(this.getFolderName())) {
+            this.setFolderName(update.getNameAsString());
+            modified = true;
+        }
+        if (update.getArchetypeNodeId() != null && !update.getArchetypeNodeId().equals(this.getFolderArchetypeNodeId())) {
+            this.setFolderNArchetypeNodeId(update.getArchetypeNodeId());
+            modified = true;
+        }
+        if (update.getDetails() != null && !update.getDetails().equals(this.getFolderDetails())) {
+            this.setFolderDetails(update.getDetails());
+            modified = true;
+        }
+        return modified;
+    }
+
+    /**
+     * Sets the items of the update on this instance if they differ from the stored items. The item rows are written
+     * with the folder: items are stored per contribution, thus a folder written with a new contribution needs its
+     * item rows to be written with that contribution as well.
+     *
+     * @param update - Incoming folder state
+     * @return true if the item list has been changed
+     */
+    private boolean applyItems(final Folder update) {
+
+        if (update.getItems() == null || FolderUtils.sameItems(this.getItems(), update.getItems())) {
+            return false;
+        }
+        List<ObjectRef> items = new ArrayList<>(update.getItems());
+        this.items.clear();
+        this.items.addAll(items);
+        return true;
+    }
+
+    /**
+     * Creates the in-memory FolderAccess hierarchy for a folder that does not exist yet and registers all its
+     * folders for insert.
+     *
+     * @param folder  - New folder to insert
+     * @param changes - Collector for the statements to execute
+     * @return FolderAccess for the new folder
+     */
+    private FolderAccess buildInsertedHierarchy(final Folder folder, final FolderChangeSet changes) {
+
+        FolderAccess created = new FolderAccess(this, this.ehrId, this.contributionAccess);
+        created.setFolderId(UUID.randomUUID());
+        created.setInContribution(changes.contribution);
+        created.setFolderName(folder.getNameAsString());
+        created.setFolderNArchetypeNodeId(folder.getArchetypeNodeId());
+        created.setIsFolderActive(true);
+        created.setFolderDetails(folder.getDetails());
+        created.setFolderSysTransaction(changes.transactionTime);
+        if (folder.getItems() != null) {
+            created.getItems().addAll(folder.getItems());
+        }
+
+        changes.insertedFolders.add(created);
+        changes.insertedHierarchies.add(new UUID[]{this.getFolderId(), created.getFolderId()});
+
+        if (folder.getFolders() != null) {
+            for (Folder child : folder.getFolders()) {
+                FolderAccess createdChild = created.buildInsertedHierarchy(child, changes);
+                created.getSubfoldersList().put(createdChild.getFolderId(), createdChild);
+            }
+        }
+        return created;
+    }
+
+    private void collectSubtreeIds(final List<UUID> ids) {
+        ids.add(this.getFolderId());
+        this.getSubfoldersList().values().forEach(child -> ((FolderAccess) child).collectSubtreeIds(ids));
+    }
+
+    /**
+     * Collects the row changes resulting from the comparison of a stored folder hierarchy with an update and writes
+     * them in a fixed order (removals first, then folders, hierarchy and items) to satisfy the foreign keys between
+     * the folder tables.
+     */
+    private static class FolderChangeSet {
+
+        private final UUID contribution;
+        private final Timestamp transactionTime;
+
+        private final List<UUID> removedFolders = new ArrayList<>();
+        private final List<UUID[]> removedHierarchies = new ArrayList<>();
+        private final List<FolderAccess> insertedFolders = new ArrayList<>();
+        // existing folders written with the new contribution, together with their items and the hierarchy rows below
+        private final List<FolderAccess> writtenFolders = new ArrayList<>();
+        private final List<UUID[]> insertedHierarchies = new ArrayList<>();
+
+        private FolderChangeSet(UUID contribution, Timestamp transactionTime) {
+            this.contribution = contribution;
+            this.transactionTime = transactionTime;
+        }
+
+        private int execute(DSLContext context) {
+
+            List<Query> modifications = new ArrayList<>();
+
+            // Removals; deleting folder items also removes the corresponding object refs by trigger
+            for (UUID[] hierarchy : removedHierarchies) {
+                modifications.add(context.deleteFrom(FOLDER_HIERARCHY)
+                        .where(FOLDER_HIERARCHY.PARENT_FOLDER.eq(hierarchy[0]))
+                        .and(FOLDER_HIERARCHY.CHILD_FOLDER.eq(hierarchy[1])));
+            }
+            if (!removedFolders.isEmpty()) {
+                modifications.add(context.deleteFrom(FOLDER).where(FOLDER.ID.in(removedFolders)));
+            }
+            for (FolderAccess folder : writtenFolders) {
+                modifications.add(context.deleteFrom(FOLDER_ITEMS).where(FOLDER_ITEMS.FOLDER_ID.eq(folder.getFolderId())));
+            }
+
+            // Written folders are updated in place to keep their ids stable
+            for (FolderAccess folder : writtenFolders) {
+                folder.setInContribution(contribution);
+                folder.setFolderSysTransaction(transactionTime);
+                modifications.add(context.update(FOLDER)
+                        .set(FOLDER.IN_CONTRIBUTION, contribution)
+                        .set(FOLDER.NAME, folder.getFolderName())
+                        .set(FOLDER.ARCHETYPE_NODE_ID, folder.getFolderArchetypeNodeId())
+                        .set(FOLDER.ACTIVE, folder.isFolderActive())
+                        .set(FOLDER.DETAILS, folder.getFolderDetails())
+                        .set(FOLDER.SYS_TRANSACTION, transactionTime)
+                        .where(FOLDER.ID.eq(folder.getFolderId())));
+            }
+            // The remaining sub folders of a written folder belong to its new version
+            for (FolderAccess folder : writtenFolders) {
+                modifications.add(context.update(FOLDER_HIERARCHY)
+                        .set(FOLDER_HIERARCHY.IN_CONTRIBUTION, contribution)
+                        .set(FOLDER_HIERARCHY.SYS_TRANSACTION, transactionTime)
+                        .where(FOLDER_HIERARCHY.PARENT_FOLDER.eq(folder.getFolderId())));
+            }
+
+            int result = 0;
+            if (!modifications.isEmpty()) {
+                result += Arrays.stream(context.batch(modifications).execute()).sum();
+            }
+
+            List<FolderRecord> folderRecords = new ArrayList<>();
+            for (FolderAccess folder : insertedFolders) {
+                FolderRecord folderRecord = context.newRecord(FOLDER);
+                folderRecord.setId(folder.getFolderId());
+                folderRecord.setInContribution(contribution);
+                folderRecord.setName(folder.getFolderName());
+                folderRecord.setArchetypeNodeId(folder.getFolderArchetypeNodeId());
+                folderRecord.setActive(folder.isFolderActive());
+                folderRecord.setDetails(folder.getFolderDetails());
+                folderRecord.setSysTransaction(transactionTime);
+                folderRecords.add(folderRecord);
+            }
+            result += batchInsert(context, folderRecords);
+
+            List<FolderHierarchyRecord> hierarchyRecords = new ArrayList<>();
+            for (UUID[] hierarchy : insertedHierarchies) {
+                FolderHierarchyRecord hierarchyRecord = context.newRecord(FOLDER_HIERARCHY);
+                hierarchyRecord.setParentFolder(hierarchy[0]);
+                hierarchyRecord.setChildFolder(hierarchy[1]);
+                hierarchyRecord.setInContribution(contribution);
+                hierarchyRecord.setSysTransaction(transactionTime);
+                hierarchyRecords.add(hierarchyRecord);
+            }
+            result += batchInsert(context, hierarchyRecords);
+
+            List<ObjectRefRecord> objectRefRecords = new ArrayList<>();
+            List<FolderItemsRecord> folderItemsRecords = new ArrayList<>();
+            List<FolderAccess> itemOwners = new ArrayList<>(writtenFolders);
+            itemOwners.addAll(insertedFolders);
+            for (FolderAccess folder : itemOwners) {
+                for (ObjectRef or : folder.getItems()) {
+                    UUID objectRefId = UUID.fromString(or.getId().getValue());
+                    objectRefRecords.add(new ObjectRefRecord(or.getNamespace(), or.getType(), objectRefId, contribution, transactionTime, null));
+                    folderItemsRecords.add(new FolderItemsRecord(folder.getFolderId(), objectRefId, contribution, transactionTime, null));
+                }
+            }
+            result += batchInsert(context, objectRefRecords);
+            result += batchInsert(context, folderItemsRecords);
+
+            return result;
+        }
+
+        private static int batchInsert(DSLContext context, List<? extends TableRecord<?>> records) {
+            if (records.isEmpty()) {
+                return 0;
+            }
+            return Arrays.stream(context.batchInsert(records).execute()).sum();
+        }
+    }
+
     private void saveFolderItems(final UUID folderId, final UUID old_contribution, final UUID new_contribution, final Timestamp transactionTime, DSLContext context) {
 
         for (ObjectRef or : this.getItems()) {
@@ -246,22 +538,35 @@ public class FolderAccess extends DataAccess implements I_FolderAccess, Comparab
                 I_ConceptAccess.ContributionChangeType.CREATION,
                 null
         );
-        this.getFolderRecord().setInContribution(this.contributionAccess.getId());
+        return this.commitHierarchy(this.contributionAccess.getId(), transactionTime);
+    }
+
+    /**
+     * Stores this folder and its sub folders as first version of the hierarchy. All rows are written with the same
+     * contribution and transaction time, versions are read back by following the hierarchy rows of a contribution.
+     *
+     * @param contribution    - Contribution of the new hierarchy
+     * @param transactionTime - Time of the commit transaction
+     * @return the id of this folder
+     */
+    private UUID commitHierarchy(final UUID contribution, final Timestamp transactionTime) {
+        this.getFolderRecord().setInContribution(contribution);
+        this.getFolderRecord().setSysTransaction(transactionTime);
 
         // Save the folder record to database
         this.getFolderRecord().store();
 
         //Save folder items
-        this.saveFolderItems(this.getFolderRecord().getId(), this.contributionAccess.getContributionId(), this.contributionAccess.getContributionId(), new Timestamp(DateTime.now().getMillis()), getContext());
+        this.saveFolderItems(this.getFolderRecord().getId(), contribution, contribution, transactionTime, getContext());
 
         // Save list of sub folders to database with parent <-> child ID relations
         this.getSubfoldersList().forEach((child_id, child) -> {
-            child.commit();
+            UUID childId = ((FolderAccess) child).commitHierarchy(contribution, transactionTime);
             FolderHierarchyRecord fhRecord = this.buildFolderHierarchyRecord(
                     this.getFolderRecord().getId(),
-                    ((FolderAccess) child).getFolderRecord().getId(),
-                    this.contributionAccess.getId(),
-                    new Timestamp(DateTime.now().getMillis()),
+                    childId,
+                    contribution,
+                    transactionTime,
                     null
             );
             fhRecord.store();
@@ -334,6 +639,66 @@ public class FolderAccess extends DataAccess implements I_FolderAccess, Comparab
         return FolderAccess.buildFolderAccessHierarchy(fHierarchyMap, folderId, null, folderSelectedRecordSub, domainAccess);
     }
 
+    /**
+     * Retrieve instance of {@link I_FolderAccess} for the sub folder at the given path below the folder identified by
+     * folderId. The path is resolved inside the DB by following only the matching branch of the folder hierarchy, thus
+     * only the sub tree of the target folder is loaded afterwards.
+     *
+     * @param domainAccess providing the information about the DB connection.
+     * @param folderId     {@link java.util.UUID} of the root {@link  com.nedap.archie.rm.directory.Folder} the path starts at.
+     * @param path         slash separated names of the {@link  com.nedap.archie.rm.directory.Folder}s to follow.
+     * @return the {@link I_FolderAccess} for the folder at the path or null if there is no folder at the path.
+     */
+    public static I_FolderAccess retrieveInstanceByPath(I_DomainAccess domainAccess, UUID folderId, String path) {
+
+        UUID targetId = retrieveFolderIdByPath(domainAccess, folderId, path);
+        if (targetId == null) {
+            return null;
+        }
+        return retrieveInstanceForExistingFolder(domainAccess, targetId);
+    }
+
+    /**
+     * Resolves a path of folder names to the id of the addressed sub folder. The path is translated into one join of
+     * FOLDER_HIERARCHY and FOLDER per path segment, so the lookup costs depend on the depth of the path and not on the
+     * size of the hierarchy.
+     *
+     * @param domainAccess providing the information about the DB connection.
+     * @param folderId     {@link java.util.UUID} of the root {@link  com.nedap.archie.rm.directory.Folder} the path starts at.
+     * @param path         slash separated names of the {@link  com.nedap.archie.rm.directory.Folder}s to follow.
+     * @return the id of the folder at the path, the root folder id for an empty path or null if the path does not exist.
+     */
+    public static UUID retrieveFolderIdByPath(I_DomainAccess domainAccess, UUID folderId, String path) {
+
+        List<String> segments = FolderUtils.splitFolderPath(path);
+        if (segments.isEmpty()) {
+            return folderId;
+        }
+
+        FolderHierarchy hierarchy = FOLDER_HIERARCHY.as("fh0");
+        org.ehrbase.jooq.pg.tables.Folder folder = FOLDER.as("f0");
+        Table<?> branch = hierarchy.join(folder)
+                .on(folder.ID.eq(hierarchy.CHILD_FOLDER).and(folder.NAME.eq(segments.get(0))));
+        Condition root = hierarchy.PARENT_FOLDER.eq(folderId);
+
+        for (int i = 1; i < segments.size(); i++) {
+            FolderHierarchy nextHierarchy = FOLDER_HIERARCHY.as("fh" + i);
+            org.ehrbase.jooq.pg.tables.Folder nextFolder = FOLDER.as("f" + i);
+            branch = branch.join(nextHierarchy).on(nextHierarchy.PARENT_FOLDER.eq(folder.ID))
+                    .join(nextFolder).on(nextFolder.ID.eq(nextHierarchy.CHILD_FOLDER).and(nextFolder.NAME.eq(segments.get(i))));
+            folder = nextFolder;
+        }
+
+        Record1<UUID> target = domainAccess.getContext()
+                .select(folder.ID)
+                .from(branch)
+                .where(root)
+                .limit(1)
+                .fetchOne();
+
+        return target != null ? target.value1() : null;
+    }
+
     /**
      * Builds the {@link I_FolderAccess} for persisting the {@link  com.nedap.archie.rm.directory.Folder} provided as param.
      *
@@ -739,6 +1104,19 @@ public class FolderAccess extends DataAccess implements I_FolderAccess, Comparab
                 .fetchExists(FOLDER_HISTORY, FOLDER_HISTORY.ID.eq(folderId));
     }
 
+    /**
+     * Checks if a folder with the given uuid exists in its latest version.
+     *
+     * @param domainAccess - Database connection access context
+     * @param folderId     - UUID of folder to check
+     * @return Folder exists or not
+     */
+    public static boolean exists(I_DomainAccess domainAccess, UUID folderId) {
+        return domainAccess
+                .getContext()
+                .fetchExists(FOLDER, FOLDER.ID.eq(folderId));
+    }
+
     /****Getters and Setters for the FolderRecord to store****/
     public UUID getEhrId() {
         return ehrId;
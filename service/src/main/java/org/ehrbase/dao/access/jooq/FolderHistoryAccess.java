@@ -32,12 +32,9 @@ import org.ehrbase.dao.access.interfaces.I_FolderAccess;
 import org.ehrbase.dao.access.support.DataAccess;
 import org.ehrbase.dao.access.util.ContributionDef;
 import org.ehrbase.dao.access.util.FolderUtils;
-import org.ehrbase.jooq.binding.OtherDetailsJsonbBinder;
-import org.ehrbase.jooq.binding.SysPeriodBinder;
 import org.ehrbase.jooq.pg.tables.records.FolderRecord;
 import org.ehrbase.jooq.pg.tables.records.ObjectRefRecord;
 import org.jooq.*;
-import org.postgresql.util.PGobject;
 import java.sql.Timestamp;
 import java.time.OffsetDateTime;
 import java.util.*;
@@ -51,6 +48,9 @@ public class FolderHistoryAccess extends DataAccess implements I_FolderAccess, C
 
     private static final Logger log = LogManager.getLogger(FolderHistoryAccess.class);
 
+    // parent of a folder version retrieved with its sub folders, null for the top folder
+    private static final Field<UUID> VERSION_PARENT_FOLDER = field(name("parent_folder"), UUID.class);
+
     // TODO: Check how to remove this unused details for confusion prevention
     private ItemStructure details;
 
@@ -97,6 +97,11 @@ public class FolderHistoryAccess extends DataAccess implements I_FolderAccess, C
         return null;
     }
 
+    @Override
+    public Boolean update(Timestamp transactionTime, Folder update) {
+        return null;
+    }
+
     @Override
     public Boolean update() {
         return null;
@@ -121,31 +126,6 @@ public class FolderHistoryAccess extends DataAccess implements I_FolderAccess, C
     }
 
 
-    private static FolderHistoryAccess buildFolderAccessFromGenericRecord(final Record record_,
-                                                                          final I_DomainAccess domainAccess) {
-
-        Record15<UUID, UUID, UUID, Timestamp, Object, UUID, Timestamp, UUID, UUID, String, String, Boolean, JSONB, Timestamp, Object>
-                record
-                = (Record15<UUID, UUID, UUID, Timestamp, Object, UUID, Timestamp, UUID, UUID, String, String, Boolean, JSONB, Timestamp, Object>) record_;
-        FolderHistoryAccess folderAccess = new FolderHistoryAccess(domainAccess);
-        folderAccess.folderRecord = new FolderRecord();
-        folderAccess.setFolderId(record.value1());
-        folderAccess.setInContribution(record.value3());
-        folderAccess.setFolderName(record.value10());
-        folderAccess.setFolderNArchetypeNodeId(record.value11());
-        folderAccess.setIsFolderActive(record.value12());
-        // Due to generic type from JOIN The ItemStructure binding does not cover the details
-        // and we have to parse it manually
-        folderAccess.setFolderDetails(new OtherDetailsJsonbBinder().converter().from(record.value13()));
-        folderAccess.setFolderSysTransaction(record.value14());
-        folderAccess.setFolderSysPeriod(new SysPeriodBinder().converter().from(record.value15()));
-        folderAccess.getItems()
-                    .addAll(FolderHistoryAccess.retrieveItemsByFolderAndContributionId(record.value1(),
-                                                                                record.value3(),
-                                                                                domainAccess));
-        return folderAccess;
-    }
-
     /**
      * Create a new FolderAccess from a {@link FolderRecord} DB record
      *
@@ -173,50 +153,6 @@ public class FolderHistoryAccess extends DataAccess implements I_FolderAccess, C
         return folderAccess;
     }
 
-    /**
-     * Given a UUID for a folder creates the corresponding FolderAccess from the information conveyed by the {@link Result} provided. Alternatively queries the DB if the information needed is not in {@link Result}.
-     * * @param id of the folder to define a {@link FolderHistoryAccess} from.
-     * * @param {@link Result} containing the Records that represent the rows to retrieve from the DB corresponding to the children hierarchy.
-     * @return a FolderAccess corresponding to the Folder id provided
-     */
-    private static FolderHistoryAccess buildFolderAccessFromFolderId(final UUID id, final UUID contributionId,  final I_DomainAccess domainAccess, final Result<Record> folderSelectedRecordSub){
-
-        for(Record record : folderSelectedRecordSub){
-            //if the FOLDER items were returned in the recursive query use them and avoid a DB transaction
-            if(record.getValue("parent_folder").equals(id)){
-
-                return buildFolderAccessFromGenericRecord(record, domainAccess);
-            }
-        }
-
-        //if no data from the Folder has been already recovered for the id of the folder, then query the DB for it.
-        FolderRecord folderSelectedRecord = getFolderRecordByUidAndContribution(id, contributionId, domainAccess);
-
-        if (folderSelectedRecord == null || folderSelectedRecord.size() < 1) {
-            throw new ObjectNotFoundException(
-                    "folder", "Folder with id " + id + " could not be found"
-            );
-        }
-
-        return buildFolderAccessFromFolderRecord(folderSelectedRecord, domainAccess);
-    }
-
-    /**
-     * Makes the union of FOLDER and FOLDER_HISTORY table retrieving all the information for a folder specified by its UUID and contribution UUID.
-     * @return
-     */
-    private static  FolderRecord getFolderRecordByUidAndContribution(final UUID folderId, final UUID contributionId, final I_DomainAccess domainAccess){
-        Table<?> united_hierarchies_table1 = table(
-                select()
-                        .from(FOLDER).where(FOLDER.ID.eq(folderId).and(FOLDER.IN_CONTRIBUTION.eq(contributionId))).
-                        union(
-                                select().from(FOLDER_HISTORY).where(FOLDER_HISTORY.ID.eq(folderId).and(FOLDER_HISTORY.IN_CONTRIBUTION.eq(contributionId))))).asTable("folder_union_fol_hist");
-
-        FolderRecord folderSelectedRecord = (FolderRecord) domainAccess.getContext().selectFrom(united_hierarchies_table1).fetchOne();
-
-        return folderSelectedRecord;
-    }
-
     /**
      * Retrieves a list containing the items as ObjectRefs of the folder corresponding to the id provided.
      * @param folderId of the FOLDER that the items correspond to.
@@ -326,6 +262,31 @@ public class FolderHistoryAccess extends DataAccess implements I_FolderAccess, C
                 .fetchExists(FOLDER_HISTORY, FOLDER_HISTORY.ID.eq(folderId));
     }
 
+    /**
+     * Returns the transaction time of a version of the folder. Versions are numbered in the order of their commit,
+     * starting with 1 for the row created first, the latest version is the one in the folder table.
+     *
+     * @param domainAccess - Database connection access context
+     * @param folderId     - UUID of the folder
+     * @param version      - Number of the version
+     * @return sys_transaction of the version or null if the folder has no such version
+     */
+    public static Timestamp getVersionTimestamp(I_DomainAccess domainAccess, UUID folderId, int version) {
+
+        Table<Record1<Timestamp>> versions = select(FOLDER.SYS_TRANSACTION).from(FOLDER).where(FOLDER.ID.eq(folderId))
+                .unionAll(select(FOLDER_HISTORY.SYS_TRANSACTION).from(FOLDER_HISTORY).where(FOLDER_HISTORY.ID.eq(folderId)))
+                .asTable("versions");
+        Field<Timestamp> sysTransaction = versions.field(FOLDER.SYS_TRANSACTION.getName(), Timestamp.class);
+
+        return domainAccess.getContext()
+                .select(sysTransaction)
+                .from(versions)
+                .orderBy(sysTransaction)
+                .limit(1)
+                .offset(version - 1)
+                .fetchOne(sysTransaction);
+    }
+
     /****Getters and Setters for the FolderRecord to store****/
     public UUID getEhrId() {
         return ehrId;
@@ -501,170 +462,71 @@ public class FolderHistoryAccess extends DataAccess implements I_FolderAccess, C
     }
 
     /**
-     * Retrieves a table with all the information to rebuild the directory related to the folders that have at least one child. If the folderUid provider corresponds to a leave folder then the result will be empty.
-     * @param folderUid The top folder UID of the directory or subdirectory that will be retrieved as a table.
-     * @param timestamp The timestamp which used to determine which version to retrieve. The method will use the closest version available before or equal to the timestamp provided.
-     * @return A table with all the information related to the hierarchy joint to the information of each of the folders that have some child.
+     * Retrieves the version of a folder and of its sub folders at the given time.
+     * <p>
+     * The version of a folder at a time is its latest row (from FOLDER or FOLDER_HISTORY) committed at or before that
+     * time. Its sub folders are given by the hierarchy rows written with the same contribution as this version: a folder
+     * and the hierarchy rows below it are always written together, see {@link FolderAccess#update(Timestamp, Folder)}.
+     * Sub folders removed by a later version are therefore still found, and sub folders removed by this version are
+     * not, while unchanged sub trees, which keep their rows across versions, are shared by all of them.
+     *
+     * @param domainAccess - Database connection access context
+     * @param folderId     - UUID of the top folder of the directory or sub directory to retrieve
+     * @param timestamp    - Time of the version to retrieve, the closest version at or before this time is used
+     * @return the folder hierarchy as of the timestamp
+     * @throws ObjectNotFoundException if the folder has no version at or before the timestamp
      */
-    private static Result<Record> buildUnionOfFolderHierarchiesTable(UUID folderUid, Timestamp timestamp, I_DomainAccess domainAccess){
-
-        Table<?> united_hierarchies_table1 = table(
-                select()
-                        .from(FOLDER_HIERARCHY).where(FOLDER_HIERARCHY.SYS_TRANSACTION.le(timestamp)).
-                        union(
-                                select().from(FOLDER_HIERARCHY_HISTORY).where(FOLDER_HIERARCHY_HISTORY.SYS_TRANSACTION.le(timestamp)))).asTable("united_hierarchies_table1");
-
-        Table<?> united_hierarchies_table2 = table(
-                select()
-                        .from(FOLDER_HIERARCHY).where(FOLDER_HIERARCHY.SYS_TRANSACTION.le(timestamp)).
-                        union(
-                                select().from(FOLDER_HIERARCHY_HISTORY).where(FOLDER_HIERARCHY_HISTORY.SYS_TRANSACTION.le(timestamp)))).asTable("united_hierarchies_table2");
-
-        Table<?> united_hierarchies_tableFileted =
-                select()
-                        .from(united_hierarchies_table1).where(
-                        united_hierarchies_table1.field("sys_transaction", FOLDER_HIERARCHY.SYS_TRANSACTION.getType()).
-                                eq(
-                                        select(max(united_hierarchies_table2.field("sys_transaction", FOLDER_HIERARCHY.SYS_TRANSACTION.getType()))).
-                                                from(united_hierarchies_table2).
-                                                where(
-                                                        (united_hierarchies_table1.field("parent_folder", FOLDER_HIERARCHY.PARENT_FOLDER.getType())).eq(
-                                                                united_hierarchies_table2.field("parent_folder", FOLDER_HIERARCHY.PARENT_FOLDER.getType())
-
-                                                        ).and(
-                                                                united_hierarchies_table1.field("child_folder", FOLDER_HIERARCHY.CHILD_FOLDER.getType()).eq(
-                                                                        united_hierarchies_table2.field("child_folder", FOLDER_HIERARCHY.CHILD_FOLDER.getType())
-                                                                )
-
-                                                        )))
-                ).asTable("united_hierarchies_tableFileted");
-
-
-        /*filter by the provided timestamp only the ones equal or older*/
-        Table<?>  fhf_timestamp1 = select().from(united_hierarchies_tableFileted).asTable();
-        Table<?>  fhf_timestamp2 = select().from(united_hierarchies_tableFileted).asTable();
-
-
-        /*Retrieve for each partent folder the the latest transaction time so as to ignore previous versions*/
-        Table<?>  fhf_timestamp_version2 = select(fhf_timestamp1.field("parent_folder", FOLDER.ID.getType()).as("parent_folder_id"),  max(fhf_timestamp2.field("sys_transaction", FOLDER.SYS_TRANSACTION.getType())).as("latest_sys_transaction")).
-                from(fhf_timestamp1).
-                groupBy(
-                        fhf_timestamp1.field("parent_folder", FOLDER.ID.getType()))
-                .asTable();
-
-        /*make the unified table with only the rows that correspond to the latest transactions*/
-        Table<?>  filteredHierarchicalTable = select().
-                from(united_hierarchies_tableFileted, fhf_timestamp_version2).
-                where(
-                        united_hierarchies_tableFileted.field("parent_folder", FOLDER.ID.getType()).
-                                eq(fhf_timestamp_version2.field("parent_folder_id", FOLDER.ID.getType())).
-                                and(united_hierarchies_tableFileted.field("sys_transaction", FOLDER.SYS_TRANSACTION.getType()).
-                                        eq(fhf_timestamp_version2.field("latest_sys_transaction", FOLDER.SYS_TRANSACTION.getType()))))
-                .asTable();
-
-        Field<UUID> subfolderParentFolderRef = field(name("subfolders", "parent_folder"), UUID.class);
-
-        Table<?> allFolderRowsFolderTable = domainAccess.getContext().
-                select(FOLDER.ID, FOLDER.IN_CONTRIBUTION, FOLDER.NAME, FOLDER.ARCHETYPE_NODE_ID, FOLDER.ACTIVE, FOLDER.DETAILS, FOLDER.SYS_TRANSACTION, FOLDER.SYS_PERIOD).
-                from(FOLDER, filteredHierarchicalTable).where(FOLDER.ID.eq(filteredHierarchicalTable.field("parent_folder", UUID.class)).and(FOLDER.IN_CONTRIBUTION.eq(filteredHierarchicalTable.field("in_contribution", UUID.class)))).asTable();
-
-        Table<?> allFolderRowsFolderHistoryTable = domainAccess.getContext().
-                select(FOLDER_HISTORY.ID, FOLDER_HISTORY.IN_CONTRIBUTION, FOLDER_HISTORY.NAME, FOLDER_HISTORY.ARCHETYPE_NODE_ID, FOLDER_HISTORY.ACTIVE, FOLDER_HISTORY.DETAILS, FOLDER_HISTORY.SYS_TRANSACTION, FOLDER_HISTORY.SYS_PERIOD).
-                from(FOLDER_HISTORY, filteredHierarchicalTable).
-                where(FOLDER_HISTORY.ID.
-                        eq(filteredHierarchicalTable.field("parent_folder", UUID.class)).
-                        and(FOLDER_HISTORY.IN_CONTRIBUTION.
-                                eq(filteredHierarchicalTable.field("in_contribution", UUID.class)))).asTable();
-
-
-        Table<?> allFolderRowsUnifiedAndFilteredInitial = domainAccess.getContext().
-                select(allFolderRowsFolderTable.field("id", UUID.class), allFolderRowsFolderTable.field("in_contribution", UUID.class).as("in_contribution_folder_info"), allFolderRowsFolderTable.field("name", FOLDER.NAME.getType()),allFolderRowsFolderTable.field("archetype_node_id", FOLDER.ARCHETYPE_NODE_ID.getType()), allFolderRowsFolderTable.field("active",FOLDER.ACTIVE.getType()), allFolderRowsFolderTable.field("details", FOLDER.DETAILS.getType()), allFolderRowsFolderTable.field("sys_transaction", FOLDER.SYS_TRANSACTION.getType()).as("sys_transaction_folder"), allFolderRowsFolderTable.field("sys_period", FOLDER.SYS_PERIOD.getType()).as("sys_period_folder")).
-                from(allFolderRowsFolderTable).
-                union(
-                        select(allFolderRowsFolderHistoryTable.field("id", UUID.class), allFolderRowsFolderHistoryTable.field("in_contribution", UUID.class).as("in_contribution_folder_info"), allFolderRowsFolderHistoryTable.field("name", FOLDER.NAME.getType()),allFolderRowsFolderHistoryTable.field("archetype_node_id", FOLDER.ARCHETYPE_NODE_ID.getType()), allFolderRowsFolderHistoryTable.field("active",FOLDER.ACTIVE.getType()), allFolderRowsFolderHistoryTable.field("details", FOLDER.DETAILS.getType()), allFolderRowsFolderHistoryTable.field("sys_transaction", FOLDER.SYS_TRANSACTION.getType()).as("sys_transaction_folder"), allFolderRowsFolderHistoryTable.field("sys_period", FOLDER.SYS_PERIOD.getType()).as("sys_period_folder")).
-                                from(allFolderRowsFolderHistoryTable)).asTable();
-
-        Table<?> allFolderRowsUnifiedAndFilteredIterative = domainAccess.getContext().
-                select(allFolderRowsFolderTable.field("id", UUID.class), allFolderRowsFolderTable.field("in_contribution", UUID.class).as("in_contribution_folder_info"), allFolderRowsFolderTable.field("name", FOLDER.NAME.getType()),allFolderRowsFolderTable.field("archetype_node_id", FOLDER.ARCHETYPE_NODE_ID.getType()), allFolderRowsFolderTable.field("active",FOLDER.ACTIVE.getType()), allFolderRowsFolderTable.field("details", FOLDER.DETAILS.getType()), allFolderRowsFolderTable.field("sys_transaction", FOLDER.SYS_TRANSACTION.getType()).as("sys_transaction_folder"), allFolderRowsFolderTable.field("sys_period", FOLDER.SYS_PERIOD.getType()).as("sys_period_folder")).
-                from(allFolderRowsFolderTable).
-                union(
-                        select(allFolderRowsFolderHistoryTable.field("id", UUID.class), allFolderRowsFolderHistoryTable.field("in_contribution", UUID.class).as("in_contribution_folder_info"), allFolderRowsFolderHistoryTable.field("name", FOLDER.NAME.getType()),allFolderRowsFolderHistoryTable.field("archetype_node_id", FOLDER.ARCHETYPE_NODE_ID.getType()), allFolderRowsFolderHistoryTable.field("active",FOLDER.ACTIVE.getType()), allFolderRowsFolderHistoryTable.field("details", FOLDER.DETAILS.getType()), allFolderRowsFolderHistoryTable.field("sys_transaction", FOLDER.SYS_TRANSACTION.getType()).as("sys_transaction_folder"), allFolderRowsFolderHistoryTable.field("sys_period", FOLDER.SYS_PERIOD.getType()).as("sys_period_folder")).
-                                from(allFolderRowsFolderHistoryTable)).asTable();
-
-
-
-        Field<UUID> subfolderChildFolder = field("subfolders.{0}", FOLDER_HIERARCHY.CHILD_FOLDER.getDataType(), FOLDER_HIERARCHY.CHILD_FOLDER.getUnqualifiedName());
-        Field<Timestamp> subfolderSysTran = field("\"subfolders\".\"sys_transaction\"", FOLDER_HIERARCHY.SYS_TRANSACTION.getDataType(), FOLDER_HIERARCHY.SYS_TRANSACTION.getUnqualifiedName());
-
-        Table<?> initial_table2 =
-                (select()
-                        .from(filteredHierarchicalTable).
-                                leftJoin(allFolderRowsUnifiedAndFilteredInitial).
-                                on(
-                                        filteredHierarchicalTable.field("parent_folder", UUID.class)
-                                                .eq(allFolderRowsUnifiedAndFilteredInitial.field("id", UUID.class)))
-                        .where(
-                                filteredHierarchicalTable.field("parent_folder", UUID.class).eq(folderUid))).asTable();
-
-
-        Result<Record> folderSelectedRecordSub = domainAccess.getContext().withRecursive("subfolders").as(
-                select().
-                        from(initial_table2).
-                        union(
-                                (select().from(filteredHierarchicalTable).
-                                        innerJoin("subfolders").
-                                        on(
-                                                filteredHierarchicalTable.field("parent_folder", FOLDER_HIERARCHY.PARENT_FOLDER.getType()).
-                                                        eq(subfolderChildFolder)
-                                        )).
-                                        leftJoin(allFolderRowsUnifiedAndFilteredIterative).
-                                        on(
-                                                allFolderRowsUnifiedAndFilteredIterative.field("id", FOLDER.ID.getType()).eq(subfolderChildFolder)))
-        ).select().from(table(name("subfolders"))).fetch();
-
-        return folderSelectedRecordSub;
-    }
-
     public static I_FolderAccess retrieveInstanceForExistingFolder(I_DomainAccess domainAccess, UUID folderId, Timestamp timestamp){
-        Result<Record> folderSelectedRecordSub = buildUnionOfFolderHierarchiesTable(folderId, timestamp, domainAccess);
-        /**2-Reconstruct hierarchical structure from DB result**/
-        Map<UUID, Map<UUID, I_FolderAccess>> fHierarchyMap = new TreeMap<UUID, Map<UUID, I_FolderAccess>>();
-        for(Record record : folderSelectedRecordSub){
-            //1-create a folder access for the record if needed
-            if(!fHierarchyMap.containsKey((UUID) record.getValue("parent_folder"))){
-                fHierarchyMap.put((UUID) record.getValue("parent_folder"), new TreeMap<>());
-            }
-            fHierarchyMap.get(record.getValue("parent_folder")).put((UUID) record.getValue("child_folder"), buildFolderAccessFromFolderId((UUID)record.getValue("child_folder"), (UUID) record.getValue("in_contribution"), domainAccess, folderSelectedRecordSub));
-        }
-
-        /**3-populate result and return**/
-        return FolderHistoryAccess.buildFolderAccessHierarchy(fHierarchyMap, folderId, null, folderSelectedRecordSub, domainAccess);
-    }
 
-    private static I_FolderAccess buildFolderAccessHierarchy(final Map<UUID, Map<UUID, I_FolderAccess>> fHierarchyMap, final UUID currentFolder, final I_FolderAccess parentFa, final Result<Record> folderSelectedRecordSub, final I_DomainAccess domainAccess){
-        if ((parentFa != null) && (parentFa.getSubfoldersList().keySet().contains(currentFolder))){
-            return parentFa.getSubfoldersList().get(currentFolder);
+        // the folders are returned in hierarchical order, a parent comes before its sub folders
+        Result<Record> versions = domainAccess.getContext().resultQuery(
+                "with recursive subfolders(parent_folder, id, in_contribution, name, archetype_node_id, active, details, sys_transaction, sys_period) as ("
+                        + " select cast(null as uuid), version.* from (" + folderVersionSql("{0}") + ") version"
+                        + " union all"
+                        + " select subfolders.id, version.* from subfolders"
+                        + " join lateral ("
+                        + "  select child_folder from ehr.folder_hierarchy where parent_folder = subfolders.id and in_contribution = subfolders.in_contribution"
+                        + "  union"
+                        + "  select child_folder from ehr.folder_hierarchy_history where parent_folder = subfolders.id and in_contribution = subfolders.in_contribution"
+                        + " ) hierarchy on true"
+                        + " join lateral (" + folderVersionSql("hierarchy.child_folder") + ") version on true"
+                        + ")"
+                        + " select parent_folder, id, in_contribution, name, archetype_node_id, active, details, sys_transaction, sys_period from subfolders",
+                val(folderId), val(timestamp))
+                .coerce(VERSION_PARENT_FOLDER, FOLDER.ID, FOLDER.IN_CONTRIBUTION, FOLDER.NAME, FOLDER.ARCHETYPE_NODE_ID, FOLDER.ACTIVE, FOLDER.DETAILS, FOLDER.SYS_TRANSACTION, FOLDER.SYS_PERIOD)
+                .fetch();
+
+        if (versions.isEmpty()) {
+            throw new ObjectNotFoundException(
+                    "folder", "Folder with id " + folderId + " could not be found at " + timestamp
+            );
         }
 
-        UUID contributionUid = null;
-        for(Record record : folderSelectedRecordSub){
-            if(((UUID)record.getValue("parent_folder") )  .equals(currentFolder) ) {
-                                 contributionUid =   (UUID)record.getValue("in_contribution");
-            }else if(((UUID)record.getValue("child_folder") )  .equals(currentFolder) ){
-                contributionUid =   (UUID)record.getValue("in_contribution");
-
+        Map<UUID, I_FolderAccess> folderAccesses = new HashMap<>();
+        I_FolderAccess root = null;
+        for (Record version : versions) {
+            I_FolderAccess folderAccess = buildFolderAccessFromFolderRecord(version.into(FOLDER), domainAccess);
+            folderAccesses.put(folderAccess.getFolderId(), folderAccess);
+
+            UUID parentFolder = version.get(VERSION_PARENT_FOLDER);
+            if (parentFolder == null) {
+                root = folderAccess;
+            } else {
+                folderAccesses.get(parentFolder).getSubfoldersList().put(folderAccess.getFolderId(), folderAccess);
             }
         }
-        I_FolderAccess folderAccess = buildFolderAccessFromFolderId(currentFolder, contributionUid, domainAccess, folderSelectedRecordSub);
-        if (parentFa != null) {
-            parentFa.getSubfoldersList().put(currentFolder, folderAccess);
-        }
-        if (fHierarchyMap.get(currentFolder) != null) {//if not leave node call children
+        return root;
+    }
 
-            for (UUID newChild : fHierarchyMap.get(currentFolder).keySet()) {
-                buildFolderAccessHierarchy(fHierarchyMap, newChild, folderAccess, folderSelectedRecordSub, domainAccess);
-            }
-        }
-        return folderAccess;
+    /**
+     * @param folderId - SQL expression of the folder id
+     * @return the SQL selecting the latest row of the folder committed at or before the timestamp bound to {1}
+     */
+    private static String folderVersionSql(String folderId) {
+        String columns = "id, in_contribution, name, archetype_node_id, active, details, sys_transaction, sys_period";
+        return "select " + columns + " from ehr.folder where id = " + folderId + " and sys_transaction <= {1}"
+                + " union all"
+                + " select " + columns + " from ehr.folder_history where id = " + folderId + " and sys_transaction <= {1}"
+                + " order by sys_transaction desc limit 1";
     }
 }
\ No newline at end of file
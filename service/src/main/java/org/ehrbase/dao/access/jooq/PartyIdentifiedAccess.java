@@ -35,9 +35,11 @@ import org.ehrbase.api.exception.InternalServerException;
 import org.ehrbase.dao.access.interfaces.I_DomainAccess;
 import org.ehrbase.dao.access.interfaces.I_PartyIdentifiedAccess;
 import org.ehrbase.dao.access.support.DataAccess;
+import org.ehrbase.dao.access.support.PartyIdentityCache;
 import org.ehrbase.jooq.pg.tables.records.IdentifierRecord;
 import org.ehrbase.jooq.pg.tables.records.PartyIdentifiedRecord;
 import org.jooq.DSLContext;
+import org.jooq.InsertValuesStep5;
 import org.jooq.Result;
 
 import java.sql.Timestamp;
@@ -65,8 +67,8 @@ public class PartyIdentifiedAccess extends DataAccess implements I_PartyIdentifi
     /**
      * Internal constructor to get empty access
      */
-    private PartyIdentifiedAccess(DSLContext context, ServerConfig serverConfig) {
-        super(context, null, null, serverConfig);
+    private PartyIdentifiedAccess(I_DomainAccess domainAccess) {
+        super(domainAccess);
     }
 
     public static I_PartyIdentifiedAccess retrieveInstance(I_DomainAccess domainAccess, UUID id) {
@@ -76,7 +78,7 @@ public class PartyIdentifiedAccess extends DataAccess implements I_PartyIdentifi
         if (record == null)
             return null;
 
-        PartyIdentifiedAccess partyIdentifiedAccess = new PartyIdentifiedAccess(context, domainAccess.getServerConfig());
+        PartyIdentifiedAccess partyIdentifiedAccess = new PartyIdentifiedAccess(domainAccess);
         partyIdentifiedAccess.partyIdentifiedRecord = record;
 
         Result<IdentifierRecord> identifierRecords = context.fetch(IDENTIFIER, IDENTIFIER.PARTY.eq(partyIdentifiedAccess.partyIdentifiedRecord.getId()));
@@ -93,12 +95,9 @@ public class PartyIdentifiedAccess extends DataAccess implements I_PartyIdentifi
     }
 
     public static UUID retrievePartyIdByPartyName(I_DomainAccess domainAccess, String partyName) {
-        if (domainAccess.getContext().fetchExists(PARTY_IDENTIFIED, PARTY_IDENTIFIED.NAME.eq(partyName))) {
-            UUID uuid = domainAccess.getContext().fetchOne(PARTY_IDENTIFIED, PARTY_IDENTIFIED.NAME.eq(partyName)).getId();
-            return uuid;
-        }
-
-        return null;
+        return Optional.ofNullable(domainAccess.getContext().fetchAny(PARTY_IDENTIFIED, PARTY_IDENTIFIED.NAME.eq(partyName)))
+                .map(PartyIdentifiedRecord::getId)
+                .orElse(null);
     }
 
     private static String makeMapKey(String s1, String s2) {
@@ -107,33 +106,44 @@ public class PartyIdentifiedAccess extends DataAccess implements I_PartyIdentifi
 
     public static UUID getOrCreateParty(I_DomainAccess domainAccess, String name, String idCode, String issuer, String assigner, String typeName) {
         DSLContext context1 = domainAccess.getContext();
+        PartyIdentityCache partyIdentityCache = PartyIdentityCache.of(domainAccess);
+        long generation = partyIdentityCache.generation();
+        String identifierKey = idCode != null && issuer != null ? PartyIdentityCache.identifierKey(idCode, issuer) : null;
+
         //check if it exists first with idCode and issuer
-        if (context1.fetchExists(IDENTIFIER, IDENTIFIER.ID_VALUE.eq(idCode).and(IDENTIFIER.ISSUER.eq(issuer))))
-            return context1.fetchOne(IDENTIFIER, IDENTIFIER.ID_VALUE.eq(idCode).and(IDENTIFIER.ISSUER.eq(issuer))).getParty();
+        UUID partyIdentifiedUuid = partyIdentityCache.get(identifierKey);
+        if (partyIdentifiedUuid != null)
+            return partyIdentifiedUuid;
 
-        //check if a party exists with the same name, if found, the identifier is just added to the list
-        if (context1.fetchExists(PARTY_IDENTIFIED, PARTY_IDENTIFIED.NAME.eq(name))) {
-            UUID partyIdentifiedUuid = context1.fetchOne(PARTY_IDENTIFIED, PARTY_IDENTIFIED.NAME.eq(name)).getId();
-            //add identifier to the list
-            if (idCode != null && issuer != null)
-                context1.insertInto(IDENTIFIER, IDENTIFIER.PARTY, IDENTIFIER.ID_VALUE, IDENTIFIER.ISSUER, IDENTIFIER.ASSIGNER, IDENTIFIER.TYPE_NAME)
-                        .values(partyIdentifiedUuid, idCode, issuer, assigner, typeName)
-                        .execute();
+        partyIdentifiedUuid = fetchIdentifiedParty(context1, idCode, issuer);
+        if (partyIdentifiedUuid == null && identifierKey != null) {
+            //the identifier may be created by a concurrent transaction, check again once it is done
+            PartyIdentityCache.lock(context1, identifierKey);
+            partyIdentifiedUuid = fetchIdentifiedParty(context1, idCode, issuer);
+        }
+        if (partyIdentifiedUuid != null) {
+            partyIdentityCache.put(identifierKey, partyIdentifiedUuid, generation);
             return partyIdentifiedUuid;
-        } else {
+        }
+
+        //check if a party exists with the same name, if found, the identifier is just added to the list
+        partyIdentifiedUuid = retrievePartyIdByPartyName(domainAccess, name);
+        if (partyIdentifiedUuid == null) {
             //storeComposition a new party identified
-            UUID partyIdentifiedUuid = context1
+            partyIdentifiedUuid = context1
                     .insertInto(PARTY_IDENTIFIED, PARTY_IDENTIFIED.NAME)
                     .values(name)
                     .returning(PARTY_IDENTIFIED.ID)
                     .fetchOne().getId();
-            //and storeComposition the identifier
-            if (idCode != null && issuer != null)
-                context1.insertInto(IDENTIFIER, IDENTIFIER.PARTY, IDENTIFIER.ID_VALUE, IDENTIFIER.ISSUER, IDENTIFIER.ASSIGNER, IDENTIFIER.TYPE_NAME)
-                        .values(partyIdentifiedUuid, idCode, issuer, assigner, typeName)
-                        .execute();
-            return partyIdentifiedUuid;
         }
+        //and storeComposition the identifier
+        if (identifierKey != null) {
+            context1.insertInto(IDENTIFIER, IDENTIFIER.PARTY, IDENTIFIER.ID_VALUE, IDENTIFIER.ISSUER, IDENTIFIER.ASSIGNER, IDENTIFIER.TYPE_NAME)
+                    .values(partyIdentifiedUuid, idCode, issuer, assigner, typeName)
+                    .execute();
+            partyIdentityCache.put(identifierKey, partyIdentifiedUuid, generation);
+        }
+        return partyIdentifiedUuid;
     }
 
     public static UUID findIdentifiedParty(DSLContext context, List<DvIdentifier> identifierList) {
@@ -142,13 +152,48 @@ public class PartyIdentifiedAccess extends DataAccess implements I_PartyIdentifi
             return null;
 
         for (DvIdentifier identifier : identifierList) {
-            if (context.fetchExists(IDENTIFIER, IDENTIFIER.ID_VALUE.eq(identifier.getId()).and(IDENTIFIER.ISSUER.eq(identifier.getIssuer()))))
-                return context.fetchOne(IDENTIFIER, IDENTIFIER.ID_VALUE.eq(identifier.getId()).and(IDENTIFIER.ISSUER.eq(identifier.getIssuer()))).getParty();
+            UUID partyId = fetchIdentifiedParty(context, identifier.getId(), identifier.getIssuer());
+            if (partyId != null)
+                return partyId;
+        }
+
+        return null;
+    }
+
+    /**
+     * same as {@link #findIdentifiedParty(DSLContext, List)}, the identifiers already resolved are taken from the
+     * party identity cache
+     */
+    public static UUID findIdentifiedParty(I_DomainAccess domainAccess, List<DvIdentifier> identifierList) {
+
+        if (identifierList == null)
+            return null;
+
+        PartyIdentityCache partyIdentityCache = PartyIdentityCache.of(domainAccess);
+        long generation = partyIdentityCache.generation();
+
+        for (DvIdentifier identifier : identifierList) {
+            String key = identifier.getId() != null && identifier.getIssuer() != null ? PartyIdentityCache.identifierKey(identifier.getId(), identifier.getIssuer()) : null;
+            UUID partyId = partyIdentityCache.get(key);
+            if (partyId != null)
+                return partyId;
+
+            partyId = fetchIdentifiedParty(domainAccess.getContext(), identifier.getId(), identifier.getIssuer());
+            if (partyId != null) {
+                partyIdentityCache.put(key, partyId, generation);
+                return partyId;
+            }
         }
 
         return null;
     }
 
+    private static UUID fetchIdentifiedParty(DSLContext context, String idCode, String issuer) {
+        return Optional.ofNullable(context.fetchAny(IDENTIFIER, IDENTIFIER.ID_VALUE.eq(idCode).and(IDENTIFIER.ISSUER.eq(issuer))))
+                .map(IdentifierRecord::getParty)
+                .orElse(null);
+    }
+
     public static UUID findReferencedParty(DSLContext context, PartyRef partyRef) {
 
         if (partyRef == null)
@@ -160,16 +205,12 @@ public class PartyIdentifiedAccess extends DataAccess implements I_PartyIdentifi
 
             GenericId genericID = (GenericId) ref;
 
-            if (context.fetchExists(PARTY_IDENTIFIED,
+            return Optional.ofNullable(context.fetchAny(PARTY_IDENTIFIED,
                     PARTY_IDENTIFIED.PARTY_REF_NAMESPACE.eq(partyRef.getNamespace())
 //                            .and(PARTY_IDENTIFIED.PARTY_REF_SCHEME.eq(genericID.getScheme()))
-                            .and(PARTY_IDENTIFIED.PARTY_REF_VALUE.eq(genericID.getValue())))) {
-
-                return context.fetchAny(PARTY_IDENTIFIED,
-                        PARTY_IDENTIFIED.PARTY_REF_NAMESPACE.eq(partyRef.getNamespace())
-//                                .and(PARTY_IDENTIFIED.PARTY_REF_SCHEME.eq(genericID.getScheme()))
-                                .and(PARTY_IDENTIFIED.PARTY_REF_VALUE.eq(genericID.getValue()))).getId();
-            }
+                            .and(PARTY_IDENTIFIED.PARTY_REF_VALUE.eq(genericID.getValue()))))
+                    .map(PartyIdentifiedRecord::getId)
+                    .orElse(null);
 
 //                return context.fetchOne(IDENTIFIER, IDENTIFIER.ID_VALUE.eq(identifier.getId()).and(IDENTIFIER.ISSUER.eq(identifier.getIssuer()))).getParty();
         }
@@ -177,8 +218,30 @@ public class PartyIdentifiedAccess extends DataAccess implements I_PartyIdentifi
         return null;
     }
 
+    /**
+     * same as {@link #findReferencedParty(DSLContext, PartyRef)}, a reference already resolved is taken from the party
+     * identity cache
+     */
+    public static UUID findReferencedParty(I_DomainAccess domainAccess, PartyRef partyRef) {
+        String key = externalRefKey(partyRef);
+        if (key == null)
+            return findReferencedParty(domainAccess.getContext(), partyRef);
+
+        PartyIdentityCache partyIdentityCache = PartyIdentityCache.of(domainAccess);
+        long generation = partyIdentityCache.generation();
+
+        UUID partyId = partyIdentityCache.get(key);
+        if (partyId == null) {
+            partyId = findReferencedParty(domainAccess.getContext(), partyRef);
+            partyIdentityCache.put(key, partyId, generation);
+        }
+        return partyId;
+    }
+
     public static UUID getOrCreateParty(I_DomainAccess domainAccess, PartyIdentified partyIdentified) {
         DSLContext context1 = domainAccess.getContext();
+        PartyIdentityCache partyIdentityCache = PartyIdentityCache.of(domainAccess);
+        long generation = partyIdentityCache.generation();
         //check if it exists first with idCode and issuer
         //check with external ref if any
 
@@ -186,29 +249,57 @@ public class PartyIdentifiedAccess extends DataAccess implements I_PartyIdentifi
 
         PartyRef externalRef = partyIdentified.getExternalRef();
         List<DvIdentifier> identifierList = partyIdentified.getIdentifiers();
-        GenericId genericID = null;
 
-        if (externalRef != null) {
-            Object ref = externalRef.getId();
-
-            if (ref instanceof GenericId) {
-                genericID = (GenericId) ref;
-            } else if (ref instanceof HierObjectId)
-                genericID = null;
-            else
-                log.warn("Passed partyIdentified does not contain a GenericID in external ref:" + partyIdentified.toString());
-        }
+        if (externalRef != null && !(externalRef.getId() instanceof GenericId) && !(externalRef.getId() instanceof HierObjectId))
+            log.warn("Passed partyIdentified does not contain a GenericID in external ref:" + partyIdentified.toString());
 
         if (externalRef != null) {
-            identifiedParty = findReferencedParty(domainAccess.getContext(), externalRef);
+            identifiedParty = findReferencedParty(domainAccess, externalRef);
         } else {
 
             if (identifierList != null && !identifierList.isEmpty())
-                identifiedParty = findIdentifiedParty(domainAccess.getContext(), identifierList);
+                identifiedParty = findIdentifiedParty(domainAccess, identifierList);
         }
         if (identifiedParty != null)
             return identifiedParty;
 
+        //the party may be created by a concurrent transaction, check again once it is done
+        List<String> partyKeys = partyKeys(externalRef, identifierList);
+        if (!partyKeys.isEmpty()) {
+            partyKeys.forEach(key -> PartyIdentityCache.lock(context1, key));
+
+            if (externalRef != null)
+                identifiedParty = findReferencedParty(context1, externalRef);
+            else
+                identifiedParty = findIdentifiedParty(context1, identifierList);
+
+            if (identifiedParty != null) {
+                for (String key : partyKeys)
+                    partyIdentityCache.put(key, identifiedParty, generation);
+                return identifiedParty;
+            }
+        }
+
+        UUID partyIdentifiedUuid = insertParty(context1, partyIdentified);
+
+        for (String key : partyKeys)
+            partyIdentityCache.put(key, partyIdentifiedUuid, generation);
+        return partyIdentifiedUuid;
+    }
+
+    /**
+     * store a new party without looking up an existing one, the party is not cached (f.e. a party with a generated
+     * external ref, which is never looked up)
+     */
+    public static UUID createParty(I_DomainAccess domainAccess, PartyIdentified partyIdentified) {
+        return insertParty(domainAccess.getContext(), partyIdentified);
+    }
+
+    private static UUID insertParty(DSLContext context1, PartyIdentified partyIdentified) {
+        PartyRef externalRef = partyIdentified.getExternalRef();
+        List<DvIdentifier> identifierList = partyIdentified.getIdentifiers();
+        GenericId genericID = externalRef != null && externalRef.getId() instanceof GenericId ? (GenericId) externalRef.getId() : null;
+
         //store a new party identified
         UUID partyIdentifiedUuid = context1
                 .insertInto(PARTY_IDENTIFIED,
@@ -224,18 +315,52 @@ public class PartyIdentifiedAccess extends DataAccess implements I_PartyIdentifi
                         externalRef != null ? externalRef.getType() : null)
                 .returning(PARTY_IDENTIFIED.ID)
                 .fetchOne().getId();
-        //and store the identifier if any
+        //and store the identifiers if any, in a single statement
         if (identifierList != null) {
+            InsertValuesStep5<IdentifierRecord, UUID, String, String, String, String> insertIdentifiers =
+                    context1.insertInto(IDENTIFIER, IDENTIFIER.PARTY, IDENTIFIER.ID_VALUE, IDENTIFIER.ISSUER, IDENTIFIER.ASSIGNER, IDENTIFIER.TYPE_NAME);
+            boolean hasIdentifier = false;
             for (DvIdentifier identifier : identifierList) {
-                if (identifier.getId() != null && identifier.getIssuer() != null)
-                    context1.insertInto(IDENTIFIER, IDENTIFIER.PARTY, IDENTIFIER.ID_VALUE, IDENTIFIER.ISSUER, IDENTIFIER.ASSIGNER, IDENTIFIER.TYPE_NAME)
-                            .values(partyIdentifiedUuid, identifier.getId(), identifier.getIssuer(), identifier.getAssigner(), identifier.getType())
-                            .execute();
+                if (identifier.getId() != null && identifier.getIssuer() != null) {
+                    insertIdentifiers = insertIdentifiers.values(partyIdentifiedUuid, identifier.getId(), identifier.getIssuer(), identifier.getAssigner(), identifier.getType());
+                    hasIdentifier = true;
+                }
             }
+            if (hasIdentifier)
+                insertIdentifiers.execute();
         }
         return partyIdentifiedUuid;
     }
 
+    /**
+     * @return the cache key of a reference, null if the reference is not resolvable (no generic id)
+     */
+    private static String externalRefKey(PartyRef partyRef) {
+        if (partyRef == null || !(partyRef.getId() instanceof GenericId))
+            return null;
+
+        return PartyIdentityCache.externalRefKey(partyRef.getNamespace(), partyRef.getId().getValue());
+    }
+
+    /**
+     * @return the cache keys of a party: its resolvable reference and its identifiers, ordered
+     */
+    private static List<String> partyKeys(PartyRef externalRef, List<DvIdentifier> identifierList) {
+        SortedSet<String> keys = new TreeSet<>();
+
+        String externalRefKey = externalRefKey(externalRef);
+        if (externalRefKey != null)
+            keys.add(externalRefKey);
+
+        if (identifierList != null) {
+            for (DvIdentifier identifier : identifierList) {
+                if (identifier.getId() != null && identifier.getIssuer() != null)
+                    keys.add(PartyIdentityCache.identifierKey(identifier.getId(), identifier.getIssuer()));
+            }
+        }
+        return new ArrayList<>(keys);
+    }
+
     public static PartyIdentified retrievePartyIdentified(I_DomainAccess domainAccess, UUID id) {
         PartyRef partyRef = null;
         if (!(domainAccess.getContext().fetchExists(PARTY_IDENTIFIED, PARTY_IDENTIFIED.ID.eq(id))))
@@ -397,6 +522,7 @@ public class PartyIdentifiedAccess extends DataAccess implements I_PartyIdentifi
             }
         }
         count += partyIdentifiedRecord.delete();
+        PartyIdentityCache.of(this).partyDeleted(partyIdentifiedRecord.getId());
         return count;
     }
 
@@ -422,6 +548,7 @@ public class PartyIdentifiedAccess extends DataAccess implements I_PartyIdentifi
 
         String key = makeMapKey(idCode, issuer);
         identifiers.remove(key);
+        PartyIdentityCache.of(this).keyDeleted(PartyIdentityCache.identifierKey(idCode, issuer));
 
         return getContext().delete(IDENTIFIER).where(IDENTIFIER.PARTY.eq(partyIdentifiedRecord.getId())
                 .and(IDENTIFIER.ID_VALUE.eq(idCode))
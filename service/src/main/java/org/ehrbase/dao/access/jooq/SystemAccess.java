@@ -27,6 +27,7 @@ import org.ehrbase.api.exception.InternalServerException;
 import org.ehrbase.dao.access.interfaces.I_DomainAccess;
 import org.ehrbase.dao.access.interfaces.I_SystemAccess;
 import org.ehrbase.dao.access.support.DataAccess;
+import org.ehrbase.dao.access.support.PartyIdentityCache;
 import org.ehrbase.jooq.pg.tables.records.SystemRecord;
 import org.joda.time.DateTime;
 import org.jooq.DSLContext;
@@ -66,13 +67,28 @@ public class SystemAccess extends DataAccess implements I_SystemAccess {
 
     public static UUID createOrRetrieveLocalSystem(I_DomainAccess domainAccess) {
         String settings = domainAccess.getServerConfig().getNodename();
+        String key = PartyIdentityCache.systemKey(settings);
+
+        // the local system is resolved for each write, it is kept in the party identity cache
+        PartyIdentityCache partyIdentityCache = PartyIdentityCache.of(domainAccess);
+        long generation = partyIdentityCache.generation();
+
+        UUID res = partyIdentityCache.get(key);
+        if (res != null)
+            return res;
 
         // try to retrieve and return if successful, otherwise create
-        UUID res = retrieveInstanceId(domainAccess, settings);
+        res = retrieveInstanceId(domainAccess, settings);
         if (res == null) {
-            return new SystemAccess(domainAccess, "DEFAULT RUNNING SYSTEM", settings).commit();
-        } else
-            return res;
+            // the system may be created by a concurrent transaction, check again once it is done
+            PartyIdentityCache.lock(domainAccess.getContext(), key);
+            res = retrieveInstanceId(domainAccess, settings);
+        }
+        if (res == null)
+            res = new SystemAccess(domainAccess, "DEFAULT RUNNING SYSTEM", settings).commit();
+
+        partyIdentityCache.put(key, res, generation);
+        return res;
     }
 
     public static UUID createOrRetrieveInstanceId(I_DomainAccess domainAccess, String description, String settings) {
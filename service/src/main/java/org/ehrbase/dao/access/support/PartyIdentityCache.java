@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehrbase.dao.access.support;
+
+import org.ehrbase.dao.access.interfaces.I_DomainAccess;
+import org.ehrbase.ehr.knowledge.I_KnowledgeCache;
+import org.jooq.DSLContext;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the resolved party ids (table ehr.party_identified), keyed by external ref or by identifier (value and
+ * issuer), as well as of the local system ids (table ehr.system) keyed by settings.
+ * <p>
+ * The same composers, facilities, performers and committers are resolved for most writes, the cache avoids a lookup
+ * per party and per write. Only ids visible to every transaction are cached: an id resolved or created within a
+ * transaction is cached once the transaction is committed, a rolled back party is therefore never returned.
+ * <p>
+ * The cache is bounded, it is cleared once {@link #MAX_ENTRIES} ids are cached.
+ */
+public class PartyIdentityCache {
+
+    static final int MAX_ENTRIES = 10000;
+
+    private final Map<String, UUID> ids = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @return the cache of the knowledge cache of the access, an empty cache if there is none (f.e. a bare data access)
+     */
+    public static PartyIdentityCache of(I_DomainAccess domainAccess) {
+        I_KnowledgeCache knowledgeCache = domainAccess.getKnowledgeManager();
+        PartyIdentityCache partyIdentityCache = knowledgeCache == null ? null : knowledgeCache.getPartyIdentityCache();
+        return partyIdentityCache == null ? new PartyIdentityCache() : partyIdentityCache;
+    }
+
+    /**
+     * serialize the creation of a party or system with the concurrent transactions creating the same one: they wait
+     * for each other and the lock is released at the end of the transaction. Several keys must be locked in the same
+     * order to prevent deadlocks.
+     *
+     * @param context the context of the current transaction
+     * @param key     the key of the party or system
+     */
+    public static void lock(DSLContext context, String key) {
+        context.fetchOne("select 1 from pg_advisory_xact_lock(hashtext(?))", key);
+    }
+
+    /**
+     * NB. the scheme and type of the ref are not part of the key, same as in the party lookup
+     */
+    public static String externalRefKey(String namespace, String value) {
+        return "ref::" + namespace + "::" + value;
+    }
+
+    public static String identifierKey(String value, String issuer) {
+        return "identifier::" + issuer + "::" + value;
+    }
+
+    public static String systemKey(String settings) {
+        return "system::" + settings;
+    }
+
+    /**
+     * @return the cached id, null if not cached
+     */
+    public UUID get(String key) {
+        return key == null ? null : ids.get(key);
+    }
+
+    /**
+     * @return the current generation, to be passed to {@link #put} once the id is resolved
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * cache an id once the current transaction (if any) is committed, unless the cache has been invalidated since the
+     * id has been resolved
+     *
+     * @param key        the key of the party or system
+     * @param id         the resolved id
+     * @param generation the generation at the time the id has started to be resolved
+     */
+    public void put(String key, UUID id, long generation) {
+        if (key == null || id == null)
+            return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    putCommitted(key, id, generation);
+                }
+            });
+        } else
+            putCommitted(key, id, generation);
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * discard the keys of a deleted party
+     */
+    public void partyDeleted(UUID id) {
+        generation.incrementAndGet();
+        if (id != null)
+            ids.values().removeIf(id::equals);
+    }
+
+    /**
+     * discard a key no longer identifying its party (f.e. a deleted identifier)
+     */
+    public void keyDeleted(String key) {
+        generation.incrementAndGet();
+        if (key != null)
+            ids.remove(key);
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        ids.clear();
+    }
+
+    private void putCommitted(String key, UUID id, long generation) {
+        if (generation != this.generation.get())
+            return;
+
+        if (ids.size() >= MAX_ENTRIES)
+            ids.clear();
+
+        ids.put(key, id);
+    }
+}
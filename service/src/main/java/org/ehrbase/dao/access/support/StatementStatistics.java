@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehrbase.dao.access.support;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statements run on behalf of a unit of work (f.e. an HTTP request): their number, the rows they fetched or updated,
+ * their time and how many times each distinct statement has been run.
+ * <p>
+ * The statistics are bound to the thread starting the unit of work and filled by {@link StatementStatisticsListener}
+ * for each statement run through jOOQ on this thread. A statement repeated many times with other bind values is the
+ * sign of a lookup run per item of a collection (N+1 statements) instead of once for the whole collection.
+ */
+public class StatementStatistics {
+
+    //the distinct statements of a unit of work are few, but an unbounded number of them is possible (f.e. inlined values)
+    static final int MAX_DISTINCT_STATEMENTS = 1000;
+
+    private static final ThreadLocal<StatementStatistics> current = new ThreadLocal<>();
+
+    private final AtomicInteger statements = new AtomicInteger();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+    private final Map<String, AtomicInteger> executionsBySql = new ConcurrentHashMap<>();
+
+    /**
+     * start collecting the statements run on the current thread, until {@link #stop()}
+     */
+    public static StatementStatistics start() {
+        StatementStatistics statistics = new StatementStatistics();
+        current.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * @return the statistics collected on the current thread, null if none are
+     */
+    public static StatementStatistics current() {
+        return current.get();
+    }
+
+    public void stop() {
+        if (current.get() == this)
+            current.remove();
+    }
+
+    void executed(String sql, long rows, long nanos) {
+        statements.incrementAndGet();
+        this.rows.addAndGet(rows);
+        this.nanos.addAndGet(nanos);
+
+        if (sql != null && (executionsBySql.size() < MAX_DISTINCT_STATEMENTS || executionsBySql.containsKey(sql)))
+            executionsBySql.computeIfAbsent(sql, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public int getStatements() {
+        return statements.get();
+    }
+
+    /**
+     * @return the rows fetched by the queries and updated by the other statements
+     */
+    public long getRows() {
+        return rows.get();
+    }
+
+    public long getNanos() {
+        return nanos.get();
+    }
+
+    /**
+     * @return the statement run the most times and how many times, null if no statement has been run
+     */
+    public Map.Entry<String, Integer> mostRepeated() {
+        return executionsBySql.entrySet().stream()
+                .max(Map.Entry.comparingByValue((a, b) -> Integer.compare(a.get(), b.get())))
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().get()))
+                .orElse(null);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehrbase.dao.access.support;
+
+import org.jooq.ExecuteContext;
+import org.jooq.impl.DefaultExecuteListener;
+
+/**
+ * Reports the statements run through jOOQ to the {@link StatementStatistics} of the current thread, if any. Nothing is
+ * measured for the statements run outside of a unit of work.
+ */
+public class StatementStatisticsListener extends DefaultExecuteListener {
+
+    private static final String START = StatementStatisticsListener.class.getName() + ".start";
+    private static final String FETCHED = StatementStatisticsListener.class.getName() + ".fetched";
+
+    @Override
+    public void start(ExecuteContext context) {
+        if (StatementStatistics.current() != null)
+            context.data(START, System.nanoTime());
+    }
+
+    @Override
+    public void recordEnd(ExecuteContext context) {
+        Object start = context.data(START);
+        if (start != null) {
+            Object fetched = context.data(FETCHED);
+            context.data(FETCHED, fetched == null ? 1L : (Long) fetched + 1);
+        }
+    }
+
+    @Override
+    public void end(ExecuteContext context) {
+        Object start = context.data(START);
+        StatementStatistics statistics = StatementStatistics.current();
+        if (start == null || statistics == null)
+            return;
+
+        Object fetched = context.data(FETCHED);
+        long rows = fetched != null ? (Long) fetched : Math.max(context.rows(), 0);
+        statistics.executed(context.sql(), rows, System.nanoTime() - (Long) start);
+    }
+}
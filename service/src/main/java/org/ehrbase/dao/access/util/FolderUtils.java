@@ -2,10 +2,16 @@ package org.ehrbase.dao.access.util;
 
 import com.nedap.archie.rm.datastructures.ItemStructure;
 import com.nedap.archie.rm.directory.Folder;
+import com.nedap.archie.rm.support.identification.ObjectRef;
 import org.ehrbase.dao.access.interfaces.I_FolderAccess;
 import org.ehrbase.serialisation.RawJson;
 import org.postgresql.util.PGobject;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
 public class FolderUtils {
 
     private FolderUtils() {
@@ -42,4 +48,74 @@ public class FolderUtils {
         String value = databaseObject.getValue();
         return new RawJson().unmarshal(value, ItemStructure.class);
     }
+
+    /**
+     * Extracts the folder id from the uid of the given folder. The uid may be sent as plain UUID or as version id
+     * in the format "uuid::system::version".
+     *
+     * @param folder - Folder to get the id from
+     * @return UUID of the folder or null if the folder has no valid uid
+     */
+    public static UUID parseFolderUid(Folder folder) {
+        if (folder.getUid() == null || folder.getUid().getValue() == null) {
+            return null;
+        }
+        String value = folder.getUid().getValue();
+        int separator = value.indexOf("::");
+        try {
+            return UUID.fromString(separator < 0 ? value : value.substring(0, separator));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Compares two lists of folder items by namespace, type and id value. The concrete ObjectId classes are ignored
+     * since items read from the database are always returned as ObjectVersionId.
+     *
+     * @param current - Items as currently stored
+     * @param update  - Items from request input
+     * @return true if both lists contain the same references in the same order
+     */
+    public static boolean sameItems(List<ObjectRef> current, List<ObjectRef> update) {
+        if (current.size() != update.size()) {
+            return false;
+        }
+        for (int i = 0; i < current.size(); i++) {
+            ObjectRef a = current.get(i);
+            ObjectRef b = update.get(i);
+            if (!Objects.equals(a.getNamespace(), b.getNamespace())
+                    || !Objects.equals(a.getType(), b.getType())
+                    || !Objects.equals(a.getId() != null ? a.getId().getValue() : null, b.getId() != null ? b.getId().getValue() : null)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits a directory path as used by the REST API into the names of the folders to follow. Leading, trailing and
+     * duplicate slashes are ignored.
+     *
+     * @param path - Slash separated folder names, may be null
+     * @return List of folder names, empty if the path addresses the root folder
+     */
+    public static List<String> splitFolderPath(String path) {
+        List<String> segments = new ArrayList<>();
+        if (path == null) {
+            return segments;
+        }
+        int start = 0;
+        while (start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            if (end > start) {
+                segments.add(path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return segments;
+    }
 }
@@ -21,9 +21,14 @@
  */
 package org.ehrbase.ehr.knowledge;
 
+import org.ehrbase.aql.containment.ContainsSetCache;
+import org.ehrbase.aql.containment.TemplateContainmentIndex;
+import org.ehrbase.aql.sql.StoredQueryResultCache;
+import org.ehrbase.aql.sql.queryImpl.IndexedPathsCache;
 import org.ehrbase.api.exception.InternalServerException;
 import org.ehrbase.api.exception.InvalidApiParameterException;
 import org.ehrbase.api.exception.StateConflictException;
+import org.ehrbase.dao.access.support.PartyIdentityCache;
 import org.openehr.schemas.v1.OPERATIONALTEMPLATE;
 
 import java.io.IOException;
@@ -68,6 +73,41 @@ public interface I_KnowledgeCache {
      */
     Optional<OPERATIONALTEMPLATE> retrieveOperationalTemplate(UUID uuid);
 
+    /**
+     * get the template to archetype containment index of the known operational templates
+     *
+     * @return the index
+     */
+    TemplateContainmentIndex getContainmentIndex();
+
+    /**
+     * get the cache of the templates involved in the contain clauses of the AQL queries
+     *
+     * @return the cache
+     */
+    ContainsSetCache getContainsSetCache();
+
+    /**
+     * get the cache of the stored query results, invalidated by the writes of the templates they depend on
+     *
+     * @return the cache
+     */
+    StoredQueryResultCache getStoredQueryResultCache();
+
+    /**
+     * get the cache of the resolved party and system ids
+     *
+     * @return the cache
+     */
+    PartyIdentityCache getPartyIdentityCache();
+
+    /**
+     * get the cache of the AQL paths registered for the WHERE predicates, invalidated when a path is registered or removed
+     *
+     * @return the cache
+     */
+    IndexedPathsCache getIndexedPathsCache();
+
 
 
 }
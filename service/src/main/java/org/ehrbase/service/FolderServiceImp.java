@@ -33,6 +33,7 @@ import org.ehrbase.dao.access.interfaces.I_ContributionAccess;
 import org.ehrbase.dao.access.interfaces.I_EhrAccess;
 import org.ehrbase.dao.access.interfaces.I_FolderAccess;
 import org.ehrbase.dao.access.jooq.FolderAccess;
+import org.ehrbase.dao.access.jooq.FolderHistoryAccess;
 import org.ehrbase.dao.access.util.FolderUtils;
 import org.ehrbase.serialisation.CanonicalJson;
 import org.ehrbase.serialisation.CanonicalXML;
@@ -47,6 +48,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.Formatter;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -102,12 +104,32 @@ public class FolderServiceImp extends BaseService implements FolderService {
 
     @Override
     public Optional<FolderDto> retrieveLatest(UUID ehrId) {
+        return retrieveLatest(ehrId, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<FolderDto> retrieveLatest(UUID ehrId, String path) {
+        Optional<UUID> directoryId = retrieveDirectoryId(ehrId);
+        if (!directoryId.isPresent()) {
+            return Optional.empty();
+        }
+        return retrieve(directoryId.get(), null, path);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<UUID> retrieveDirectoryId(UUID ehrId) {
         I_EhrAccess ehrAccess = I_EhrAccess.retrieveInstance(getDataAccess(), ehrId);
         if (ehrAccess == null) {
             throw new ObjectNotFoundException("ehr", "No EHR found with given ID: " + ehrId.toString());
         }
 
-        return retrieve(ehrAccess.getDirectoryId(), null);
+        return Optional.ofNullable(ehrAccess.getDirectoryId());
     }
 
     /**
@@ -116,13 +138,81 @@ public class FolderServiceImp extends BaseService implements FolderService {
     @Override
     public Optional<FolderDto> retrieve(UUID folderId, Integer version) {
 
-        I_FolderAccess folderAccess;
+        return createDto(retrieveFolderAccess(folderId, version));
+    }
 
-        folderAccess = I_FolderAccess.retrieveInstanceForExistingFolder(getDataAccess(), folderId);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<FolderDto> retrieve(UUID folderId, Integer version, String path) {
 
+        List<String> segments = FolderUtils.splitFolderPath(path);
+        if (segments.isEmpty()) {
+            return retrieve(folderId, version);
+        }
+
+        if (isLatestVersion(folderId, version)) {
+            // Resolve the path inside the DB and only load the sub tree of the target folder
+            return createDto(I_FolderAccess.retrieveInstanceByPath(getDataAccess(), folderId, path));
+        }
+
+        // Older versions are only available as complete hierarchy, follow the path through it
+        I_FolderAccess folderAccess = retrieveFolderAccess(folderId, version);
+        for (String segment : segments) {
+            folderAccess = folderAccess.getSubfoldersList()
+                    .values()
+                    .stream()
+                    .filter(subfolder -> segment.equals(subfolder.getFolderName()))
+                    .findFirst()
+                    .orElse(null);
+            if (folderAccess == null) {
+                return Optional.empty();
+            }
+        }
         return createDto(folderAccess);
     }
 
+    /**
+     * Loads the folder hierarchy of the given version, the latest version from the folder tables and older versions
+     * from the history tables as of their commit time.
+     *
+     * @param folderId - UUID of the folder to fetch
+     * @param version  - Target version, null or below 1 for the latest version
+     * @return Folder dao of the version
+     * @throws ObjectNotFoundException if the folder or the version does not exist
+     */
+    private I_FolderAccess retrieveFolderAccess(UUID folderId, Integer version) {
+
+        if (isLatestVersion(folderId, version)) {
+            return I_FolderAccess.retrieveInstanceForExistingFolder(getDataAccess(), folderId);
+        }
+        Timestamp versionTime = FolderHistoryAccess.getVersionTimestamp(getDataAccess(), folderId, version);
+        return I_FolderAccess.retrieveInstanceForExistingFolder(getDataAccess(), folderId, versionTime);
+    }
+
+    /**
+     * @param folderId - UUID of the folder
+     * @param version  - Target version, null or below 1 for the latest version
+     * @return true if the version is the latest version of the folder
+     * @throws ObjectNotFoundException if the folder or the version does not exist
+     */
+    private boolean isLatestVersion(UUID folderId, Integer version) {
+
+        if (!FolderAccess.exists(getDataAccess(), folderId)) {
+            throw new ObjectNotFoundException("folder", "Folder with id " + folderId + " could not be found");
+        }
+        if (version == null || version < 1) {
+            return true;
+        }
+        int lastVersion = getLastVersionNumber(folderId);
+        if (version > lastVersion) {
+            throw new ObjectNotFoundException("folder",
+                    "Version " + version + " of the FOLDER with id " + folderId + " does not exist.");
+        }
+        return version == lastVersion;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -157,33 +247,8 @@ public class FolderServiceImp extends BaseService implements FolderService {
                 folderAccess
                 = FolderAccess.retrieveInstanceForExistingFolder(getDataAccess(), folderId);
 
-        // Set update data on root folder
-        FolderUtils.updateFolder(update, folderAccess);
-
-        // Clear sub folder list
-        folderAccess.getSubfoldersList()
-                .clear();
-
-        // Create FolderAccess instances for sub folders if there are any
-        if (update.getFolders() != null &&
-                !update.getFolders()
-                        .isEmpty()) {
-
-            // Create new sub folders list
-            update.getFolders()
-                    .forEach(childFolder -> folderAccess.getSubfoldersList()
-                            .put(
-                                    UUID.randomUUID(),
-                                    FolderAccess.buildNewFolderAccessHierarchy(
-                                            getDataAccess(),
-                                            childFolder,
-                                            timestamp,
-                                            ehrId,
-                                            ((FolderAccess) folderAccess).getContributionAccess())));
-        }
-
-        // Send update to access layer which updates the hierarchy recursive
-        if (folderAccess.update(new Timestamp(timestamp.getMillis()))) {
+        // Send update to access layer which compares the stored hierarchy with the update and only writes the changes
+        if (folderAccess.update(new Timestamp(timestamp.getMillis()), update)) {
 
             return createDto(folderAccess);
         } else {
@@ -23,10 +23,16 @@
 package org.ehrbase.service;
 
 import org.apache.xmlbeans.XmlException;
+import org.ehrbase.aql.containment.ContainsSetCache;
+import org.ehrbase.aql.containment.TemplateContainmentIndex;
+import org.ehrbase.aql.sql.StoredQueryResultCache;
+import org.ehrbase.aql.sql.queryImpl.IndexedPathsCache;
 import org.ehrbase.api.exception.InternalServerException;
 import org.ehrbase.api.exception.InvalidApiParameterException;
 import org.ehrbase.api.exception.StateConflictException;
 import org.ehrbase.configuration.CacheConfiguration;
+import org.ehrbase.dao.access.support.PartyIdentityCache;
+import org.ehrbase.ehr.encode.LtreeLabelDictionary;
 import org.ehrbase.ehr.knowledge.I_KnowledgeCache;
 import org.ehrbase.ehr.knowledge.TemplateMetaData;
 import org.ehrbase.opt.OptVisitor;
@@ -94,6 +100,12 @@ public class KnowledgeCacheService implements I_KnowledgeCache, IntrospectServic
 
     private final CacheManager cacheManager;
 
+    private final TemplateContainmentIndex containmentIndex = new TemplateContainmentIndex(this);
+    private final ContainsSetCache containsSetCache = new ContainsSetCache();
+    private final StoredQueryResultCache storedQueryResultCache = new StoredQueryResultCache();
+    private final PartyIdentityCache partyIdentityCache = new PartyIdentityCache();
+    private final IndexedPathsCache indexedPathsCache = new IndexedPathsCache();
+
     @Autowired
     public KnowledgeCacheService(@Qualifier("templateDBStorageService") TemplateStorage templateStorage, CacheManager cacheManager) {
         this.templateStorage = templateStorage;
@@ -152,6 +164,9 @@ public class KnowledgeCacheService implements I_KnowledgeCache, IntrospectServic
 
         atOptCache.put(templateId, template);
         idxCache.put(UUID.fromString(template.getUid().getValue()), templateId);
+        containmentIndex.register(template);
+        containsSetCache.templateChanged(templateId);
+        storedQueryResultCache.clear();
 
         //retrieve the template Id for this new entry
         return template.getTemplateId().getValue();
@@ -163,6 +178,8 @@ public class KnowledgeCacheService implements I_KnowledgeCache, IntrospectServic
 
         //invalidate the cache for this template
         queryOptMetaDataCache.remove(UUID.fromString(template.getUid().getValue()));
+        //the containment labels interned for this template id
+        LtreeLabelDictionary.evict(template.getTemplateId().getValue());
     }
 
 
@@ -292,6 +309,31 @@ public class KnowledgeCacheService implements I_KnowledgeCache, IntrospectServic
     }
 
 
+    @Override
+    public TemplateContainmentIndex getContainmentIndex() {
+        return containmentIndex;
+    }
+
+    @Override
+    public ContainsSetCache getContainsSetCache() {
+        return containsSetCache;
+    }
+
+    @Override
+    public StoredQueryResultCache getStoredQueryResultCache() {
+        return storedQueryResultCache;
+    }
+
+    @Override
+    public PartyIdentityCache getPartyIdentityCache() {
+        return partyIdentityCache;
+    }
+
+    @Override
+    public IndexedPathsCache getIndexedPathsCache() {
+        return indexedPathsCache;
+    }
+
     @Override
     public I_KnowledgeCache getKnowledge() {
         return this;
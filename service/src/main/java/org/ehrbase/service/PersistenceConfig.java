@@ -19,6 +19,7 @@
 package org.ehrbase.service;
 
 
+import org.ehrbase.dao.access.support.StatementStatisticsListener;
 import org.jooq.ExecuteContext;
 import org.jooq.SQLDialect;
 import org.jooq.impl.*;
@@ -75,6 +76,11 @@ public class PersistenceConfig {
         return new ExceptionTranslator();
     }
 
+    @Bean
+    public StatementStatisticsListener statementStatisticsListener() {
+        return new StatementStatisticsListener();
+    }
+
     @Bean
     @Primary
     public DefaultDSLContext dsl() {
@@ -85,7 +91,8 @@ public class PersistenceConfig {
     public DefaultConfiguration configuration() {
         DefaultConfiguration jooqConfiguration = new DefaultConfiguration();
         jooqConfiguration.set(connectionProvider());
-        jooqConfiguration.set(new DefaultExecuteListenerProvider(exceptionTransformer()));
+        jooqConfiguration.set(new DefaultExecuteListenerProvider(exceptionTransformer()),
+                new DefaultExecuteListenerProvider(statementStatisticsListener()));
 
 
         SQLDialect dialect = SQLDialect.POSTGRES;
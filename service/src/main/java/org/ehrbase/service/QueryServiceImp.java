@@ -21,19 +21,36 @@ package org.ehrbase.service;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.google.gson.JsonElement;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.ehrbase.api.definitions.QueryLimits;
+import org.ehrbase.api.definitions.QueryLimitsConfig;
 import org.ehrbase.api.definitions.QueryMode;
 import org.ehrbase.api.definitions.ServerConfig;
 import org.ehrbase.api.definitions.StructuredString;
 import org.ehrbase.api.definitions.StructuredStringFormat;
+import org.ehrbase.api.dto.IndexedPathDto;
 import org.ehrbase.api.dto.QueryDefinitionResultDto;
+import org.ehrbase.api.dto.QueryProfileDto;
 import org.ehrbase.api.dto.QueryResultDto;
+import org.ehrbase.api.exception.BadGatewayException;
 import org.ehrbase.api.exception.GeneralRequestProcessingException;
 import org.ehrbase.api.exception.InternalServerException;
+import org.ehrbase.api.exception.ObjectNotFoundException;
+import org.ehrbase.api.exception.QueryLimitExceededException;
+import org.ehrbase.api.service.QueryResultHandler;
 import org.ehrbase.api.service.QueryService;
 import org.ehrbase.aql.compiler.AqlExpression;
+import org.ehrbase.aql.compiler.tsclient.StubTerminologyServerImpl;
+import org.ehrbase.aql.compiler.tsclient.TerminologyServer;
+import org.ehrbase.aql.sql.AqlRecordHandler;
 import org.ehrbase.aql.sql.AqlResult;
+import org.ehrbase.aql.sql.QueryProfile;
+import org.ehrbase.aql.sql.StoredQueryResultCache;
+import org.ehrbase.dao.access.interfaces.I_AqlIndexedPathAccess;
 import org.ehrbase.dao.access.interfaces.I_EntryAccess;
 import org.ehrbase.dao.access.interfaces.I_StoredQueryAccess;
+import org.ehrbase.dao.access.jooq.AqlIndexedPathAccess;
 import org.ehrbase.dao.access.jooq.AqlQueryHandler;
 import org.ehrbase.dao.access.jooq.StoredQueryAccess;
 import org.jooq.DSLContext;
@@ -42,18 +59,24 @@ import org.jooq.Record;
 import org.jooq.exception.DataAccessException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
+import java.io.UncheckedIOException;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Transactional
@@ -61,13 +84,44 @@ import java.util.Map;
 public class QueryServiceImp extends BaseService implements QueryService {
     private Logger logger = LoggerFactory.getLogger(getClass());
 
+    static final String AQL_QUERY_METRIC = "ehrbase.aql.query";
+    static final String AQL_STAGE_METRIC = "ehrbase.aql.query.stage";
+    static final String ADHOC_QUERY_TAG = "adhoc";
+    static final String STORED_QUERY_CACHE_METRIC = "ehrbase.aql.stored-query.cache";
+    static final String STORED_QUERY_CACHE_SIZE_METRIC = "ehrbase.aql.stored-query.cache.size";
+    static final String LIMIT_EXCEEDED_METRIC = "ehrbase.aql.query.limit.exceeded";
+
     @Value("${server.aql.use-jsquery:true}")
     private boolean usePgExtensions; //default
 
+    @Value("${server.aql.stored-query-cache.enabled:false}")
+    private boolean storedQueryCacheEnabled;
+
+    @Value("${server.aql.stored-query-cache.ttl:300}")
+    private long storedQueryCacheTtl; //seconds
+
+    @Value("${server.aql.stored-query-cache.max-entries:1000}")
+    private int storedQueryCacheMaxEntries;
+
+    private final MeterRegistry meterRegistry;
+    private final QueryLimitsConfig queryLimitsConfig;
+    private final TerminologyServer<String, String> terminologyServer;
+
     @Autowired
-    public QueryServiceImp(KnowledgeCacheService knowledgeCacheService, DSLContext context, ServerConfig serverConfig) {
+    public QueryServiceImp(KnowledgeCacheService knowledgeCacheService, DSLContext context, ServerConfig serverConfig, ObjectProvider<MeterRegistry> meterRegistry, ObjectProvider<QueryLimitsConfig> queryLimitsConfig, ObjectProvider<TerminologyServer<String, String>> terminologyServer) {
 
         super(knowledgeCacheService, context, serverConfig);
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.queryLimitsConfig = queryLimitsConfig.getIfAvailable();
+        this.terminologyServer = terminologyServer.getIfAvailable(StubTerminologyServerImpl::new);
+    }
+
+    @PostConstruct
+    public void configureStoredQueryCache() {
+        StoredQueryResultCache resultCache = getDataAccess().getKnowledgeManager().getStoredQueryResultCache();
+        resultCache.configure(Duration.ofSeconds(storedQueryCacheTtl), storedQueryCacheMaxEntries);
+        if (storedQueryCacheEnabled)
+            meterRegistry.gauge(STORED_QUERY_CACHE_SIZE_METRIC, resultCache, StoredQueryResultCache::size);
     }
 
     @Override
@@ -127,33 +181,161 @@ public class QueryServiceImp extends BaseService implements QueryService {
     }
 
     private QueryResultDto queryAql(String queryString, boolean explain) {
-        try {
-            AqlQueryHandler queryHandler = new AqlQueryHandler(getDataAccess(), usePgExtensions);
-            AqlResult aqlResult = queryHandler.process(queryString);
+        return queryAql(queryString, null, null, null, explain, false);
+    }
 
-            return formatResult(aqlResult, queryString, explain);
-        } catch (DataAccessException dae){
-            throw new GeneralRequestProcessingException("Data Access Error:"+dae.getCause().getMessage());
-        } catch (IllegalArgumentException iae){
-            throw new IllegalArgumentException(iae.getMessage());
+    private QueryResultDto queryAql(String queryString, Map<String, Object> parameters, boolean explain) {
+        return queryAql(queryString, parameters, null, null, explain, false);
+    }
+
+    @Override
+    public QueryResultDto queryAql(String queryString, Map<String, Object> parameters, String queryName, boolean profile) {
+        return queryAql(queryString, parameters, queryName, null, profile, profile);
+    }
+
+    @Override
+    public QueryResultDto queryAql(String queryString, Map<String, Object> parameters, String queryName, String queryVersion, boolean profile) {
+        return queryAql(queryString, parameters, queryName, queryVersion, profile, profile);
+    }
+
+    private QueryResultDto queryAql(String queryString, Map<String, Object> parameters, String queryName, String queryVersion, boolean explain, boolean profile) {
+        StoredQueryResultCache resultCache = getDataAccess().getKnowledgeManager().getStoredQueryResultCache();
+        StoredQueryResultCache.Key cacheKey = null;
+
+        //only the plain executions of stored queries are cached
+        if (storedQueryCacheEnabled && queryName != null && !explain && !profile) {
+            cacheKey = new StoredQueryResultCache.Key(queryName, queryVersion, queryString, parameters);
+            QueryResultDto cachedResult = resultCache.get(cacheKey);
+            meterRegistry.counter(STORED_QUERY_CACHE_METRIC, "query", queryName, "result", cachedResult == null ? "miss" : "hit").increment();
+            if (cachedResult != null)
+                return cachedResult;
+        }
+        long cacheGeneration = resultCache.generation();
+
+        try {
+            QueryProfile queryProfile = new QueryProfile(profile);
+            AqlQueryHandler queryHandler = new AqlQueryHandler(getDataAccess(), usePgExtensions)
+                    .setProfile(queryProfile)
+                    .setLimits(queryLimits(queryName))
+                    .setTerminologyServer(terminologyServer);
+            AqlResult aqlResult;
+
+            if (parameters != null && !parameters.isEmpty())
+                aqlResult = queryHandler.process(queryString, parameters);
+            else
+                aqlResult = queryHandler.process(queryString);
+
+            long start = System.nanoTime();
+            QueryResultDto dto = formatResult(aqlResult, queryString, explain);
+            queryProfile.record(QueryProfile.FORMAT, start, dto.getResultSet().size());
+
+            recordMetrics(queryProfile, queryName);
+            if (profile)
+                dto.setProfile(mapToQueryProfileDto(queryProfile));
+
+            if (cacheKey != null)
+                resultCache.put(cacheKey, dto, aqlResult.getTemplateIds(), cacheGeneration);
+
+            return dto;
         } catch (Exception e){
-            throw new IllegalArgumentException("Could not process query, reason:" + e);
+            throw queryException(e, queryName);
         }
     }
 
-    private QueryResultDto queryAql(String queryString, Map<String, Object> parameters, boolean explain) {
+    @Override
+    public void queryAql(String queryString, Map<String, Object> parameters, QueryResultHandler resultHandler) {
         try {
-            AqlQueryHandler queryHandler = new AqlQueryHandler(getDataAccess(), usePgExtensions);
-            AqlResult aqlResult = queryHandler.process(queryString, parameters);
-
-            return formatResult(aqlResult, queryString, explain);
-        } catch (DataAccessException dae){
-            throw new GeneralRequestProcessingException("Data Access Error:"+dae.getCause().getMessage());
-        } catch (IllegalArgumentException iae){
-            throw new IllegalArgumentException(iae.getMessage());
+            QueryProfile queryProfile = new QueryProfile(false);
+            new AqlQueryHandler(getDataAccess(), usePgExtensions)
+                    .setProfile(queryProfile)
+                    .setLimits(queryLimits(null))
+                    .setTerminologyServer(terminologyServer)
+                    .stream(queryString, parameters, new AqlRecordHandler() {
+                        //the indexes of the fields returned as columns, in column order
+                        private final List<Integer> columnIndexes = new ArrayList<>();
+
+                        @Override
+                        public void start(Map<String, String> variables, Field<?>[] fields) {
+                            BiMap<String, String> columnVariables = HashBiMap.create(variables);
+                            List<Map<String, String>> columns = new ArrayList<>();
+
+                            //same columns as a QueryResponseData built from the materialized result
+                            for (int index = 0; index < fields.length; index++) {
+                                String columnId = fields[index].getName();
+                                Map<String, String> column = new HashMap<>();
+                                if (columnVariables.containsKey(columnId)) {
+                                    column.put("name", columnId);
+                                    column.put("path", columnVariables.get(columnId));
+                                } else if (columnVariables.inverse().containsKey(columnId)) {
+                                    column.put("name", "#" + columns.size());
+                                    column.put("path", columnId);
+                                } else
+                                    continue;
+                                columns.add(column);
+                                columnIndexes.add(index);
+                            }
+                            resultHandler.columns(columns);
+                        }
+
+                        @Override
+                        public void record(Record record) {
+                            List<Object> values = new ArrayList<>(columnIndexes.size());
+                            for (int index : columnIndexes) {
+                                Object value = record.get(index);
+                                values.add(value instanceof JsonElement ? new StructuredString(value.toString(), StructuredStringFormat.JSON) : value);
+                            }
+                            resultHandler.row(values);
+                        }
+                    });
+            resultHandler.end();
+
+            recordMetrics(queryProfile, null);
         } catch (Exception e){
-            throw new IllegalArgumentException("Could not retrieve stored query, reason:" + e);
+            throw queryException(e, null);
+        }
+    }
+
+    //the exceptions of a query execution as handled by the REST layer
+    private RuntimeException queryException(Exception e, String queryName) {
+        if (e instanceof QueryLimitExceededException) {
+            meterRegistry.counter(LIMIT_EXCEEDED_METRIC, "query", queryName == null ? ADHOC_QUERY_TAG : queryName).increment();
+            return (QueryLimitExceededException) e;
+        }
+        //a streamed result could not be written to the client
+        if (e instanceof BadGatewayException || e instanceof UncheckedIOException)
+            return (RuntimeException) e;
+        if (e instanceof DataAccessException)
+            return new GeneralRequestProcessingException("Data Access Error:"+e.getCause().getMessage());
+        if (e instanceof IllegalArgumentException)
+            return new IllegalArgumentException(e.getMessage());
+        return new IllegalArgumentException("Could not process query, reason:" + e);
+    }
+
+    //stored queries may have their own limits, ad-hoc queries share the same ones
+    private QueryLimits queryLimits(String queryName) {
+        if (queryLimitsConfig == null)
+            return QueryLimits.unlimited();
+        return queryName == null ? queryLimitsConfig.getAdhoc() : queryLimitsConfig.getStoredQuery(queryName);
+    }
+
+    //stored queries are tagged with their qualified name, ad-hoc queries are tagged together
+    private void recordMetrics(QueryProfile queryProfile, String queryName) {
+        String queryTag = queryName == null ? ADHOC_QUERY_TAG : queryName;
+
+        for (QueryProfile.Stage stage : queryProfile.getStages()) {
+            meterRegistry.timer(AQL_STAGE_METRIC, "query", queryTag, "stage", stage.getName()).record(stage.getNanos(), TimeUnit.NANOSECONDS);
+        }
+        meterRegistry.timer(AQL_QUERY_METRIC, "query", queryTag).record(queryProfile.getTotalNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private QueryProfileDto mapToQueryProfileDto(QueryProfile queryProfile) {
+        QueryProfileDto dto = new QueryProfileDto();
+        for (QueryProfile.Stage stage : queryProfile.getStages()) {
+            dto.getStages().add(new QueryProfileDto.StageDto(stage.getName(), stage.getNanos() / 1e6, stage.getRows()));
         }
+        dto.setTotalMs(queryProfile.getTotalNanos() / 1e6);
+        dto.setPlan(queryProfile.getPlan());
+        return dto;
     }
 
     private QueryResultDto querySql(String queryString) {
@@ -281,6 +463,69 @@ public class QueryServiceImp extends BaseService implements QueryService {
         }
     }
 
+    //=== ADMIN: manage indexed AQL paths
+    @Override
+    public List<IndexedPathDto> retrieveIndexedPaths(String templateId) {
+        List<IndexedPathDto> resultDtos = new ArrayList<>();
+        try {
+            for (I_AqlIndexedPathAccess indexedPathAccess : AqlIndexedPathAccess.retrieveList(getDataAccess(), templateId)) {
+                resultDtos.add(mapToIndexedPathDto(indexedPathAccess, null));
+            }
+        } catch (DataAccessException dae){
+            throw new GeneralRequestProcessingException("Data Access Error:"+dae.getCause().getMessage());
+        }
+        return resultDtos;
+    }
+
+    @Override
+    public IndexedPathDto createIndexedPath(String templateId, String path, String valueType) {
+
+        if (!getDataAccess().getKnowledgeManager().retrieveOperationalTemplate(templateId).isPresent())
+            throw new ObjectNotFoundException("template", "Unknown template:" + templateId);
+
+        try {
+            I_AqlIndexedPathAccess indexedPathAccess = new AqlIndexedPathAccess(getDataAccess(), templateId, path, valueType);
+            Integer extracted = indexedPathAccess.commit();
+            getDataAccess().getKnowledgeManager().getIndexedPathsCache().pathsWritten();
+            return mapToIndexedPathDto(indexedPathAccess, extracted);
+        } catch (DataAccessException dae){
+            throw new GeneralRequestProcessingException("Data Access Error:"+dae.getCause().getMessage());
+        } catch (IllegalArgumentException iae){
+            throw new IllegalArgumentException(iae.getMessage());
+        } catch (Exception e){
+            throw new InternalServerException(e.getMessage());
+        }
+    }
+
+    @Override
+    public IndexedPathDto deleteIndexedPath(String templateId, String path) {
+
+        try {
+            I_AqlIndexedPathAccess indexedPathAccess = AqlIndexedPathAccess.retrieve(getDataAccess(), templateId, path);
+            indexedPathAccess.delete();
+            getDataAccess().getKnowledgeManager().getIndexedPathsCache().pathsWritten();
+            return mapToIndexedPathDto(indexedPathAccess, null);
+        } catch (DataAccessException dae){
+            throw new GeneralRequestProcessingException("Data Access Error:"+dae.getCause().getMessage());
+        } catch (IllegalArgumentException iae){
+            throw new ObjectNotFoundException("path", iae.getMessage());
+        } catch (Exception e){
+            throw new InternalServerException(e.getMessage());
+        }
+    }
+
+    private IndexedPathDto mapToIndexedPathDto(I_AqlIndexedPathAccess indexedPathAccess, Integer extractedValues) {
+        IndexedPathDto dto = new IndexedPathDto();
+        dto.setId(indexedPathAccess.getId());
+        dto.setTemplateId(indexedPathAccess.getTemplateId());
+        dto.setPath(indexedPathAccess.getPath());
+        dto.setValueType(indexedPathAccess.getValueType());
+        if (indexedPathAccess.getCreationDate() != null)
+            dto.setCreated(indexedPathAccess.getCreationDate().toInstant().atZone(ZoneId.systemDefault()));
+        dto.setExtractedValues(extractedValues);
+        return dto;
+    }
+
     private QueryDefinitionResultDto mapToQueryDefinitionDto(I_StoredQueryAccess storedQueryAccess) {
         QueryDefinitionResultDto dto = new QueryDefinitionResultDto();
         dto.setSaved(storedQueryAccess.getCreationDate().toInstant().atZone(ZoneId.systemDefault()));
@@ -27,6 +27,7 @@ import com.nedap.archie.rm.composition.Composition;
 import org.ehrbase.validation.terminology.ItemStructureVisitor;
 import org.openehr.schemas.v1.OPERATIONALTEMPLATE;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.cache.Cache;
@@ -34,6 +35,10 @@ import javax.cache.CacheManager;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 
 import static org.ehrbase.configuration.CacheConfiguration.VALIDATOR_CACHE;
@@ -45,6 +50,12 @@ public class ValidationServiceImp implements ValidationService {
     private final I_KnowledgeCache knowledgeCache;
     private final TerminologyService terminologyService;
 
+    @Value("${validation.parallel.enabled:false}")
+    private boolean parallelValidation; //run structural and terminology validation concurrently
+
+    @Value("${validation.parallel.min-content-items:8}")
+    private int parallelContentThreshold; //minimum number of content items to traverse them in parallel
+
     @Autowired
     public ValidationServiceImp(CacheManager cacheManager, I_KnowledgeCache knowledgeCache, TerminologyService terminologyService) {
         this.validatorCache = cacheManager.getCache(VALIDATOR_CACHE, UUID.class, Validator.class);
@@ -70,6 +81,11 @@ public class ValidationServiceImp implements ValidationService {
             validatorCache.put(templateUUID, validator);
         }
 
+        if (parallelValidation) {
+            checkConcurrently(validator, composition);
+            return;
+        }
+
         //perform the validation
         validator.check(composition);
 
@@ -79,6 +95,45 @@ public class ValidationServiceImp implements ValidationService {
 
     }
 
+    /**
+     * run the structural validation in the common fork-join pool while the terminology check runs on the calling
+     * thread (using the pool for large contents). Both phases always complete; if both fail, the structural error
+     * is raised as it would be by the sequential validation.
+     */
+    private void checkConcurrently(Validator validator, Composition composition) throws Exception {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        FutureTask<Void> structure = new FutureTask<>(() -> {
+            validator.check(composition);
+            return null;
+        });
+        pool.execute(structure);
+
+        FutureTask<Void> terminology = new FutureTask<>(() -> {
+            ItemStructureVisitor itemStructureVisitor = new ItemStructureVisitor(terminologyService);
+            if (composition.getContent() != null && composition.getContent().size() >= parallelContentThreshold)
+                itemStructureVisitor.setContentItemPool(pool);
+            itemStructureVisitor.validate(composition);
+            return null;
+        });
+        terminology.run();
+
+        awaitPhase(structure);
+        awaitPhase(terminology);
+    }
+
+    private void awaitPhase(Future<Void> phase) throws Exception {
+        try {
+            phase.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception)
+                throw (Exception) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
 
     @Override
     public void check(String templateID, Composition composition) throws Exception {
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehrbase.aql.compiler.tsclient;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CachingTerminologyServerTest {
+
+    private static final String VALUE_SET = "https://terminology.example.org/fhir/ValueSet/23/$expand";
+
+    //counts the expansions, optionally blocked until released
+    private static class CountingTerminologyServer extends StubTerminologyServerImpl {
+        private final AtomicInteger expansions = new AtomicInteger();
+        private final CountDownLatch release;
+
+        CountingTerminologyServer(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public List<String> expand(String valueSetId) {
+            expansions.incrementAndGet();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (valueSetId.endsWith("failing"))
+                throw new IllegalArgumentException("Unknown value set:" + valueSetId);
+            return Collections.singletonList(valueSetId);
+        }
+    }
+
+    @Test
+    public void testCached() {
+        CountingTerminologyServer terminologyServer = new CountingTerminologyServer(new CountDownLatch(0));
+        CachingTerminologyServer<String, String> cut = new CachingTerminologyServer<>(terminologyServer, Duration.ofMinutes(1), 10);
+
+        assertThat(cut.expand(VALUE_SET)).containsExactly(VALUE_SET);
+        assertThat(cut.expand(VALUE_SET)).containsExactly(VALUE_SET);
+        assertThat(terminologyServer.expansions.get()).isEqualTo(1);
+
+        cut.expand(VALUE_SET + "?filter=abdo");
+        assertThat(terminologyServer.expansions.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testExpired() {
+        CountingTerminologyServer terminologyServer = new CountingTerminologyServer(new CountDownLatch(0));
+        CachingTerminologyServer<String, String> cut = new CachingTerminologyServer<>(terminologyServer, Duration.ZERO, 10);
+
+        cut.expand(VALUE_SET);
+        cut.expand(VALUE_SET);
+        assertThat(terminologyServer.expansions.get()).isEqualTo(2);
+        assertThat(cut.size()).isZero();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        CountingTerminologyServer terminologyServer = new CountingTerminologyServer(new CountDownLatch(0));
+        CachingTerminologyServer<String, String> cut = new CachingTerminologyServer<>(terminologyServer, Duration.ofMinutes(1), 2);
+
+        cut.expand("vs-1");
+        cut.expand("vs-2");
+        cut.expand("vs-1");
+        cut.expand("vs-3");
+        assertThat(cut.size()).isEqualTo(2);
+        assertThat(terminologyServer.expansions.get()).isEqualTo(3);
+
+        //vs-2 has been evicted
+        cut.expand("vs-1");
+        cut.expand("vs-2");
+        assertThat(terminologyServer.expansions.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void testFailureNotCached() {
+        CountingTerminologyServer terminologyServer = new CountingTerminologyServer(new CountDownLatch(0));
+        CachingTerminologyServer<String, String> cut = new CachingTerminologyServer<>(terminologyServer, Duration.ofMinutes(1), 10);
+
+        assertThatThrownBy(() -> cut.expand("failing")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> cut.expand("failing")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(terminologyServer.expansions.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testConcurrentExpansionsCoalesced() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingTerminologyServer terminologyServer = new CountingTerminologyServer(release);
+        CachingTerminologyServer<String, String> cut = new CachingTerminologyServer<>(terminologyServer, Duration.ofMinutes(1), 10);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<List<String>> first = executor.submit(() -> cut.expand(VALUE_SET));
+            //wait for the first expansion to be sent
+            while (terminologyServer.expansions.get() == 0)
+                Thread.sleep(1);
+
+            Future<List<String>> second = executor.submit(() -> cut.expand(VALUE_SET));
+            Future<List<String>> third = executor.submit(() -> cut.expand(VALUE_SET));
+            Thread.sleep(50);
+            release.countDown();
+
+            assertThat(first.get(10, TimeUnit.SECONDS)).containsExactly(VALUE_SET);
+            assertThat(second.get(10, TimeUnit.SECONDS)).containsExactly(VALUE_SET);
+            assertThat(third.get(10, TimeUnit.SECONDS)).containsExactly(VALUE_SET);
+            assertThat(terminologyServer.expansions.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehrbase.aql.compiler.tsclient;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.ehrbase.api.exception.BadGatewayException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FhirTerminologyServerImplTest {
+
+    private static final String EXPANSION = "{\"resourceType\":\"ValueSet\",\"expansion\":{\"contains\":[" +
+            "{\"system\":\"http://loinc.org\",\"code\":\"48377-6\"}," +
+            "{\"system\":\"http://loinc.org\",\"code\":\"27478-7\",\"contains\":[{\"system\":\"http://loinc.org\",\"code\":\"52539-9\"}]}]}}";
+
+    private HttpServer server;
+    private String baseUrl;
+
+    //local stub of a terminology server
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/fhir/ValueSet/23/$expand", exchange -> respond(exchange, 200, EXPANSION));
+        server.createContext("/fhir/ValueSet/unknown/$expand", exchange -> respond(exchange, 404, "{\"resourceType\":\"OperationOutcome\"}"));
+        server.createContext("/fhir/ValueSet/invalid/$expand", exchange -> respond(exchange, 200, "{\"resourceType\":\"ValueSet\"}"));
+        server.start();
+        baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/fhir/";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/fhir+json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    @Test
+    public void testExpand() {
+        FhirTerminologyServerImpl cut = new FhirTerminologyServerImpl(Collections.singletonList(baseUrl), Duration.ofSeconds(5));
+
+        assertThat(cut.expand(baseUrl + "ValueSet/23/$expand?filter=abdo")).containsExactly("48377-6", "27478-7", "52539-9");
+        assertThat(cut.validate("27478-7", baseUrl + "ValueSet/23/$expand")).isTrue();
+    }
+
+    @Test
+    public void testNotAllowedUrl() {
+        FhirTerminologyServerImpl cut = new FhirTerminologyServerImpl(Collections.singletonList("https://terminology.example.org/fhir/"), Duration.ofSeconds(5));
+
+        assertThatThrownBy(() -> cut.expand(baseUrl + "ValueSet/23/$expand")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testAllowedUrlBoundaries() {
+        FhirTerminologyServerImpl cut = new FhirTerminologyServerImpl(Arrays.asList("https://terminology.example.org/fhir", "http://localhost:8080/r4/"), Duration.ofSeconds(5));
+
+        for (String valueSetId : Arrays.asList(
+                //host suffix, user info, other port or scheme
+                "https://terminology.example.org.attacker.net/fhir/ValueSet/23/$expand",
+                "https://terminology.example.org@attacker.net/fhir/ValueSet/23/$expand",
+                "https://user@terminology.example.org/fhir/ValueSet/23/$expand",
+                "https://terminology.example.org:8443/fhir/ValueSet/23/$expand",
+                "http://terminology.example.org/fhir/ValueSet/23/$expand",
+                "http://localhost:8081/r4/ValueSet/23/$expand",
+                "http://localhost/r4/ValueSet/23/$expand",
+                //path not on a segment boundary or escaping the allowed path
+                "https://terminology.example.org/fhir-admin/ValueSet/23/$expand",
+                "https://terminology.example.org/fhir/../admin/ValueSet/23/$expand",
+                "http://localhost:8080/r4x/ValueSet/23/$expand",
+                "file:///etc/passwd",
+                "not a url"))
+            assertThatThrownBy(() -> cut.expand(valueSetId)).as(valueSetId).isInstanceOf(IllegalArgumentException.class);
+
+        assertThatThrownBy(() -> new FhirTerminologyServerImpl(Collections.singletonList("https://user@terminology.example.org/fhir"), Duration.ofSeconds(5)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testAllowedUrlNormalized() {
+        //no trailing slash and a dot segment in the configured url
+        String allowedUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/r4/../fhir";
+        FhirTerminologyServerImpl cut = new FhirTerminologyServerImpl(Collections.singletonList(allowedUrl), Duration.ofSeconds(5));
+
+        assertThat(cut.expand(baseUrl + "ValueSet/23/$expand")).hasSize(3);
+        assertThat(cut.expand(baseUrl + "r4/../ValueSet/23/$expand")).hasSize(3);
+    }
+
+    @Test
+    public void testServerErrors() {
+        FhirTerminologyServerImpl cut = new FhirTerminologyServerImpl(Collections.singletonList(baseUrl), Duration.ofSeconds(5));
+
+        assertThatThrownBy(() -> cut.expand(baseUrl + "ValueSet/unknown/$expand")).isInstanceOf(BadGatewayException.class);
+        assertThatThrownBy(() -> cut.expand(baseUrl + "ValueSet/invalid/$expand")).isInstanceOf(BadGatewayException.class);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.aql.containment;
+
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ContainsSetCacheTest {
+
+    private static final String CLAUSE = "select comp_id from ehr.containment where label ~'openEHR_EHR_COMPOSITION_problem_list_v1'";
+    private static final UUID SAMPLE_ID = UUID.fromString("8a33ca66-705d-4115-9483-52c3350f2135");
+
+    private List<ContainsSetCache.TemplateSample> samples() {
+        return Collections.singletonList(new ContainsSetCache.TemplateSample("IDCR - Problem List.v1", SAMPLE_ID, "/composition[openEHR-EHR-COMPOSITION.problem_list.v1]"));
+    }
+
+    @Test
+    public void testEntryWrittenForCandidate() {
+        ContainsSetCache cut = new ContainsSetCache();
+        cut.putSamples(CLAUSE, samples(), new HashSet<>(Arrays.asList("IDCR - Problem List.v1", "Problem List.v2")), cut.generation());
+        assertThat(cut.getSamples(CLAUSE)).hasSize(1);
+
+        //already sampled or not a candidate: kept
+        cut.entryWritten("IDCR - Problem List.v1");
+        cut.entryWritten("IDCR - Vital Signs Encounter.v1");
+        assertThat(cut.getSamples(CLAUSE)).hasSize(1);
+
+        //first entry of a candidate template: discarded
+        cut.entryWritten("Problem List.v2");
+        assertThat(cut.getSamples(CLAUSE)).isNull();
+    }
+
+    @Test
+    public void testEntryWrittenWithoutCandidates() {
+        ContainsSetCache cut = new ContainsSetCache();
+        cut.putSamples(CLAUSE, samples(), null, cut.generation());
+
+        cut.entryWritten("IDCR - Problem List.v1");
+        assertThat(cut.getSamples(CLAUSE)).hasSize(1);
+
+        cut.entryWritten("IDCR - Vital Signs Encounter.v1");
+        assertThat(cut.getSamples(CLAUSE)).isNull();
+    }
+
+    @Test
+    public void testStaleGeneration() {
+        ContainsSetCache cut = new ContainsSetCache();
+        long generation = cut.generation();
+
+        //an entry written while the samples are fetched
+        cut.entryWritten("IDCR - Problem List.v1");
+        cut.putSamples(CLAUSE, samples(), null, generation);
+
+        assertThat(cut.getSamples(CLAUSE)).isNull();
+    }
+
+    @Test
+    public void testCompositionDeletedAndTemplateChanged() {
+        ContainsSetCache cut = new ContainsSetCache();
+        cut.putSamples(CLAUSE, samples(), null, cut.generation());
+        cut.putPath("IDCR - Problem List.v1", "*.openEHR_EHR_EVALUATION_problem_diagnosis_v1", "/content[openEHR-EHR-SECTION.problems_issues_rcp.v1]");
+
+        cut.compositionDeleted(UUID.randomUUID());
+        assertThat(cut.getSamples(CLAUSE)).hasSize(1);
+        cut.compositionDeleted(SAMPLE_ID);
+        assertThat(cut.getSamples(CLAUSE)).isNull();
+
+        assertThat(cut.getPath("IDCR - Problem List.v1", "*.openEHR_EHR_EVALUATION_problem_diagnosis_v1")).isNotNull();
+        cut.templateChanged("IDCR - Problem List.v1");
+        assertThat(cut.getPath("IDCR - Problem List.v1", "*.openEHR_EHR_EVALUATION_problem_diagnosis_v1")).isNull();
+    }
+
+    @Test
+    public void testEntryWrittenBeforeCommit() {
+        ContainsSetCache cut = new ContainsSetCache();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            //writing transaction: first entry of a candidate template
+            cut.entryWritten("Problem List.v2");
+
+            //a concurrent query fetches the samples before the commit, the write is not visible yet
+            cut.putSamples(CLAUSE, samples(), new HashSet<>(Arrays.asList("IDCR - Problem List.v1", "Problem List.v2")), cut.generation());
+            assertThat(cut.getSamples(CLAUSE)).hasSize(1);
+
+            //commit
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(cut.getSamples(CLAUSE)).isNull();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testSampleDeletedBeforeCommit() {
+        ContainsSetCache cut = new ContainsSetCache();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cut.compositionDeleted(SAMPLE_ID);
+
+            //the deleted composition is still visible to a concurrent query until the commit
+            cut.putSamples(CLAUSE, samples(), null, cut.generation());
+            assertThat(cut.getSamples(CLAUSE)).hasSize(1);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(cut.getSamples(CLAUSE)).isNull();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
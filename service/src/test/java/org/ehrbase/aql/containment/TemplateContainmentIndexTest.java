@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.aql.containment;
+
+import org.ehrbase.ehr.knowledge.I_KnowledgeCache;
+import org.ehrbase.ehr.knowledge.TemplateMetaData;
+import org.ehrbase.test_data.operationaltemplate.OperationalTemplateTestData;
+import org.junit.Test;
+import org.openehr.schemas.v1.OPERATIONALTEMPLATE;
+import org.openehr.schemas.v1.TemplateDocument;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TemplateContainmentIndexTest {
+
+    private static final String COMPOSITION = "openEHR_EHR_COMPOSITION_problem_list_v1";
+    private static final String SECTION = "openEHR_EHR_SECTION_problems_issues_rcp_v1";
+    private static final String EVALUATION = "openEHR_EHR_EVALUATION_problem_diagnosis_v1";
+
+    @Test
+    public void testLabelsOf() throws Exception {
+        OPERATIONALTEMPLATE operationaltemplate = TemplateDocument.Factory.parse(OperationalTemplateTestData.IDCR_PROBLEM_LIST.getStream()).getTemplate();
+
+        Set<String> labels = TemplateContainmentIndex.labelsOf(operationaltemplate);
+
+        assertEquals(3, labels.size());
+        assertTrue(labels.contains(COMPOSITION));
+        assertTrue(labels.contains(COMPOSITION + "." + SECTION));
+        assertTrue(labels.contains(COMPOSITION + "." + SECTION + "." + EVALUATION));
+    }
+
+    @Test
+    public void testResolve() throws Exception {
+        TemplateMetaData templateMetaData = new TemplateMetaData();
+        templateMetaData.setOperationaltemplate(TemplateDocument.Factory.parse(OperationalTemplateTestData.IDCR_PROBLEM_LIST.getStream()).getTemplate());
+        I_KnowledgeCache knowledgeCache = mock(I_KnowledgeCache.class);
+        when(knowledgeCache.listAllOperationalTemplates()).thenReturn(Collections.singletonList(templateMetaData));
+
+        TemplateContainmentIndex index = new TemplateContainmentIndex(knowledgeCache);
+        Set<String> expected = Collections.singleton("IDCR - Problem List.v1");
+
+        assertEquals(expected, index.resolve(COMPOSITION));
+        assertEquals(expected, index.resolve(COMPOSITION + ".*." + EVALUATION));
+        assertEquals(expected, index.resolve("*." + SECTION));
+        assertEquals(expected, index.resolve("*." + COMPOSITION));
+        assertTrue(index.resolve(COMPOSITION + ".*." + "openEHR_EHR_OBSERVATION_blood_pressure_v1").isEmpty());
+        //the label must match in full
+        assertTrue(index.resolve(COMPOSITION + "." + EVALUATION).isEmpty());
+        assertTrue(index.resolve(SECTION).isEmpty());
+
+        //the matching label of the template
+        assertEquals(Collections.singletonMap("IDCR - Problem List.v1", COMPOSITION + "." + SECTION), index.resolveLabels("*." + SECTION));
+        assertEquals(Collections.singletonMap("IDCR - Problem List.v1", COMPOSITION + "." + SECTION + "." + EVALUATION), index.resolveLabels(COMPOSITION + ".*." + EVALUATION));
+    }
+
+    @Test
+    public void testIsResolvable() {
+        assertTrue(TemplateContainmentIndex.isResolvable(COMPOSITION + ".*." + EVALUATION));
+        assertTrue(TemplateContainmentIndex.isResolvable("*." + EVALUATION));
+        assertFalse(TemplateContainmentIndex.isResolvable("COMPOSITION%"));
+        assertFalse(TemplateContainmentIndex.isResolvable(COMPOSITION + "|" + SECTION));
+        assertFalse(TemplateContainmentIndex.isResolvable("openEHR_EHR_*"));
+        assertFalse(TemplateContainmentIndex.isResolvable(""));
+        assertFalse(TemplateContainmentIndex.isResolvable(null));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.aql.sql;
+
+import org.ehrbase.api.definitions.QueryLimits;
+import org.ehrbase.api.exception.QueryLimitExceededException;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.Test;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class QueryLimitGuardTest {
+
+    private static final DSLContext CONTEXT = DSL.using(SQLDialect.POSTGRES);
+    private static final Field<String> VALUE = DSL.field("value", String.class);
+
+    private Record record(String value) {
+        return CONTEXT.newRecord(VALUE).values(value);
+    }
+
+    @Test
+    public void testMaxRows() {
+        QueryLimitGuard cut = new QueryLimitGuard(new QueryLimits(0, 2, 0));
+
+        cut.add(record("a"));
+        cut.add(record("b"));
+        assertThatThrownBy(() -> cut.add(record("c")))
+                .isInstanceOf(QueryLimitExceededException.class)
+                .hasMessageContaining("rows");
+    }
+
+    @Test
+    public void testMaxResultBytes() {
+        QueryLimitGuard cut = new QueryLimitGuard(new QueryLimits(0, 0, 10));
+
+        cut.add(record("12345"));
+        cut.add(record(null));
+        assertThatThrownBy(() -> cut.add(record("123456")))
+                .isInstanceOf(QueryLimitExceededException.class)
+                .hasMessageContaining("10 bytes");
+    }
+
+    @Test
+    public void testUnlimited() {
+        QueryLimitGuard cut = QueryLimitGuard.unlimited();
+
+        for (int i = 0; i < 10000; i++)
+            cut.add(record("a value"));
+    }
+
+    @Test
+    public void testTranslateStatementTimeout() {
+        RuntimeException canceled = new RuntimeException(new SQLException("ERROR: canceling statement due to statement timeout", QueryLimitGuard.QUERY_CANCELED_STATE));
+
+        assertThat(new QueryLimitGuard(new QueryLimits(5, 0, 0)).translate(canceled))
+                .isInstanceOf(QueryLimitExceededException.class)
+                .hasMessageContaining("5s");
+
+        //not bounded by a timeout: canceled by someone else
+        assertThat(QueryLimitGuard.unlimited().translate(canceled)).isSameAs(canceled);
+
+        RuntimeException other = new RuntimeException(new SQLException("ERROR: syntax error", "42601"));
+        assertThat(new QueryLimitGuard(new QueryLimits(5, 0, 0)).translate(other)).isSameAs(other);
+    }
+}
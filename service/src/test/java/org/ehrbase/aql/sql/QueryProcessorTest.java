@@ -192,7 +192,19 @@ public class QueryProcessorTest {
         // select full composition
         testCases.add(new AqlTestCase(8,
                 "select c from EHR e contains COMPOSITION c[openEHR-EHR-COMPOSITION.health_summary.v1]",
-                "select ehr.js_composition(composition_join.id, 'local')::text as \"c\" from \"ehr\".\"entry\" right outer join \"ehr\".\"composition\" as \"composition_join\" on \"composition_join\".\"id\" = \"ehr\".\"entry\".\"composition_id\" " +
+                "select (SELECT jsonb_strip_nulls(jsonb_build_object('_type', 'COMPOSITION', " +
+                        "'name', ehr.js_dv_text(ehr.composition_name(\"ehr\".\"entry\".\"entry\")), " +
+                        "'archetype_details', ehr.js_archetype_details(\"ehr\".\"entry\".\"archetype_id\", \"ehr\".\"entry\".\"template_id\"), " +
+                        "'archetype_node_id', \"ehr\".\"entry\".\"archetype_id\", " +
+                        "'uid', ehr.js_object_version_id(ehr.composition_uid(\"composition_join\".\"id\", 'local')), " +
+                        "'language', ehr.js_code_phrase(\"composition_join\".\"language\", 'ISO_639-1'), " +
+                        "'territory', ehr.js_code_phrase((SELECT territory.twoletter FROM ehr.territory WHERE territory.code = \"composition_join\".\"territory\"), 'ISO_3166-1'), " +
+                        "'composer', ehr.js_party(\"composition_join\".\"composer\"), " +
+                        "'category', ehr.js_dv_coded_text(concept.description, ehr.js_code_phrase(concept.conceptid :: TEXT, 'openehr')), " +
+                        "'context', ehr.js_context((SELECT event_context.id FROM ehr.event_context WHERE event_context.composition_id = \"composition_join\".\"id\" LIMIT 1)), " +
+                        "'content', entry_content.value)) " +
+                        "FROM jsonb_each(\"ehr\".\"entry\".\"entry\") AS entry_content LEFT JOIN ehr.concept ON concept.id = \"ehr\".\"entry\".\"category\" " +
+                        "WHERE entry_content.value::text LIKE '{\"/content%' LIMIT 1)::text as \"c\" from \"ehr\".\"entry\" right outer join \"ehr\".\"composition\" as \"composition_join\" on \"composition_join\".\"id\" = \"ehr\".\"entry\".\"composition_id\" " +
                         "where \"ehr\".\"entry\".\"template_id\" = ?",
                 true));
 
@@ -248,10 +260,12 @@ public class QueryProcessorTest {
         testCases.add(new AqlTestCase(13,
                 "select  max (d/description[at0001]/items[at0004]/value/magnitude) as max_magnitude from EHR e  contains COMPOSITION  contains ACTION d[openEHR-EHR-ACTION.immunisation_procedure.v1]",
                 "select max(\"max_magnitude\") as \"max_magnitude\" " +
+                        "from (select max(\"max_magnitude\") as \"max_magnitude\" " +
                         "from (select ((jsonb_array_elements((\"ehr\".\"entry\".\"entry\"#>>'{/composition[openEHR-EHR-COMPOSITION.health_summary.v1 and name/value=''Immunisation summary''],/content[openEHR-EHR-ACTION.immunisation_procedure.v1]}')::jsonb)#>>'{/description[at0001],/items[at0004],0,/value,magnitude}'))::numeric as \"max_magnitude\" " +
                         "from \"ehr\".\"entry\" " +
                         "where \"ehr\".\"entry\".\"template_id\" = ?" +
-                        ") as \"\"",
+                        ") as \"template_query\"" +
+                        ") as \"partial_aggregate\"",
                 true));
 
         // Select  from unknown  composition
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.aql.sql;
+
+import org.ehrbase.api.dto.QueryResultDto;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StoredQueryResultCacheTest {
+
+    private static final String NAME = "org.ehrbase::blood_pressure";
+    private static final String QUERY = "select c from EHR e contains COMPOSITION c where e/ehr_id/value = $ehr_id";
+
+    private StoredQueryResultCache.Key key(String ehrId) {
+        Map<String, Object> parameters = Collections.singletonMap("ehr_id", ehrId);
+        return new StoredQueryResultCache.Key(NAME, "1.0.0", QUERY, parameters);
+    }
+
+    @Test
+    public void testKeyedByParameters() {
+        StoredQueryResultCache cut = new StoredQueryResultCache();
+        QueryResultDto result = new QueryResultDto();
+        cut.put(key("ehr-1"), result, Collections.singleton("IDCR - Vital Signs Encounter.v1"), cut.generation());
+
+        assertThat(cut.get(key("ehr-1"))).isSameAs(result);
+        assertThat(cut.get(key("ehr-2"))).isNull();
+        assertThat(cut.get(new StoredQueryResultCache.Key(NAME, "1.0.1", QUERY, Collections.singletonMap("ehr_id", "ehr-1")))).isNull();
+    }
+
+    @Test
+    public void testTemplateWritten() {
+        StoredQueryResultCache cut = new StoredQueryResultCache();
+        cut.put(key("ehr-1"), new QueryResultDto(), new HashSet<>(Arrays.asList("IDCR - Vital Signs Encounter.v1", "Vital Signs.v2")), cut.generation());
+
+        //another template: kept
+        cut.templateWritten("IDCR - Problem List.v1");
+        assertThat(cut.get(key("ehr-1"))).isNotNull();
+
+        cut.templateWritten("Vital Signs.v2");
+        assertThat(cut.get(key("ehr-1"))).isNull();
+    }
+
+    @Test
+    public void testAnyTemplate() {
+        StoredQueryResultCache cut = new StoredQueryResultCache();
+        cut.put(key("ehr-1"), new QueryResultDto(), null, cut.generation());
+        cut.put(key("ehr-2"), new QueryResultDto(), Collections.singleton("IDCR - Vital Signs Encounter.v1"), cut.generation());
+
+        //a result which may depend on any template is evicted by any write
+        cut.templateWritten("IDCR - Problem List.v1");
+        assertThat(cut.get(key("ehr-1"))).isNull();
+        assertThat(cut.get(key("ehr-2"))).isNotNull();
+
+        //an unknown template evicts all
+        cut.templateWritten(null);
+        assertThat(cut.get(key("ehr-2"))).isNull();
+    }
+
+    @Test
+    public void testStaleGeneration() {
+        StoredQueryResultCache cut = new StoredQueryResultCache();
+        long generation = cut.generation();
+
+        //an entry written while the result is computed
+        cut.templateWritten("IDCR - Problem List.v1");
+        cut.put(key("ehr-1"), new QueryResultDto(), Collections.singleton("IDCR - Vital Signs Encounter.v1"), generation);
+
+        assertThat(cut.get(key("ehr-1"))).isNull();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        StoredQueryResultCache cut = new StoredQueryResultCache();
+        cut.configure(Duration.ofMinutes(1), 2);
+
+        cut.put(key("ehr-1"), new QueryResultDto(), null, cut.generation());
+        cut.put(key("ehr-2"), new QueryResultDto(), null, cut.generation());
+        cut.get(key("ehr-1"));
+        cut.put(key("ehr-3"), new QueryResultDto(), null, cut.generation());
+
+        assertThat(cut.size()).isEqualTo(2);
+        assertThat(cut.get(key("ehr-1"))).isNotNull();
+        assertThat(cut.get(key("ehr-2"))).isNull();
+        assertThat(cut.get(key("ehr-3"))).isNotNull();
+    }
+
+    @Test
+    public void testExpired() {
+        StoredQueryResultCache cut = new StoredQueryResultCache();
+        cut.configure(Duration.ZERO, 10);
+
+        cut.put(key("ehr-1"), new QueryResultDto(), null, cut.generation());
+        assertThat(cut.get(key("ehr-1"))).isNull();
+    }
+}
@@ -43,6 +43,7 @@ public class ContainBinderTest {
             ContainBinder cut = new ContainBinder(Arrays.asList(new ContainmentSet[]{containmentSet}));
             String actualString = cut.bind();
             assertThat(actualString).isEqualTo("SELECT DISTINCT comp_id FROM ehr.containment WHERE label ~'openEHR_EHR_COMPOSITION_health_summary_v1'");
+            assertThat(cut.getContainExpression()).isEqualTo("openEHR_EHR_COMPOSITION_health_summary_v1");
             SelectQuery actualQuery = cut.bind(context);
             assertThat(actualQuery.getSQL())
                     .contains("select", ".\"comp_id\" from (select distinct on (\"ehr\".\"containment\".\"comp_id\") \"ehr\".\"containment\".\"comp_id\" from \"ehr\".\"containment\" where (label ~'openEHR_EHR_COMPOSITION_health_summary_v1')) as");
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.aql.sql.binding;
+
+import org.ehrbase.aql.definition.FuncParameter;
+import org.ehrbase.aql.definition.FuncParameterType;
+import org.ehrbase.aql.definition.FunctionDefinition;
+import org.ehrbase.aql.definition.I_VariableDefinition;
+import org.ehrbase.aql.definition.VariableDefinition;
+import org.ehrbase.dao.jooq.impl.DSLContextHelper;
+import org.jooq.DSLContext;
+import org.jooq.SelectQuery;
+import org.jooq.impl.DSL;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SuperQueryTest {
+
+    private static FunctionDefinition function(String name, String alias) {
+        return new FunctionDefinition(name, alias, name + "(o/data[at0001]/events[at0002]/data[at0003]/items[at0004]/value/magnitude)", Arrays.asList(
+                new FuncParameter(FuncParameterType.IDENTIFIER, name),
+                new FuncParameter(FuncParameterType.IDENTIFIER, "("),
+                new FuncParameter(FuncParameterType.VARIABLE, alias),
+                new FuncParameter(FuncParameterType.IDENTIFIER, ")")));
+    }
+
+    //same order as the compiled statements: last selected first, a function before its argument
+    private static VariableDefinitions variables(I_VariableDefinition... variableDefinitions) {
+        return new VariableDefinitions(Arrays.asList(variableDefinitions));
+    }
+
+    @Test
+    public void testPartialAndCombinedAggregate() {
+        DSLContext context = DSLContextHelper.buildContext();
+        VariableDefinitions variableDefinitions = variables(
+                function("avg", "avg_bmi"),
+                new VariableDefinition("data[at0001]/events[at0002]/data[at0003]/items[at0004]/value/magnitude", "avg_bmi", "o", false),
+                function("count", "patients"),
+                new VariableDefinition("data[at0001]/events[at0002]/data[at0003]/items[at0004]/value/magnitude", "patients", "o", false),
+                new VariableDefinition("archetype_details/template_id/value", "template", "c", false));
+
+        assertThat(SuperQuery.isAggregatePushable(variableDefinitions)).isTrue();
+
+        SelectQuery templateQuery = context.selectQuery();
+        templateQuery.addSelect(DSL.field("bmi").as("avg_bmi"), DSL.field("bmi").as("patients"), DSL.field("template_id").as("template"));
+
+        SuperQuery cut = new SuperQuery(context, variableDefinitions);
+
+        String partial = cut.selectPartialAggregate(templateQuery).getSQL();
+        assertThat(partial)
+                .contains("sum(cast(\"avg_bmi\" as numeric)) as \"avg_bmi#sum\"")
+                .contains("count(cast(\"avg_bmi\" as numeric)) as \"avg_bmi#count\"")
+                .contains("count(\"patients\") as \"patients\"")
+                .contains("as \"template_query\"")
+                .endsWith("group by \"template\"");
+
+        String combined = cut.selectCombinedAggregate(context.selectQuery()).getSQL();
+        assertThat(combined)
+                .contains("sum(\"avg_bmi#sum\")")
+                .contains("nullif(sum(\"avg_bmi#count\"), ?)")
+                .contains("as \"avg_bmi\"")
+                .contains("cast(sum(\"patients\") as bigint) as \"patients\"")
+                .contains("\"template\"")
+                .endsWith("group by \"template\"");
+    }
+
+    @Test
+    public void testNotPushable() {
+        //distinct
+        assertThat(SuperQuery.isAggregatePushable(variables(
+                function("count", "patients"),
+                new VariableDefinition("ehr_id/value", "patients", "e", true)))).isFalse();
+
+        //unaliased argument
+        assertThat(SuperQuery.isAggregatePushable(variables(
+                function("count", null),
+                new VariableDefinition("ehr_id/value", null, "e", false)))).isFalse();
+
+        //not a pushable function
+        assertThat(SuperQuery.isAggregatePushable(variables(
+                function("stddev", "deviation"),
+                new VariableDefinition("data[at0001]/events[at0002]/data[at0003]/items[at0004]/value/magnitude", "deviation", "o", false)))).isFalse();
+
+        //no function
+        assertThat(SuperQuery.isAggregatePushable(variables(
+                new VariableDefinition("ehr_id/value", null, "e", false)))).isFalse();
+    }
+}
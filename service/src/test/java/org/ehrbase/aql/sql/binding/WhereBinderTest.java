@@ -22,8 +22,10 @@ import org.ehrbase.aql.containment.IdentifierMapper;
 import org.ehrbase.aql.definition.I_VariableDefinitionHelper;
 import org.ehrbase.aql.sql.PathResolver;
 import org.ehrbase.aql.sql.queryImpl.CompositionAttributeQuery;
+import org.ehrbase.aql.sql.queryImpl.IndexedPaths;
 import org.ehrbase.aql.sql.queryImpl.JsonbEntryQuery;
 import org.ehrbase.dao.jooq.impl.DSLContextHelper;
+import org.ehrbase.jooq.pg.tables.records.AqlIndexedPathRecord;
 import org.ehrbase.service.CacheRule;
 import org.ehrbase.service.IntrospectService;
 import org.ehrbase.service.KnowledgeCacheHelper;
@@ -34,6 +36,7 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
@@ -107,4 +110,64 @@ public class WhereBinderTest {
         }
     }
 
-}
\ No newline at end of file
+    private WhereBinder actionWhereBinder(DSLContext context, IntrospectService introspectCache) {
+        String entryRoot = "/composition[openEHR-EHR-COMPOSITION.health_summary.v1 and name/value='Immunisation summary']";
+
+        PathResolver pathResolver = mock(PathResolver.class);
+        when(pathResolver.pathOf("d")).thenReturn("/content[openEHR-EHR-ACTION.immunisation_procedure.v1 and name/value='Immunisation procedure']");
+        when(pathResolver.classNameOf("d")).thenReturn("ACTION");
+        IdentifierMapper identifierMapper = mock(IdentifierMapper.class);
+        when(identifierMapper.getClassName("d")).thenReturn("ACTION");
+
+        JsonbEntryQuery jsonbEntryQuery = new JsonbEntryQuery(context, introspectCache, pathResolver, entryRoot);
+        CompositionAttributeQuery compositionAttributeQuery = new CompositionAttributeQuery(context, pathResolver, "local", "entry_root", introspectCache);
+
+        //represents where d/description[at0001]/items[at0002]/value/value = 'Hepatitis A'
+        List where = Arrays.asList(I_VariableDefinitionHelper.build("description[at0001]/items[at0002]/value/value", null, "d", false, false, false), "=", "'Hepatitis A'");
+
+        return new WhereBinder(jsonbEntryQuery, compositionAttributeQuery, where, identifierMapper);
+    }
+
+    @Test
+    public void testBindIndexedPath() throws Exception {
+        DSLContext context = DSLContextHelper.buildContext();
+        IntrospectService introspectCache = KnowledgeCacheHelper.buildKnowledgeCache(testFolder, cacheRule);
+
+        AqlIndexedPathRecord indexedPathRecord = new AqlIndexedPathRecord();
+        indexedPathRecord.setId(7);
+        indexedPathRecord.setTemplateId("IDCR - Immunisation summary.v0");
+        indexedPathRecord.setPath("/content[openEHR-EHR-ACTION.immunisation_procedure.v1]/description[at0001]/items[at0002]/value/value");
+        indexedPathRecord.setJsonPath(new String[]{"/content[openEHR-EHR-ACTION.immunisation_procedure.v1]", "#", "/description[at0001]", "/items[at0002]", "#", "/value", "value"});
+        indexedPathRecord.setValueType(IndexedPaths.ValueType.TEXT.name());
+
+        WhereBinder cut = actionWhereBinder(context, introspectCache)
+                .setIndexedPaths(new IndexedPaths(Collections.singletonList(indexedPathRecord)));
+
+        //the comparison on the registered path is rewritten as a lookup of the extracted values
+        String actual = cut.bind("IDCR - Immunisation summary.v0", UUID.randomUUID()).toString();
+        assertThat(actual).contains("\"ehr\".\"entry_path_value\"");
+        assertThat(actual).contains("\"path_id\" = 7");
+        assertThat(actual).contains("\"text_value\" = 'Hepatitis A'");
+        assertThat(actual).doesNotContain("jsquery");
+
+        //the path is not registered for another template
+        actual = cut.bind("IDCR - Problem List.v1", UUID.randomUUID()).toString();
+        assertThat(actual).contains("::jsquery");
+        assertThat(actual).doesNotContain("entry_path_value");
+    }
+
+    @Test
+    public void testBindUnregisteredPathWithoutJsquery() throws Exception {
+        DSLContext context = DSLContextHelper.buildContext();
+        IntrospectService introspectCache = KnowledgeCacheHelper.buildKnowledgeCache(testFolder, cacheRule);
+
+        WhereBinder cut = actionWhereBinder(context, introspectCache).setUsePgExtensions(false);
+
+        //a path not registered keeps the jsonb path expression
+        String actual = cut.bind("IDCR - Immunisation summary.v0", UUID.randomUUID()).toString();
+        assertThat(actual).contains("#>>");
+        assertThat(actual).contains("'Hepatitis A'");
+        assertThat(actual).doesNotContain("entry_path_value");
+        assertThat(actual).doesNotContain("json_path_values");
+    }
+}
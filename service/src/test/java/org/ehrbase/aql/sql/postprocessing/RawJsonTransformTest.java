@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.aql.sql.postprocessing;
+
+import com.google.gson.JsonElement;
+import org.ehrbase.aql.sql.QuerySteps;
+import org.ehrbase.aql.sql.binding.JsonbBlockDef;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RawJsonTransformTest {
+
+    private final DSLContext context = DSL.using(SQLDialect.POSTGRES);
+    private final Field<Integer> rowField = DSL.field("row", Integer.class);
+    private final Field<Object> jsonField = DSL.field("/data", Object.class);
+    private final Field<Object> textField = DSL.field("/name", Object.class);
+
+    @Test
+    public void testToRawJsonPreservesOrder() {
+        int rows = RawJsonTransform.CHUNK_SIZE * 5 + 3;
+        Result<Record> result = context.newResult(rowField, jsonField, textField);
+        for (int i = 0; i < rows; i++) {
+            Record record = context.newRecord(rowField, jsonField, textField);
+            record.setValue(rowField, i);
+            record.setValue(jsonField, i % 7 == 0 ? null : "{\"value\": \"row " + i + "\"}");
+            record.setValue(textField, "not json " + i);
+            result.add(record);
+        }
+
+        JsonbBlockDef jsonBlock = new JsonbBlockDef("/data", jsonField, null);
+        JsonbBlockDef textBlock = new JsonbBlockDef("/name", textField, null);
+        QuerySteps querySteps = new QuerySteps(null, null, "*", null, new ArrayList<>(Arrays.asList(jsonBlock, textBlock)), false);
+
+        RawJsonTransform.toRawJson(result, Collections.singletonList(querySteps), null);
+
+        assertThat(result).hasSize(rows);
+        for (int i = 0; i < rows; i++) {
+            Record record = result.get(i);
+            assertThat(record.getValue(rowField)).isEqualTo(i);
+            if (i % 7 == 0)
+                assertThat(record.getValue(jsonField)).isNull();
+            else
+                assertThat(record.getValue(jsonField)).isInstanceOf(JsonElement.class);
+            //not a json value: kept as is
+            assertThat(record.getValue(textField)).isEqualTo("not json " + i);
+        }
+        //the non json column is no longer considered
+        assertThat(querySteps.getJsonColumns()).containsExactly(jsonBlock);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.aql.sql.queryImpl;
+
+import org.ehrbase.aql.compiler.AqlExpression;
+import org.ehrbase.aql.compiler.Contains;
+import org.ehrbase.aql.compiler.Statements;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EhrScopeTest {
+
+    private static final String EHR_ID = "7d44b88c-4199-4bad-97dc-d78268e01398";
+
+    private EhrScope ehrScope(String query) {
+        AqlExpression aqlExpression = new AqlExpression().parse(query);
+        Contains contains = new Contains(aqlExpression.getParseTree()).process();
+        Statements statements = new Statements(aqlExpression.getParseTree(), contains.getIdentifierMapper()).process();
+        return new EhrScope(contains.getIdentifierMapper(), statements.getWhereClause());
+    }
+
+    @Test
+    public void testFromPredicate() {
+        EhrScope cut = ehrScope("select c/uid/value from EHR e[ehr_id/value='" + EHR_ID + "'] contains COMPOSITION c");
+
+        assertThat(cut.ehrId()).isEqualTo(UUID.fromString(EHR_ID));
+        assertThat(cut.entryCondition().toString())
+                .contains("\"ehr\".\"entry\".\"composition_id\" in")
+                .contains("\"ehr\".\"composition\".\"ehr_id\" =");
+    }
+
+    @Test
+    public void testWherePredicate() {
+        assertThat(ehrScope("select c/uid/value from EHR e contains COMPOSITION c " +
+                "where e/ehr_id/value = '" + EHR_ID + "' and c/name/value = 'Vital signs'").ehrId())
+                .isEqualTo(UUID.fromString(EHR_ID));
+    }
+
+    @Test
+    public void testNotScoped() {
+        //no predicate
+        assertThat(ehrScope("select c/uid/value from EHR e contains COMPOSITION c").ehrId()).isNull();
+        //not a UUID
+        assertThat(ehrScope("select e/ehr_id/value from EHR e where e/ehr_id/value = '30580007'").ehrId()).isNull();
+        //disjunction
+        assertThat(ehrScope("select c/uid/value from EHR e contains COMPOSITION c " +
+                "where e/ehr_id/value = '" + EHR_ID + "' or c/name/value = 'Vital signs'").ehrId()).isNull();
+        assertThat(ehrScope("select c/uid/value from EHR e contains COMPOSITION c").entryCondition()).isNull();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.aql.sql.queryImpl;
+
+import org.ehrbase.jooq.pg.tables.records.AqlIndexedPathRecord;
+import org.jooq.Condition;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IndexedPathsTest {
+
+    private static final String TEMPLATE_ID = "IDCR - Vital Signs Encounter.v1";
+    private static final String MAGNITUDE_PATH = "/content[openEHR-EHR-OBSERVATION.blood_pressure.v1]/data[at0001]/events[at0006]/data[at0003]/items[at0004]/value/magnitude";
+    private static final String UNITS_PATH = "/content[openEHR-EHR-OBSERVATION.blood_pressure.v1]/data[at0001]/events[at0006]/data[at0003]/items[at0004]/value/units";
+
+    private IndexedPaths indexedPaths() {
+        return new IndexedPaths(Arrays.asList(
+                record(1, MAGNITUDE_PATH, IndexedPaths.ValueType.NUMERIC),
+                record(2, UNITS_PATH, IndexedPaths.ValueType.TEXT)));
+    }
+
+    private AqlIndexedPathRecord record(Integer id, String path, IndexedPaths.ValueType valueType) {
+        AqlIndexedPathRecord indexedPathRecord = new AqlIndexedPathRecord();
+        indexedPathRecord.setId(id);
+        indexedPathRecord.setTemplateId(TEMPLATE_ID);
+        indexedPathRecord.setPath(path);
+        indexedPathRecord.setJsonPath(JsonbEntryQuery.entryKeyPath(path).toArray(new String[0]));
+        indexedPathRecord.setValueType(valueType.name());
+        return indexedPathRecord;
+    }
+
+    @Test
+    public void testNumericCondition() {
+        List<String> keyPath = JsonbEntryQuery.entryKeyPath(MAGNITUDE_PATH);
+        Condition condition = indexedPaths().condition(TEMPLATE_ID, keyPath, ">", "140");
+
+        assertThat(condition).isNotNull();
+        assertThat(condition.toString())
+                .contains("entry_path_value")
+                .contains("\"path_id\" = 1")
+                .contains("\"numeric_value\" > 140");
+    }
+
+    @Test
+    public void testTextCondition() {
+        List<String> keyPath = JsonbEntryQuery.entryKeyPath(UNITS_PATH);
+        Condition condition = indexedPaths().condition(TEMPLATE_ID, keyPath, "=", "'mm[Hg]'");
+
+        assertThat(condition).isNotNull();
+        assertThat(condition.toString())
+                .contains("\"path_id\" = 2")
+                .contains("\"text_value\" = 'mm[Hg]'");
+    }
+
+    @Test
+    public void testUnresolved() {
+        IndexedPaths indexedPaths = indexedPaths();
+        List<String> keyPath = JsonbEntryQuery.entryKeyPath(MAGNITUDE_PATH);
+
+        //other template
+        assertThat(indexedPaths.condition("IDCR - Problem List.v1", keyPath, ">", "140")).isNull();
+        //unsupported operator
+        assertThat(indexedPaths.condition(TEMPLATE_ID, keyPath, "LIKE", "140")).isNull();
+        //not a number
+        assertThat(indexedPaths.condition(TEMPLATE_ID, keyPath, ">", "'abc'")).isNull();
+        //unquoted text
+        assertThat(indexedPaths.condition(TEMPLATE_ID, JsonbEntryQuery.entryKeyPath(UNITS_PATH), "=", "mm")).isNull();
+        //path not registered
+        assertThat(indexedPaths.condition(TEMPLATE_ID, JsonbEntryQuery.entryKeyPath(MAGNITUDE_PATH.replace("at0004", "at0005")), ">", "140")).isNull();
+
+        assertThat(IndexedPaths.empty().isEmpty()).isTrue();
+        assertThat(indexedPaths.hasTemplate(TEMPLATE_ID)).isTrue();
+    }
+}
@@ -19,6 +19,7 @@
 package org.ehrbase.dao.access.jooq;
 
 import org.ehrbase.aql.sql.AqlResult;
+import org.ehrbase.aql.sql.QueryProfile;
 import org.ehrbase.dao.access.interfaces.I_DomainAccessTest;
 import org.ehrbase.dao.jooq.impl.DSLContextHelper;
 import org.ehrbase.service.CacheRule;
@@ -53,5 +54,8 @@ public class AqlQueryHandlerTest {
                         "right outer join \"ehr\".\"ehr\" as \"ehr_join\" on \"ehr_join\".\"id\" = \"composition_join\".\"ehr_id\" " +
                         ") as \"\"" +
                         "limit ? offset ?");
+        assertThat(aqlResult.getProfile().getStages()).extracting(QueryProfile.Stage::getName)
+                .containsExactly(QueryProfile.PARSE, QueryProfile.CONTAINS, QueryProfile.COMPILE, QueryProfile.EXECUTE);
+        assertThat(aqlResult.getProfile().getPlan()).isEmpty();
     }
 }
\ No newline at end of file
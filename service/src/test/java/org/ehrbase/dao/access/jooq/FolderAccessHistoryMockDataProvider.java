@@ -21,9 +21,6 @@
         import com.nedap.archie.rm.datastructures.Item;
         import com.nedap.archie.rm.datastructures.ItemStructure;
         import com.nedap.archie.rm.datavalues.DvText;
-        import org.joda.time.DateTime;
-        import org.joda.time.format.DateTimeFormat;
-        import org.joda.time.format.DateTimeFormatter;
         import org.jooq.*;
         import org.jooq.impl.DSL;
         import org.jooq.tools.jdbc.MockDataProvider;
@@ -87,7 +84,7 @@
                             mock2[0] = new MockResult(0, result2);
                             return mock2;
                         }
-                    }else {
+                    }else if(((UUID) ctx.bindings()[0]).equals(UUID.fromString("129dc79c-e0bc-4946-bfa6-28ce609bbd2c"))) {
 
                         MockResult[] mock2 = new MockResult[1];
                         Result<Record11<UUID, UUID, UUID, Timestamp, AbstractMap.SimpleEntry<OffsetDateTime, OffsetDateTime>, String, String, UUID, UUID, Timestamp, AbstractMap.SimpleEntry<OffsetDateTime, OffsetDateTime>>> result2 = create.newResult(FOLDER_ITEMS.FOLDER_ID, FOLDER_ITEMS.OBJECT_REF_ID.as("item_object_ref_id"), FOLDER_ITEMS.IN_CONTRIBUTION.as("item_in_contribution"), FOLDER_ITEMS.SYS_TRANSACTION, FOLDER_ITEMS.SYS_PERIOD, OBJECT_REF.ID_NAMESPACE, OBJECT_REF.TYPE, OBJECT_REF.ID.as("obj_ref_id"), OBJECT_REF.IN_CONTRIBUTION.as("obj_ref_in_cont"), OBJECT_REF.SYS_TRANSACTION.as("objRefSysTran"), OBJECT_REF.SYS_PERIOD.as("oref_sysperiod"));
@@ -97,91 +94,93 @@
                                 .values(UUID.fromString("129dc79c-e0bc-4946-bfa6-28ce609bbd2c"), UUID.fromString("44282ddd-4c7d-444a-8159-458a03c9827f"), UUID.fromString("af550555-ec91-4025-838d-09ddb4e473cb"), Timestamp.valueOf("2020-01-15 22:22:22.688"), new AbstractMap.SimpleEntry<>(OffsetDateTime.parse("2020-01-09T15:43:18.213207+00"), null), "middle leave UPDATED", "COMPOSITION", UUID.fromString("44282ddd-4c7d-444a-8159-458a03c9827f"), UUID.fromString("af550555-ec91-4025-838d-09ddb4e473cb"), Timestamp.valueOf("2020-01-15 22:22:22.688"), new AbstractMap.SimpleEntry<>(OffsetDateTime.parse("2020-01-09T15:43:11.287968+00"), null)));
                         mock2[0] = new MockResult(1, result2);
                         return mock2;
-                    }
-                }else if(sql2.toLowerCase().contains("select \"folder_union_fol_hist\".\"id\", \"folder_union_fol_hist\".\"in_contribution\", \"folder_union_fol_hist\".\"name\", \"folder_union_fol_hist\".\"archetype_node_id\"")) {
-
-                    if (((UUID) ctx.bindings()[1]).equals(UUID.fromString("00550555-ec91-4025-838d-09ddb4e473cb"))) {
-
-                        MockResult[] mock2 = new MockResult[1];
-                        Result<Record8<UUID, UUID, String, String, Boolean, ItemStructure, Timestamp, AbstractMap.SimpleEntry<OffsetDateTime, OffsetDateTime>>> result2 = create.newResult(FOLDER.ID, FOLDER.IN_CONTRIBUTION, FOLDER.NAME, FOLDER.ARCHETYPE_NODE_ID, FOLDER.ACTIVE, FOLDER.DETAILS, FOLDER.SYS_TRANSACTION, FOLDER.SYS_PERIOD);
-
-                        result2.add(create
-                                .newRecord(FOLDER.ID, FOLDER.IN_CONTRIBUTION, FOLDER.NAME, FOLDER.ARCHETYPE_NODE_ID, FOLDER.ACTIVE, FOLDER.DETAILS, FOLDER.SYS_TRANSACTION, FOLDER.SYS_PERIOD)
-                                .values(UUID.fromString("eda6951b-5506-4726-89dc-7032872997ce"), UUID.fromString("00550555-ec91-4025-838d-09ddb4e473cb"), "folder_archetype_nameLeave1", "folder_archetypeLeave.v1", true, null, Timestamp.valueOf("2019-12-05 19:00:00.688"), new AbstractMap.SimpleEntry<>(OffsetDateTime.parse("2020-01-09T15:43:11.287968+00"), null)));
-                        mock2[0] = new MockResult(1, result2);
-                        return mock2;
                     }else{
-
                         MockResult[] mock2 = new MockResult[1];
-                        Result<Record8<UUID, UUID, String, String, Boolean, ItemStructure, Timestamp, AbstractMap.SimpleEntry<OffsetDateTime, OffsetDateTime>>> result2 = create.newResult(FOLDER.ID, FOLDER.IN_CONTRIBUTION, FOLDER.NAME, FOLDER.ARCHETYPE_NODE_ID, FOLDER.ACTIVE, FOLDER.DETAILS, FOLDER.SYS_TRANSACTION, FOLDER.SYS_PERIOD);
-
-                        result2.add(create
-                                .newRecord(FOLDER.ID, FOLDER.IN_CONTRIBUTION, FOLDER.NAME, FOLDER.ARCHETYPE_NODE_ID, FOLDER.ACTIVE, FOLDER.DETAILS, FOLDER.SYS_TRANSACTION, FOLDER.SYS_PERIOD)
-                                .values(UUID.fromString("eda6951b-5506-4726-89dc-7032872997ce"), UUID.fromString("af550555-ec91-4025-838d-09ddb4e473cb"), "folder_archetype_nameLeave1", "folder_archetypeLeave.v1", true, null, Timestamp.valueOf("2020-01-15 22:22:22.688"), new AbstractMap.SimpleEntry<>(OffsetDateTime.parse("2020-01-09T11:28:06.7612+00"), OffsetDateTime.parse("2020-01-09T11:39:00.898947+00"))));
-                        mock2[0] = new MockResult(1, result2);
+                        Result<Record11<UUID, UUID, UUID, Timestamp, AbstractMap.SimpleEntry<OffsetDateTime, OffsetDateTime>, String, String, UUID, UUID, Timestamp, AbstractMap.SimpleEntry<OffsetDateTime, OffsetDateTime>>> result2 = create.newResult(FOLDER_ITEMS.FOLDER_ID, FOLDER_ITEMS.OBJECT_REF_ID.as("item_object_ref_id"), FOLDER_ITEMS.IN_CONTRIBUTION.as("item_in_contribution"), FOLDER_ITEMS.SYS_TRANSACTION, FOLDER_ITEMS.SYS_PERIOD, OBJECT_REF.ID_NAMESPACE, OBJECT_REF.TYPE, OBJECT_REF.ID.as("obj_ref_id"), OBJECT_REF.IN_CONTRIBUTION.as("obj_ref_in_cont"), OBJECT_REF.SYS_TRANSACTION.as("objRefSysTran"), OBJECT_REF.SYS_PERIOD.as("oref_sysperiod"));
+                        mock2[0] = new MockResult(0, result2);
                         return mock2;
                     }
-                }else if(sql2.toLowerCase().contains("with")) {
-
-                    if (((Timestamp) ctx.bindings()[0]).before(Timestamp.valueOf("2020-01-15 22:22:22.688"))) {
-
-                        //TABLE RETURNED FOR DELETE FOLDER TEST
-                        if (sql2.toLowerCase().contains("with recursive \"subfolders\" as ((select \"alias_12246427\".\"parent_folder\", \"alias_12246427\".\"child_folder\"")) {
-                            //  if(((UUID)ctx.bindings()[0]).compareTo(UUID.fromString("7f069129-7312-447b-bd71-567305a9a871"))==0) {
-
-                            DateTimeFormatter dateTimeFormatter
-                                    = DateTimeFormat.forPattern("YYYY-MM-dd HH:mm:ss.SSS");
-                            DateTime expected
-                                    = DateTime.parse("2019-06-13 18:10:33.76", dateTimeFormatter);
-                            TimeZone.getTimeZone("UTC");
-                            MockResult[] mock2 = new MockResult[1];
-                            Result<Record15<UUID, UUID, UUID, Timestamp, AbstractMap.SimpleEntry<OffsetDateTime, OffsetDateTime>, UUID, Timestamp, UUID, UUID, String, String, Boolean, ItemStructure, Timestamp, AbstractMap.SimpleEntry<OffsetDateTime, OffsetDateTime>>> result2 =
-                                    create.newResult(FOLDER_HIERARCHY.PARENT_FOLDER, FOLDER_HIERARCHY.CHILD_FOLDER, FOLDER_HIERARCHY.IN_CONTRIBUTION, FOLDER_HIERARCHY.SYS_TRANSACTION, FOLDER_HIERARCHY.SYS_PERIOD, FOLDER_HIERARCHY.PARENT_FOLDER.as("parent_folder_id"), FOLDER_HIERARCHY.SYS_TRANSACTION.as("latest_sys_transaction"), FOLDER_HIERARCHY.PARENT_FOLDER.as("id"), FOLDER_HIERARCHY.IN_CONTRIBUTION.as("in_contribution_folder_info"), FOLDER.NAME, FOLDER.ARCHETYPE_NODE_ID, FOLDER.ACTIVE, FOLDER.DETAILS.as("details"), FOLDER.SYS_TRANSACTION.as("sys_transaction_folder"), FOLDER.SYS_PERIOD.as("sys_period_folder"));
-
-                            result2.add(create
-                                    .newRecord(FOLDER_HIERARCHY.PARENT_FOLDER, FOLDER_HIERARCHY.CHILD_FOLDER, FOLDER_HIERARCHY.IN_CONTRIBUTION, FOLDER_HIERARCHY.SYS_TRANSACTION, FOLDER_HIERARCHY.SYS_PERIOD, FOLDER_HIERARCHY.PARENT_FOLDER.as("parent_folder_id"), FOLDER_HIERARCHY.SYS_TRANSACTION.as("latest_sys_transaction"), FOLDER_HIERARCHY.PARENT_FOLDER.as("id"), FOLDER_HIERARCHY.IN_CONTRIBUTION.as("in_contribution_folder_info"), FOLDER.NAME, FOLDER.ARCHETYPE_NODE_ID, FOLDER.ACTIVE, FOLDER.DETAILS.as("details"), FOLDER.SYS_TRANSACTION.as("sys_transaction_folder"), FOLDER.SYS_PERIOD.as("sys_period_folder"))
-                                    .values(UUID.fromString("7f069129-7312-447b-bd71-567305a9a871"), UUID.fromString("129dc79c-e0bc-4946-bfa6-28ce609bbd2c"), UUID.fromString("00550555-ec91-4025-838d-09ddb4e473cb"), Timestamp.valueOf("2019-12-05 19:00:00.688"), new AbstractMap.SimpleEntry<>(OffsetDateTime.parse("2020-01-09T11:28:32.089794+00"), null), UUID.fromString("7f069129-7312-447b-bd71-567305a9a871"), Timestamp.valueOf("2019-12-05 19:00:00.688"), UUID.fromString("7f069129-7312-447b-bd71-567305a9a871"), UUID.fromString("00550555-ec91-4025-838d-09ddb4e473cb"), "folder_archetype_root init", "folder_archetypeRoot.v1", true, null, Timestamp.valueOf("2019-12-05 19:00:00.688"), new AbstractMap.SimpleEntry<>(OffsetDateTime.parse("2020-01-09T11:27:53.370395+00"), null)));
-                            result2.add(create
-                                    .newRecord(FOLDER_HIERARCHY.PARENT_FOLDER, FOLDER_HIERARCHY.CHILD_FOLDER, FOLDER_HIERARCHY.IN_CONTRIBUTION, FOLDER_HIERARCHY.SYS_TRANSACTION, FOLDER_HIERARCHY.SYS_PERIOD, FOLDER_HIERARCHY.PARENT_FOLDER.as("parent_folder_id"), FOLDER_HIERARCHY.SYS_TRANSACTION.as("latest_sys_transaction"), FOLDER_HIERARCHY.PARENT_FOLDER.as("id"), FOLDER_HIERARCHY.IN_CONTRIBUTION.as("in_contribution_folder_info"), FOLDER.NAME, FOLDER.ARCHETYPE_NODE_ID, FOLDER.ACTIVE, FOLDER.DETAILS.as("details"), FOLDER.SYS_TRANSACTION.as("sys_transaction_folder"), FOLDER.SYS_PERIOD.as("sys_period_folder"))
-                                    .values(UUID.fromString("129dc79c-e0bc-4946-bfa6-28ce609bbd2c"), UUID.fromString("eda6951b-5506-4726-89dc-7032872997ce"), UUID.fromString("00550555-ec91-4025-838d-09ddb4e473cb"), Timestamp.valueOf("2019-12-05 19:00:00.688"), new AbstractMap.SimpleEntry<>(OffsetDateTime.parse("2020-01-09T11:44:43.712587+00"), null), UUID.fromString("129dc79c-e0bc-4946-bfa6-28ce609bbd2c"), Timestamp.valueOf("2019-12-05 19:00:00.688"), UUID.fromString("129dc79c-e0bc-4946-bfa6-28ce609bbd2c"), UUID.fromString("00550555-ec91-4025-838d-09ddb4e473cb"), "folder_archetype_middle1", "folder_archetypemiddle.v1", true, null, Timestamp.valueOf("2019-12-05 19:00:00.688"), new AbstractMap.SimpleEntry<>(OffsetDateTime.parse("2020-01-09T11:27:53.370395+00"), null)));
+                }else if(sql2.toLowerCase().contains("with recursive subfolders(parent_folder")) {
 
+                    MockResult[] mock2 = new MockResult[1];
+                    Result<Record9<UUID, UUID, UUID, String, String, Boolean, ItemStructure, Timestamp, AbstractMap.SimpleEntry<OffsetDateTime, OffsetDateTime>>> result2 = folderVersions(create, (UUID) ctx.bindings()[0], (Timestamp) ctx.bindings()[1]);
+                    mock2[0] = new MockResult(result2.size(), result2);
+                    return mock2;
+                }
+                    throw new SQLException("Statement not currently supported. Consider enhancing or revising the FolderMockDataProvider: " + sql2);
+                }
 
-                            mock2[0] = new MockResult(5, result2);
-                            return mock2;
-                            // }
-
+            /**
+             * Evaluates the recursive folder version query against {@link #FOLDER_VERSIONS} and {@link #HIERARCHIES}: the
+             * latest version of each folder at the timestamp, with the sub folders linked in the contribution of that version.
+             */
+            private static Result<Record9<UUID, UUID, UUID, String, String, Boolean, ItemStructure, Timestamp, AbstractMap.SimpleEntry<OffsetDateTime, OffsetDateTime>>> folderVersions(DSLContext create, UUID folderId, Timestamp timestamp) {
+                Field<UUID> parentFolder = DSL.field(DSL.name("parent_folder"), UUID.class);
+                Result<Record9<UUID, UUID, UUID, String, String, Boolean, ItemStructure, Timestamp, AbstractMap.SimpleEntry<OffsetDateTime, OffsetDateTime>>> result = create.newResult(parentFolder, FOLDER.ID, FOLDER.IN_CONTRIBUTION, FOLDER.NAME, FOLDER.ARCHETYPE_NODE_ID, FOLDER.ACTIVE, FOLDER.DETAILS, FOLDER.SYS_TRANSACTION, FOLDER.SYS_PERIOD);
+
+                Deque<Object[]> pending = new ArrayDeque<>();
+                Object[] top = folderVersion(folderId, timestamp);
+                if (top != null) {
+                    pending.add(new Object[]{null, top});
+                }
+                while (!pending.isEmpty()) {
+                    Object[] next = pending.poll();
+                    Object[] version = (Object[]) next[1];
+                    result.add(create
+                            .newRecord(parentFolder, FOLDER.ID, FOLDER.IN_CONTRIBUTION, FOLDER.NAME, FOLDER.ARCHETYPE_NODE_ID, FOLDER.ACTIVE, FOLDER.DETAILS, FOLDER.SYS_TRANSACTION, FOLDER.SYS_PERIOD)
+                            .values((UUID) next[0], (UUID) version[0], (UUID) version[1], (String) version[2], (String) version[3], true, null, (Timestamp) version[4], new AbstractMap.SimpleEntry<>(OffsetDateTime.parse("2020-01-09T11:27:53.370395+00"), null)));
+
+                    for (UUID[] hierarchy : HIERARCHIES) {
+                        if (hierarchy[0].equals(version[0]) && hierarchy[2].equals(version[1])) {
+                            Object[] child = folderVersion(hierarchy[1], timestamp);
+                            if (child != null) {
+                                pending.add(new Object[]{version[0], child});
+                            }
                         }
-
-                        throw new SQLException("SQL statement not expected. Consider enhancing or revising the FolderMockDataProvider in order to ensure the controlled behaviour of your code: " + sql2);
-
-                    }else{
-
-                    //TABLE RETURNED FOR DELETE FOLDER TEST
-                    if (sql2.toLowerCase().contains("with recursive \"subfolders\" as ((select \"alias_12246427\".\"parent_folder\", \"alias_12246427\".\"child_folder\"")) {
-                        DateTimeFormatter dateTimeFormatter
-                                = DateTimeFormat.forPattern("YYYY-MM-dd HH:mm:ss.SSS");
-                        DateTime expected
-                                = DateTime.parse("2019-06-13 18:10:33.76", dateTimeFormatter);
-                        TimeZone.getTimeZone("UTC");
-                        MockResult[] mock2 = new MockResult[1];
-                        Result<Record15<UUID, UUID, UUID, Timestamp, AbstractMap.SimpleEntry<OffsetDateTime, OffsetDateTime>, UUID, Timestamp, UUID, UUID, String, String, Boolean, ItemStructure, Timestamp, AbstractMap.SimpleEntry<OffsetDateTime, OffsetDateTime>>> result2 =
-                                create.newResult(FOLDER_HIERARCHY.PARENT_FOLDER, FOLDER_HIERARCHY.CHILD_FOLDER, FOLDER_HIERARCHY.IN_CONTRIBUTION, FOLDER_HIERARCHY.SYS_TRANSACTION, FOLDER_HIERARCHY.SYS_PERIOD, FOLDER_HIERARCHY.PARENT_FOLDER.as("parent_folder_id"), FOLDER_HIERARCHY.SYS_TRANSACTION.as("latest_sys_transaction"), FOLDER_HIERARCHY.PARENT_FOLDER.as("id"), FOLDER_HIERARCHY.IN_CONTRIBUTION.as("in_contribution_folder_info"), FOLDER.NAME, FOLDER.ARCHETYPE_NODE_ID, FOLDER.ACTIVE, FOLDER.DETAILS.as("details"), FOLDER.SYS_TRANSACTION.as("sys_transaction_folder"), FOLDER.SYS_PERIOD.as("sys_period_folder"));
-
-                        result2.add(create
-                                .newRecord(FOLDER_HIERARCHY.PARENT_FOLDER, FOLDER_HIERARCHY.CHILD_FOLDER, FOLDER_HIERARCHY.IN_CONTRIBUTION, FOLDER_HIERARCHY.SYS_TRANSACTION, FOLDER_HIERARCHY.SYS_PERIOD, FOLDER_HIERARCHY.PARENT_FOLDER.as("parent_folder_id"), FOLDER_HIERARCHY.SYS_TRANSACTION.as("latest_sys_transaction"), FOLDER_HIERARCHY.PARENT_FOLDER.as("id"), FOLDER_HIERARCHY.IN_CONTRIBUTION.as("in_contribution_folder_info"), FOLDER.NAME, FOLDER.ARCHETYPE_NODE_ID, FOLDER.ACTIVE, FOLDER.DETAILS.as("details"), FOLDER.SYS_TRANSACTION.as("sys_transaction_folder"), FOLDER.SYS_PERIOD.as("sys_period_folder"))
-                                .values(UUID.fromString("7f069129-7312-447b-bd71-567305a9a871"), UUID.fromString("129dc79c-e0bc-4946-bfa6-28ce609bbd2c"), UUID.fromString("00550555-ec91-4025-838d-09ddb4e473cb"), Timestamp.valueOf("2019-12-05 19:00:00.688"), new AbstractMap.SimpleEntry<>(OffsetDateTime.parse("2020-01-09T11:28:32.089794+00"), null), UUID.fromString("7f069129-7312-447b-bd71-567305a9a871"), Timestamp.valueOf("2019-12-05 19:00:00.688"), UUID.fromString("7f069129-7312-447b-bd71-567305a9a871"), UUID.fromString("00550555-ec91-4025-838d-09ddb4e473cb"), "folder_archetype_root init", "folder_archetypeRoot.v1", true, null, Timestamp.valueOf("2019-12-05 19:00:00.688"), new AbstractMap.SimpleEntry<>(OffsetDateTime.parse("2020-01-09T11:27:53.370395+00"), null)));
-                        result2.add(create
-                                .newRecord(FOLDER_HIERARCHY.PARENT_FOLDER, FOLDER_HIERARCHY.CHILD_FOLDER, FOLDER_HIERARCHY.IN_CONTRIBUTION, FOLDER_HIERARCHY.SYS_TRANSACTION, FOLDER_HIERARCHY.SYS_PERIOD, FOLDER_HIERARCHY.PARENT_FOLDER.as("parent_folder_id"), FOLDER_HIERARCHY.SYS_TRANSACTION.as("latest_sys_transaction"), FOLDER_HIERARCHY.PARENT_FOLDER.as("id"), FOLDER_HIERARCHY.IN_CONTRIBUTION.as("in_contribution_folder_info"), FOLDER.NAME, FOLDER.ARCHETYPE_NODE_ID, FOLDER.ACTIVE, FOLDER.DETAILS.as("details"), FOLDER.SYS_TRANSACTION.as("sys_transaction_folder"), FOLDER.SYS_PERIOD.as("sys_period_folder"))
-                                .values(UUID.fromString("129dc79c-e0bc-4946-bfa6-28ce609bbd2c"), UUID.fromString("eda6951b-5506-4726-89dc-7032872997ce"), UUID.fromString("af550555-ec91-4025-838d-09ddb4e473cb"), Timestamp.valueOf("2020-01-15 22:22:22.688"), new AbstractMap.SimpleEntry<>(OffsetDateTime.parse("2020-01-09T11:44:43.712587+00"), null), UUID.fromString("129dc79c-e0bc-4946-bfa6-28ce609bbd2c"), Timestamp.valueOf("2020-01-15 22:22:22.688"), UUID.fromString("129dc79c-e0bc-4946-bfa6-28ce609bbd2c"), UUID.fromString("af550555-ec91-4025-838d-09ddb4e473cb"), "folder_archetype_middle1", "folder_archetypemiddle.v1", true, null, Timestamp.valueOf("2020-01-15 22:22:22.688"), new AbstractMap.SimpleEntry<>(OffsetDateTime.parse("2020-01-09T11:27:53.370395+00"), null)));
-
-
-                        mock2[0] = new MockResult(5, result2);
-                        return mock2;
-
                     }
-                    throw new SQLException("SQL statement not expected. Consider enhancing or revising the FolderMockDataProvider in order to ensure the controlled behaviour of your code: " + sql2);
-                }
                 }
-                    throw new SQLException("Statement not currently supported. Consider enhancing or revising the FolderMockDataProvider: " + sql2);
+                return result;
+            }
+
+            private static Object[] folderVersion(UUID folderId, Timestamp timestamp) {
+                Object[] latest = null;
+                for (Object[] version : FOLDER_VERSIONS) {
+                    Timestamp sysTransaction = (Timestamp) version[4];
+                    if (version[0].equals(folderId) && !sysTransaction.after(timestamp)
+                            && (latest == null || sysTransaction.after((Timestamp) latest[4]))) {
+                        latest = version;
+                    }
                 }
+                return latest;
+            }
+
+            // folder and folder_history rows: id, in_contribution, name, archetype_node_id, sys_transaction
+            private static final Object[][] FOLDER_VERSIONS = {
+                    {UUID.fromString("7f069129-7312-447b-bd71-567305a9a871"), UUID.fromString("00550555-ec91-4025-838d-09ddb4e473cb"), "folder_archetype_root init", "folder_archetypeRoot.v1", Timestamp.valueOf("2019-12-05 19:00:00.688")},
+                    {UUID.fromString("129dc79c-e0bc-4946-bfa6-28ce609bbd2c"), UUID.fromString("00550555-ec91-4025-838d-09ddb4e473cb"), "folder_archetype_middle1", "folder_archetypemiddle.v1", Timestamp.valueOf("2019-12-05 19:00:00.688")},
+                    {UUID.fromString("129dc79c-e0bc-4946-bfa6-28ce609bbd2c"), UUID.fromString("af550555-ec91-4025-838d-09ddb4e473cb"), "folder_archetype_middle1", "folder_archetypemiddle.v1", Timestamp.valueOf("2020-01-15 22:22:22.688")},
+                    {UUID.fromString("eda6951b-5506-4726-89dc-7032872997ce"), UUID.fromString("00550555-ec91-4025-838d-09ddb4e473cb"), "folder_archetype_nameLeave1", "folder_archetypeLeave.v1", Timestamp.valueOf("2019-12-05 19:00:00.688")},
+                    {UUID.fromString("eda6951b-5506-4726-89dc-7032872997ce"), UUID.fromString("af550555-ec91-4025-838d-09ddb4e473cb"), "folder_archetype_nameLeave1", "folder_archetypeLeave.v1", Timestamp.valueOf("2020-01-15 22:22:22.688")},
+
+                    // directory created with two sub folders, then the first one renamed, then the second one removed
+                    {UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e01"), UUID.fromString("c1d2e3f4-0000-4000-8000-000000000001"), "root", "openEHR-EHR-FOLDER.generic.v1", Timestamp.valueOf("2020-02-01 10:00:00.000")},
+                    {UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e02"), UUID.fromString("c1d2e3f4-0000-4000-8000-000000000001"), "subfolder 1", "openEHR-EHR-FOLDER.generic.v1", Timestamp.valueOf("2020-02-01 10:00:00.000")},
+                    {UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e03"), UUID.fromString("c1d2e3f4-0000-4000-8000-000000000001"), "subfolder 2", "openEHR-EHR-FOLDER.generic.v1", Timestamp.valueOf("2020-02-01 10:00:00.000")},
+                    {UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e01"), UUID.fromString("c1d2e3f4-0000-4000-8000-000000000002"), "root", "openEHR-EHR-FOLDER.generic.v1", Timestamp.valueOf("2020-02-02 10:00:00.000")},
+                    {UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e02"), UUID.fromString("c1d2e3f4-0000-4000-8000-000000000002"), "subfolder 1 renamed", "openEHR-EHR-FOLDER.generic.v1", Timestamp.valueOf("2020-02-02 10:00:00.000")},
+                    {UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e01"), UUID.fromString("c1d2e3f4-0000-4000-8000-000000000003"), "root", "openEHR-EHR-FOLDER.generic.v1", Timestamp.valueOf("2020-02-03 10:00:00.000")}
+            };
+
+            // folder_hierarchy and folder_hierarchy_history rows: parent_folder, child_folder, in_contribution
+            private static final UUID[][] HIERARCHIES = {
+                    {UUID.fromString("7f069129-7312-447b-bd71-567305a9a871"), UUID.fromString("129dc79c-e0bc-4946-bfa6-28ce609bbd2c"), UUID.fromString("00550555-ec91-4025-838d-09ddb4e473cb")},
+                    {UUID.fromString("129dc79c-e0bc-4946-bfa6-28ce609bbd2c"), UUID.fromString("eda6951b-5506-4726-89dc-7032872997ce"), UUID.fromString("00550555-ec91-4025-838d-09ddb4e473cb")},
+                    {UUID.fromString("129dc79c-e0bc-4946-bfa6-28ce609bbd2c"), UUID.fromString("eda6951b-5506-4726-89dc-7032872997ce"), UUID.fromString("af550555-ec91-4025-838d-09ddb4e473cb")},
+
+                    {UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e01"), UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e02"), UUID.fromString("c1d2e3f4-0000-4000-8000-000000000001")},
+                    {UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e01"), UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e03"), UUID.fromString("c1d2e3f4-0000-4000-8000-000000000001")},
+                    {UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e01"), UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e02"), UUID.fromString("c1d2e3f4-0000-4000-8000-000000000002")},
+                    {UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e01"), UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e03"), UUID.fromString("c1d2e3f4-0000-4000-8000-000000000002")},
+                    {UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e01"), UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e02"), UUID.fromString("c1d2e3f4-0000-4000-8000-000000000003")}
+            };
         }
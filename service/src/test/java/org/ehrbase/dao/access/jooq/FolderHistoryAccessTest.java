@@ -114,4 +114,32 @@ public class FolderHistoryAccessTest {
         String leaveNodeLatestNamespaceHistorical = returnedHistoricalVersion.getSubfoldersList().get(UUID.fromString("129dc79c-e0bc-4946-bfa6-28ce609bbd2c")).getSubfoldersList().get(UUID.fromString("eda6951b-5506-4726-89dc-7032872997ce")).getItems().get(0).getNamespace();
         assertEquals(leaveNodeLatestNamespaceHistorical, "namespace leave" );
     }
+
+    @Test
+    public void shouldRetrieveUnchangedSubfoldersOfEachVersion(){
+        /**
+         * Version 1 creates a root with "subfolder 1" and "subfolder 2", version 2 renames "subfolder 1" and
+         * version 3 removes "subfolder 2", see FolderAccessHistoryMockDataProvider
+         */
+        FolderHistoryAccess fa1 = new FolderHistoryAccess(testDomainAccess);
+        UUID root = UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e01");
+        UUID subfolder1 = UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e02");
+        UUID subfolder2 = UUID.fromString("3c0bd3ab-6f0a-4a3b-9a6e-5f3a0c1d2e03");
+
+        I_FolderAccess version1 = fa1.retrieveInstanceForExistingFolder(fa1, root, Timestamp.valueOf("2020-02-01 10:00:00.000"));
+        assertThat(version1.getSubfoldersList()).containsOnlyKeys(subfolder1, subfolder2);
+        assertEquals("subfolder 1", version1.getSubfoldersList().get(subfolder1).getFolderName());
+        assertEquals("subfolder 2", version1.getSubfoldersList().get(subfolder2).getFolderName());
+
+        // the unchanged sibling is still part of version 2
+        I_FolderAccess version2 = fa1.retrieveInstanceForExistingFolder(fa1, root, Timestamp.valueOf("2020-02-02 10:00:00.000"));
+        assertThat(version2.getSubfoldersList()).containsOnlyKeys(subfolder1, subfolder2);
+        assertEquals("subfolder 1 renamed", version2.getSubfoldersList().get(subfolder1).getFolderName());
+        assertEquals("subfolder 2", version2.getSubfoldersList().get(subfolder2).getFolderName());
+
+        // the removed sub folder does not come back
+        I_FolderAccess version3 = fa1.retrieveInstanceForExistingFolder(fa1, root, Timestamp.valueOf("2020-02-05 10:00:00.000"));
+        assertThat(version3.getSubfoldersList()).containsOnlyKeys(subfolder1);
+        assertEquals("subfolder 1 renamed", version3.getSubfoldersList().get(subfolder1).getFolderName());
+    }
 }
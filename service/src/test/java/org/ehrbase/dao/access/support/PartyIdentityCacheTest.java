@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehrbase.dao.access.support;
+
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PartyIdentityCacheTest {
+
+    private static final String REF_KEY = PartyIdentityCache.externalRefKey("User", "cbf741ff-9480-4792-8894-13fc5f818b6d");
+
+    @Test
+    public void testKeys() {
+        assertThat(PartyIdentityCache.externalRefKey("DEMOGRAPHIC", "1234")).isNotEqualTo(PartyIdentityCache.identifierKey("1234", "DEMOGRAPHIC"));
+        assertThat(PartyIdentityCache.identifierKey("Dr. Smith", "HOSPITAL")).isNotEqualTo(PartyIdentityCache.systemKey("Dr. Smith"));
+    }
+
+    @Test
+    public void testPutWithoutTransaction() {
+        PartyIdentityCache cut = new PartyIdentityCache();
+        UUID partyId = UUID.randomUUID();
+
+        cut.put(REF_KEY, partyId, cut.generation());
+
+        assertThat(cut.get(REF_KEY)).isEqualTo(partyId);
+        assertThat(cut.get(PartyIdentityCache.identifierKey("1234", "HOSPITAL"))).isNull();
+        assertThat(cut.get(null)).isNull();
+    }
+
+    @Test
+    public void testPutOnCommit() {
+        PartyIdentityCache cut = new PartyIdentityCache();
+        UUID partyId = UUID.randomUUID();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cut.put(REF_KEY, partyId, cut.generation());
+            //not visible to the other transactions yet
+            assertThat(cut.get(REF_KEY)).isNull();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(cut.get(REF_KEY)).isEqualTo(partyId);
+    }
+
+    @Test
+    public void testNotPutOnRollback() {
+        PartyIdentityCache cut = new PartyIdentityCache();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cut.put(REF_KEY, UUID.randomUUID(), cut.generation());
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(cut.get(REF_KEY)).isNull();
+    }
+
+    @Test
+    public void testStaleGeneration() {
+        PartyIdentityCache cut = new PartyIdentityCache();
+        long generation = cut.generation();
+
+        //a party deleted while the id is resolved
+        cut.partyDeleted(UUID.randomUUID());
+        cut.put(REF_KEY, UUID.randomUUID(), generation);
+
+        assertThat(cut.get(REF_KEY)).isNull();
+    }
+
+    @Test
+    public void testPartyDeleted() {
+        PartyIdentityCache cut = new PartyIdentityCache();
+        UUID partyId = UUID.randomUUID();
+        UUID otherPartyId = UUID.randomUUID();
+        String identifierKey = PartyIdentityCache.identifierKey("1234", "HOSPITAL");
+        String otherKey = PartyIdentityCache.identifierKey("5678", "HOSPITAL");
+
+        cut.put(REF_KEY, partyId, cut.generation());
+        cut.put(identifierKey, partyId, cut.generation());
+        cut.put(otherKey, otherPartyId, cut.generation());
+
+        cut.partyDeleted(partyId);
+        assertThat(cut.get(REF_KEY)).isNull();
+        assertThat(cut.get(identifierKey)).isNull();
+        assertThat(cut.get(otherKey)).isEqualTo(otherPartyId);
+
+        cut.keyDeleted(otherKey);
+        assertThat(cut.get(otherKey)).isNull();
+    }
+
+    @Test
+    public void testBounded() {
+        PartyIdentityCache cut = new PartyIdentityCache();
+
+        for (int i = 0; i <= PartyIdentityCache.MAX_ENTRIES; i++)
+            cut.put(PartyIdentityCache.identifierKey(String.valueOf(i), "HOSPITAL"), UUID.randomUUID(), cut.generation());
+
+        assertThat(cut.size()).isLessThanOrEqualTo(PartyIdentityCache.MAX_ENTRIES);
+    }
+}
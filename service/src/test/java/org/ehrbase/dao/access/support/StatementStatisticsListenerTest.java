@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehrbase.dao.access.support;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StatementStatisticsListenerTest {
+
+    private static final Field<Integer> ID = DSL.field("id", Integer.class);
+
+    private DSLContext context;
+
+    @Before
+    public void setUp() {
+        DSLContext create = DSL.using(SQLDialect.POSTGRES);
+
+        MockConnection connection = new MockConnection(ctx -> {
+            if (ctx.sql().startsWith("select")) {
+                Result<Record1<Integer>> result = create.newResult(ID);
+                result.add(create.newRecord(ID).values(1));
+                result.add(create.newRecord(ID).values(2));
+                return new MockResult[]{new MockResult(2, result)};
+            }
+            return new MockResult[]{new MockResult(3, null)};
+        });
+
+        context = DSL.using(new DefaultConfiguration()
+                .set(connection)
+                .set(SQLDialect.POSTGRES)
+                .set(new DefaultExecuteListenerProvider(new StatementStatisticsListener())));
+    }
+
+    @After
+    public void tearDown() {
+        StatementStatistics current = StatementStatistics.current();
+        if (current != null)
+            current.stop();
+    }
+
+    @Test
+    public void testCountStatements() {
+        StatementStatistics statistics = StatementStatistics.start();
+
+        for (int i = 0; i < 3; i++)
+            context.select(ID).from(DSL.table("party")).where(ID.eq(i)).fetch();
+        context.update(DSL.table("party")).set(ID, 0).execute();
+
+        statistics.stop();
+
+        assertThat(statistics.getStatements()).isEqualTo(4);
+        assertThat(statistics.getRows()).isEqualTo(3 * 2 + 3);
+        assertThat(statistics.getNanos()).isPositive();
+
+        Map.Entry<String, Integer> mostRepeated = statistics.mostRepeated();
+        assertThat(mostRepeated.getKey()).startsWith("select id from party where id = ?");
+        assertThat(mostRepeated.getValue()).isEqualTo(3);
+    }
+
+    @Test
+    public void testOutsideOfUnitOfWork() {
+        StatementStatistics statistics = StatementStatistics.start();
+        statistics.stop();
+
+        context.select(ID).from(DSL.table("party")).fetch();
+
+        assertThat(StatementStatistics.current()).isNull();
+        assertThat(statistics.getStatements()).isZero();
+        assertThat(statistics.mostRepeated()).isNull();
+    }
+
+    @Test
+    public void testDistinctStatementsBound() {
+        StatementStatistics statistics = new StatementStatistics();
+
+        for (int i = 0; i < StatementStatistics.MAX_DISTINCT_STATEMENTS + 10; i++)
+            statistics.executed("select " + i, 1, 1);
+        statistics.executed("select 0", 1, 1);
+
+        assertThat(statistics.getStatements()).isEqualTo(StatementStatistics.MAX_DISTINCT_STATEMENTS + 11);
+        assertThat(statistics.mostRepeated().getValue()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,54 @@
+package org.ehrbase.dao.access.util;
+
+import com.nedap.archie.rm.directory.Folder;
+import com.nedap.archie.rm.support.identification.HierObjectId;
+import com.nedap.archie.rm.support.identification.ObjectRef;
+import com.nedap.archie.rm.support.identification.ObjectVersionId;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class FolderUtilsTest {
+
+    private static final String FOLDER_ID = "00550555-ec91-4025-838d-09ddb4e999cb";
+
+    @Test
+    public void testParseFolderUid() {
+        Folder folder = new Folder();
+        assertNull(FolderUtils.parseFolderUid(folder));
+
+        folder.setUid(new ObjectVersionId(FOLDER_ID));
+        assertEquals(UUID.fromString(FOLDER_ID), FolderUtils.parseFolderUid(folder));
+
+        folder.setUid(new ObjectVersionId(FOLDER_ID + "::local.ehrbase.org::2"));
+        assertEquals(UUID.fromString(FOLDER_ID), FolderUtils.parseFolderUid(folder));
+
+        folder.setUid(new HierObjectId("not-a-uuid"));
+        assertNull(FolderUtils.parseFolderUid(folder));
+    }
+
+    @Test
+    public void testSameItems() {
+        String compositionId = "8701233c-c8fd-47ba-91b5-ef9ff23c259b";
+        ObjectRef stored = new ObjectRef<>(new ObjectVersionId(compositionId), "local", "VERSIONED_COMPOSITION");
+        ObjectRef sameReference = new ObjectRef<>(new HierObjectId(compositionId), "local", "VERSIONED_COMPOSITION");
+        ObjectRef otherReference = new ObjectRef<>(new HierObjectId(UUID.randomUUID().toString()), "local", "VERSIONED_COMPOSITION");
+
+        assertTrue(FolderUtils.sameItems(Collections.singletonList(stored), Collections.singletonList(sameReference)));
+        assertFalse(FolderUtils.sameItems(Collections.singletonList(stored), Collections.singletonList(otherReference)));
+        assertFalse(FolderUtils.sameItems(Collections.singletonList(stored), Arrays.asList(sameReference, otherReference)));
+        assertTrue(FolderUtils.sameItems(Collections.emptyList(), Collections.emptyList()));
+    }
+
+    @Test
+    public void testSplitFolderPath() {
+        assertTrue(FolderUtils.splitFolderPath(null).isEmpty());
+        assertTrue(FolderUtils.splitFolderPath("/").isEmpty());
+        assertEquals(Arrays.asList("episodes", "2020", "lab"), FolderUtils.splitFolderPath("/episodes//2020/lab/"));
+        assertEquals(Collections.singletonList("episodes"), FolderUtils.splitFolderPath("episodes"));
+    }
+}
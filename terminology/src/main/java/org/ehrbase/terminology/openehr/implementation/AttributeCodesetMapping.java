@@ -28,6 +28,7 @@ import java.io.InputStream;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -37,6 +38,39 @@ import java.util.stream.Collectors;
  */
 public class AttributeCodesetMapping {
 
+	/**
+	 * An attribute of a terminology resolved for a language: the language actually used (English if the attribute is
+	 * not localized in the requested one), the id of its codeset or group and the container type
+	 */
+	public static class AttributeCodeset {
+		private final String language;
+		private final String attributeId;
+		private final ContainerType containerType;
+
+		AttributeCodeset(String language, String attributeId, ContainerType containerType) {
+			this.language = language;
+			this.attributeId = attributeId;
+			this.containerType = containerType;
+		}
+
+		public String getLanguage() {
+			return language;
+		}
+
+		public String getAttributeId() {
+			return attributeId;
+		}
+
+		public ContainerType getContainerType() {
+			return containerType;
+		}
+	}
+
+	//null terminology, attribute or language, not accepted as a key by ConcurrentHashMap
+	private static final String NULL_KEY = "\u0000";
+
+	//<terminology, <attribute, <language, resolution>>>
+	private final Map<String, Map<String, Map<String, AttributeCodeset>>> attributeCodesets = new ConcurrentHashMap<>();
 
 	private Map<String, Map<String, AttributeGroupMap>> groupMaps;
 	private static final String ATTRIBUTE_MAP_DEFINITION = "attribute_to_openehr_codesets.xml";
@@ -119,6 +153,29 @@ public class AttributeCodesetMapping {
 		return new AttributeGroupMap(rmAttribute, container, matcherMap);
 	}
 
+	/**
+	 * Same as {@link #isLocalizedAttribute}, {@link #actualAttributeId} and {@link #containerType} in a single call.
+	 * The resolution is computed once per terminology, attribute and language, the following calls are map lookups
+	 * only.
+	 *
+	 * @throws IllegalArgumentException if the attribute is not defined in the terminology
+	 */
+	public AttributeCodeset attributeCodeset(String terminology, String attribute, String language) {
+		Map<String, AttributeCodeset> byLanguage = attributeCodesets
+				.computeIfAbsent(terminology == null ? NULL_KEY : terminology, k -> new ConcurrentHashMap<>())
+				.computeIfAbsent(attribute == null ? NULL_KEY : attribute, k -> new ConcurrentHashMap<>());
+
+		String languageKey = language == null ? NULL_KEY : language;
+		AttributeCodeset attributeCodeset = byLanguage.get(languageKey);
+		if (attributeCodeset == null) {
+			//not cached if the attribute can't be resolved
+			String actualLanguage = isLocalizedAttribute(terminology, attribute, language) ? language : "en";
+			attributeCodeset = new AttributeCodeset(actualLanguage, actualAttributeId(terminology, attribute, actualLanguage), containerType(terminology, attribute));
+			byLanguage.put(languageKey, attributeCodeset);
+		}
+		return attributeCodeset;
+	}
+
 	public String actualAttributeId(String terminology, String attribute, String language){
 		if (attribute == null){
 			return null;
@@ -40,6 +40,10 @@ import org.ehrbase.terminology.openehr.TerminologyAccess;
 
 /**
  * Simple in-memory implementation of a terminology access
+ * <p>
+ * The codes are compiled at load time into lookup tables keyed by the interned code strings: the groups of a code are
+ * a bitset indexed by group, so that a membership check ({@link #hasCodeForGroupId}) is two lookups and a bit test,
+ * without allocation.
  * 
  * @author Rong Chen
  */
@@ -52,7 +56,10 @@ public class SimpleTerminologyAccess implements TerminologyAccess {
 	 */
 	SimpleTerminologyAccess(String id) {
 		this.id = id;
+		this.terminologyId = new TerminologyId(id);
 		this.groups = new HashMap<>();
+		this.groupIndexes = new HashMap<>();
+		this.groupsByCode = new HashMap<>();
 		this.groupLangNameToId = new HashMap<>();
 		this.codeRubrics = new HashMap<>();
 	}
@@ -71,19 +78,34 @@ public class SimpleTerminologyAccess implements TerminologyAccess {
 	void addGroup(String groupId, Collection<String> codes, 
 			Map<String, String> names) {
 		
+		groupId = groupId.intern();
+		Integer groupIndex = groupIndexes.get(groupId);
+		if(groupIndex == null) {
+			groupIndex = groupIndexes.size();
+			groupIndexes.put(groupId, groupIndex);
+		} else {
+			//the group is replaced
+			for(BitSet codeGroups : groupsByCode.values()) {
+				codeGroups.clear(groupIndex);
+			}
+		}
+
 		Set<CodePhrase> group = new HashSet<>();
 		for(String c : codes) {
-			CodePhrase code = new CodePhrase(new TerminologyId(id), c);
+			String codeString = c.intern();
+			CodePhrase code = new CodePhrase(terminologyId, codeString);
 			group.add(code);
+			groupsByCode.computeIfAbsent(codeString, k -> new BitSet()).set(groupIndex);
 		}
-		groups.put(groupId, group);
+		groups.put(groupId, Collections.unmodifiableSet(group));
+		allCodes = null;
 		for(Map.Entry<String, String> entry : names.entrySet()) {
-			String lang = entry.getKey();
+			String lang = entry.getKey().intern();
 			Map<String, String> nameToId = groupLangNameToId.get(lang);
 			if(nameToId == null) {
 				nameToId = new HashMap<>();
 			}
-			String name = entry.getValue();
+			String name = entry.getValue().intern();
 			
 			nameToId.put(name, groupId);
 			groupLangNameToId.put(lang, nameToId);
@@ -101,9 +123,9 @@ public class SimpleTerminologyAccess implements TerminologyAccess {
 		Map<String, String> map = codeRubrics.get(lang);
 		if(map == null) {
 			map = new HashMap<>();
-			codeRubrics.put(lang, map);
+			codeRubrics.put(lang.intern(), map);
 		}
-		map.put(code, rubric);
+		map.put(code.intern(), rubric.intern());
 	}
 	
 	/**
@@ -114,11 +136,17 @@ public class SimpleTerminologyAccess implements TerminologyAccess {
 	}
 
 	public Set<CodePhrase> allCodes() {
-		Set<CodePhrase> allCodes = new HashSet<>();
-		for(Set<CodePhrase> codes : groups.values()) {
-			allCodes.addAll(codes);
+		Set<CodePhrase> codes = allCodes;
+		if(codes == null) {
+			//computed once loaded
+			Set<CodePhrase> union = new HashSet<>();
+			for(Set<CodePhrase> group : groups.values()) {
+				union.addAll(group);
+			}
+			codes = Collections.unmodifiableSet(union);
+			allCodes = codes;
 		}
-		return allCodes;
+		return codes;
 	}
 
 	public Set<CodePhrase> codesForGroupId(String groupID) {
@@ -129,7 +157,7 @@ public class SimpleTerminologyAccess implements TerminologyAccess {
 		Map<String, String> map = groupLangNameToId.get(language);
 		if(map == null) {
 			//default to English
-			map = codeRubrics.get("en");
+			map = groupLangNameToId.get("en");
 		}
 		String groupId = map.get(name);
 		return groups.get(groupId);
@@ -145,23 +173,44 @@ public class SimpleTerminologyAccess implements TerminologyAccess {
 	}
 	
 	public boolean hasCodeForGroupId(String groupId, CodePhrase code) {
-		Set<CodePhrase> group = groups.get(groupId);
-		if(group == null) {
+		Integer groupIndex = groupIndexes.get(groupId);
+		if(groupIndex == null || code == null || code.getTerminologyId() == null
+				|| !id.equals(code.getTerminologyId().getValue())) {
 			return false;
 		}
-		return group.contains(code);
+		BitSet codeGroups = groupsByCode.get(code.getCodeString());
+		return codeGroups != null && codeGroups.get(groupIndex);
 	}
 
 	/*
 	 * Id of this terminology
 	 */	
 	private final String id;
+
+	private final TerminologyId terminologyId;
 	
 	/*
 	 * Groups indexed by group id
 	 * <groupId, group of codes>
 	 */
 	private final Map<String, Set<CodePhrase>> groups;
+
+	/*
+	 * Bit index of each group
+	 * <groupId, index>
+	 */
+	private final Map<String, Integer> groupIndexes;
+
+	/*
+	 * Groups of each code, as a bitset of group indexes
+	 * <code string, groups>
+	 */
+	private final Map<String, BitSet> groupsByCode;
+
+	/*
+	 * All the codes, computed on first use
+	 */
+	private volatile Set<CodePhrase> allCodes;
 	
 	/**
 	 * GroupIds indexed by language and group name
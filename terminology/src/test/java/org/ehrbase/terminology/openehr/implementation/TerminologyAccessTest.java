@@ -55,6 +55,29 @@ public class TerminologyAccessTest {
         assertFalse(terminologyAccess.hasCodeForGroupId("setting", new CodePhrase(new TerminologyId("openehr"), "240"))); //bad code string
     }
 
+    @Test
+    public void testHasCodeForGroupIdMismatch() {
+        //same code string, other terminology
+        assertFalse(terminologyAccess.hasCodeForGroupId("setting", new CodePhrase(new TerminologyId("local"), "237")));
+        //undefined group
+        assertFalse(terminologyAccess.hasCodeForGroupId("no such group", new CodePhrase(new TerminologyId("openehr"), "237")));
+        //code of another group
+        assertFalse(terminologyAccess.hasCodeForGroupId("setting", new CodePhrase(new TerminologyId("openehr"), "433")));
+        assertTrue(terminologyAccess.hasCodeForGroupId("composition category", new CodePhrase(new TerminologyId("openehr"), "433")));
+    }
+
+    @Test
+    public void testAllCodesIsShared() {
+        Set<CodePhrase> codePhrases = terminologyAccess.allCodes();
+        assertSame(codePhrases, terminologyAccess.allCodes());
+        try {
+            codePhrases.clear();
+            fail("codes should not be modifiable");
+        } catch (UnsupportedOperationException e) {
+            assertEquals(216, terminologyAccess.allCodes().size());
+        }
+    }
+
     @Test
     public void labelForCodeTest(){
         assertEquals("nursing home care", terminologyAccess.rubricForCode("237", "en"));
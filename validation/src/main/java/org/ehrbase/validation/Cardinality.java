@@ -26,15 +26,28 @@ import org.ehrbase.validation.constraints.wrappers.IntervalComparator;
 import org.ehrbase.validation.constraints.wrappers.ValidationException;
 import com.nedap.archie.rm.archetyped.Locatable;
 
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Cardinality checks of a locatable.
+ *
+ * The items found at a path, the element counts of the traversed nodes and the transitive optionality of paths are
+ * memoized for the lifetime of this object: an instance is bound to one locatable and one validation.
+ */
 public class Cardinality {
 
     private ConstraintMapper constraintMapper;
     private Locatable locatable;
     private boolean lenient;
 
+    private final Map<String, List<Object>> itemsAtPath = new HashMap<>();
+    private final Map<Object, Integer> nodeCounts = new IdentityHashMap<>();
+    private final Map<String, Integer> elementCountAtPath = new HashMap<>();
+    private final Map<String, Boolean> transitivelyOptional = new HashMap<>();
+
     public Cardinality(ConstraintMapper constraintMapper, Locatable locatable, Boolean lenient) {
         this.constraintMapper = constraintMapper;
         this.locatable = locatable;
@@ -50,9 +63,7 @@ public class Cardinality {
     public void check(Locatable structure, String path, ConstraintMapper.CardinalityItem cardinalityItem){
         Object locatable = structure.itemAtPath(path);
 
-        NodeCounter counter =  new NodeCounter();
-        counter.count(locatable);
-        Integer childOccurrence = counter.getCount();
+        Integer childOccurrence = countElements(locatable);
 
         try {
             IntervalComparator.isWithinBoundaries(childOccurrence, cardinalityItem.getCardinality());
@@ -78,6 +89,10 @@ public class Cardinality {
      * @return
      */
     public boolean isTransitivelyOptional(String path) {
+        return transitivelyOptional.computeIfAbsent(path, this::resolveTransitivelyOptional);
+    }
+
+    private boolean resolveTransitivelyOptional(String path) {
 
 //        return false;
 
@@ -90,9 +105,7 @@ public class Cardinality {
                 ConstraintOccurrences occurrences = constraintMapper.getOccurrencesMap().get(checkPath);
                 if (occurrences.isOptional()) {
                     //check if this optional node contains any datavalue element in its children
-                    NodeCounter counter =  new NodeCounter();
-                    counter.count(locatable.itemsAtPath(checkPath));
-                    Integer elementCount = counter.getCount();
+                    Integer elementCount = elementCountAtPath.computeIfAbsent(checkPath, p -> countElements(itemsAtPath(p)));
                     if (elementCount > 0)
                         return false;
                     else
@@ -122,7 +135,7 @@ public class Cardinality {
         for (Map.Entry<String, ConstraintMapper.CardinalityItem> entry: constraintMapper.getCardinalityList().entrySet()){
             valcount++;
             //get the corresponding node
-            List<Object> item = locatable.itemsAtPath(entry.getKey());
+            List<Object> item = itemsAtPath(entry.getKey());
 //
 //            NodeCounter counter =  new NodeCounter();
 //            counter.count(item);
@@ -145,4 +158,19 @@ public class Cardinality {
 //        log.debug("Validated "+valcount+" cardinality constraints");
         return exceptions.toString();
     }
+
+    /**
+     * get the items at a path of the validated locatable
+     * @param path an archetype path
+     * @return the list of items found at this path, the same list is returned for subsequent calls
+     */
+    public List<Object> itemsAtPath(String path) {
+        return itemsAtPath.computeIfAbsent(path, locatable::itemsAtPath);
+    }
+
+    private int countElements(Object node) {
+        NodeCounter counter = new NodeCounter(nodeCounts);
+        counter.count(node);
+        return counter.getCount();
+    }
 }
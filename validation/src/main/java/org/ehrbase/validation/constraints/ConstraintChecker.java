@@ -85,7 +85,7 @@ public class ConstraintChecker {
                     else {
                         if (constraint instanceof OptConstraintMapper.OptConstraintItem) {
 
-                            new CArchetypeConstraint(constraintMapper.getLocalTerminologyLookup()).validate(constraint.getPath(), referenceElement, ((OptConstraintMapper.OptConstraintItem) constraint).getConstraint());
+                            new CArchetypeConstraint(constraintMapper.getLocalTerminologyLookup(), constraintMapper.getConstraintCache()).validate(constraint.getPath(), referenceElement, ((OptConstraintMapper.OptConstraintItem) constraint).getConstraint());
                         }
                     }
                 }
@@ -96,7 +96,7 @@ public class ConstraintChecker {
         }
         else {
             if (constraint instanceof OptConstraintMapper.OptConstraintItem) {
-                new CArchetypeConstraint(constraintMapper.getLocalTerminologyLookup()).validate(constraint.getPath(), referenceElement, ((OptConstraintMapper.OptConstraintItem) constraint).getConstraint());
+                new CArchetypeConstraint(constraintMapper.getLocalTerminologyLookup(), constraintMapper.getConstraintCache()).validate(constraint.getPath(), referenceElement, ((OptConstraintMapper.OptConstraintItem) constraint).getConstraint());
             }
         }
 
@@ -128,7 +128,7 @@ public class ConstraintChecker {
             Map.Entry<String, ConstraintMapper.ConstraintItem> watch = iterator.next();
             String path = watch.getKey();
 
-            for (Object pathItem : locatable.itemsAtPath(path)) {
+            for (Object pathItem : cardinality.itemsAtPath(path)) {
                 if (pathItem instanceof Locatable) {
                     Locatable item = (Locatable) pathItem;
 
@@ -21,6 +21,7 @@
 
 package org.ehrbase.validation.constraints;
 
+import org.ehrbase.validation.constraints.wrappers.ConstraintCache;
 import org.ehrbase.validation.constraints.wrappers.IntervalComparator;
 import org.ehrbase.validation.constraints.wrappers.ValidationException;
 import com.nedap.archie.base.MultiplicityInterval;
@@ -41,6 +42,7 @@ public abstract class ConstraintMapper implements Serializable {
 
     protected Map<String, Map<String, String>> localTerminologyLookup;
     protected boolean lenient;
+    private transient ConstraintCache constraintCache;
 
     public class OccurrenceItem implements Serializable {
         private ConstraintOccurrences constraintOccurrences;
@@ -109,6 +111,15 @@ public abstract class ConstraintMapper implements Serializable {
         return localTerminologyLookup;
     }
 
+    /**
+     * @return the cache of values derived from the mapped constraints, shared by all validations using this mapper
+     */
+    public ConstraintCache getConstraintCache() {
+        if (constraintCache == null)
+            constraintCache = new ConstraintCache();
+        return constraintCache;
+    }
+
     public boolean isValidNode(String path) {
         return validNodeList.contains(path);
     }
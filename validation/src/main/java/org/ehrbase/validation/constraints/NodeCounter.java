@@ -25,74 +25,104 @@ import com.nedap.archie.rm.composition.*;
 import com.nedap.archie.rm.datastructures.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
+ * Count the elements with a value (or a null flavour) in an RM structure.
+ *
+ * If a memo is passed, the count of each visited node is kept in it (by identity) so that nested structures
+ * shared by several checks of the same locatable are traversed only once.
+ *
  * Created by christian on 8/22/2016.
  */
 public class NodeCounter {
 
     private Integer count;
+    private final Map<Object, Integer> memo;
 
     public NodeCounter() {
+        this(null);
+    }
+
+    public NodeCounter(Map<Object, Integer> memo) {
         count = 0;
+        this.memo = memo;
     }
 
     public void count(Object locatable){
+        count += countOf(locatable);
+    }
+
+    private int countOf(Object locatable) {
 
         if (locatable == null) //end of recursion
-            return;
+            return 0;
 
-        if (locatable instanceof List)
-            for (Object item: (List)locatable) {
-                count(item);
+        if (locatable instanceof List) {
+            //lists may be built on the fly (e.g. itemsAtPath), they are not memoized
+            int total = 0;
+            for (Object item : (List) locatable) {
+                total += countOf(item);
             }
-        else if (locatable instanceof Cluster){
-            count(((Cluster) locatable).getItems());
+            return total;
+        }
+
+        if (memo == null)
+            return countNode(locatable);
+
+        Integer memoized = memo.get(locatable);
+        if (memoized == null) {
+            memoized = countNode(locatable);
+            memo.put(locatable, memoized);
+        }
+        return memoized;
+    }
+
+    private int countNode(Object locatable) {
+        if (locatable instanceof Cluster){
+            return countOf(((Cluster) locatable).getItems());
         }
         else if (locatable instanceof Event) {
-            count(((Event) locatable).getData());
-            count(((Event) locatable).getState());
+            return countOf(((Event) locatable).getData()) + countOf(((Event) locatable).getState());
         }
         else if (locatable instanceof Element){
             //TODO: check for nil value && nullFlavor?
             if (((Element) locatable).getNullFlavour() != null || ((Element) locatable).getValue() != null)
-                count++;
+                return 1;
+            return 0;
         }
         else if (locatable instanceof ItemTree)
-            count(((ItemTree) locatable).getItems());
+            return countOf(((ItemTree) locatable).getItems());
         else if (locatable instanceof ItemList)
-            count(((ItemList) locatable).getItems());
+            return countOf(((ItemList) locatable).getItems());
         else if (locatable instanceof ItemSingle)
-            count += ((ItemSingle) locatable).getItem() != null ? 1 : 0;
+            return ((ItemSingle) locatable).getItem() != null ? 1 : 0;
         else if (locatable instanceof Section)
-            count(((Section) locatable).getItems());
+            return countOf(((Section) locatable).getItems());
         else if (locatable instanceof Evaluation) {
-            count(((Evaluation) locatable).getData());
-            count(((Evaluation) locatable).getProtocol());
+            return countOf(((Evaluation) locatable).getData()) + countOf(((Evaluation) locatable).getProtocol());
         }
         else if (locatable instanceof Observation) {
-            count(((Observation) locatable).getData());
-            count(((Observation) locatable).getProtocol());
+            return countOf(((Observation) locatable).getData()) + countOf(((Observation) locatable).getProtocol());
         }
         else if (locatable instanceof Instruction) {
-            count(((Instruction) locatable).getActivities());
-            count(((Instruction) locatable).getProtocol());
+            return countOf(((Instruction) locatable).getActivities()) + countOf(((Instruction) locatable).getProtocol());
         }
         else if (locatable instanceof Action) {
-            count(((Action) locatable).getDescription());
-            count(((Action) locatable).getProtocol());
+            return countOf(((Action) locatable).getDescription()) + countOf(((Action) locatable).getProtocol());
         }
         else if (locatable instanceof Activity) {
-            count(((Activity) locatable).getDescription());
+            return countOf(((Activity) locatable).getDescription());
         }
         else if (locatable instanceof History) {
-            count(((History) locatable).getEvents());
+            return countOf(((History) locatable).getEvents());
         }
         else if (locatable instanceof Composition) {
 //            count(((Composition)locatable).getContent());
+            return 0;
         }
         else if (locatable instanceof AdminEntry) {
-            count(((AdminEntry) locatable).getData());
+            return countOf(((AdminEntry) locatable).getData());
         }
         else
             throw new IllegalArgumentException("Unhandled data type:"+locatable+ ", class:"+locatable.getClass().getCanonicalName());
@@ -23,7 +23,6 @@ package org.ehrbase.validation.constraints.hardwired;
 
 import org.ehrbase.validation.constraints.ConstraintMapper;
 import org.ehrbase.validation.constraints.OptConstraintMapper;
-import org.ehrbase.validation.constraints.wrappers.IntervalComparator;
 import org.ehrbase.validation.constraints.wrappers.ValidationException;
 import org.openehr.schemas.v1.CARDINALITY;
 import org.openehr.schemas.v1.CATTRIBUTE;
@@ -65,7 +64,7 @@ public abstract class StructureConstraint {
                     ValidationException.raise(path, "Only one event is allowed in history", "HIS02");
 
                 //check within boundaries
-                IntervalComparator.isWithinBoundaries(eventsOccurrences, cardinality.getInterval());
+                constraintMapper.getConstraintCache().interval(cardinality.getInterval()).check(eventsOccurrences);
             }
         }
 
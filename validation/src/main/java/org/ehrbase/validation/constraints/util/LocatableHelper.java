@@ -24,6 +24,7 @@ package org.ehrbase.validation.constraints.util;
 import com.nedap.archie.rm.archetyped.Locatable;
 
 import java.util.*;
+import java.util.regex.Pattern;
 
 /**
  * ETHERCIS Project ehrservice
@@ -43,6 +44,10 @@ public class LocatableHelper {
     public static final String PATH_SEPARATOR = "/";
     public static final String ROOT = PATH_SEPARATOR;
 
+    //segment with a predicate split by a '/' (e.g. [at0006 and name/value='any event'])
+    private static final Pattern OPEN_PREDICATE = Pattern.compile(".+\\[.+[^\\]]$");
+    private static final Pattern CLOSED_PREDICATE = Pattern.compile(".*]$");
+
     private Map<String, Integer> arrayItemPathMap = new HashMap<>(); //contains the list of array insertion paths for a template
 
     public LocatableHelper() {
@@ -327,7 +332,7 @@ public class LocatableHelper {
         for (int i = 0; i < segments.size(); i++) {
             String segment = segments.get(i);
             if (segment.contains(AND_NAME_VALUE_TOKEN) || segment.contains(COMMA_TOKEN)) {
-                String trimmedNodeId = segment.contains(AND_NAME_VALUE_TOKEN) ? segment.split(AND_NAME_VALUE_TOKEN)[0] : segment.split(COMMA_TOKEN)[0];
+                String trimmedNodeId = segment.substring(0, segment.indexOf(segment.contains(AND_NAME_VALUE_TOKEN) ? AND_NAME_VALUE_TOKEN : COMMA_TOKEN));
                 tentativePath.append(trimmedNodeId.trim());
                 tentativePath.append(CLOSE_BRACKET);
             } else
@@ -352,7 +357,10 @@ public class LocatableHelper {
             String segment = segments.get(i);
             if (segment.contains(AND_NAME_VALUE_TOKEN) || segment.contains(COMMA_TOKEN)) {
 
-                String namePart = segment.contains(AND_NAME_VALUE_TOKEN) ? segment.split(AND_NAME_VALUE_TOKEN)[1] : segment.split(COMMA_TOKEN)[1];
+                String token = segment.contains(AND_NAME_VALUE_TOKEN) ? AND_NAME_VALUE_TOKEN : COMMA_TOKEN;
+                int start = segment.indexOf(token) + token.length();
+                int end = segment.indexOf(token, start);
+                String namePart = end < 0 ? segment.substring(start) : segment.substring(start, end);
                 if (namePart.contains(INDEX_PREFIX_TOKEN))
                     return true;
             }
@@ -362,7 +370,7 @@ public class LocatableHelper {
     }
 
     public static Object itemAtPath(Locatable locatable, String path) {
-        return locatable.itemAtPath(path.replaceAll(AND_NAME_VALUE_TOKEN, COMMA_TOKEN));
+        return locatable.itemAtPath(path.replace(AND_NAME_VALUE_TOKEN, COMMA_TOKEN));
     }
 
     /**
@@ -373,8 +381,9 @@ public class LocatableHelper {
      */
     public static Integer retrieveIndexValue(String nodeId) {
         if (nodeId.contains(INDEX_PREFIX_TOKEN)) {
-            Integer indexValue = Integer.valueOf((nodeId.split(INDEX_PREFIX_TOKEN)[1]).split("']")[0]);
-            return indexValue;
+            int start = nodeId.indexOf(INDEX_PREFIX_TOKEN) + INDEX_PREFIX_TOKEN.length();
+            int end = nodeId.indexOf("']", start);
+            return Integer.valueOf(end < 0 ? nodeId.substring(start) : nodeId.substring(start, end));
         }
         return null;
     }
@@ -420,10 +429,10 @@ public class LocatableHelper {
         StringTokenizer tokens = new StringTokenizer(path, "/");
         while(tokens.hasMoreTokens()) {
             String next = tokens.nextToken();
-            if (next.matches(".+\\[.+[^\\]]$")) {
+            if (OPEN_PREDICATE.matcher(next).matches()) {
                 do {
                     next = next + "/" + tokens.nextToken();
-                } while (!next.matches(".*]$"));
+                } while (!CLOSED_PREDICATE.matcher(next).matches());
             }
             segments.add(next);
         }
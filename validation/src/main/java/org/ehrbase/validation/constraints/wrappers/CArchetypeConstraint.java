@@ -33,15 +33,19 @@ import java.util.Map;
 public class CArchetypeConstraint extends CConstraint implements I_CArchetypeConstraintValidate {
 
     public CArchetypeConstraint(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+        this(localTerminologyLookup, new ConstraintCache());
+    }
+
+    public CArchetypeConstraint(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
     public void validate(String path, Object aValue, ARCHETYPECONSTRAINT archetypeconstraint) throws Exception {
         if (archetypeconstraint instanceof COBJECT)
-            new CObject(localTerminologyLookup).validate(path, aValue, (COBJECT) archetypeconstraint);
+            new CObject(localTerminologyLookup, constraintCache).validate(path, aValue, (COBJECT) archetypeconstraint);
         else if (archetypeconstraint instanceof CATTRIBUTE)
-            new CAttribute(localTerminologyLookup).validate(path, aValue, (CATTRIBUTE) archetypeconstraint);
+            new CAttribute(localTerminologyLookup, constraintCache).validate(path, aValue, (CATTRIBUTE) archetypeconstraint);
         else
             throw new IllegalArgumentException("INTERNAL: could not resolve archetypeconstraint type:" + archetypeconstraint);
     }
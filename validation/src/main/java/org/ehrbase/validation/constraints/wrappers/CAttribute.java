@@ -27,7 +27,6 @@ import com.nedap.archie.rm.datavalues.DataValue;
 import com.nedap.archie.rm.datavalues.DvCodedText;
 import com.nedap.archie.rm.datavalues.DvText;
 import org.apache.commons.lang3.text.WordUtils;
-import org.apache.xmlbeans.SchemaType;
 import org.openehr.schemas.v1.ARCHETYPECONSTRAINT;
 import org.openehr.schemas.v1.CATTRIBUTE;
 import org.openehr.schemas.v1.CMULTIPLEATTRIBUTE;
@@ -48,8 +47,8 @@ public class CAttribute extends CConstraint implements I_CArchetypeConstraintVal
 
     boolean isAttributeResolved = false; //true if a getter or function has been found
 
-    protected CAttribute(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CAttribute(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
@@ -58,16 +57,14 @@ public class CAttribute extends CConstraint implements I_CArchetypeConstraintVal
 //            throw new IllegalArgumentException("INTERNAL: constraint is not a C_ATTRIBUTE");
 
         //change the XML type to match the XML expression
-        SchemaType type = I_CArchetypeConstraintValidate.findSchemaType(I_CArchetypeConstraintValidate.getXmlType(archetypeconstraint));
-
-        CATTRIBUTE attribute = (CATTRIBUTE) archetypeconstraint.changeType(type);
+        CATTRIBUTE attribute = constraintCache.typed(archetypeconstraint);
 
         if (attribute.getRmAttributeName().equals("defining_code")) {
             if (aValue instanceof DvCodedText)
                 //process this DvText as a DvCodedText
-                new CDvCodedText(localTerminologyLookup).validate(path, aValue, attribute);
+                new CDvCodedText(localTerminologyLookup, constraintCache).validate(path, aValue, attribute);
             else if (aValue instanceof DvText)
-                new CDvText(localTerminologyLookup).validate(path, aValue, attribute);
+                new CDvText(localTerminologyLookup, constraintCache).validate(path, aValue, attribute);
             return;
         }
 
@@ -92,9 +89,9 @@ public class CAttribute extends CConstraint implements I_CArchetypeConstraintVal
         }
 
         if (attribute instanceof CSINGLEATTRIBUTE) {
-            new CSingleAttribute(localTerminologyLookup).validate(path, value, (CSINGLEATTRIBUTE) attribute);
+            new CSingleAttribute(localTerminologyLookup, constraintCache).validate(path, value, (CSINGLEATTRIBUTE) attribute);
         } else if (attribute instanceof CMULTIPLEATTRIBUTE) {
-            new CMultipleAttribute(localTerminologyLookup).validate(path, value, (CMULTIPLEATTRIBUTE) attribute);
+            new CMultipleAttribute(localTerminologyLookup, constraintCache).validate(path, value, (CMULTIPLEATTRIBUTE) attribute);
         }
     }
 
@@ -37,8 +37,8 @@ import java.util.Map;
  */
 public class CBoolean extends CConstraint implements I_CTypeValidate {
 
-    protected CBoolean(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CBoolean(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
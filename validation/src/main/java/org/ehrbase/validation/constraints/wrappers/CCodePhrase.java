@@ -37,8 +37,8 @@ import java.util.Map;
  */
 public class CCodePhrase extends CConstraint implements I_CArchetypeConstraintValidate {
 
-    protected CCodePhrase(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CCodePhrase(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
@@ -41,8 +41,8 @@ public class CComplexObject extends CConstraint implements I_CArchetypeConstrain
 
     static Logger logger = LogManager.getLogger(CComplexObject.class);
 
-    protected CComplexObject(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CComplexObject(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     public void validate(String path, Object value, ARCHETYPECONSTRAINT constraint) throws Exception {
@@ -56,11 +56,11 @@ public class CComplexObject extends CConstraint implements I_CArchetypeConstrain
         for (CATTRIBUTE cattribute : ccomplexobject.getAttributesArray()) {
 //            if (cattribute.getRmAttributeName().equals("DV_CODED_TEXT") && (value instanceof DvText)){
 //                //validate this DvText as a DvCodedText... (just check the value == matching local terminology entry
-//                new CDvText(localTerminologyLookup).validate(path, value, cattribute);
+//                new CDvText(localTerminologyLookup, constraintCache).validate(path, value, cattribute);
 //            }
 //            else
             try {
-                new CAttribute(localTerminologyLookup).validate(path, value, cattribute);
+                new CAttribute(localTerminologyLookup, constraintCache).validate(path, value, cattribute);
             } catch (ValidationException e) {
                 lastException = e;
                 ++failCount;
@@ -32,9 +32,11 @@ import java.util.Map;
 public abstract class CConstraint {
 
     protected Map<String, Map<String, String>> localTerminologyLookup;
+    protected ConstraintCache constraintCache;
 
-    protected CConstraint(Map<String, Map<String, String>> localTerminologyLookup) {
+    protected CConstraint(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
         this.localTerminologyLookup = localTerminologyLookup;
+        this.constraintCache = constraintCache;
     }
 
 }
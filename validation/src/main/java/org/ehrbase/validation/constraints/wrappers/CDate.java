@@ -40,8 +40,8 @@ import java.util.Map;
  */
 public class CDate extends CConstraint implements I_CTypeValidate {
 
-    protected CDate(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CDate(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
@@ -59,7 +59,7 @@ public class CDate extends CConstraint implements I_CTypeValidate {
         DvDate date = new DvDate(dvDateStr);
 
         if (cdate.isSetRange())
-            IntervalComparator.isWithinBoundaries(date, cdate.getRange());
+            IntervalComparator.isWithinBoundaries(date, constraintCache.interval(cdate.getRange()));
 
         validateTimeZone(path, date, cdate);
     }
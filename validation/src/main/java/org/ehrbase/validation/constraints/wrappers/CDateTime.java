@@ -40,8 +40,8 @@ import java.util.Map;
  */
 public class CDateTime extends CConstraint implements I_CTypeValidate {
 
-    protected CDateTime(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CDateTime(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
@@ -58,7 +58,7 @@ public class CDateTime extends CConstraint implements I_CTypeValidate {
         DvDateTime dateTime = new DvDateTime(dvDateStr);
 
         if (cdatetime.isSetRange())
-            IntervalComparator.isWithinBoundaries(dateTime, cdatetime.getRange());
+            IntervalComparator.isWithinBoundaries(dateTime, constraintCache.interval(cdatetime.getRange()));
 
         validateTimeZone(path, dateTime, cdatetime);
     }
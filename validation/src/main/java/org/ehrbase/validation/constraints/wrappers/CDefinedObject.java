@@ -37,19 +37,19 @@ import java.util.Map;
  */
 public class CDefinedObject extends CConstraint implements I_CArchetypeConstraintValidate {
 
-    protected CDefinedObject(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CDefinedObject(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
     public void validate(String path, Object aValue, ARCHETYPECONSTRAINT archetypeconstraint) throws Exception {
 
         if (archetypeconstraint instanceof CCOMPLEXOBJECT)
-            new CComplexObject(localTerminologyLookup).validate(path, aValue, archetypeconstraint);
+            new CComplexObject(localTerminologyLookup, constraintCache).validate(path, aValue, archetypeconstraint);
         else if (archetypeconstraint instanceof CPRIMITIVEOBJECT)
-            new CPrimitive(localTerminologyLookup).validate(path, aValue, archetypeconstraint);
+            new CPrimitive(localTerminologyLookup, constraintCache).validate(path, aValue, archetypeconstraint);
         else if (archetypeconstraint instanceof CDOMAINTYPE)
-            new CDomainType(localTerminologyLookup).validate(path, aValue, archetypeconstraint);
+            new CDomainType(localTerminologyLookup, constraintCache).validate(path, aValue, archetypeconstraint);
         else
             throw new IllegalArgumentException("INTERNAL: unsupported CDefinedObject:" + archetypeconstraint);
     }
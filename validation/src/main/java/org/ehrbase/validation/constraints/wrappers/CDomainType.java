@@ -34,21 +34,21 @@ import java.util.Map;
  */
 public class CDomainType extends CConstraint implements I_CArchetypeConstraintValidate {
 
-    protected CDomainType(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CDomainType(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
     public void validate(String path, Object aValue, ARCHETYPECONSTRAINT archetypeconstraint) throws Exception {
 
         if (archetypeconstraint instanceof CDVORDINAL)
-            new CDvOrdinal(localTerminologyLookup).validate(path, aValue, archetypeconstraint);
+            new CDvOrdinal(localTerminologyLookup, constraintCache).validate(path, aValue, archetypeconstraint);
         else if (archetypeconstraint instanceof CCODEPHRASE)
-            new CCodePhrase(localTerminologyLookup).validate(path, aValue, archetypeconstraint);
+            new CCodePhrase(localTerminologyLookup, constraintCache).validate(path, aValue, archetypeconstraint);
         else if (archetypeconstraint instanceof CDVQUANTITY)
-            new CDvQuantity(localTerminologyLookup).validate(path, aValue, archetypeconstraint);
+            new CDvQuantity(localTerminologyLookup, constraintCache).validate(path, aValue, archetypeconstraint);
         else if (archetypeconstraint instanceof CDVSTATE)
-            new CDvState(localTerminologyLookup).validate(path, aValue, archetypeconstraint);
+            new CDvState(localTerminologyLookup, constraintCache).validate(path, aValue, archetypeconstraint);
         else
             throw new IllegalArgumentException("INTERNAL: unsupported CDOMAINTYPE:" + archetypeconstraint);
 
@@ -24,6 +24,7 @@ package org.ehrbase.validation.constraints.wrappers;
 import org.openehr.schemas.v1.CDURATION;
 import org.openehr.schemas.v1.CPRIMITIVE;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.Map;
 
@@ -37,8 +38,8 @@ import java.util.Map;
  */
 public class CDuration extends CConstraint implements I_CTypeValidate {
 
-    protected CDuration(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CDuration(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
@@ -57,6 +58,6 @@ public class CDuration extends CConstraint implements I_CTypeValidate {
 
         //range check
         if (cduration.isSetRange())
-            IntervalComparator.isWithinBoundaries(dvDurationStr, cduration.getRange());
+            constraintCache.interval(cduration.getRange()).check(Duration.parse(dvDurationStr));
     }
 }
@@ -43,8 +43,8 @@ public class CDvCodedText extends CConstraint implements I_CArchetypeConstraintV
 
     Logger logger = LogManager.getLogger(CDvCodedText.class);
 
-    protected CDvCodedText(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CDvCodedText(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
@@ -61,7 +61,7 @@ public class CDvCodedText extends CConstraint implements I_CArchetypeConstraintV
         if (object instanceof COBJECT){
             String rmTypeName = ((COBJECT)object).getRmTypeName();
             SchemaType type = rmTypeName.equals("CODE_PHRASE") ? CCODEPHRASE.type : XmlObject.type;
-            object = ((COBJECT) object).changeType(type);
+            object = constraintCache.typed((COBJECT) object, type);
         }
 
         if (!(object instanceof CCODEPHRASE)) {
@@ -75,7 +75,7 @@ public class CDvCodedText extends CConstraint implements I_CArchetypeConstraintV
         CCODEPHRASE ccodephrase = (CCODEPHRASE) object;
 
         //use code phrase validation checker
-        new CArchetypeConstraint(localTerminologyLookup).validate(path, checkValue.getDefiningCode(), ccodephrase);
+        new CArchetypeConstraint(localTerminologyLookup, constraintCache).validate(path, checkValue.getDefiningCode(), ccodephrase);
 
         if (ccodephrase.isSetTerminologyId() && ccodephrase.getTerminologyId() != null  && ccodephrase.getTerminologyId().getValue() != null && (ccodephrase.getTerminologyId().getValue().equals("local") || ccodephrase.getTerminologyId().getValue().equals("openehr"))) //if null, the terminology is let free and we cannot check the code
             checkCodedValue(path, checkValue);
@@ -38,8 +38,8 @@ import java.util.Map;
  */
 public class CDvOrdinal extends CConstraint implements I_CArchetypeConstraintValidate {
 
-    protected CDvOrdinal(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CDvOrdinal(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
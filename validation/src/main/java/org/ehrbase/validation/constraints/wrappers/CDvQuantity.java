@@ -25,11 +25,7 @@ import com.nedap.archie.rm.datavalues.quantity.DvQuantity;
 import org.apache.commons.lang3.StringUtils;
 import org.openehr.schemas.v1.ARCHETYPECONSTRAINT;
 import org.openehr.schemas.v1.CDVQUANTITY;
-import org.openehr.schemas.v1.CQUANTITYITEM;
-import org.openehr.schemas.v1.IntervalOfReal;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -41,8 +37,8 @@ import java.util.Map;
  */
 public class CDvQuantity extends CConstraint implements I_CArchetypeConstraintValidate {
 
-    protected CDvQuantity(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CDvQuantity(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     public void validate(String path, Object aValue, ARCHETYPECONSTRAINT archetypeconstraint) throws Exception {
@@ -57,32 +53,21 @@ public class CDvQuantity extends CConstraint implements I_CArchetypeConstraintVa
         if (quantity.getUnits() == null)
             ValidationException.raise(path, "No units specified for item:" + quantity + " at path:" + path, "DV_QUANTITY_02");
 
-        List<String> stringBuffer = new ArrayList<>();
-        match_value:
-        {
-            if (constraint.sizeOfListArray() == 0) //no units specified in constraint
-                break match_value;
-            for (CQUANTITYITEM cquantityitem : constraint.getListArray()) {
-                //check if this item matches the defined unit
-                if (!cquantityitem.getUnits().equals(quantity.getUnits())) {
-                    stringBuffer.add(cquantityitem.getUnits());
-                    continue;
-                }
-                if (cquantityitem.isSetMagnitude()) {
-                    IntervalOfReal magnitudes = cquantityitem.getMagnitude();
-                    IntervalComparator.isWithinBoundaries(new Float(quantity.getMagnitude()), magnitudes);
-                }
-                if (cquantityitem.isSetMagnitude() && quantity.getMagnitude() != null) {
-                    Long precision = quantity.getPrecision();
-                    if (precision != null) {
-                        IntervalComparator.isWithinPrecision(precision.intValue(), cquantityitem.getPrecision());
-                    }
-                }
-                break match_value; //comparison done with a matching unit
-            }
+        Map<String, ConstraintCache.QuantityItem> quantityItems = constraintCache.quantityItems(constraint);
+        if (quantityItems.isEmpty()) //no units specified in constraint
+            return;
 
-            ValidationException.raise(path, "No matching units for:" + (StringUtils.isNotEmpty(quantity.getUnits()) ? quantity.getUnits() : "*undef*") + ", expected units:" + String.join(",", stringBuffer), "DV_QUANTITY_03");
+        //check if an item matches the defined unit
+        ConstraintCache.QuantityItem quantityItem = quantityItems.get(quantity.getUnits());
+        if (quantityItem == null)
+            ValidationException.raise(path, "No matching units for:" + (StringUtils.isNotEmpty(quantity.getUnits()) ? quantity.getUnits() : "*undef*") + ", expected units:" + String.join(",", quantityItems.keySet()), "DV_QUANTITY_03");
 
+        if (quantityItem.getMagnitude() != null) {
+            quantityItem.getMagnitude().check(new Float(quantity.getMagnitude()));
+            Long precision = quantity.getPrecision();
+            if (precision != null) {
+                IntervalComparator.isWithinPrecision(precision.intValue(), quantityItem.getPrecision());
+            }
         }
     }
 }
@@ -38,8 +38,8 @@ import java.util.Map;
  */
 public class CDvState extends CConstraint implements I_CArchetypeConstraintValidate {
 
-    protected CDvState(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CDvState(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
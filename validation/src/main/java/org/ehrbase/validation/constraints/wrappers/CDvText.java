@@ -42,8 +42,8 @@ public class CDvText extends CConstraint implements I_CArchetypeConstraintValida
 
     Logger logger = LogManager.getLogger(CDvText.class);
 
-    protected CDvText(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CDvText(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
@@ -38,8 +38,8 @@ import java.util.Map;
  */
 public class CInteger extends CConstraint implements I_CTypeValidate {
 
-    protected CInteger(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CInteger(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
@@ -58,7 +58,7 @@ public class CInteger extends CConstraint implements I_CTypeValidate {
 
         IntervalOfInteger intervalOfInteger = cinteger.getRange();
         if (intervalOfInteger != null)
-            IntervalComparator.isWithinBoundaries(integer, intervalOfInteger);
+            constraintCache.interval(intervalOfInteger).check(integer);
 
         //check within value list if specified
         if (cinteger.sizeOfListArray() > 0 && !ArrayUtils.contains(cinteger.getListArray(), integer))
@@ -34,8 +34,8 @@ import java.util.Map;
  */
 public class CMultipleAttribute extends CConstraint implements I_CArchetypeConstraintValidate {
 
-    protected CMultipleAttribute(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CMultipleAttribute(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
@@ -47,11 +47,11 @@ public class CMultipleAttribute extends CConstraint implements I_CArchetypeConst
         IntervalOfInteger intervalOfInteger = cardinality.getInterval();
 
         //check if children cardinality is within constraint
-        IntervalComparator.isWithinBoundaries(cmultipleattribute.sizeOfChildrenArray(), intervalOfInteger);
+        constraintCache.interval(intervalOfInteger).check(cmultipleattribute.sizeOfChildrenArray());
 
         if (cmultipleattribute.sizeOfChildrenArray() > 0) {
             for (COBJECT cobject : cmultipleattribute.getChildrenArray())
-                new CObject(localTerminologyLookup).validate(path, aValue, cobject);
+                new CObject(localTerminologyLookup, constraintCache).validate(path, aValue, cobject);
         }
 
     }
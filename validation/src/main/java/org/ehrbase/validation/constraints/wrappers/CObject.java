@@ -21,7 +21,6 @@
 
 package org.ehrbase.validation.constraints.wrappers;
 
-import org.apache.xmlbeans.SchemaType;
 import org.openehr.schemas.v1.ARCHETYPECONSTRAINT;
 import org.openehr.schemas.v1.CCOMPLEXOBJECT;
 import org.openehr.schemas.v1.CDOMAINTYPE;
@@ -38,22 +37,21 @@ import java.util.Map;
  */
 public class CObject extends CConstraint implements I_CArchetypeConstraintValidate {
 
-    protected CObject(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CObject(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
     public void validate(String path, Object aValue, ARCHETYPECONSTRAINT archetypeconstraint) throws Exception {
 
-        SchemaType type = I_CArchetypeConstraintValidate.findSchemaType(I_CArchetypeConstraintValidate.getXmlType(archetypeconstraint));
-        Object constraint = archetypeconstraint.changeType(type);
+        Object constraint = constraintCache.typed(archetypeconstraint);
 
         if (constraint instanceof CCOMPLEXOBJECT)
-            new CComplexObject(localTerminologyLookup).validate(path, aValue, (CCOMPLEXOBJECT) constraint);
+            new CComplexObject(localTerminologyLookup, constraintCache).validate(path, aValue, (CCOMPLEXOBJECT) constraint);
         else if (constraint instanceof CPRIMITIVEOBJECT)
-            new CPrimitive(localTerminologyLookup).validate(path, aValue, (CPRIMITIVEOBJECT) constraint);
+            new CPrimitive(localTerminologyLookup, constraintCache).validate(path, aValue, (CPRIMITIVEOBJECT) constraint);
         else if (constraint instanceof CDOMAINTYPE)
-            new CDomainType(localTerminologyLookup).validate(path, aValue, (CDOMAINTYPE) constraint);
+            new CDomainType(localTerminologyLookup, constraintCache).validate(path, aValue, (CDOMAINTYPE) constraint);
         else
             throw new IllegalArgumentException("INTERNAL: unsupported COBJECT:" + archetypeconstraint);
 
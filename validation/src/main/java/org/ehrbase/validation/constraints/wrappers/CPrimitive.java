@@ -33,8 +33,8 @@ import java.util.Map;
  * Created by christian on 7/24/2016.
  */
 public class CPrimitive extends CConstraint implements I_CArchetypeConstraintValidate {
-    protected CPrimitive(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CPrimitive(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
@@ -47,21 +47,21 @@ public class CPrimitive extends CConstraint implements I_CArchetypeConstraintVal
         CPRIMITIVEOBJECT constraint = (CPRIMITIVEOBJECT) archetypeconstraint;
 
         if (rmTypeName.equals("BOOLEAN"))
-            new CBoolean(localTerminologyLookup).validate(path, aValue, (CBOOLEAN) constraint.getItem().changeType(CBOOLEAN.type));
+            new CBoolean(localTerminologyLookup, constraintCache).validate(path, aValue, constraintCache.typed(constraint.getItem(), CBOOLEAN.type));
         else if (rmTypeName.equals("STRING"))
-            new CString(localTerminologyLookup).validate(path, aValue, (CSTRING) constraint.getItem().changeType(CSTRING.type));
+            new CString(localTerminologyLookup, constraintCache).validate(path, aValue, constraintCache.typed(constraint.getItem(), CSTRING.type));
         else if (rmTypeName.equals("INTEGER"))
-            new CInteger(localTerminologyLookup).validate(path, aValue, (CINTEGER) constraint.getItem().changeType(CINTEGER.type));
+            new CInteger(localTerminologyLookup, constraintCache).validate(path, aValue, constraintCache.typed(constraint.getItem(), CINTEGER.type));
         else if (rmTypeName.equals("REAL"))
-            new CReal(localTerminologyLookup).validate(path, aValue, (CREAL) constraint.getItem().changeType(CREAL.type));
+            new CReal(localTerminologyLookup, constraintCache).validate(path, aValue, constraintCache.typed(constraint.getItem(), CREAL.type));
         else if (rmTypeName.equals("DATE"))
-            new CDate(localTerminologyLookup).validate(path, aValue, (CDATE) constraint.getItem().changeType(CDATE.type));
+            new CDate(localTerminologyLookup, constraintCache).validate(path, aValue, constraintCache.typed(constraint.getItem(), CDATE.type));
         else if (rmTypeName.equals("DATE_TIME"))
-            new CDateTime(localTerminologyLookup).validate(path, aValue, (CDATETIME) constraint.getItem().changeType(CDATETIME.type));
+            new CDateTime(localTerminologyLookup, constraintCache).validate(path, aValue, constraintCache.typed(constraint.getItem(), CDATETIME.type));
         else if (rmTypeName.equals("TIME"))
-            new CTime(localTerminologyLookup).validate(path, aValue, (CTIME) constraint.getItem().changeType(CTIME.type));
+            new CTime(localTerminologyLookup, constraintCache).validate(path, aValue, constraintCache.typed(constraint.getItem(), CTIME.type));
         else if (rmTypeName.equals("DURATION"))
-            new CDuration(localTerminologyLookup).validate(path, aValue, (CDURATION) constraint.getItem().changeType(CDURATION.type));
+            new CDuration(localTerminologyLookup, constraintCache).validate(path, aValue, constraintCache.typed(constraint.getItem(), CDURATION.type));
         else
             throw new IllegalArgumentException("INTERNAL: unsupported CPRIMIITVE:" + archetypeconstraint);
     }
@@ -37,8 +37,8 @@ import java.util.Map;
  * Created by christian on 7/23/2016.
  */
 public class CReal extends CConstraint implements I_CTypeValidate {
-    protected CReal(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CReal(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
@@ -58,7 +58,7 @@ public class CReal extends CConstraint implements I_CTypeValidate {
 
         IntervalOfReal intervalOfReal = creal.getRange();
         if (intervalOfReal != null)
-            IntervalComparator.isWithinBoundaries(aFloat, intervalOfReal);
+            constraintCache.interval(intervalOfReal).check(aFloat);
 
         //check within value list if specified
         if (creal.sizeOfListArray() > 0 && !ArrayUtils.contains(creal.getListArray(), aFloat))
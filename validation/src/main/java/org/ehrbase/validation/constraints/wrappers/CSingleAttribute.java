@@ -36,8 +36,8 @@ import java.util.Map;
  */
 public class CSingleAttribute extends CConstraint implements I_CArchetypeConstraintValidate {
 
-    protected CSingleAttribute(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CSingleAttribute(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
@@ -51,7 +51,7 @@ public class CSingleAttribute extends CConstraint implements I_CArchetypeConstra
             for (COBJECT cobject : csingleattribute.getChildrenArray()) {
                 //multiple rules for a specific item, at least one must be verified
                 try {
-                    new CObject(localTerminologyLookup).validate(path, aValue, cobject);
+                    new CObject(localTerminologyLookup, constraintCache).validate(path, aValue, cobject);
                 } catch (Exception e) {
                     if (messageBuffer.length() > 0)
                         messageBuffer.append(", ");
@@ -34,8 +34,8 @@ import java.util.Map;
  * Created by christian on 7/22/2016.
  */
 public class CString extends CConstraint implements I_CTypeValidate {
-    protected CString(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CString(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
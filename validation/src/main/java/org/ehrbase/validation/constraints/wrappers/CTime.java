@@ -39,8 +39,8 @@ import java.util.Map;
  * Created by christian on 7/22/2016.
  */
 public class CTime extends CConstraint implements I_CTypeValidate {
-    protected CTime(Map<String, Map<String, String>> localTerminologyLookup) {
-        super(localTerminologyLookup);
+    protected CTime(Map<String, Map<String, String>> localTerminologyLookup, ConstraintCache constraintCache) {
+        super(localTerminologyLookup, constraintCache);
     }
 
     @Override
@@ -59,7 +59,7 @@ public class CTime extends CConstraint implements I_CTypeValidate {
         DvTime time = new DvTime(dvTimeStr);
 
         if (ctime.isSetRange())
-            IntervalComparator.isWithinBoundaries(time, ctime.getRange());
+            IntervalComparator.isWithinBoundaries(time, constraintCache.interval(ctime.getRange()));
 
         validateTimeZone(path, time, ctime);
     }
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.validation.constraints.wrappers;
+
+import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.XmlObject;
+import org.openehr.schemas.v1.ARCHETYPECONSTRAINT;
+import org.openehr.schemas.v1.CDVQUANTITY;
+import org.openehr.schemas.v1.CQUANTITYITEM;
+import org.openehr.schemas.v1.IntervalOfDate;
+import org.openehr.schemas.v1.IntervalOfDateTime;
+import org.openehr.schemas.v1.IntervalOfDuration;
+import org.openehr.schemas.v1.IntervalOfInteger;
+import org.openehr.schemas.v1.IntervalOfReal;
+import org.openehr.schemas.v1.IntervalOfTime;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Values derived from the OPT constraints of a template, computed on first use and reused for the lifetime of the
+ * constraint mapper (and hence of the cached validator) holding this cache.
+ *
+ * Entries are keyed on the XMLBeans constraint objects themselves: mutable XmlObjects use identity equality, the
+ * cache is therefore scoped to the constraint tree it has been populated from.
+ */
+public class ConstraintCache {
+
+    private final Map<XmlObject, XmlObject> typedConstraints = new ConcurrentHashMap<>();
+    private final Map<XmlObject, XmlObject> typedItems = new ConcurrentHashMap<>();
+    private final Map<XmlObject, ParsedInterval<?>> intervals = new ConcurrentHashMap<>();
+    private final Map<CDVQUANTITY, Map<String, QuantityItem>> quantityItems = new ConcurrentHashMap<>();
+
+    /**
+     * Parsed boundaries of a C_QUANTITY_ITEM
+     */
+    public static class QuantityItem {
+        private final ParsedInterval<Float> magnitude;
+        private final ParsedInterval<Integer> precision;
+
+        QuantityItem(CQUANTITYITEM cquantityitem) {
+            this.magnitude = cquantityitem.isSetMagnitude() ? ParsedInterval.of(cquantityitem.getMagnitude()) : null;
+            this.precision = cquantityitem.getPrecision() != null ? ParsedInterval.of(cquantityitem.getPrecision()) : null;
+        }
+
+        /**
+         * @return the magnitude interval or null if the magnitude is not constrained
+         */
+        public ParsedInterval<Float> getMagnitude() {
+            return magnitude;
+        }
+
+        /**
+         * @return the precision interval or null if the precision is not constrained
+         */
+        public ParsedInterval<Integer> getPrecision() {
+            return precision;
+        }
+    }
+
+    /**
+     * get the constraint typed after its xsi:type attribute
+     * @param archetypeconstraint the constraint as found in the OPT
+     * @return the constraint with its actual schema type
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends XmlObject> T typed(ARCHETYPECONSTRAINT archetypeconstraint) {
+        return (T) typedConstraints.computeIfAbsent(archetypeconstraint, constraint -> {
+            SchemaType type = I_CArchetypeConstraintValidate.findSchemaType(I_CArchetypeConstraintValidate.getXmlType((ARCHETYPECONSTRAINT) constraint));
+            return constraint.changeType(type);
+        });
+    }
+
+    /**
+     * get a constraint item with the passed schema type
+     * @param item a constraint item (e.g. the C_PRIMITIVE item of a C_PRIMITIVE_OBJECT)
+     * @param type the schema type matching the RM type name of the item
+     * @return the typed item
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends XmlObject> T typed(XmlObject item, SchemaType type) {
+        return (T) typedItems.computeIfAbsent(item, constraint -> constraint.changeType(type));
+    }
+
+    @SuppressWarnings("unchecked")
+    public ParsedInterval<Integer> interval(IntervalOfInteger intervalOfInteger) {
+        return (ParsedInterval<Integer>) intervals.computeIfAbsent(intervalOfInteger, interval -> ParsedInterval.of((IntervalOfInteger) interval));
+    }
+
+    @SuppressWarnings("unchecked")
+    public ParsedInterval<Float> interval(IntervalOfReal intervalOfReal) {
+        return (ParsedInterval<Float>) intervals.computeIfAbsent(intervalOfReal, interval -> ParsedInterval.of((IntervalOfReal) interval));
+    }
+
+    @SuppressWarnings("unchecked")
+    public ParsedInterval<ZonedDateTime> interval(IntervalOfDate intervalOfDate) {
+        return (ParsedInterval<ZonedDateTime>) intervals.computeIfAbsent(intervalOfDate, interval -> ParsedInterval.of((IntervalOfDate) interval));
+    }
+
+    @SuppressWarnings("unchecked")
+    public ParsedInterval<ZonedDateTime> interval(IntervalOfDateTime intervalOfDateTime) {
+        return (ParsedInterval<ZonedDateTime>) intervals.computeIfAbsent(intervalOfDateTime, interval -> ParsedInterval.of((IntervalOfDateTime) interval));
+    }
+
+    @SuppressWarnings("unchecked")
+    public ParsedInterval<ZonedDateTime> interval(IntervalOfTime intervalOfTime) {
+        return (ParsedInterval<ZonedDateTime>) intervals.computeIfAbsent(intervalOfTime, interval -> ParsedInterval.of((IntervalOfTime) interval));
+    }
+
+    @SuppressWarnings("unchecked")
+    public ParsedInterval<Duration> interval(IntervalOfDuration intervalOfDuration) {
+        return (ParsedInterval<Duration>) intervals.computeIfAbsent(intervalOfDuration, interval -> ParsedInterval.of((IntervalOfDuration) interval));
+    }
+
+    /**
+     * get the quantity items of a C_DV_QUANTITY indexed by units, in constraint order. If a unit is listed more
+     * than once, the first item is kept.
+     * @param cdvquantity the constraint
+     * @return the items by units, empty if the units are not constrained
+     */
+    public Map<String, QuantityItem> quantityItems(CDVQUANTITY cdvquantity) {
+        return quantityItems.computeIfAbsent(cdvquantity, constraint -> {
+            Map<String, QuantityItem> items = new LinkedHashMap<>();
+            for (CQUANTITYITEM cquantityitem : constraint.getListArray())
+                items.putIfAbsent(cquantityitem.getUnits(), new QuantityItem(cquantityitem));
+            return Collections.unmodifiableMap(items);
+        });
+    }
+}
@@ -22,7 +22,6 @@
 package org.ehrbase.validation.constraints.wrappers;
 
 import org.ehrbase.validation.constraints.ConstraintOccurrences;
-import org.ehrbase.validation.constraints.util.ZonedDateTimeUtil;
 import com.nedap.archie.rm.datavalues.quantity.datetime.DvDate;
 import com.nedap.archie.rm.datavalues.quantity.datetime.DvDateTime;
 import com.nedap.archie.rm.datavalues.quantity.datetime.DvTime;
@@ -30,7 +29,6 @@ import org.openehr.schemas.v1.*;
 
 import java.time.Duration;
 import java.time.ZonedDateTime;
-import java.time.temporal.ChronoUnit;
 
 /**
  * Created by christian on 7/20/2016.
@@ -41,89 +39,30 @@ import java.time.temporal.ChronoUnit;
  */
 public class IntervalComparator {
 
-    //lower exclusive, upper exclusive
-    private static void isWithinLxUx(Comparable value, Comparable lower, Comparable upper) throws Exception {
-        if (value.compareTo(lower) > 0 && value.compareTo(upper) < 0) return;
-        throw new IllegalArgumentException("value is not within interval, expected:" + lower + " < " + value + " < " + upper);
-    }
-
-    //lower inclusive, upper exclusive
-    private static void isWithinLiUx(Comparable value, Comparable lower, Comparable upper) throws Exception {
-        if (value.compareTo(lower) >= 0 && value.compareTo(upper) < 0) return;
-        throw new IllegalArgumentException("value is not within interval, expected:" + lower + " <= " + value + " < " + upper);
-    }
-
-    //lower exclusive, upper inclusive
-    private static void isWithinLxUi(Comparable value, Comparable lower, Comparable upper) throws Exception {
-        if (value.compareTo(lower) > 0 && value.compareTo(upper) <= 0) return;
-        throw new IllegalArgumentException("value is not within interval, expected:" + lower + " < " + value + " <= " + upper);
-    }
-
-    //lower inclusive, upper inclusive
-    private static void isWithinLiUi(Comparable value, Comparable lower, Comparable upper) throws Exception {
-        if (value.compareTo(lower) >= 0 && value.compareTo(upper) <= 0) return;
-        throw new IllegalArgumentException("value is not within interval, expected:" + lower + " <= " + value + " <= " + upper);
-    }
-
-    private static void compareWithinInterval(Comparable value, Interval interval, Comparable lower, Comparable upper) throws Exception {
-        boolean isLowerIncluded = (interval.isSetLowerIncluded() ? interval.getLowerIncluded() : false);
-        boolean isUpperIncluded = (interval.isSetUpperIncluded() ? interval.getUpperIncluded() : false);
-
-        if (isLowerIncluded && isUpperIncluded)
-            isWithinLiUi(value, lower, upper);
-        else if (isLowerIncluded && !isUpperIncluded)
-            isWithinLiUx(value, lower, upper);
-        else if (!isLowerIncluded && isUpperIncluded)
-            isWithinLxUi(value, lower, upper);
-        else if (!isLowerIncluded && !isUpperIncluded)
-            isWithinLxUx(value, lower, upper);
-    }
-
-//    private static void compareWithinInterval(Comparable value, ConstraintOccurrences occurrences, Comparable lower, Comparable upper) throws Exception {
-//        boolean isLowerIncluded = (occurrences.getLowerIncluded() ? occurrences.getLowerIncluded() : false);
-//        boolean isUpperIncluded = (occurrences.getLowerIncluded() ? occurrences.getUpperIncluded() : false);
-//
-//        if (isLowerIncluded && isUpperIncluded)
-//            isWithinLiUi(value, lower, upper);
-//        else if (isLowerIncluded && !isUpperIncluded)
-//            isWithinLiUx(value, lower, upper);
-//        else if (!isLowerIncluded && isUpperIncluded)
-//            isWithinLxUi(value, lower, upper);
-//        else if (!isLowerIncluded && !isUpperIncluded)
-//            isWithinLxUx(value, lower, upper);
-//    }
-
-
     public static void isWithinBoundaries(Float real, IntervalOfReal intervalOfReal) throws Exception {
-        Float lower = (intervalOfReal.isSetLower() ? intervalOfReal.getLower() : Float.MIN_VALUE);
-        Float upper = (intervalOfReal.isSetUpper() ? intervalOfReal.getUpper() : Float.MAX_VALUE);
-
-        compareWithinInterval(real, intervalOfReal, lower, upper);
+        ParsedInterval.of(intervalOfReal).check(real);
     }
 
     public static void isWithinBoundaries(Integer integer, IntervalOfInteger intervalOfInteger) throws Exception {
-        Integer lower = (intervalOfInteger.isSetLower() ? intervalOfInteger.getLower() : Integer.MIN_VALUE);
-        Integer upper = (intervalOfInteger.isSetUpper() ? intervalOfInteger.getUpper() : Integer.MAX_VALUE);
-
-        compareWithinInterval(integer, intervalOfInteger, lower, upper);
+        ParsedInterval.of(intervalOfInteger).check(integer);
     }
 
     public static void isWithinBoundaries(Integer integer, ConstraintOccurrences occurrences) throws Exception {
-        Integer lower = occurrences.getLower();
-        Integer upper = occurrences.getUpper();
-
-        compareWithinInterval(integer, makeOptInterval(occurrences.asInterval()), lower, upper);
+        ParsedInterval.of(occurrences).check(integer);
     }
 
     public static void isWithinPrecision(Integer integer, IntervalOfInteger intervalOfInteger) throws Exception {
         if (intervalOfInteger == null)
             return;
-        Integer lower = (intervalOfInteger.isSetLower() ? intervalOfInteger.getLower() : Integer.MIN_VALUE);
-        Integer upper = (intervalOfInteger.isSetUpper() ? intervalOfInteger.getUpper() : Integer.MAX_VALUE);
+        isWithinPrecision(integer, ParsedInterval.of(intervalOfInteger));
+    }
 
+    public static void isWithinPrecision(Integer integer, ParsedInterval<Integer> precision) {
+        if (precision == null)
+            return;
         try {
-            compareWithinInterval(integer, intervalOfInteger, lower, upper);
-        } catch (Exception e) {
+            precision.check(integer);
+        } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Precision:" + e.getMessage());
         }
     }
@@ -136,44 +75,31 @@ public class IntervalComparator {
     }
 
     public static void isWithinBoundaries(DvDate date, IntervalOfDate intervalOfDate) throws Exception {
+        isWithinBoundaries(date, ParsedInterval.of(intervalOfDate));
+    }
 
-        ZonedDateTime valueDate = ZonedDateTime.from(date.getValue());
-
-        isWithinBoundaries(valueDate, intervalOfDate);
+    public static void isWithinBoundaries(DvDate date, ParsedInterval<ZonedDateTime> interval) {
+        interval.check(ZonedDateTime.from(date.getValue()));
     }
 
     public static void isWithinBoundaries(DvDateTime dateTime, IntervalOfDateTime intervalOfDateTime) throws Exception {
+        isWithinBoundaries(dateTime, ParsedInterval.of(intervalOfDateTime));
+    }
 
-        ZonedDateTime valueDate = ZonedDateTime.from(dateTime.getValue());
-
-        isWithinBoundaries(valueDate, intervalOfDateTime);
+    public static void isWithinBoundaries(DvDateTime dateTime, ParsedInterval<ZonedDateTime> interval) {
+        interval.check(ZonedDateTime.from(dateTime.getValue()));
     }
 
     public static void isWithinBoundaries(DvTime dateTime, IntervalOfTime intervalOfTime) throws Exception {
+        isWithinBoundaries(dateTime, ParsedInterval.of(intervalOfTime));
+    }
 
-        ZonedDateTime valueDate = ZonedDateTime.from(dateTime.getValue());
-
-        isWithinBoundaries(valueDate, intervalOfTime);
+    public static void isWithinBoundaries(DvTime dateTime, ParsedInterval<ZonedDateTime> interval) {
+        interval.check(ZonedDateTime.from(dateTime.getValue()));
     }
 
     public static void isWithinBoundaries(ZonedDateTime valueDate, IntervalOfDate intervalOfDate) throws Exception {
-
-        String lower = (intervalOfDate.isSetLower() ? intervalOfDate.getLower() : null);
-        String upper = (intervalOfDate.isSetUpper() ? intervalOfDate.getUpper() : null);
-
-        ZonedDateTime lowerDate, upperDate;
-        //Date massage...
-        if (lower != null)
-            lowerDate = ZonedDateTime.parse(lower);
-        else
-            lowerDate =  new ZonedDateTimeUtil().min();
-
-        if (upper != null)
-            upperDate = ZonedDateTime.parse(upper);
-        else
-            upperDate = new ZonedDateTimeUtil().max();
-
-        compareWithinInterval(valueDate, intervalOfDate, lowerDate, upperDate);
+        ParsedInterval.of(intervalOfDate).check(valueDate);
     }
 
     public static void isWithinBoundaries(String rawDateTime, IntervalOfDateTime intervalOfDateTime) throws Exception {
@@ -185,23 +111,7 @@ public class IntervalComparator {
     }
 
     public static void isWithinBoundaries(ZonedDateTime valueDateTime, IntervalOfDateTime intervalOfDateTime) throws Exception {
-
-        String lower = (intervalOfDateTime.isSetLower() ? intervalOfDateTime.getLower() : null);
-        String upper = (intervalOfDateTime.isSetUpper() ? intervalOfDateTime.getUpper() : null);
-
-        ZonedDateTime lowerDateTime, upperDateTime;
-        //Date massage...
-        if (lower != null)
-            lowerDateTime = ZonedDateTime.parse(lower);
-        else
-            lowerDateTime = new ZonedDateTimeUtil().min();;
-
-        if (upper != null)
-            upperDateTime = ZonedDateTime.parse(upper);
-        else
-            upperDateTime = new ZonedDateTimeUtil().max();
-
-        compareWithinInterval(valueDateTime, intervalOfDateTime, lowerDateTime, upperDateTime);
+        ParsedInterval.of(intervalOfDateTime).check(valueDateTime);
     }
 
     public static void isWithinBoundaries(String rawTime, IntervalOfTime intervalOfTime) throws Exception {
@@ -210,24 +120,7 @@ public class IntervalComparator {
     }
 
     public static void isWithinBoundaries(ZonedDateTime valueTime, IntervalOfTime intervalOfTime) throws Exception {
-
-        String lower = (intervalOfTime.isSetLower() ? intervalOfTime.getLower() : null);
-        String upper = (intervalOfTime.isSetUpper() ? intervalOfTime.getUpper() : null);
-
-        ZonedDateTime lowerTime, upperTime;
-        //Date massage...
-        if (lower != null)
-            lowerTime = ZonedDateTime.parse(lower);
-        else
-            lowerTime = new ZonedDateTimeUtil().min();;
-
-
-        if (upper != null)
-            upperTime = ZonedDateTime.parse(upper);
-        else
-            upperTime = new ZonedDateTimeUtil().min();;
-
-        compareWithinInterval(valueTime, intervalOfTime, lowerTime, upperTime);
+        ParsedInterval.of(intervalOfTime).check(valueTime);
     }
 
     public static void isWithinBoundaries(String rawDuration, IntervalOfDuration intervalOfDuration) throws Exception {
@@ -238,23 +131,7 @@ public class IntervalComparator {
     }
 
     public static void isWithinBoundaries(Duration valueDuration, IntervalOfDuration intervalOfDuration) throws Exception {
-
-        String lower = (intervalOfDuration.isSetLower() ? intervalOfDuration.getLower() : null);
-        String upper = (intervalOfDuration.isSetUpper() ? intervalOfDuration.getUpper() : null);
-
-        Duration lowerDuration, upperDuration;
-        //Date massage...
-        if (lower != null)
-            lowerDuration = Duration.parse(lower);
-        else
-            lowerDuration = Duration.ZERO;
-
-        if (upper != null)
-            upperDuration = Duration.parse(upper);
-        else
-            upperDuration = Duration.of(Long.MAX_VALUE, ChronoUnit.FOREVER);
-
-        compareWithinInterval(valueDuration, intervalOfDuration, lowerDuration, upperDuration);
+        ParsedInterval.of(intervalOfDuration).check(valueDuration);
     }
 
     public static boolean isOptional(IntervalOfInteger intervalOfInteger) {
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.validation.constraints.wrappers;
+
+import org.ehrbase.validation.constraints.ConstraintOccurrences;
+import org.ehrbase.validation.constraints.util.ZonedDateTimeUtil;
+import org.openehr.schemas.v1.Interval;
+import org.openehr.schemas.v1.IntervalOfDate;
+import org.openehr.schemas.v1.IntervalOfDateTime;
+import org.openehr.schemas.v1.IntervalOfDuration;
+import org.openehr.schemas.v1.IntervalOfInteger;
+import org.openehr.schemas.v1.IntervalOfReal;
+import org.openehr.schemas.v1.IntervalOfTime;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * An OPT interval with its boundaries parsed once.
+ *
+ * The boundaries of an XML interval are stored as strings (dates, times, durations) or as XML values, parsing them
+ * for every checked value is costly when the same constraint is applied to many compositions. The defaults used
+ * for unset boundaries are the ones historically used by {@link IntervalComparator}.
+ *
+ * @param <T> the type of the boundaries and of the checked values
+ */
+public class ParsedInterval<T extends Comparable<? super T>> {
+
+    private final T lower;
+    private final T upper;
+    private final boolean lowerIncluded;
+    private final boolean upperIncluded;
+
+    public ParsedInterval(T lower, T upper, boolean lowerIncluded, boolean upperIncluded) {
+        this.lower = lower;
+        this.upper = upper;
+        this.lowerIncluded = lowerIncluded;
+        this.upperIncluded = upperIncluded;
+    }
+
+    /**
+     * check a value against this interval
+     * @param value the value to check
+     * @throws IllegalArgumentException if the value is outside the interval
+     */
+    public void check(T value) {
+        boolean lowerMatched = lowerIncluded ? value.compareTo(lower) >= 0 : value.compareTo(lower) > 0;
+        boolean upperMatched = upperIncluded ? value.compareTo(upper) <= 0 : value.compareTo(upper) < 0;
+
+        if (lowerMatched && upperMatched)
+            return;
+
+        throw new IllegalArgumentException("value is not within interval, expected:" + lower + (lowerIncluded ? " <= " : " < ") + value + (upperIncluded ? " <= " : " < ") + upper);
+    }
+
+    public T getLower() {
+        return lower;
+    }
+
+    public T getUpper() {
+        return upper;
+    }
+
+    public boolean isLowerIncluded() {
+        return lowerIncluded;
+    }
+
+    public boolean isUpperIncluded() {
+        return upperIncluded;
+    }
+
+    public static ParsedInterval<Float> of(IntervalOfReal intervalOfReal) {
+        Float lower = (intervalOfReal.isSetLower() ? intervalOfReal.getLower() : Float.MIN_VALUE);
+        Float upper = (intervalOfReal.isSetUpper() ? intervalOfReal.getUpper() : Float.MAX_VALUE);
+        return new ParsedInterval<>(lower, upper, isLowerIncluded(intervalOfReal), isUpperIncluded(intervalOfReal));
+    }
+
+    public static ParsedInterval<Integer> of(IntervalOfInteger intervalOfInteger) {
+        Integer lower = (intervalOfInteger.isSetLower() ? intervalOfInteger.getLower() : Integer.MIN_VALUE);
+        Integer upper = (intervalOfInteger.isSetUpper() ? intervalOfInteger.getUpper() : Integer.MAX_VALUE);
+        return new ParsedInterval<>(lower, upper, isLowerIncluded(intervalOfInteger), isUpperIncluded(intervalOfInteger));
+    }
+
+    public static ParsedInterval<Integer> of(ConstraintOccurrences occurrences) {
+        return new ParsedInterval<>(occurrences.getLower(), occurrences.getUpper(), Boolean.TRUE.equals(occurrences.getLowerIncluded()), Boolean.TRUE.equals(occurrences.getUpperIncluded()));
+    }
+
+    public static ParsedInterval<ZonedDateTime> of(IntervalOfDate intervalOfDate) {
+        ZonedDateTime lower = (intervalOfDate.isSetLower() ? ZonedDateTime.parse(intervalOfDate.getLower()) : new ZonedDateTimeUtil().min());
+        ZonedDateTime upper = (intervalOfDate.isSetUpper() ? ZonedDateTime.parse(intervalOfDate.getUpper()) : new ZonedDateTimeUtil().max());
+        return new ParsedInterval<>(lower, upper, isLowerIncluded(intervalOfDate), isUpperIncluded(intervalOfDate));
+    }
+
+    public static ParsedInterval<ZonedDateTime> of(IntervalOfDateTime intervalOfDateTime) {
+        ZonedDateTime lower = (intervalOfDateTime.isSetLower() ? ZonedDateTime.parse(intervalOfDateTime.getLower()) : new ZonedDateTimeUtil().min());
+        ZonedDateTime upper = (intervalOfDateTime.isSetUpper() ? ZonedDateTime.parse(intervalOfDateTime.getUpper()) : new ZonedDateTimeUtil().max());
+        return new ParsedInterval<>(lower, upper, isLowerIncluded(intervalOfDateTime), isUpperIncluded(intervalOfDateTime));
+    }
+
+    public static ParsedInterval<ZonedDateTime> of(IntervalOfTime intervalOfTime) {
+        ZonedDateTime lower = (intervalOfTime.isSetLower() ? ZonedDateTime.parse(intervalOfTime.getLower()) : new ZonedDateTimeUtil().min());
+        ZonedDateTime upper = (intervalOfTime.isSetUpper() ? ZonedDateTime.parse(intervalOfTime.getUpper()) : new ZonedDateTimeUtil().min());
+        return new ParsedInterval<>(lower, upper, isLowerIncluded(intervalOfTime), isUpperIncluded(intervalOfTime));
+    }
+
+    public static ParsedInterval<Duration> of(IntervalOfDuration intervalOfDuration) {
+        Duration lower = (intervalOfDuration.isSetLower() ? Duration.parse(intervalOfDuration.getLower()) : Duration.ZERO);
+        Duration upper = (intervalOfDuration.isSetUpper() ? Duration.parse(intervalOfDuration.getUpper()) : Duration.of(Long.MAX_VALUE, ChronoUnit.FOREVER));
+        return new ParsedInterval<>(lower, upper, isLowerIncluded(intervalOfDuration), isUpperIncluded(intervalOfDuration));
+    }
+
+    private static boolean isLowerIncluded(Interval interval) {
+        return interval.isSetLowerIncluded() && interval.getLowerIncluded();
+    }
+
+    private static boolean isUpperIncluded(Interval interval) {
+        return interval.isSetUpperIncluded() && interval.getUpperIncluded();
+    }
+}
@@ -23,7 +23,12 @@ import org.ehrbase.terminology.openehr.implementation.LocalizedTerminologies;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Visitor of an item structure to perform specific validations:
@@ -33,11 +38,12 @@ import java.util.Map;
 public class ItemStructureVisitor implements I_ItemStructureVisitor {
 
     protected static Logger log = LoggerFactory.getLogger(ItemStructureVisitor.class);
-    private int elementOccurrences = 0; //for statistics and testing
+    private final AtomicInteger elementOccurrences = new AtomicInteger(); //for statistics and testing
     private ItemValidator itemValidator = new ItemValidator();
     private LocalizedTerminologies localizedTerminologies;
     private AttributeCodesetMapping codesetMapping;
     private String itemStructureLanguage = "en"; //if a composition, the language can be found in the structure
+    private ForkJoinPool contentItemPool; //if set, the top level content items are traversed in parallel
 
     public ItemStructureVisitor(LocalizedTerminologies localizedTerminologies) throws NoSuchMethodException, IllegalAccessException, ClassNotFoundException {
         this.localizedTerminologies = localizedTerminologies;
@@ -82,9 +88,7 @@ public class ItemStructureVisitor implements I_ItemStructureVisitor {
 
         new Pathables(localizedTerminologies.locale(itemStructureLanguage), codesetMapping, itemValidator, itemStructureLanguage).traverse(composition, "content");
 
-        for (ContentItem item : composition.getContent()) {
-            traverse(item);
-        }
+        traverseContent(composition.getContent());
 
         if (composition.getContext() != null && composition.getContext().getOtherContext() != null)
             validate(composition.getContext().getOtherContext());
@@ -374,7 +378,7 @@ public class ItemStructureVisitor implements I_ItemStructureVisitor {
 
     protected void validateElement(Element element) throws IllegalArgumentException, InternalError {
         log.debug("should validate this element:"+element);
-        elementOccurrences += 1;
+        elementOccurrences.incrementAndGet();
 
         if (element.getNullFlavour() != null && itemValidator.isValidatedRmObjectType(element.getNullFlavour())){
             itemValidator.validate(localizedTerminologies.locale(itemStructureLanguage), codesetMapping, null, element.getNullFlavour(), itemStructureLanguage);
@@ -422,6 +426,56 @@ public class ItemStructureVisitor implements I_ItemStructureVisitor {
     }
 
     public int getElementOccurrences() {
-        return elementOccurrences;
+        return elementOccurrences.get();
+    }
+
+    /**
+     * traverse the top level content items of a composition in the content item pool (if any).
+     * The items are independent from each other; all of them are traversed and the error of the first failing item
+     * in content order is raised, as it would be by a sequential traversal.
+     * @param content the composition content
+     * @throws IllegalArgumentException, InternalError
+     */
+    private void traverseContent(List<ContentItem> content) throws IllegalArgumentException, InternalError {
+        if (contentItemPool == null || content.size() < 2) {
+            for (ContentItem item : content) {
+                traverse(item);
+            }
+            return;
+        }
+
+        Throwable[] failures = new Throwable[content.size()];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(content.size());
+
+        for (int i = 0; i < content.size(); i++) {
+            final int index = i;
+            ContentItem item = content.get(i);
+            tasks.add(contentItemPool.submit(() -> {
+                try {
+                    traverse(item);
+                } catch (RuntimeException | Error e) {
+                    failures[index] = e;
+                }
+            }));
+        }
+
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+
+        for (Throwable failure : failures) {
+            if (failure instanceof RuntimeException)
+                throw (RuntimeException) failure;
+            else if (failure instanceof Error)
+                throw (Error) failure;
+        }
+    }
+
+    /**
+     * set the pool used to traverse the top level content items of a composition in parallel
+     * @param contentItemPool a fork-join pool, null to traverse the content sequentially
+     */
+    public void setContentItemPool(ForkJoinPool contentItemPool) {
+        this.contentItemPool = contentItemPool;
     }
 }
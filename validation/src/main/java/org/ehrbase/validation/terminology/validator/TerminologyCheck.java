@@ -19,6 +19,7 @@ package org.ehrbase.validation.terminology.validator;
 
 import com.nedap.archie.rm.datatypes.CodePhrase;
 import com.nedap.archie.rm.datavalues.DvCodedText;
+import org.ehrbase.terminology.openehr.TerminologyAccess;
 import org.ehrbase.terminology.openehr.TerminologyInterface;
 import org.ehrbase.terminology.openehr.implementation.AttributeCodesetMapping;
 import org.ehrbase.terminology.openehr.implementation.ContainerType;
@@ -28,27 +29,26 @@ public class TerminologyCheck implements I_TerminologyCheck {
     protected Class RM_CLASS;
 
     public static void validate(TerminologyInterface terminologyInterface, AttributeCodesetMapping codesetMapping, String context, CodePhrase codePhrase, String language) {
+        String terminologyId = codePhrase.getTerminologyId().getValue();
         //if terminology id == 'local' (e.g. defined at Template level) skip the validation
-        if (codePhrase.getTerminologyId().getValue().equals("local"))
+        if (terminologyId.equals("local"))
             return;
 
-        //get the actual attribute
-        if (!codesetMapping.isLocalizedAttribute(codePhrase.getTerminologyId().getValue(), context, language))
-            language = "en"; //default to English for the rest of the validation
-
-        String attribute = codesetMapping.actualAttributeId(codePhrase.getTerminologyId().getValue(), context, language);
-        ContainerType containerType = codesetMapping.containerType(codePhrase.getTerminologyId().getValue(), context);
+        //get the actual attribute, defaults to English if not localized
+        AttributeCodesetMapping.AttributeCodeset attributeCodeset = codesetMapping.attributeCodeset(terminologyId, context, language);
+        String attribute = attributeCodeset.getAttributeId();
+        ContainerType containerType = attributeCodeset.getContainerType();
 
         switch (containerType){
             case GROUP: //a code string defined within a group of a codeset
-                boolean valid = terminologyInterface.terminology(codePhrase.getTerminologyId().getValue()).hasCodeForGroupId(attribute, codePhrase);
+                boolean valid = terminologyInterface.terminology(terminologyId).hasCodeForGroupId(attribute, codePhrase);
                 if (!valid){
                     throw new IllegalArgumentException("supplied code string ["+codePhrase.getCodeString()+"] is not found in group:"+attribute);
                 }
                 break;
 
             case CODESET: //a codestring defined in a codeset
-                valid = terminologyInterface.codeSet(codePhrase.getTerminologyId().getValue()).hasCode(codePhrase);
+                valid = terminologyInterface.codeSet(terminologyId).hasCode(codePhrase);
                 if (!valid){
                     throw new IllegalArgumentException("supplied code string ["+codePhrase.getCodeString()+"] is not found in codeset:"+attribute);
                 }
@@ -69,13 +69,15 @@ public class TerminologyCheck implements I_TerminologyCheck {
     public static void validate(TerminologyInterface terminologyInterface, AttributeCodesetMapping codesetMapping, String context, DvCodedText dvCodedText, String language) throws Exception {
         validate(terminologyInterface, codesetMapping, context, dvCodedText.getDefiningCode(), language);
 
-        if (terminologyInterface.terminology(dvCodedText.getDefiningCode().getTerminologyId().getValue()) == null) //terminology is NOT defined
+        String terminologyId = dvCodedText.getDefiningCode().getTerminologyId().getValue();
+        TerminologyAccess terminology = terminologyInterface.terminology(terminologyId);
+        if (terminology == null) //terminology is NOT defined
             return;
 
-        if (!codesetMapping.isLocalizedAttribute(dvCodedText.getDefiningCode().getTerminologyId().getValue(), context, language))
-            language = "en"; //default to English for the rest of the validation
+        //default to English for the rest of the validation if not localized
+        language = codesetMapping.attributeCodeset(terminologyId, context, language).getLanguage();
 
-        String rubric = terminologyInterface.terminology(dvCodedText.getDefiningCode().getTerminologyId().getValue()).rubricForCode(dvCodedText.getDefiningCode().getCodeString(), language);
+        String rubric = terminology.rubricForCode(dvCodedText.getDefiningCode().getCodeString(), language);
         boolean valid = rubric.equals(dvCodedText.getValue());
         if (!valid){
             throw new IllegalArgumentException("supplied value ["
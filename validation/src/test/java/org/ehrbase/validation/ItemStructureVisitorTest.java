@@ -20,6 +20,7 @@ package org.ehrbase.validation;
 
 import com.nedap.archie.rm.archetyped.Locatable;
 import com.nedap.archie.rm.composition.Composition;
+import com.nedap.archie.rm.composition.ContentItem;
 import com.nedap.archie.rm.datastructures.Element;
 import com.nedap.archie.rm.datastructures.Item;
 import com.nedap.archie.rm.datastructures.ItemTree;
@@ -40,18 +41,27 @@ import org.ehrbase.terminology.openehr.implementation.SimpleTerminologyInterface
 import org.ehrbase.test_data.item_structure.ItemStruktureTestDataCanonicalJson;
 import org.ehrbase.validation.terminology.ItemStructureVisitor;
 import org.junit.Before;
+import org.junit.Ignore;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.xml.bind.Unmarshaller;
 import java.io.File;
 import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
 
 public class ItemStructureVisitorTest {
 
+    private static final Logger log = LoggerFactory.getLogger(ItemStructureVisitorTest.class);
+
     LocalizedTerminologies localizedTerminologies;
     AttributeCodesetMapping codesetMapping;
     ItemStructureVisitor itemStructureVisitor;
@@ -87,6 +97,93 @@ public class ItemStructureVisitorTest {
         assertEquals(65, itemStructureVisitor.getElementOccurrences());
 
     }
+
+    @Test
+    public void parallelContentVisitorTest() throws Throwable {
+        Unmarshaller unmarshaller = JAXBUtil.createRMContext().createUnmarshaller();
+        Composition composition = (Composition) unmarshaller.unmarshal(new FileInputStream(new File("./src/test/resources/composition/RIPPLE-ConformanceTest.xml")));
+
+        itemStructureVisitor.setContentItemPool(ForkJoinPool.commonPool());
+        itemStructureVisitor.validate(composition);
+        assertEquals(61, itemStructureVisitor.getElementOccurrences());
+    }
+
+    @Test
+    public void parallelContentVisitorErrorOrderTest() throws Throwable {
+        Unmarshaller unmarshaller = JAXBUtil.createRMContext().createUnmarshaller();
+        Composition composition = (Composition) unmarshaller.unmarshal(new FileInputStream(new File("./src/test/resources/composition/RIPPLE-ConformanceTest.xml")));
+
+        //number the elements in content order
+        List<Element> elements = new ArrayList<>();
+        new ItemStructureVisitor(localizedTerminologies) {
+            @Override
+            protected void validateElement(Element element) {
+                elements.add(element);
+            }
+        }.validate(composition);
+
+        //every element fails, the first one of the first content item finishes last
+        ItemStructureVisitor failingVisitor = new ItemStructureVisitor(localizedTerminologies) {
+            @Override
+            protected void validateElement(Element element) {
+                int index = 0;
+                while (elements.get(index) != element)
+                    index++;
+                if (index == 0)
+                    sleep(200);
+                throw new IllegalArgumentException("invalid element " + index);
+            }
+        };
+        failingVisitor.setContentItemPool(new ForkJoinPool(4));
+
+        try {
+            failingVisitor.validate(composition);
+            fail("validation should fail");
+        } catch (IllegalArgumentException e) {
+            assertEquals("invalid element 0", e.getMessage());
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * compare sequential and parallel terminology checks of a large composition (the content of a sample
+     * composition replicated 100 times). Run manually on a multi-core host.
+     */
+    @Test
+    @Ignore("benchmark")
+    public void parallelContentVisitorBenchmark() throws Throwable {
+        Unmarshaller unmarshaller = JAXBUtil.createRMContext().createUnmarshaller();
+        Composition composition = (Composition) unmarshaller.unmarshal(new FileInputStream(new File("./src/test/resources/composition/RIPPLE-ConformanceTest.xml")));
+
+        List<ContentItem> content = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            content.addAll(composition.getContent());
+        composition.setContent(content);
+
+        for (int run = 0; run < 10; run++) {
+            ItemStructureVisitor sequential = new ItemStructureVisitor(localizedTerminologies);
+            long start = System.nanoTime();
+            sequential.validate(composition);
+            long sequentialTime = System.nanoTime() - start;
+
+            ItemStructureVisitor parallel = new ItemStructureVisitor(localizedTerminologies);
+            parallel.setContentItemPool(ForkJoinPool.commonPool());
+            start = System.nanoTime();
+            parallel.validate(composition);
+            long parallelTime = System.nanoTime() - start;
+
+            assertEquals(sequential.getElementOccurrences(), parallel.getElementOccurrences());
+            log.info("run {}: sequential {} ms, parallel {} ms ({} workers)", run, sequentialTime / 1000000, parallelTime / 1000000, ForkJoinPool.commonPool().getParallelism());
+        }
+    }
+
     @Test
     public void elementVisitorTest3() throws Throwable {
         Unmarshaller unmarshaller = JAXBUtil.createRMContext().createUnmarshaller();
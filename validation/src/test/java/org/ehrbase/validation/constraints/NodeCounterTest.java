@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.validation.constraints;
+
+import com.nedap.archie.rm.datastructures.Cluster;
+import com.nedap.archie.rm.datastructures.Element;
+import com.nedap.archie.rm.datavalues.DvText;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class NodeCounterTest {
+
+    private Element element(String value) {
+        Element element = new Element();
+        element.setArchetypeNodeId("at0001");
+        element.setName(new DvText("element"));
+        if (value != null)
+            element.setValue(new DvText(value));
+        return element;
+    }
+
+    @Test
+    public void testMemoizedCount() {
+        Cluster inner = new Cluster();
+        inner.setItems(new ArrayList<>(Arrays.asList(element("a"), element(null))));
+        Cluster outer = new Cluster();
+        outer.setItems(new ArrayList<>(Arrays.asList(inner, element("b"))));
+
+        Map<Object, Integer> memo = new IdentityHashMap<>();
+
+        NodeCounter counter = new NodeCounter(memo);
+        counter.count(outer);
+        assertEquals(Integer.valueOf(2), counter.getCount());
+        assertEquals(Integer.valueOf(1), memo.get(inner));
+
+        //a memoized subtree is not traversed again
+        inner.getItems().add(element("c"));
+        NodeCounter second = new NodeCounter(memo);
+        second.count(inner);
+        assertEquals(Integer.valueOf(1), second.getCount());
+
+        NodeCounter unmemoized = new NodeCounter();
+        unmemoized.count(outer);
+        assertEquals(Integer.valueOf(3), unmemoized.getCount());
+    }
+}
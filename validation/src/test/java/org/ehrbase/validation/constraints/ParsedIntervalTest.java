@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020 Vitasystems GmbH and Hannover Medical School.
+ *
+ * This file is part of project EHRbase
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehrbase.validation.constraints;
+
+import org.ehrbase.validation.constraints.wrappers.ConstraintCache;
+import org.ehrbase.validation.constraints.wrappers.ParsedInterval;
+import org.junit.Test;
+import org.openehr.schemas.v1.IntervalOfDuration;
+import org.openehr.schemas.v1.IntervalOfInteger;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+public class ParsedIntervalTest {
+
+    @Test
+    public void testIntegerBoundaries() {
+        IntervalOfInteger intervalOfInteger = IntervalOfInteger.Factory.newInstance();
+        intervalOfInteger.setLower(1);
+        intervalOfInteger.setUpper(3);
+        intervalOfInteger.setLowerIncluded(true);
+        intervalOfInteger.setUpperIncluded(false);
+
+        ParsedInterval<Integer> interval = ParsedInterval.of(intervalOfInteger);
+        interval.check(1);
+        interval.check(2);
+
+        try {
+            interval.check(3);
+            fail("upper boundary should be excluded");
+        } catch (IllegalArgumentException e) {
+            assertEquals("value is not within interval, expected:1 <= 3 < 3", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testUnsetBoundaries() {
+        IntervalOfInteger intervalOfInteger = IntervalOfInteger.Factory.newInstance();
+        intervalOfInteger.setLowerIncluded(true);
+        intervalOfInteger.setUpperIncluded(true);
+
+        ParsedInterval<Integer> interval = ParsedInterval.of(intervalOfInteger);
+        assertEquals(Integer.valueOf(Integer.MIN_VALUE), interval.getLower());
+        assertEquals(Integer.valueOf(Integer.MAX_VALUE), interval.getUpper());
+        interval.check(0);
+    }
+
+    @Test
+    public void testCachedInterval() {
+        IntervalOfDuration intervalOfDuration = IntervalOfDuration.Factory.newInstance();
+        intervalOfDuration.setLower("PT1H");
+        intervalOfDuration.setUpper("PT2H");
+        intervalOfDuration.setLowerIncluded(true);
+        intervalOfDuration.setUpperIncluded(true);
+
+        ConstraintCache constraintCache = new ConstraintCache();
+        ParsedInterval<Duration> interval = constraintCache.interval(intervalOfDuration);
+
+        assertSame(interval, constraintCache.interval(intervalOfDuration));
+        assertEquals(Duration.ofHours(1), interval.getLower());
+        interval.check(Duration.ofMinutes(90));
+
+        try {
+            interval.check(Duration.ofMinutes(150));
+            fail("value above upper boundary not detected");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+}
@@ -23,9 +23,16 @@ import com.nedap.archie.rm.datavalues.DvCodedText;
 import com.nedap.archie.rm.support.identification.TerminologyId;
 import org.ehrbase.terminology.openehr.implementation.AttributeCodesetMapping;
 import org.ehrbase.terminology.openehr.implementation.LocalizedTerminologies;
+import org.ehrbase.terminology.openehr.implementation.ContainerType;
 import org.junit.Before;
+import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
 public class TerminologyCheckTest {
@@ -72,4 +79,39 @@ public class TerminologyCheckTest {
         org.ehrbase.validation.terminology.validator.CodePhrase.validate(localizedTerminologies.getDefault(), codesetMapping, null, codePhrase);
     }
 
+    @Test
+    public void testAttributeCodeset() {
+        AttributeCodesetMapping.AttributeCodeset attributeCodeset = codesetMapping.attributeCodeset("openehr", "category", "pt");
+        assertEquals("pt", attributeCodeset.getLanguage());
+        assertEquals("categoria de composição", attributeCodeset.getAttributeId());
+        assertEquals(ContainerType.GROUP, attributeCodeset.getContainerType());
+        assertSame(attributeCodeset, codesetMapping.attributeCodeset("openehr", "category", "pt"));
+
+        //not localized, defaults to English
+        attributeCodeset = codesetMapping.attributeCodeset("openehr", "category", "xx");
+        assertEquals("en", attributeCodeset.getLanguage());
+        assertEquals("composition category", attributeCodeset.getAttributeId());
+    }
+
+    @Test
+    @Ignore("benchmark")
+    public void codedTextValidationBenchmark() throws Exception {
+        //the coded texts of a composition dense in openehr codes: category, setting, null flavours...
+        List<Object[]> codedTexts = new ArrayList<>();
+        codedTexts.add(new Object[]{"category", new DvCodedText("event", new CodePhrase(new TerminologyId("openehr"), "433"))});
+        codedTexts.add(new Object[]{"setting", new DvCodedText("nursing home care", new CodePhrase(new TerminologyId("openehr"), "237"))});
+        codedTexts.add(new Object[]{"setting", new DvCodedText("secondary allied health care", new CodePhrase(new TerminologyId("openehr"), "234"))});
+        codedTexts.add(new Object[]{"null_flavour", new DvCodedText("unknown", new CodePhrase(new TerminologyId("openehr"), "253"))});
+        codedTexts.add(new Object[]{"null_flavour", new DvCodedText("no information", new CodePhrase(new TerminologyId("openehr"), "271"))});
+
+        for (int run = 0; run < 10; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < 100000; i++) {
+                for (Object[] codedText : codedTexts)
+                    org.ehrbase.validation.terminology.validator.DvCodedText.validate(localizedTerminologies.locale("en"), codesetMapping, (String) codedText[0], (DvCodedText) codedText[1], "en");
+            }
+            long time = System.nanoTime() - start;
+            System.out.println("run " + run + ": " + 100000 * codedTexts.size() + " coded texts in " + time / 1000000 + " ms");
+        }
+    }
 }